@@ -1,14 +1,55 @@
 package com.msapay.banking.config;
 
+import com.msapay.common.idempotency.IdempotentConsumer;
+import com.msapay.common.saga.SagaMessage;
+import com.msapay.common.saga.SagaMessageListenerFactory;
+import com.msapay.common.saga.SagaMessageSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 
 @Configuration
 @ComponentScan("com.msapay.common")
-@EntityScan("com.msapay.banking.persistence")
+@EntityScan({"com.msapay.banking.persistence", "com.msapay.common.idempotency"})
 @EnableJpaRepositories("com.msapay.banking.persistence")
 public class BankingConfig {
-}
 
+    // saga 명령/결과 토픽 전용 producer/consumer. saga.message.format=json 이면 디버깅용 JSON 으로 보낸다.
+    @Bean
+    SagaMessageSender sagaMessageSender(KafkaProperties kafkaProperties,
+                                        @Value("${saga.message.format:binary}") String format) {
+        return new SagaMessageSender(kafkaProperties, format);
+    }
+
+    @Bean(name = SagaMessageListenerFactory.BEAN_NAME)
+    ConcurrentKafkaListenerContainerFactory<String, SagaMessage> sagaMessageListenerContainerFactory(KafkaProperties kafkaProperties) {
+        return SagaMessageListenerFactory.create(kafkaProperties);
+    }
+
+    // 펌뱅킹 요청은 poll 단위로 받아 등록 계좌를 한 번에 조회한다
+    @Bean(name = SagaMessageListenerFactory.BATCH_BEAN_NAME)
+    ConcurrentKafkaListenerContainerFactory<String, SagaMessage> sagaMessageBatchListenerContainerFactory(
+            KafkaProperties kafkaProperties,
+            @Value("${banking.firmbanking.batch.max-records:500}") int maxRecords) {
+        return SagaMessageListenerFactory.createBatch(kafkaProperties, maxRecords);
+    }
+
+    // 펌뱅킹 명령을 (sagaId, 단계) 당 한 번만 실행한다
+    @Bean
+    IdempotentConsumer idempotentConsumer(JdbcTemplate jdbcTemplate,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${idempotency.retention-ms:604800000}") long retentionMillis,
+                                          @Value("${idempotency.claim-timeout-ms:60000}") long claimTimeoutMillis,
+                                          @Value("${idempotency.cache-size:100000}") int cacheSize,
+                                          @Value("${idempotency.purge-interval-ms:60000}") long purgeIntervalMillis) {
+        return new IdempotentConsumer(jdbcTemplate, meterRegistry, "banking",
+                retentionMillis, claimTimeoutMillis, cacheSize, purgeIntervalMillis);
+    }
+}
@@ -2,7 +2,9 @@ package com.msapay.banking.controller;
 
 import com.msapay.banking.controller.command.GetBankAccountBalanceCommand;
 import com.msapay.banking.controller.command.GetRegisteredBankAccountCommand;
+import com.msapay.banking.controller.command.GetRegisteredBankAccountsCommand;
 import com.msapay.banking.controller.request.GetBankAccountBalanceRequest;
+import com.msapay.banking.controller.request.GetRegisteredBankAccountsRequest;
 import com.msapay.banking.controller.request.RegisterBankAccountRequest;
 import com.msapay.banking.service.usecase.GetBankAccountBalanceUseCase;
 import com.msapay.banking.service.usecase.GetRegisteredBankAccountUseCase;
@@ -12,6 +14,8 @@ import com.msapay.common.WebAdapter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 
 @WebAdapter
 @RestController
@@ -28,6 +32,13 @@ public class GetRegisteredBankAccountController {
         return getRegisteredBankAccountUseCase.getRegisteredBankAccount(command);
     }
 
+    // 여러 membershipId 의 등록 계좌를 한 번에 조회한다. 등록 계좌가 없는 membershipId 는 결과에서 빠진다.
+    @PostMapping(path = "/banking/accounts:batchGet")
+    List<RegisteredBankAccount> getRegisteredBankAccounts(@RequestBody GetRegisteredBankAccountsRequest request) {
+        GetRegisteredBankAccountsCommand command = GetRegisteredBankAccountsCommand.builder().membershipIds(request.getMembershipIds()).build();
+        return getRegisteredBankAccountUseCase.getRegisteredBankAccounts(command);
+    }
+
     @PostMapping(path = "/banking/account/balance")
     long getBankAccountBalance(@RequestBody GetBankAccountBalanceRequest request) {
         GetBankAccountBalanceCommand command = GetBankAccountBalanceCommand.builder().bankName(request.getBankName()).bankAccountNumber(request.getBankAccountNumber()).build();
@@ -24,6 +24,7 @@ public class RequestFirmbankingController {
                 .fromBankName(request.getFromBankName())
                 .fromBankAccountNumber(request.getFromBankAccountNumber())
                 .moneyAmount(request.getMoneyAmount())
+                .idempotencyKey(request.getIdempotencyKey())
                 .build();
 
         return requestFirmbankingUseCase.requestFirmbanking(command);
@@ -0,0 +1,25 @@
+package com.msapay.banking.controller.command;
+
+
+import com.msapay.common.SelfValidating;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Builder
+@Data
+@EqualsAndHashCode(callSuper = false)
+public class GetRegisteredBankAccountsCommand extends SelfValidating<GetRegisteredBankAccountsCommand> {
+    @NotNull
+    @Size(max = 1000)
+    private final List<String> membershipIds;
+
+    public GetRegisteredBankAccountsCommand(List<String> membershipIds) {
+        this.membershipIds = membershipIds;
+        this.validateSelf();
+    }
+}
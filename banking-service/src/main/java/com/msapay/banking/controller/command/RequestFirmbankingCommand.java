@@ -25,11 +25,14 @@ public class RequestFirmbankingCommand extends SelfValidating<RequestFirmbanking
 
     private final int moneyAmount; // won
 
-    public RequestFirmbankingCommand(String fromBankName, String fromBankAccountNumber, String toBankName, String toBankAccountNumber, int moneyAmount) {
+    private final String idempotencyKey;
+
+    public RequestFirmbankingCommand(String fromBankName, String fromBankAccountNumber, String toBankName, String toBankAccountNumber, int moneyAmount, String idempotencyKey) {
         this.fromBankName = fromBankName;
         this.fromBankAccountNumber = fromBankAccountNumber;
         this.toBankName = toBankName;
         this.toBankAccountNumber = toBankAccountNumber;
         this.moneyAmount = moneyAmount;
+        this.idempotencyKey = idempotencyKey;
     }
 }
@@ -14,4 +14,6 @@ public class RequestFirmbankingRequest {
     private String toBankName;
     private String toBankAccountNumber;
     private int moneyAmount; // only won
+    // 같은 키로 다시 요청하면 처음 요청의 결과를 돌려준다. 없으면 매번 새로 요청한다.
+    private String idempotencyKey;
 }
@@ -1,27 +1,42 @@
 package com.msapay.banking.inbound.kafka;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.msapay.banking.controller.command.GetRegisteredBankAccountCommand;
+import com.msapay.banking.controller.command.GetRegisteredBankAccountsCommand;
 import com.msapay.banking.controller.command.RequestFirmbankingCommand;
 import com.msapay.banking.domain.FirmbankingRequest;
 import com.msapay.banking.domain.RegisteredBankAccount;
 import com.msapay.banking.service.usecase.GetRegisteredBankAccountUseCase;
 import com.msapay.banking.service.usecase.RequestFirmbankingUseCase;
+import com.msapay.common.idempotency.IdempotentConsumer;
+import com.msapay.common.saga.SagaCommandMessage;
+import com.msapay.common.saga.SagaMessage;
+import com.msapay.common.saga.SagaMessageListenerFactory;
+import com.msapay.common.saga.SagaMessageSender;
+import com.msapay.common.saga.SagaResultMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class FirmbankingRequestConsumer {
 
-    private final ObjectMapper objectMapper;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private static final String FIRMBANKING_STEP = "FIRMBANKING";
+    private static final String COMPENSATE_FIRMBANKING_STEP = "COMPENSATE_FIRMBANKING";
+    // GetRegisteredBankAccountsCommand 가 한 번에 받는 최대 membershipId 수
+    private static final int MAX_ACCOUNTS_PER_LOOKUP = 1000;
+
+    private final SagaMessageSender sagaMessageSender;
+    private final IdempotentConsumer idempotentConsumer;
     private final RequestFirmbankingUseCase requestFirmbankingUseCase;
     private final GetRegisteredBankAccountUseCase getRegisteredBankAccountUseCase;
     
@@ -31,79 +46,133 @@ public class FirmbankingRequestConsumer {
     @Value("${kafka.topics.compensate-firmbanking-result}")
     private String compensateResultTopic;
 
-    @KafkaListener(topics = "${kafka.topics.firmbanking-request}", groupId = "banking-service-group")
-    public void consumeFirmbankingRequest(String message) {
+    // poll 한 번에 받은 요청의 등록 계좌를 한 번에 조회해 두고 요청마다 이체한다
+    @KafkaListener(topics = "${kafka.topics.firmbanking-request}", groupId = "banking-service-group",
+            containerFactory = SagaMessageListenerFactory.BATCH_BEAN_NAME)
+    public void consumeFirmbankingRequests(List<SagaMessage> messages) {
+        List<SagaCommandMessage> commands = new ArrayList<>(messages.size());
+        for (SagaMessage message : messages) {
+            if (!(message instanceof SagaCommandMessage)) {
+                // 읽지 못한 메시지는 error handler 가 이미 기록했다
+                log.warn("Skipping unreadable firmbanking request: {}", message);
+                continue;
+            }
+            commands.add((SagaCommandMessage) message);
+        }
+
+        Map<String, RegisteredBankAccount> bankAccounts = prefetchBankAccounts(commands);
+        for (SagaCommandMessage command : commands) {
+            consumeFirmbankingRequest(command, bankAccounts.get(command.getMembershipId()));
+        }
+    }
+
+    // 조회에 실패하거나 빠진 membershipId 는 요청마다 캐시를 거쳐 다시 조회한다
+    private Map<String, RegisteredBankAccount> prefetchBankAccounts(List<SagaCommandMessage> commands) {
+        List<String> membershipIds = commands.stream()
+                .map(SagaCommandMessage::getMembershipId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<String, RegisteredBankAccount> bankAccounts = new HashMap<>();
+        try {
+            for (int from = 0; from < membershipIds.size(); from += MAX_ACCOUNTS_PER_LOOKUP) {
+                List<String> chunk = membershipIds.subList(from, Math.min(from + MAX_ACCOUNTS_PER_LOOKUP, membershipIds.size()));
+                for (RegisteredBankAccount bankAccount : getRegisteredBankAccountUseCase.getRegisteredBankAccounts(
+                        new GetRegisteredBankAccountsCommand(new ArrayList<>(chunk)))) {
+                    bankAccounts.put(bankAccount.getMembershipId(), bankAccount);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to prefetch registered bank accounts for {} members", membershipIds.size(), e);
+        }
+        return bankAccounts;
+    }
+
+    private void consumeFirmbankingRequest(SagaCommandMessage command, RegisteredBankAccount prefetchedBankAccount) {
+        IdempotentConsumer.Claim claim = idempotentConsumer.begin(command.getSagaId(), FIRMBANKING_STEP);
+        if (claim.isDuplicate()) {
+            // 이미 이체한 명령이다. 결과가 유실되었을 수 있으므로 저장된 결과만 다시 발행한다.
+            publishFirmbankingResult(command.getSagaId().toString(), claim.isSuccess(), claim.getReason());
+            return;
+        }
+        if (!claim.isAcquired()) {
+            return;
+        }
+
         try {
-            log.info("Received firmbanking request: {}", message);
+            log.info("Received firmbanking request: {}", command);
             
-            JsonNode event = objectMapper.readTree(message);
-            String sagaId = event.get("sagaId").asText();
-            String taskId = event.get("taskId").asText();
-            String membershipId = event.get("membershipId").asText();
-            int amount = event.get("amount").asInt();
+            String sagaId = command.getSagaId().toString();
+            String taskId = command.getTaskId();
+            String membershipId = command.getMembershipId();
+            int amount = command.getAmount();
             
             log.info("Processing firmbanking request - sagaId: {}, taskId: {}, membershipId: {}, amount: {}", 
                 sagaId, taskId, membershipId, amount);
             
             // 펌뱅킹 처리
-            boolean success = processFirmbanking(membershipId, amount);
+            boolean success = processFirmbanking(membershipId, amount, prefetchedBankAccount);
+            String reason = success ? "Success" : "Firmbanking failed";
+            idempotentConsumer.complete(command.getSagaId(), FIRMBANKING_STEP, success, reason);
             
             // 결과 이벤트 발행
-            publishFirmbankingResult(sagaId, success, success ? "Success" : "Firmbanking failed");
+            publishFirmbankingResult(sagaId, success, reason);
             
         } catch (Exception e) {
-            log.error("Failed to process firmbanking request: {}", message, e);
+            log.error("Failed to process firmbanking request: {}", command, e);
+            idempotentConsumer.release(command.getSagaId(), FIRMBANKING_STEP);
             
             // 에러 발생 시 실패 결과 발행
-            try {
-                JsonNode event = objectMapper.readTree(message);
-                String sagaId = event.get("sagaId").asText();
-                publishFirmbankingResult(sagaId, false, "Processing error: " + e.getMessage());
-            } catch (Exception ex) {
-                log.error("Failed to publish error result", ex);
-            }
+            publishFirmbankingResult(command.getSagaId().toString(), false, "Processing error: " + e.getMessage());
         }
     }
 
     // 보상 트랜잭션: 펌뱅킹 취소 처리
-    @KafkaListener(topics = "${kafka.topics.compensate-firmbanking}", groupId = "banking-service-group")
-    public void consumeCompensateFirmbanking(String message) {
+    @KafkaListener(topics = "${kafka.topics.compensate-firmbanking}", groupId = "banking-service-group",
+            containerFactory = SagaMessageListenerFactory.BEAN_NAME)
+    public void consumeCompensateFirmbanking(SagaCommandMessage command) {
+        IdempotentConsumer.Claim claim = idempotentConsumer.begin(command.getSagaId(), COMPENSATE_FIRMBANKING_STEP);
+        if (claim.isDuplicate()) {
+            publishCompensateFirmbankingResult(command.getSagaId().toString(), claim.isSuccess(), claim.getReason());
+            return;
+        }
+        if (!claim.isAcquired()) {
+            return;
+        }
+
         try {
-            log.info("Received compensate firmbanking request: {}", message);
+            log.info("Received compensate firmbanking request: {}", command);
             
-            JsonNode event = objectMapper.readTree(message);
-            String sagaId = event.get("sagaId").asText();
-            String taskId = event.get("taskId").asText();
-            String membershipId = event.get("membershipId").asText();
-            int amount = event.get("amount").asInt();
+            String sagaId = command.getSagaId().toString();
+            String taskId = command.getTaskId();
+            String membershipId = command.getMembershipId();
+            int amount = command.getAmount();
             
             log.info("Processing compensate firmbanking - sagaId: {}, taskId: {}, membershipId: {}, amount: {}", 
                 sagaId, taskId, membershipId, amount);
             
             // 펌뱅킹 보상 처리 (취소)
             boolean success = processFirmbankingCompensation(membershipId, amount);
+            String reason = success ? "Compensation completed" : "Compensation failed";
+            idempotentConsumer.complete(command.getSagaId(), COMPENSATE_FIRMBANKING_STEP, success, reason);
             
             // 보상 결과 이벤트 발행
-            publishCompensateFirmbankingResult(sagaId, success, success ? "Compensation completed" : "Compensation failed");
+            publishCompensateFirmbankingResult(sagaId, success, reason);
             
         } catch (Exception e) {
-            log.error("Failed to process compensate firmbanking request: {}", message, e);
+            log.error("Failed to process compensate firmbanking request: {}", command, e);
+            idempotentConsumer.release(command.getSagaId(), COMPENSATE_FIRMBANKING_STEP);
             
             // 에러 발생 시 실패 결과 발행
-            try {
-                JsonNode event = objectMapper.readTree(message);
-                String sagaId = event.get("sagaId").asText();
-                publishCompensateFirmbankingResult(sagaId, false, "Compensation error: " + e.getMessage());
-            } catch (Exception ex) {
-                log.error("Failed to publish compensation error result", ex);
-            }
+            publishCompensateFirmbankingResult(command.getSagaId().toString(), false, "Compensation error: " + e.getMessage());
         }
     }
 
-    private boolean processFirmbanking(String membershipId, int amount) {
+    private boolean processFirmbanking(String membershipId, int amount, RegisteredBankAccount prefetchedBankAccount) {
         try {
 
-            RegisteredBankAccount bankAccount = getRegisteredBankAccountUseCase.getRegisteredBankAccount(new GetRegisteredBankAccountCommand(membershipId));
+            RegisteredBankAccount bankAccount = prefetchedBankAccount != null
+                    ? prefetchedBankAccount
+                    : getRegisteredBankAccountUseCase.getRegisteredBankAccount(new GetRegisteredBankAccountCommand(membershipId));
 
             RequestFirmbankingCommand command = RequestFirmbankingCommand.builder()
                     .toBankName("corpAccountBank")
@@ -261,10 +330,7 @@ public class FirmbankingRequestConsumer {
 
     private void publishFirmbankingResult(String sagaId, boolean success, String reason) {
         try {
-            String resultMessage = createResultMessage(sagaId, success, reason);
-            String key = sagaId;
-            
-            kafkaTemplate.send(resultTopic, key, resultMessage);
+            sagaMessageSender.send(resultTopic, SagaResultMessage.of(sagaId, success, reason));
             
             log.info("Firmbanking result published - sagaId: {}, success: {}, reason: {}", 
                 sagaId, success, reason);
@@ -277,10 +343,8 @@ public class FirmbankingRequestConsumer {
     // 보상 결과 이벤트 발행
     private void publishCompensateFirmbankingResult(String sagaId, boolean success, String reason) {
         try {
-            String resultMessage = createCompensateResultMessage(sagaId, success, reason);
-            String key = sagaId;
-            
-            kafkaTemplate.send(compensateResultTopic, key, resultMessage);
+            sagaMessageSender.send(compensateResultTopic,
+                SagaResultMessage.compensation(sagaId, success, reason, "COMPENSATE_FIRMBANKING"));
             
             log.info("Compensate firmbanking result published - sagaId: {}, success: {}, reason: {}", 
                 sagaId, success, reason);
@@ -289,25 +353,4 @@ public class FirmbankingRequestConsumer {
             log.error("Failed to publish compensate firmbanking result for saga: {}", sagaId, e);
         }
     }
-
-    private String createResultMessage(String sagaId, boolean success, String reason) {
-        return String.format(
-            "{\"sagaId\":\"%s\",\"success\":%s,\"reason\":\"%s\",\"timestamp\":\"%s\"}",
-            sagaId,
-            success,
-            reason,
-            System.currentTimeMillis()
-        );
-    }
-
-    // 보상 결과 메시지 생성
-    private String createCompensateResultMessage(String sagaId, boolean success, String reason) {
-        return String.format(
-            "{\"sagaId\":\"%s\",\"success\":%s,\"reason\":\"%s\",\"type\":\"COMPENSATE_FIRMBANKING\",\"timestamp\":\"%s\"}",
-            sagaId,
-            success,
-            reason,
-            System.currentTimeMillis()
-        );
-    }
 }
@@ -3,7 +3,8 @@ package com.msapay.banking.outbound.service;
 import com.msapay.banking.service.port.GetMembershipPort;
 import com.msapay.banking.domain.MembershipStatus;
 import com.msapay.common.CommonHttpClient;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msapay.common.codec.JsonCodec;
+import com.msapay.common.membership.MembershipStatusCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -12,30 +13,37 @@ public class MembershipServiceAdapter implements GetMembershipPort {
 
     private final CommonHttpClient commonHttpClient;
 
+    private final JsonCodec jsonCodec;
+
+    private final MembershipStatusCache membershipStatusCache;
+
     private final String membershipServiceUrl;
 
     public MembershipServiceAdapter(CommonHttpClient commonHttpClient,
+                                     JsonCodec jsonCodec,
+                                     MembershipStatusCache membershipStatusCache,
                                      @Value("${service.membership.url}") String membershipServiceUrl) {
         this.commonHttpClient = commonHttpClient;
+        this.jsonCodec = jsonCodec;
+        this.membershipStatusCache = membershipStatusCache;
         this.membershipServiceUrl = membershipServiceUrl;
     }
 
     @Override
     public MembershipStatus getMembership(String membershipId) {
+        // 캐시에 없거나 만료되었을 때만 membership-service 를 호출한다
+        boolean valid = membershipStatusCache.isValid(membershipId, this::fetchMembershipValid);
+        return new MembershipStatus(membershipId, valid);
+    }
 
+    private boolean fetchMembershipValid(String membershipId) {
         String url = String.join("/", membershipServiceUrl, "membership", membershipId);
         try {
             String jsonResponse = commonHttpClient.sendGetRequest(url).body();
             // json Membership
+            Membership membership = jsonCodec.read(jsonResponse, Membership.class);
 
-            ObjectMapper mapper = new ObjectMapper();
-            Membership membership = mapper.readValue(jsonResponse, Membership.class);
-
-            if (membership.isValid()){
-                return new MembershipStatus(membership.getMembershipId(), true);
-            } else {
-                return new MembershipStatus(membership.getMembershipId(), false);
-            }
+            return membership.isValid();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -7,11 +7,13 @@ import lombok.NoArgsConstructor;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 import java.util.UUID;
 
 @Entity
-@Table(name = "request_firmbanking")
+@Table(name = "request_firmbanking",
+        indexes = @Index(name = "ux_request_firmbanking_idempotency_key", columnList = "idempotencyKey", unique = true))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -36,6 +38,9 @@ public class FirmbankingRequestJpaEntity {
 
     private String aggregateIdentifier;
 
+    // 호출한 쪽이 정한 멱등 키 (정산 id 등). 키 없이 들어온 요청은 null.
+    private String idempotencyKey;
+
     public FirmbankingRequestJpaEntity(String fromBankName, String fromBankAccountNumber, String toBankName, String toBankAccountNumber, int moneyAmount, int firmbankingStatus, UUID uuid, String aggregateIdentifier) {
         this.fromBankName = fromBankName;
         this.fromBankAccountNumber = fromBankAccountNumber;
@@ -59,6 +64,7 @@ public class FirmbankingRequestJpaEntity {
                 ", firmbankingStatus=" + firmbankingStatus +
                 ", uuid='" + uuid + '\'' +
                 ", aggregateIdentifier='" + aggregateIdentifier + '\'' +
+                ", idempotencyKey='" + idempotencyKey + '\'' +
                 '}';
     }
 }
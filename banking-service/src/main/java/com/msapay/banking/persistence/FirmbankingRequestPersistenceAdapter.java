@@ -41,4 +41,18 @@ public class FirmbankingRequestPersistenceAdapter implements RequestFirmbankingP
         }
         return null;
     }
+
+    @Override
+    public FirmbankingRequestJpaEntity getFirmbankingRequestByIdempotencyKey(String idempotencyKey) {
+        List<FirmbankingRequestJpaEntity> entityList = firmbankingRequestRepository.findByIdempotencyKey(idempotencyKey);
+        if (entityList.size() >= 1) {
+            return entityList.get(0);
+        }
+        return null;
+    }
+
+    @Override
+    public FirmbankingRequestJpaEntity reserveFirmbankingRequest(FirmbankingRequestJpaEntity entity) {
+        return firmbankingRequestRepository.saveAndFlush(entity);
+    }
 }
@@ -7,10 +7,12 @@ import lombok.NoArgsConstructor;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
 @Entity
-@Table(name = "registered_bank_account")
+@Table(name = "registered_bank_account",
+        indexes = @Index(name = "ix_registered_bank_account_membership_id", columnList = "membershipId"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -7,12 +7,18 @@ import com.msapay.banking.domain.RegisteredBankAccount;
 import com.msapay.common.PersistenceAdapter;
 import lombok.RequiredArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @PersistenceAdapter
 @RequiredArgsConstructor
 public class RegisteredBankAccountPersistenceAdapter implements RegisterBankAccountPort, GetRegisteredBankAccountPort {
 
+    private static final int IN_CLAUSE_CHUNK_SIZE = 500;
+
     private final SpringDataRegisteredBankAccountRepository bankAccountRepository;
 
     @Override
@@ -30,10 +36,22 @@ public class RegisteredBankAccountPersistenceAdapter implements RegisterBankAcco
 
     @Override
     public RegisteredBankAccountJpaEntity getRegisteredBankAccount(GetRegisteredBankAccountCommand command) {
-        List<RegisteredBankAccountJpaEntity> entityList = bankAccountRepository.findByMembershipId(command.getMembershipId());
-        if (entityList.size() > 0) {
-            return entityList.get(0);
+        return bankAccountRepository.findFirstByMembershipIdOrderByRegisteredBankAccountIdAsc(command.getMembershipId())
+                .orElse(null);
+    }
+
+    @Override
+    public List<RegisteredBankAccountJpaEntity> getRegisteredBankAccounts(Collection<String> membershipIds) {
+        List<String> ids = new ArrayList<>(membershipIds);
+        Map<String, RegisteredBankAccountJpaEntity> firstByMembershipId = new LinkedHashMap<>();
+        // IN 절이 너무 길어지지 않도록 나눠서 조회한다
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size()));
+            for (RegisteredBankAccountJpaEntity entity : bankAccountRepository.findByMembershipIdIn(chunk)) {
+                // 단건 조회와 같이 membershipId 별 첫 번째 등록 계좌를 쓴다
+                firstByMembershipId.putIfAbsent(entity.getMembershipId(), entity);
+            }
         }
-        return null;
+        return new ArrayList<>(firstByMembershipId.values());
     }
 }
@@ -10,4 +10,7 @@ public interface SpringDataFirmbankingRequestRepository extends JpaRepository<Fi
     @Query("SELECT e  FROM FirmbankingRequestJpaEntity e WHERE e.aggregateIdentifier = :aggregateIdentifier")
     List<FirmbankingRequestJpaEntity> findByAggregateIdentifier(@Param("aggregateIdentifier") String aggregateIdentifier);
 
+    @Query("SELECT e FROM FirmbankingRequestJpaEntity e WHERE e.idempotencyKey = :idempotencyKey")
+    List<FirmbankingRequestJpaEntity> findByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
+
 }
@@ -4,10 +4,18 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface SpringDataRegisteredBankAccountRepository extends JpaRepository<RegisteredBankAccountJpaEntity, Long> {
 
     @Query("SELECT e  FROM RegisteredBankAccountJpaEntity e WHERE e.membershipId = :membershipId")
     List<RegisteredBankAccountJpaEntity> findByMembershipId(@Param("membershipId") String membershipId);
+
+    // ix_registered_bank_account_membership_id 로 첫 번째 등록 계좌만 읽는다
+    Optional<RegisteredBankAccountJpaEntity> findFirstByMembershipIdOrderByRegisteredBankAccountIdAsc(String membershipId);
+
+    @Query("SELECT e FROM RegisteredBankAccountJpaEntity e WHERE e.membershipId IN :membershipIds ORDER BY e.registeredBankAccountId")
+    List<RegisteredBankAccountJpaEntity> findByMembershipIdIn(@Param("membershipIds") Collection<String> membershipIds);
 }
@@ -7,6 +7,7 @@ import com.msapay.banking.persistence.RegisteredBankAccountJpaEntity;
 import com.msapay.banking.persistence.RegisteredBankAccountMapper;
 import com.msapay.banking.domain.RegisteredBankAccount;
 import com.msapay.banking.controller.command.GetRegisteredBankAccountCommand;
+import com.msapay.banking.controller.command.GetRegisteredBankAccountsCommand;
 import com.msapay.banking.controller.command.RegisterBankAccountCommand;
 import com.msapay.banking.service.port.GetMembershipPort;
 import com.msapay.banking.service.port.GetRegisteredBankAccountPort;
@@ -17,9 +18,13 @@ import com.msapay.banking.service.usecase.RegisterBankAccountUseCase;
 import com.msapay.common.UseCase;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.transaction.Transactional;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Slf4j
 @UseCase
@@ -32,6 +37,7 @@ public class RegisterBankAccountService implements RegisterBankAccountUseCase, G
     private final RegisteredBankAccountMapper mapper;
     private final RequestBankAccountInfoPort requestBankAccountInfoPort;
     private final GetRegisteredBankAccountPort getRegisteredBankAccountPort;
+    private final RegisteredBankAccountCache registeredBankAccountCache;
 //    private final CommandGateway commandGateway;
     @Override
     public RegisteredBankAccount registerBankAccount(RegisterBankAccountCommand command) {
@@ -65,6 +71,7 @@ public class RegisterBankAccountService implements RegisterBankAccountUseCase, G
                     new RegisteredBankAccount.BankAccountNumber(command.getBankAccountNumber()),
                     new RegisteredBankAccount.LinkedStatusvalid(command.isValid()),
                     new RegisteredBankAccount.AggregateIdentifier(""));
+            invalidateCachedAccount(command.getMembershipId());
 
             return mapper.mapToDomainEntity(savedAccountInfo);
         } else {
@@ -74,8 +81,30 @@ public class RegisterBankAccountService implements RegisterBankAccountUseCase, G
 
     @Override
     public RegisteredBankAccount getRegisteredBankAccount(GetRegisteredBankAccountCommand command) {
-        return Optional.ofNullable(getRegisteredBankAccountPort.getRegisteredBankAccount(command))
-                .map(mapper::mapToDomainEntity)
+        return registeredBankAccountCache.get(command.getMembershipId(),
+                membershipId -> Optional.ofNullable(getRegisteredBankAccountPort.getRegisteredBankAccount(command))
+                        .map(mapper::mapToDomainEntity))
                 .orElse(null);
     }
+
+    @Override
+    public List<RegisteredBankAccount> getRegisteredBankAccounts(GetRegisteredBankAccountsCommand command) {
+        return registeredBankAccountCache.getAll(command.getMembershipIds(),
+                membershipIds -> getRegisteredBankAccountPort.getRegisteredBankAccounts(membershipIds).stream()
+                        .map(mapper::mapToDomainEntity)
+                        .collect(Collectors.toList()));
+    }
+
+    // 커밋 전에 다른 요청이 이전 값을 다시 채울 수 있으므로 커밋 후에도 한 번 더 무효화한다
+    private void invalidateCachedAccount(String membershipId) {
+        registeredBankAccountCache.invalidate(membershipId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    registeredBankAccountCache.invalidate(membershipId);
+                }
+            });
+        }
+    }
 }
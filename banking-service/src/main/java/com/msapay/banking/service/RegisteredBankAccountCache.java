@@ -0,0 +1,36 @@
+package com.msapay.banking.service;
+
+import com.msapay.banking.domain.RegisteredBankAccount;
+import com.msapay.common.cache.ReadThroughCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * membershipId 별 등록 계좌를 보관하는 read-through 캐시.
+ * 계좌가 없는 membershipId 도 비어 있는 값으로 보관하며, RegisterBankAccountService 가 계좌를 등록하면 무효화한다.
+ * 다른 인스턴스에서 등록된 계좌는 TTL 이 지나면 반영된다.
+ */
+@Component
+public class RegisteredBankAccountCache extends ReadThroughCache<RegisteredBankAccount> {
+
+    public RegisteredBankAccountCache(@Value("${banking.account-cache.enabled:true}") boolean enabled,
+                                      @Value("${banking.account-cache.max-size:10000}") int maxSize,
+                                      @Value("${banking.account-cache.ttl-ms:60000}") long ttlMillis,
+                                      MeterRegistry meterRegistry) {
+        super("banking.account.cache", enabled, maxSize, ttlMillis, meterRegistry);
+    }
+
+    /**
+     * 여러 membershipId 의 등록 계좌를 돌려준다. 캐시에 없는 membershipId 만 모아서 bulkLoader 로 한 번에 읽는다.
+     * 결과는 membershipId 요청 순서를 따르며, 등록 계좌가 없는 membershipId 는 빠진다.
+     */
+    public List<RegisteredBankAccount> getAll(Collection<String> membershipIds,
+                                              Function<Collection<String>, List<RegisteredBankAccount>> bulkLoader) {
+        return getAll(membershipIds, bulkLoader, RegisteredBankAccount::getMembershipId);
+    }
+}
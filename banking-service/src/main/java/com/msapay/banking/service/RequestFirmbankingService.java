@@ -19,6 +19,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.transaction.Transactional;
+import java.util.Objects;
 import java.util.UUID;
 
 @Slf4j
@@ -36,16 +37,42 @@ public class RequestFirmbankingService implements RequestFirmbankingUseCase, Get
         // Business Logic
         // a -> b 계좌
 
+        // 0. 멱등 키가 있으면 같은 키로 이미 성공한 요청은 다시 이체하지 않고 그 결과를 돌려준다.
+        // 실패했던 요청은 같은 행으로 다시 시도한다.
+        FirmbankingRequestJpaEntity existingEntity = null;
+        if (command.getIdempotencyKey() != null) {
+            existingEntity = requestFirmbankingPort.getFirmbankingRequestByIdempotencyKey(command.getIdempotencyKey());
+            if (existingEntity != null && !isSamePayload(existingEntity, command)) {
+                // 같은 키로 다른 계좌나 금액을 보내면 처음 결과를 돌려주지 않고 거절한다
+                throw new IllegalArgumentException("Firmbanking idempotencyKey reused with a different request: " + command.getIdempotencyKey());
+            }
+            if (existingEntity != null && existingEntity.getFirmbankingStatus() == 1) {
+                log.info("Firmbanking already done for idempotencyKey: {}", command.getIdempotencyKey());
+                return mapper.mapToDomainEntity(existingEntity, UUID.fromString(existingEntity.getUuid()));
+            }
+        }
+
         // 1. 요청에 대해 정보를 먼저 write . "요청" 상태로
-        FirmbankingRequestJpaEntity requestedEntity = requestFirmbankingPort.createFirmbankingRequest(
-                new FirmbankingRequest.FromBankName(command.getFromBankName()),
-                new FirmbankingRequest.FromBankAccountNumber(command.getFromBankAccountNumber()),
-                new FirmbankingRequest.ToBankName(command.getToBankName()),
-                new FirmbankingRequest.ToBankAccountNumber(command.getToBankAccountNumber()),
-                new FirmbankingRequest.MoneyAmount(command.getMoneyAmount()),
-                new FirmbankingRequest.FirmbankingStatus(0),
-                new FirmbankingRequest.FirmbankingAggregateIdentifier("")
-        );
+        FirmbankingRequestJpaEntity requestedEntity;
+        if (existingEntity != null) {
+            requestedEntity = existingEntity;
+            requestedEntity.setFirmbankingStatus(0);
+        } else {
+            requestedEntity = requestFirmbankingPort.createFirmbankingRequest(
+                    new FirmbankingRequest.FromBankName(command.getFromBankName()),
+                    new FirmbankingRequest.FromBankAccountNumber(command.getFromBankAccountNumber()),
+                    new FirmbankingRequest.ToBankName(command.getToBankName()),
+                    new FirmbankingRequest.ToBankAccountNumber(command.getToBankAccountNumber()),
+                    new FirmbankingRequest.MoneyAmount(command.getMoneyAmount()),
+                    new FirmbankingRequest.FirmbankingStatus(0),
+                    new FirmbankingRequest.FirmbankingAggregateIdentifier("")
+            );
+            if (command.getIdempotencyKey() != null) {
+                // 같은 키로 동시에 들어온 요청은 외부 은행을 부르기 전에 여기서 unique index 위반으로 실패한다
+                requestedEntity.setIdempotencyKey(command.getIdempotencyKey());
+                requestedEntity = requestFirmbankingPort.reserveFirmbankingRequest(requestedEntity);
+            }
+        }
 
         // 2. 외부 은행에 펌뱅킹 요청
         // 외부 은행 펌뱀킹 mocking
@@ -74,6 +101,14 @@ public class RequestFirmbankingService implements RequestFirmbankingUseCase, Get
         return mapper.mapToDomainEntity(requestFirmbankingPort.modifyFirmbankingRequest(requestedEntity), randomUUID);
     }
 
+    private static boolean isSamePayload(FirmbankingRequestJpaEntity entity, RequestFirmbankingCommand command) {
+        return entity.getMoneyAmount() == command.getMoneyAmount()
+                && Objects.equals(entity.getFromBankName(), command.getFromBankName())
+                && Objects.equals(entity.getFromBankAccountNumber(), command.getFromBankAccountNumber())
+                && Objects.equals(entity.getToBankName(), command.getToBankName())
+                && Objects.equals(entity.getToBankAccountNumber(), command.getToBankAccountNumber());
+    }
+
     @Override
     public long getBankAccountBalance(GetBankAccountBalanceCommand command){
         GetBankAccountBalanceRequest request = new GetBankAccountBalanceRequest(command.getBankName(), command.getBankAccountNumber());
@@ -3,6 +3,12 @@ package com.msapay.banking.service.port;
 import com.msapay.banking.persistence.RegisteredBankAccountJpaEntity;
 import com.msapay.banking.controller.command.GetRegisteredBankAccountCommand;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface GetRegisteredBankAccountPort {
     RegisteredBankAccountJpaEntity getRegisteredBankAccount(GetRegisteredBankAccountCommand command);
+
+    // membershipId 별 첫 번째 등록 계좌. 등록 계좌가 없는 membershipId 는 결과에 없다.
+    List<RegisteredBankAccountJpaEntity> getRegisteredBankAccounts(Collection<String> membershipIds);
 }
@@ -23,4 +23,10 @@ public interface RequestFirmbankingPort {
     FirmbankingRequestJpaEntity getFirmbankingRequest(
             FirmbankingRequest.FirmbankingAggregateIdentifier firmbankingAggregateIdentifier
     );
+
+    // 멱등 키로 저장된 요청. 없으면 null.
+    FirmbankingRequestJpaEntity getFirmbankingRequestByIdempotencyKey(String idempotencyKey);
+
+    // 바로 flush 해서 같은 멱등 키의 동시 요청이 unique index 에서 막히도록 한다
+    FirmbankingRequestJpaEntity reserveFirmbankingRequest(FirmbankingRequestJpaEntity entity);
 }
@@ -1,9 +1,14 @@
 package com.msapay.banking.service.usecase;
 
 
+import com.msapay.banking.controller.command.GetRegisteredBankAccountsCommand;
 import com.msapay.banking.domain.RegisteredBankAccount;
 import com.msapay.banking.controller.command.GetRegisteredBankAccountCommand;
 
+import java.util.List;
+
 public interface GetRegisteredBankAccountUseCase {
     RegisteredBankAccount getRegisteredBankAccount(GetRegisteredBankAccountCommand command);
+
+    List<RegisteredBankAccount> getRegisteredBankAccounts(GetRegisteredBankAccountsCommand command);
 }
@@ -0,0 +1,88 @@
+package com.msapay.banking.service;
+
+import com.msapay.banking.domain.RegisteredBankAccount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegisteredBankAccountCacheTest {
+
+    private final RegisteredBankAccountCache cache = new RegisteredBankAccountCache(true, 100, 60000, new SimpleMeterRegistry());
+
+    @Test
+    void get_ShouldLoadOnceWithinTtlIncludingMissingAccount() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertTrue(cache.get("1", id -> { loads.incrementAndGet(); return Optional.of(account(id)); }).isPresent());
+        assertTrue(cache.get("1", id -> { loads.incrementAndGet(); return Optional.of(account(id)); }).isPresent());
+        assertFalse(cache.get("2", id -> { loads.incrementAndGet(); return Optional.empty(); }).isPresent());
+        assertFalse(cache.get("2", id -> { loads.incrementAndGet(); return Optional.empty(); }).isPresent());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidate_ShouldReloadNewlyRegisteredAccount() {
+        assertFalse(cache.get("1", id -> Optional.empty()).isPresent());
+
+        cache.invalidate("1");
+
+        assertTrue(cache.get("1", id -> Optional.of(account(id))).isPresent());
+    }
+
+    @Test
+    void getAll_ShouldBulkLoadOnlyMissingIdsInRequestOrder() {
+        cache.get("2", id -> Optional.of(account(id)));
+        List<Collection<String>> bulkLoads = new ArrayList<>();
+
+        List<RegisteredBankAccount> accounts = cache.getAll(Arrays.asList("3", "2", "1", "3", "4"), ids -> {
+            bulkLoads.add(new ArrayList<>(ids));
+            // 4 는 등록 계좌가 없다
+            return ids.stream().filter(id -> !id.equals("4")).map(RegisteredBankAccountCacheTest::account).collect(Collectors.toList());
+        });
+
+        assertEquals(Collections.singletonList(Arrays.asList("3", "1", "4")), bulkLoads);
+        assertEquals(Arrays.asList("3", "2", "1"),
+                accounts.stream().map(RegisteredBankAccount::getMembershipId).collect(Collectors.toList()));
+
+        // 없는 계좌까지 캐시되어 다시 읽지 않는다
+        cache.getAll(Arrays.asList("1", "4"), ids -> { bulkLoads.add(ids); return Collections.emptyList(); });
+        assertEquals(1, bulkLoads.size());
+    }
+
+    @Test
+    void get_ShouldEvictOldestEntriesOverMaxSize() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RegisteredBankAccountCache smallCache = new RegisteredBankAccountCache(true, 10, 60000, meterRegistry);
+        for (int i = 0; i < 11; i++) {
+            smallCache.get(String.valueOf(i), id -> Optional.of(account(id)));
+        }
+
+        assertEquals(10, meterRegistry.get("banking.account.cache.size").gauge().value());
+        AtomicInteger loads = new AtomicInteger();
+        smallCache.get("10", id -> { loads.incrementAndGet(); return Optional.of(account(id)); });
+        assertEquals(0, loads.get());
+    }
+
+    private static RegisteredBankAccount account(String membershipId) {
+        return RegisteredBankAccount.generateRegisteredBankAccount(
+                new RegisteredBankAccount.RegisteredBankAccountId("account-" + membershipId),
+                new RegisteredBankAccount.MembershipId(membershipId),
+                new RegisteredBankAccount.BankName("bank"),
+                new RegisteredBankAccount.BankAccountNumber("1234"),
+                new RegisteredBankAccount.LinkedStatusvalid(true),
+                new RegisteredBankAccount.AggregateIdentifier(""));
+    }
+}
@@ -0,0 +1,74 @@
+package com.msapay.common.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msapay.common.RechargingMoneyTask;
+import com.msapay.common.SubTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RechargingMoneyTask 읽기/쓰기 비용 비교: 호출마다 new ObjectMapper() 하던 예전 방식과 JsonCodec.
+ * 실행: ./gradlew :common:jmh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonCodecBenchmark {
+
+    private JsonCodec codec;
+    private RechargingMoneyTask task;
+    private String taskJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        codec = new JsonCodec(false);
+        task = RechargingMoneyTask.builder()
+                .taskID(UUID.randomUUID().toString())
+                .taskName("Increase Money Task / 머니 충전 Task")
+                .membershipID("12345")
+                .subTaskList(Arrays.asList(
+                        new SubTask("validMemberTask : membershipId validation", "membership", "ready"),
+                        new SubTask("validBankAccountTask : bank account validation", "banking", "ready")))
+                .toBankName("fastcampus")
+                .toBankAccountNumber("123-456-789")
+                .moneyAmount(50000)
+                .sagaId(UUID.randomUUID().toString())
+                .build();
+        taskJson = codec.write(task);
+    }
+
+    @Benchmark
+    public String writePerCallMapper() throws Exception {
+        return new ObjectMapper().writeValueAsString(task);
+    }
+
+    @Benchmark
+    public String writeJsonCodec() throws Exception {
+        return codec.write(task);
+    }
+
+    @Benchmark
+    public RechargingMoneyTask readPerCallMapper() throws Exception {
+        return new ObjectMapper().readValue(taskJson, RechargingMoneyTask.class);
+    }
+
+    @Benchmark
+    public RechargingMoneyTask readJsonCodec() throws Exception {
+        return codec.read(taskJson, RechargingMoneyTask.class);
+    }
+}
@@ -0,0 +1,125 @@
+package com.msapay.common.saga;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * saga 메시지 인코딩 비용 비교: 예전 String.format JSON, JSON fallback, binary.
+ * 실행: ./gradlew :common:jmh  (인코딩 벤치마크 결과의 bytes 는 메시지 크기다)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SagaMessageCodecBenchmark {
+
+    private SagaCommandMessage command;
+    private SagaResultMessage result;
+    private byte[] commandJson;
+    private byte[] commandBinary;
+    private byte[] resultJson;
+    private byte[] resultBinary;
+
+    @Setup
+    public void setUp() {
+        UUID sagaId = UUID.randomUUID();
+        command = new SagaCommandMessage(sagaId, UUID.randomUUID().toString(), "12345", 50000, System.currentTimeMillis());
+        result = new SagaResultMessage(sagaId, true, "Success", null, System.currentTimeMillis());
+        commandJson = SagaMessageCodec.encodeJson(command);
+        commandBinary = SagaMessageCodec.encodeBinary(command);
+        resultJson = SagaMessageCodec.encodeJson(result);
+        resultBinary = SagaMessageCodec.encodeBinary(result);
+    }
+
+    // 인코딩한 메시지 크기(bytes on wire)를 JMH 결과에 보조 지표로 남긴다
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WireSize {
+        public long bytes;
+
+        byte[] record(byte[] encoded) {
+            bytes = encoded.length;
+            return encoded;
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeCommandLegacy(WireSize wireSize) {
+        return wireSize.record(legacyCommand());
+    }
+
+    @Benchmark
+    public byte[] encodeCommandJson(WireSize wireSize) {
+        return wireSize.record(SagaMessageCodec.encodeJson(command));
+    }
+
+    @Benchmark
+    public byte[] encodeCommandBinary(WireSize wireSize) {
+        return wireSize.record(SagaMessageCodec.encodeBinary(command));
+    }
+
+    @Benchmark
+    public SagaMessage decodeCommandJson() {
+        return SagaMessageCodec.decode(commandJson);
+    }
+
+    @Benchmark
+    public SagaMessage decodeCommandBinary() {
+        return SagaMessageCodec.decode(commandBinary);
+    }
+
+    @Benchmark
+    public byte[] encodeResultLegacy(WireSize wireSize) {
+        return wireSize.record(legacyResult());
+    }
+
+    @Benchmark
+    public byte[] encodeResultJson(WireSize wireSize) {
+        return wireSize.record(SagaMessageCodec.encodeJson(result));
+    }
+
+    @Benchmark
+    public byte[] encodeResultBinary(WireSize wireSize) {
+        return wireSize.record(SagaMessageCodec.encodeBinary(result));
+    }
+
+    @Benchmark
+    public SagaMessage decodeResultJson() {
+        return SagaMessageCodec.decode(resultJson);
+    }
+
+    @Benchmark
+    public SagaMessage decodeResultBinary() {
+        return SagaMessageCodec.decode(resultBinary);
+    }
+
+    // 바꾸기 전 producer 들이 쓰던 방식
+    private byte[] legacyCommand() {
+        return String.format(
+                "{\"sagaId\":\"%s\",\"taskId\":\"%s\",\"membershipId\":\"%s\",\"amount\":%d,\"timestamp\":\"%s\"}",
+                command.getSagaId().toString(), command.getTaskId(), command.getMembershipId(),
+                command.getAmount(), command.getTimestamp()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] legacyResult() {
+        return String.format(
+                "{\"sagaId\":\"%s\",\"success\":%s,\"reason\":\"%s\",\"timestamp\":\"%s\"}",
+                result.getSagaId(), result.isSuccess(), result.getReason(), result.getTimestamp())
+                .getBytes(StandardCharsets.UTF_8);
+    }
+}
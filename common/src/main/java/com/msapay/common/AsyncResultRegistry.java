@@ -0,0 +1,133 @@
+package com.msapay.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 비동기 작업 결과를 key(taskId) 로 전달하는 레지스트리
+ * 요청 스레드는 register 로 받은 CompletableFuture 에 콜백을 걸고, 컨슈머 스레드는 complete 로 결과를 넘긴다.
+ * 대기 중에 스레드를 점유하지 않으며, 만료는 HashedWheelTimer 로 처리해 타임아웃된 항목도 맵에 남지 않는다.
+ * 결과가 register 보다 먼저 도착하면 타임아웃 시간 동안 보관했다가 register 시점에 바로 전달한다.
+ * 결과를 전달해 맵에서 빠진 항목은 만료 작업을 취소해 휠에 끝난 요청의 작업이 쌓이지 않게 한다.
+ */
+@Slf4j
+@Component
+public class AsyncResultRegistry {
+
+    private final ConcurrentHashMap<String, Entry> pending = new ConcurrentHashMap<>();
+    private final HashedWheelTimer timer = new HashedWheelTimer("AsyncResultRegistry-Timer", 100, TimeUnit.MILLISECONDS, 512);
+    private final Duration defaultTimeout;
+    private final Timer waitTimer;
+    private final Counter timeoutCounter;
+
+    public AsyncResultRegistry(@Value("${async.result.timeout-ms:60000}") long defaultTimeoutMillis,
+                               MeterRegistry meterRegistry) {
+        this.defaultTimeout = Duration.ofMillis(defaultTimeoutMillis);
+        this.waitTimer = Timer.builder("async.result.wait")
+                .description("register 부터 결과 수신(또는 타임아웃)까지 걸린 시간")
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("async.result.timeouts")
+                .description("결과를 받지 못하고 만료된 항목 수")
+                .register(meterRegistry);
+        Gauge.builder("async.result.pending", pending, ConcurrentHashMap::size)
+                .description("결과를 기다리는 항목 수")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<String> register(String key) {
+        return register(key, defaultTimeout);
+    }
+
+    /**
+     * key 에 대한 결과 future 를 등록한다. 이미 등록(또는 결과가 먼저 도착)되어 있으면 같은 future 를 돌려준다.
+     */
+    public CompletableFuture<String> register(String key, Duration timeout) {
+        long startedAt = System.nanoTime();
+        Entry entry = pending.computeIfAbsent(key, k -> newEntry(k, timeout));
+        log.debug("Registered async result for key: {}", key);
+        return entry.future.whenComplete((result, throwable) -> {
+            remove(key, entry);
+            waitTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        });
+    }
+
+    /**
+     * key 에 결과를 전달한다. 대기 중인 항목이 없으면 보관해 두었다가 register 시 전달한다.
+     */
+    public boolean complete(String key, String result) {
+        boolean completed = pending.computeIfAbsent(key, k -> newEntry(k, defaultTimeout)).future.complete(result);
+        log.debug("Completed async result for key: {} = {} (accepted: {})", key, result, completed);
+        return completed;
+    }
+
+    /**
+     * 대기 중인 항목이 있을 때만 결과를 전달한다. 아무도 기다리지 않으면 보관하지 않는다.
+     */
+    public boolean completeIfPresent(String key, String result) {
+        Entry entry = pending.get(key);
+        return entry != null && entry.future.complete(result);
+    }
+
+    public void cancel(String key) {
+        Entry entry = pending.remove(key);
+        if (entry != null) {
+            entry.timeout.cancel();
+            entry.future.cancel(false);
+        }
+    }
+
+    public boolean hasKey(String key) {
+        return pending.containsKey(key);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    // 맵에서 빠진 항목만 만료 작업을 취소한다. 결과가 먼저 도착해 보관 중인 항목은 만료 작업이 정리한다.
+    private void remove(String key, Entry entry) {
+        if (pending.remove(key, entry)) {
+            entry.timeout.cancel();
+        }
+    }
+
+    private Entry newEntry(String key, Duration timeout) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        Entry entry = new Entry(future);
+        entry.timeout = timer.newTimeout(() -> {
+            if (future.completeExceptionally(new TimeoutException("Async result timed out for key: " + key))) {
+                timeoutCounter.increment();
+                log.warn("Async result timed out for key: {} after {} ms", key, timeout.toMillis());
+            }
+            pending.remove(key, entry);
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        return entry;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.stop();
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<String> future;
+        // computeIfAbsent 안에서 만들어진 뒤 바로 채워지므로 맵에 보이는 항목은 항상 값이 있다
+        private HashedWheelTimer.Timeout timeout;
+
+        private Entry(CompletableFuture<String> future) {
+            this.future = future;
+        }
+    }
+}
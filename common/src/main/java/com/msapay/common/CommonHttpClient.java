@@ -1,52 +1,236 @@
 package com.msapay.common;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.msapay.common.codec.JsonCodec;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * 서비스 간 HTTP 호출 클라이언트.
+ * 연결/요청 timeout 과 HTTP/2 선호 여부, 응답 처리 executor 크기를 서비스별로 설정할 수 있다.
+ * 비동기 API 는 응답 바이트를 String 으로 만들지 않고 JsonCodec 의 캐시된 reader 로 바로 역직렬화한다.
+ * 호출 대상(membership, banking, payment, money)별로 진행 중 요청 수와 응답 시간 histogram 을 기록한다.
+ */
+@Slf4j
 @Component
 public class CommonHttpClient {
     private final HttpClient httpClient;
-    
-    public CommonHttpClient() {
-        httpClient = HttpClient.newBuilder().build();
+    private final ExecutorService executor;
+    private final Duration requestTimeout;
+    private final JsonCodec jsonCodec;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AtomicInteger> inFlightRequests = new ConcurrentHashMap<>();
+
+    public CommonHttpClient(@Value("${http.client.connect-timeout-ms:2000}") long connectTimeoutMillis,
+                            @Value("${http.client.request-timeout-ms:5000}") long requestTimeoutMillis,
+                            @Value("${http.client.http2:true}") boolean preferHttp2,
+                            @Value("${http.client.executor-threads:8}") int executorThreads,
+                            JsonCodec jsonCodec,
+                            MeterRegistry meterRegistry) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(executorThreads, r -> {
+            Thread thread = new Thread(r, "common-http-client-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .version(preferHttp2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                .build();
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMillis);
+        this.jsonCodec = jsonCodec;
+        this.meterRegistry = meterRegistry;
     }
-    
+
     public HttpResponse<String> sendGetRequest(String url) throws Exception {
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
+                .timeout(requestTimeout)
                 .GET()
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        
+        HttpResponse<String> response = send(request);
+
         // 응답 상태 코드 확인하여 에러 응답이면 예외 발생
         if (response.statusCode() >= 400) {
             throw new RuntimeException("External service error: " + response.statusCode() + " - " + response.body());
         }
-        
+
         return response;
     }
-    
+
     public HttpResponse<String> sendPostRequest(String url, String body) throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
+                .timeout(requestTimeout)
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(body))
                 .build();
-        
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        
+
+        HttpResponse<String> response = send(request);
+
         // 응답 상태 코드 확인하여 에러 응답이면 예외 발생
         if (response.statusCode() >= 400) {
             throw new RuntimeException("External service error: " + response.statusCode() + " - " + response.body());
         }
-        
+
         return response;
     }
-}
 
+    public <T> CompletableFuture<T> getAsync(String url, Class<T> responseType) {
+        return getAsync(url, jsonCodec.mapper().constructType(responseType));
+    }
+
+    public <T> CompletableFuture<T> getAsync(String url, TypeReference<T> responseType) {
+        return getAsync(url, jsonCodec.mapper().getTypeFactory().constructType(responseType));
+    }
+
+    public <T> CompletableFuture<T> postAsync(String url, Object body, Class<T> responseType) {
+        return postAsync(url, body, jsonCodec.mapper().constructType(responseType));
+    }
+
+    public <T> CompletableFuture<T> postAsync(String url, Object body, TypeReference<T> responseType) {
+        return postAsync(url, body, jsonCodec.mapper().getTypeFactory().constructType(responseType));
+    }
+
+    private <T> CompletableFuture<T> getAsync(String url, JavaType responseType) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(requestTimeout)
+                .GET()
+                .build();
+        return sendAsync(request, responseType);
+    }
+
+    private <T> CompletableFuture<T> postAsync(String url, Object body, JavaType responseType) {
+        byte[] json;
+        try {
+            json = jsonCodec.writeBytes(body);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json))
+                .build();
+        return sendAsync(request, responseType);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        String downstream = downstreamOf(request.uri());
+        AtomicInteger inFlight = inFlight(downstream);
+        long startedAt = System.nanoTime();
+        inFlight.incrementAndGet();
+        String outcome = "error";
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            outcome = outcomeOf(response.statusCode());
+            return response;
+        } finally {
+            inFlight.decrementAndGet();
+            record(downstream, request.method(), outcome, startedAt);
+        }
+    }
+
+    private <T> CompletableFuture<T> sendAsync(HttpRequest request, JavaType responseType) {
+        String downstream = downstreamOf(request.uri());
+        AtomicInteger inFlight = inFlight(downstream);
+        long startedAt = System.nanoTime();
+        inFlight.incrementAndGet();
+
+        HttpResponse.BodyHandler<T> bodyHandler = responseInfo -> decodingSubscriber(responseInfo, responseType);
+        return httpClient.sendAsync(request, bodyHandler)
+                .whenComplete((response, throwable) -> {
+                    inFlight.decrementAndGet();
+                    record(downstream, request.method(), throwable == null ? outcomeOf(response.statusCode()) : "error", startedAt);
+                })
+                .thenApply(HttpResponse::body);
+    }
+
+    private <T> HttpResponse.BodySubscriber<T> decodingSubscriber(HttpResponse.ResponseInfo responseInfo, JavaType responseType) {
+        if (responseInfo.statusCode() >= 400) {
+            return HttpResponse.BodySubscribers.mapping(
+                    HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+                    body -> {
+                        throw new RuntimeException("External service error: " + responseInfo.statusCode() + " - " + body);
+                    });
+        }
+        return HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofByteArray(),
+                bytes -> {
+                    try {
+                        return bytes.length == 0 ? null : jsonCodec.reader(responseType).readValue(bytes);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private AtomicInteger inFlight(String downstream) {
+        return inFlightRequests.computeIfAbsent(downstream, key -> {
+            AtomicInteger counter = new AtomicInteger();
+            Gauge.builder("http.client.in-flight", counter, AtomicInteger::get)
+                    .description("응답을 기다리는 중인 요청 수")
+                    .tag("downstream", key)
+                    .register(meterRegistry);
+            return counter;
+        });
+    }
+
+    private void record(String downstream, String method, String outcome, long startedAt) {
+        Timer.builder("http.client.requests.downstream")
+                .description("서비스 간 HTTP 호출 응답 시간")
+                .tag("downstream", downstream)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    // http://membership-service:8080 -> membership
+    private static String downstreamOf(URI uri) {
+        String host = uri.getHost();
+        if (host == null) {
+            return "unknown";
+        }
+        return host.endsWith("-service") ? host.substring(0, host.length() - "-service".length()) : host;
+    }
+
+    private static String outcomeOf(int statusCode) {
+        if (statusCode >= 500) {
+            return "server_error";
+        }
+        return statusCode >= 400 ? "client_error" : "success";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
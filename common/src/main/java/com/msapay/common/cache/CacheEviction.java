@@ -0,0 +1,31 @@
+package com.msapay.common.cache;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * 크기 제한이 있는 캐시들이 함께 쓰는 eviction.
+ */
+public final class CacheEviction {
+
+    private CacheEviction() {
+    }
+
+    /**
+     * 최대 크기를 넘으면 loadedAt 이 오래된 항목부터 비운다.
+     * 넘을 때마다 정렬하지 않도록 넘친 만큼이 아니라 최대 크기의 10% 이상을 한 번에 비운다.
+     */
+    public static <K, E> void evictOldest(Map<K, E> entries, int maxSize, ToLongFunction<E> loadedAt) {
+        int overflow = entries.size() - maxSize;
+        if (overflow <= 0) {
+            return;
+        }
+        int toEvict = Math.max(overflow, maxSize / 10);
+        entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> loadedAt.applyAsLong(e.getValue())))
+                .limit(toEvict)
+                .map(Map.Entry::getKey)
+                .forEach(entries::remove);
+    }
+}
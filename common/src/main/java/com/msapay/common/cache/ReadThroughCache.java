@@ -0,0 +1,160 @@
+package com.msapay.common.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * key 별 조회 결과를 TTL 동안 보관하는 read-through 캐시. 값이 없다는 결과도 Optional.empty() 로 보관한다.
+ * 서비스마다 값 타입과 설정 이름이 달라 bean 으로 두지 않고, 각 서비스가 상속하거나 adapter 안에서 만든다.
+ * 메트릭은 {metricPrefix}.requests(result=hit|miss) 와 {metricPrefix}.size 로 기록한다.
+ */
+@Slf4j
+public class ReadThroughCache<V> {
+
+    private final String metricPrefix;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public ReadThroughCache(String metricPrefix, boolean enabled, int maxSize, long ttlMillis, MeterRegistry meterRegistry) {
+        this.metricPrefix = metricPrefix;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttlNanos = Duration.ofMillis(ttlMillis).toNanos();
+
+        this.hitCounter = Counter.builder(metricPrefix + ".requests").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder(metricPrefix + ".requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder(metricPrefix + ".size", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * 캐시된 값을 돌려준다. 없거나 만료되었으면 loader 로 읽어 채운다.
+     */
+    public Optional<V> get(String key, Function<String, Optional<V>> loader) {
+        if (!enabled) {
+            return loader.apply(key);
+        }
+
+        Entry<V> entry = entries.get(key);
+        if (isFresh(entry, System.nanoTime())) {
+            hitCounter.increment();
+            return entry.value;
+        }
+
+        missCounter.increment();
+        Optional<V> value = loader.apply(key);
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * get 의 비동기 버전. 캐시에 있으면 바로 완료된 future 를, 없거나 만료되었으면 loader 가 끝날 때 채우는 future 를 돌려준다.
+     * loader 가 실패하면 캐시에 남기지 않는다.
+     */
+    public CompletableFuture<Optional<V>> getAsync(String key, Function<String, CompletableFuture<Optional<V>>> loader) {
+        if (!enabled) {
+            return loader.apply(key);
+        }
+
+        Entry<V> entry = entries.get(key);
+        if (isFresh(entry, System.nanoTime())) {
+            hitCounter.increment();
+            return CompletableFuture.completedFuture(entry.value);
+        }
+
+        missCounter.increment();
+        return loader.apply(key).thenApply(value -> {
+            put(key, value);
+            return value;
+        });
+    }
+
+    /**
+     * 여러 key 의 값을 돌려준다. 캐시에 없는 key 만 모아서 bulkLoader 로 한 번에 읽는다.
+     * 결과는 key 요청 순서를 따르며, 값이 없는 key 는 빠진다. bulkLoader 결과의 key 는 keyOf 로 얻는다.
+     */
+    public List<V> getAll(Collection<String> keys,
+                          Function<Collection<String>, List<V>> bulkLoader,
+                          Function<V, String> keyOf) {
+        if (!enabled) {
+            return bulkLoader.apply(keys);
+        }
+
+        Map<String, Optional<V>> resolved = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        for (String key : keys) {
+            if (resolved.containsKey(key)) {
+                continue;
+            }
+            Entry<V> entry = entries.get(key);
+            if (isFresh(entry, now)) {
+                resolved.put(key, entry.value);
+            } else {
+                resolved.put(key, Optional.empty());
+                missing.add(key);
+            }
+        }
+        hitCounter.increment(resolved.size() - missing.size());
+        missCounter.increment(missing.size());
+
+        if (!missing.isEmpty()) {
+            Map<String, V> loaded = new LinkedHashMap<>();
+            for (V value : bulkLoader.apply(missing)) {
+                loaded.put(keyOf.apply(value), value);
+            }
+            for (String key : missing) {
+                Optional<V> value = Optional.ofNullable(loaded.get(key));
+                resolved.put(key, value);
+                put(key, value);
+            }
+        }
+
+        List<V> values = new ArrayList<>(resolved.size());
+        resolved.values().forEach(value -> value.ifPresent(values::add));
+        return values;
+    }
+
+    public void invalidate(String key) {
+        if (entries.remove(key) != null) {
+            log.debug("{} invalidated: {}", metricPrefix, key);
+        }
+    }
+
+    private boolean isFresh(Entry<V> entry, long now) {
+        return entry != null && now - entry.loadedAt < ttlNanos;
+    }
+
+    private void put(String key, Optional<V> value) {
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+        CacheEviction.evictOldest(entries, maxSize, e -> e.loadedAt);
+    }
+
+    private static final class Entry<V> {
+        private final Optional<V> value;
+        private final long loadedAt;
+
+        private Entry(Optional<V> value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
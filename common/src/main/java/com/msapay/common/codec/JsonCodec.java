@@ -0,0 +1,99 @@
+package com.msapay.common.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 서비스 간 메시지(RechargingMoneyTask, Membership, RegisteredBankAccount, Payment 등)를 읽고 쓰는 공용 JSON 코덱.
+ * ObjectMapper 하나를 설정해 두고 타입별 ObjectReader/ObjectWriter 를 캐시하므로
+ * 호출마다 ObjectMapper 를 만들고 serializer 를 다시 찾는 비용이 없다.
+ * codec.json.accelerate=true 이면 classpath 에 있는 Blackbird/Afterburner 모듈을 등록한다.
+ */
+@Slf4j
+@Component
+public class JsonCodec {
+
+    private static final String[] ACCELERATION_MODULES = {
+            "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+            "com.fasterxml.jackson.module.afterburner.AfterburnerModule"
+    };
+
+    private final ObjectMapper mapper;
+    private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public JsonCodec(@Value("${codec.json.accelerate:false}") boolean accelerate) {
+        this.mapper = new ObjectMapper()
+                // 서비스마다 DTO 필드가 조금씩 달라도 읽을 수 있도록 모르는 필드는 무시한다
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        if (accelerate) {
+            registerAccelerationModule(mapper);
+        }
+    }
+
+    public ObjectMapper mapper() {
+        return mapper;
+    }
+
+    public ObjectReader reader(Class<?> type) {
+        return reader(mapper.constructType(type));
+    }
+
+    public ObjectReader reader(TypeReference<?> type) {
+        return reader(mapper.getTypeFactory().constructType(type));
+    }
+
+    public ObjectReader reader(JavaType type) {
+        return readers.computeIfAbsent(type, mapper::readerFor);
+    }
+
+    public ObjectWriter writer(Class<?> type) {
+        return writers.computeIfAbsent(type, mapper::writerFor);
+    }
+
+    public <T> T read(String json, Class<T> type) throws JsonProcessingException {
+        return reader(type).readValue(json);
+    }
+
+    public <T> T read(String json, TypeReference<T> type) throws JsonProcessingException {
+        return reader(type).readValue(json);
+    }
+
+    public String write(Object value) throws JsonProcessingException {
+        return writer(value.getClass()).writeValueAsString(value);
+    }
+
+    public byte[] writeBytes(Object value) throws JsonProcessingException {
+        return writer(value.getClass()).writeValueAsBytes(value);
+    }
+
+    private static void registerAccelerationModule(ObjectMapper mapper) {
+        for (String moduleClass : ACCELERATION_MODULES) {
+            try {
+                Module module = (Module) Class.forName(moduleClass).getDeclaredConstructor().newInstance();
+                mapper.registerModule(module);
+                log.info("JsonCodec acceleration enabled with {}", module.getModuleName());
+                return;
+            } catch (ClassNotFoundException e) {
+                // 다음 후보 모듈 확인
+            } catch (ReflectiveOperationException e) {
+                log.warn("Failed to register JSON acceleration module: {}", moduleClass, e);
+            }
+        }
+        log.warn("codec.json.accelerate is set but no Blackbird/Afterburner module is on the classpath");
+    }
+}
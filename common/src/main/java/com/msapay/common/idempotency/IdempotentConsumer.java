@@ -0,0 +1,335 @@
+package com.msapay.common.idempotency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * saga 명령을 (sagaId, step) 당 한 번만 적용하게 한다.
+ * 처리 전에 processed_message 에 처리 중 행을 INSERT 해 선점하고, 끝나면 결과와 함께 완료로 바꾼다.
+ * 같은 명령이 다시 오면(rebalance 후 재전달, saga 재시도) 부작용 없이 저장된 결과를 돌려주므로 결과만 다시 발행하면 된다.
+ * 최근 완료된 결과는 LRU 로 메모리에 두어 같은 인스턴스의 중복은 DB 조회 없이 걸러낸다.
+ * 처리 중에 죽어 남은 선점은 claim-timeout 이 지나면 다시 선점할 수 있고, 보관 기간이 지난 행은 주기적으로 지운다.
+ * 테이블을 쓰는 서비스만 설정에서 빈으로 등록한다.
+ */
+@Slf4j
+public class IdempotentConsumer {
+
+    private static final int STATUS_COMPLETED = 1;
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private static final String CLAIM_SQL =
+            "INSERT INTO processed_message (message_key, status, claimed_at, expires_at) VALUES (?, 0, ?, ?)";
+    private static final String FIND_SQL =
+            "SELECT status, success, reason, claimed_at FROM processed_message WHERE message_key = ?";
+    // 처리 중에 죽은 선점은 claimed_at 을 비교해 한 소비자만 다시 가져간다
+    private static final String RECLAIM_SQL =
+            "UPDATE processed_message SET claimed_at = ?, expires_at = ? WHERE message_key = ? AND status = 0 AND claimed_at = ?";
+    private static final String COMPLETE_SQL =
+            "UPDATE processed_message SET status = 1, success = ?, reason = ?, expires_at = ? WHERE message_key = ?";
+    private static final String INSERT_COMPLETED_SQL =
+            "INSERT INTO processed_message (message_key, status, success, reason, claimed_at, expires_at) VALUES ";
+    private static final String RELEASE_SQL =
+            "DELETE FROM processed_message WHERE message_key = ? AND status = 0";
+    private static final String PURGE_SQL =
+            "DELETE FROM processed_message WHERE expires_at < ? LIMIT " + PURGE_BATCH_SIZE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String name;
+    private final Duration retention;
+    private final Duration claimTimeout;
+    private final long purgeIntervalMillis;
+    private final Map<String, Claim> recent;
+
+    private final Counter acquiredCounter;
+    private final Counter memoryDuplicateCounter;
+    private final Counter storeDuplicateCounter;
+    private final Counter inProgressCounter;
+
+    private ScheduledExecutorService purgeExecutor;
+
+    public IdempotentConsumer(JdbcTemplate jdbcTemplate,
+                              MeterRegistry meterRegistry,
+                              String name,
+                              long retentionMillis,
+                              long claimTimeoutMillis,
+                              int cacheSize,
+                              long purgeIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.name = name;
+        this.retention = Duration.ofMillis(retentionMillis);
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMillis);
+        this.purgeIntervalMillis = purgeIntervalMillis;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<String, Claim>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claim> eldest) {
+                return size() > cacheSize;
+            }
+        });
+
+        this.acquiredCounter = Counter.builder("idempotency.messages").tag("consumer", name).tag("result", "acquired")
+                .register(meterRegistry);
+        this.inProgressCounter = Counter.builder("idempotency.messages").tag("consumer", name).tag("result", "in_progress")
+                .description("다른 소비자가 처리 중이라 건너뛴 명령 수")
+                .register(meterRegistry);
+        this.memoryDuplicateCounter = Counter.builder("idempotency.duplicates").tag("consumer", name).tag("source", "memory")
+                .description("이미 처리되어 다시 적용하지 않은 명령 수")
+                .register(meterRegistry);
+        this.storeDuplicateCounter = Counter.builder("idempotency.duplicates").tag("consumer", name).tag("source", "store")
+                .description("이미 처리되어 다시 적용하지 않은 명령 수")
+                .register(meterRegistry);
+        Gauge.builder("idempotency.cache.size", recent, Map::size).tag("consumer", name).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        purgeExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "idempotency-purge-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        purgeExecutor.scheduleWithFixedDelay(this::purgeExpired, purgeIntervalMillis, purgeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 명령을 선점한다. ACQUIRED 면 처리한 뒤 complete 를, 실패로 다시 받아야 하면 release 를 호출한다.
+     * DUPLICATE 면 이미 처리된 명령이므로 돌려준 결과만 다시 발행한다.
+     */
+    public Claim begin(UUID sagaId, String step) {
+        String key = key(sagaId, step);
+        Claim cached = recent.get(key);
+        if (cached != null) {
+            memoryDuplicateCounter.increment();
+            log.info("Duplicate command dropped (memory) - sagaId: {}, step: {}", sagaId, step);
+            return cached;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            jdbcTemplate.update(CLAIM_SQL, key, now, now.plus(retention));
+            acquiredCounter.increment();
+            return Claim.ACQUIRED;
+        } catch (DuplicateKeyException e) {
+            // 이미 처리했거나 처리 중인 명령
+        }
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(FIND_SQL, key);
+        if (rows.isEmpty()) {
+            // 그 사이 release/purge 되었다. 다음 재전달 때 다시 선점한다.
+            inProgressCounter.increment();
+            return Claim.IN_PROGRESS;
+        }
+        Map<String, Object> row = rows.get(0);
+        if (((Number) row.get("status")).intValue() == STATUS_COMPLETED) {
+            Claim duplicate = Claim.duplicate(Boolean.TRUE.equals(toBoolean(row.get("success"))), (String) row.get("reason"));
+            recent.put(key, duplicate);
+            storeDuplicateCounter.increment();
+            log.info("Duplicate command dropped (store) - sagaId: {}, step: {}", sagaId, step);
+            return duplicate;
+        }
+
+        Object claimedAt = row.get("claimed_at");
+        LocalDateTime claimedAtTime = claimedAt instanceof java.sql.Timestamp
+                ? ((java.sql.Timestamp) claimedAt).toLocalDateTime()
+                : (LocalDateTime) claimedAt;
+        if (claimedAtTime.plus(claimTimeout).isBefore(now)
+                && jdbcTemplate.update(RECLAIM_SQL, now, now.plus(retention), key, claimedAt) == 1) {
+            log.warn("Reclaimed stale command claim - sagaId: {}, step: {}, claimed at: {}", sagaId, step, claimedAtTime);
+            acquiredCounter.increment();
+            return Claim.ACQUIRED;
+        }
+        inProgressCounter.increment();
+        log.info("Command is being processed by another consumer - sagaId: {}, step: {}", sagaId, step);
+        return Claim.IN_PROGRESS;
+    }
+
+    /**
+     * 이 인스턴스가 최근에 완료한 명령이면 그 결과를 DUPLICATE 로 돌려주고, 아니면 null. DB 는 보지 않는다.
+     */
+    public Claim findRecent(UUID sagaId, String step) {
+        Claim cached = recent.get(key(sagaId, step));
+        if (cached != null) {
+            memoryDuplicateCounter.increment();
+            log.info("Duplicate command dropped (memory) - sagaId: {}, step: {}", sagaId, step);
+        }
+        return cached;
+    }
+
+    /**
+     * 선점과 완료를 합쳐, 여러 명령의 완료 행을 한 번의 multi-row INSERT 로 넣는다.
+     * 부작용과 같은 트랜잭션 안에서 불러야 하며, 커밋 전까지 같은 명령을 받은 다른 소비자는 이 행에서 기다렸다가 결과를 DUPLICATE 로 받는다.
+     * 이미 선점되었거나 처리된 명령이 하나라도 있으면 DuplicateKeyException 을 던지므로 호출한 쪽은 롤백하고 begin 으로 하나씩 처리한다.
+     */
+    public void completeAllNew(List<UUID> sagaIds, String step, boolean success, String reason) {
+        if (sagaIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(retention);
+        StringBuilder sql = new StringBuilder(INSERT_COMPLETED_SQL);
+        List<Object> args = new ArrayList<>(sagaIds.size() * 5);
+        List<String> keys = new ArrayList<>(sagaIds.size());
+        for (UUID sagaId : sagaIds) {
+            String key = key(sagaId, step);
+            sql.append(keys.isEmpty() ? "(?, 1, ?, ?, ?, ?)" : ", (?, 1, ?, ?, ?, ?)");
+            Collections.addAll(args, key, success, reason, now, expiresAt);
+            keys.add(key);
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+        acquiredCounter.increment(sagaIds.size());
+        remember(keys, Claim.duplicate(success, reason));
+    }
+
+    /**
+     * 처리 결과를 기록한다. 이후 같은 명령은 이 결과를 DUPLICATE 로 돌려받는다.
+     * 처리의 부작용과 같은 트랜잭션 안에서 부르면 둘이 함께 커밋되거나 함께 롤백된다.
+     */
+    public void complete(UUID sagaId, String step, boolean success, String reason) {
+        String key = key(sagaId, step);
+        jdbcTemplate.update(COMPLETE_SQL, success, reason, LocalDateTime.now().plus(retention), key);
+        remember(Collections.singletonList(key), Claim.duplicate(success, reason));
+    }
+
+    /**
+     * 같은 단계의 여러 명령 결과를 한 번의 batch UPDATE 로 기록한다.
+     */
+    public void completeAll(List<UUID> sagaIds, String step, boolean success, String reason) {
+        if (sagaIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plus(retention);
+        List<Object[]> args = new ArrayList<>(sagaIds.size());
+        for (UUID sagaId : sagaIds) {
+            args.add(new Object[]{success, reason, expiresAt, key(sagaId, step)});
+        }
+        jdbcTemplate.batchUpdate(COMPLETE_SQL, args);
+        List<String> keys = new ArrayList<>(sagaIds.size());
+        for (UUID sagaId : sagaIds) {
+            keys.add(key(sagaId, step));
+        }
+        remember(keys, Claim.duplicate(success, reason));
+    }
+
+    // 트랜잭션 안에서 기록한 결과는 커밋된 뒤에만 메모리에 올려, 롤백된 결과로 재전달을 걸러내지 않게 한다
+    private void remember(List<String> keys, Claim result) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            keys.forEach(key -> recent.put(key, result));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                keys.forEach(key -> recent.put(key, result));
+            }
+        });
+    }
+
+    /**
+     * 부작용 없이 실패한 선점을 풀어 재전달 때 다시 처리하게 한다. 이미 완료된 명령에는 영향이 없다.
+     */
+    public void release(UUID sagaId, String step) {
+        try {
+            jdbcTemplate.update(RELEASE_SQL, key(sagaId, step));
+        } catch (Exception e) {
+            log.error("Failed to release command claim - sagaId: {}, step: {}", sagaId, step, e);
+        }
+    }
+
+    void purgeExpired() {
+        try {
+            int purged;
+            int total = 0;
+            do {
+                purged = jdbcTemplate.update(PURGE_SQL, LocalDateTime.now());
+                total += purged;
+            } while (purged == PURGE_BATCH_SIZE);
+            if (total > 0) {
+                log.info("Purged {} expired processed messages ({})", total, name);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge processed messages ({}): {}", name, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (purgeExecutor != null) {
+            purgeExecutor.shutdownNow();
+        }
+    }
+
+    private static String key(UUID sagaId, String step) {
+        return sagaId + ":" + step;
+    }
+
+    private static Boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value instanceof Number ? ((Number) value).intValue() != 0 : null;
+    }
+
+    public static final class Claim {
+
+        public enum Outcome {
+            ACQUIRED, DUPLICATE, IN_PROGRESS
+        }
+
+        static final Claim ACQUIRED = new Claim(Outcome.ACQUIRED, false, null);
+        static final Claim IN_PROGRESS = new Claim(Outcome.IN_PROGRESS, false, null);
+
+        private final Outcome outcome;
+        private final boolean success;
+        private final String reason;
+
+        private Claim(Outcome outcome, boolean success, String reason) {
+            this.outcome = outcome;
+            this.success = success;
+            this.reason = reason;
+        }
+
+        static Claim duplicate(boolean success, String reason) {
+            return new Claim(Outcome.DUPLICATE, success, reason);
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public boolean isAcquired() {
+            return outcome == Outcome.ACQUIRED;
+        }
+
+        public boolean isDuplicate() {
+            return outcome == Outcome.DUPLICATE;
+        }
+
+        // DUPLICATE 일 때 처음 처리한 결과
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
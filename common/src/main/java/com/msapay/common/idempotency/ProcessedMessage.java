@@ -0,0 +1,45 @@
+package com.msapay.common.idempotency;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * IdempotentConsumer 가 처리한 (sagaId, step) 명령. 읽고 쓰는 것은 IdempotentConsumer 의 SQL 이 하고,
+ * 엔티티는 테이블 정의를 위해 둔다.
+ */
+@Entity
+@Table(name = "processed_message",
+        indexes = @Index(name = "ix_processed_message_expires_at", columnList = "expires_at"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ProcessedMessage {
+
+    // sagaId:step
+    @Id
+    @Column(name = "message_key", length = 80)
+    private String messageKey;
+
+    // 0 = 처리 중, 1 = 처리 완료
+    @Column(name = "status", nullable = false, columnDefinition = "TINYINT")
+    private int status;
+
+    @Column(name = "success")
+    private Boolean success;
+
+    @Column(name = "reason")
+    private String reason;
+
+    @Column(name = "claimed_at", nullable = false)
+    private LocalDateTime claimedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
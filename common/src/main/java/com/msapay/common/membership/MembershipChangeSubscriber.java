@@ -0,0 +1,95 @@
+package com.msapay.common.membership;
+
+import com.msapay.common.codec.JsonCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * membership-changed 토픽을 구독해 MembershipStatusCache 를 무효화한다.
+ * 모든 인스턴스가 모든 변경을 받아야 하므로 인스턴스마다 별도 consumer group 을 쓰고, 기동 이후의 변경만 읽는다.
+ * 그래서 재시작하거나 구독이 끊겼던 동안의 변경은 받지 못한다. 캐시는 기동 때 비어 있으므로 재시작 전 값이 남지는 않지만,
+ * 구독이 붙기 전이나 끊긴 동안 채운 항목은 membership.cache.ttl-ms 가 지나야 바뀐 상태로 다시 읽힌다.
+ * 이 TTL 이 무효화를 놓쳤을 때 이전 상태를 볼 수 있는 최대 시간이다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "membership.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class MembershipChangeSubscriber {
+
+    private final String bootstrapServers;
+    private final String topic;
+    private final MembershipStatusCache membershipStatusCache;
+    private final JsonCodec jsonCodec;
+
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private Thread consumerThread;
+
+    public MembershipChangeSubscriber(@Value("${kafka.clusters.bootstrapservers}") String bootstrapServers,
+                                      @Value("${kafka.topics.membership-changed:membership-changed}") String topic,
+                                      MembershipStatusCache membershipStatusCache,
+                                      JsonCodec jsonCodec) {
+        this.bootstrapServers = bootstrapServers;
+        this.topic = topic;
+        this.membershipStatusCache = membershipStatusCache;
+        this.jsonCodec = jsonCodec;
+    }
+
+    @PostConstruct
+    public void start() {
+        consumerThread = new Thread(this::consume, "membership-change-subscriber");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    private void consume() {
+        Properties props = new Properties();
+        props.put("bootstrap.servers", bootstrapServers);
+        props.put("group.id", "membership-cache-" + UUID.randomUUID());
+        props.put("key.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
+        props.put("value.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
+        props.put("auto.offset.reset", "latest");
+        props.put("enable.auto.commit", "false");
+
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(props)) {
+            consumer.subscribe(Collections.singletonList(topic));
+            log.info("Subscribed to membership change topic: {}", topic);
+            while (running.get()) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(1));
+                for (ConsumerRecord<String, String> record : records) {
+                    try {
+                        MembershipChangedEvent event = jsonCodec.read(record.value(), MembershipChangedEvent.class);
+                        membershipStatusCache.invalidate(event.getMembershipId());
+                    } catch (Exception e) {
+                        // 알 수 없는 메시지라도 키가 membershipId 이므로 그 항목은 비운다
+                        log.warn("Failed to parse membership change event: {}", record.value(), e);
+                        if (record.key() != null) {
+                            membershipStatusCache.invalidate(record.key());
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            if (running.get()) {
+                log.error("Membership change subscriber stopped", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running.set(false);
+    }
+}
@@ -0,0 +1,17 @@
+package com.msapay.common.membership;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 멤버십 정보가 바뀌었음을 알리는 이벤트. 각 서비스의 MembershipStatusCache 가 받아 해당 항목을 무효화한다.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MembershipChangedEvent {
+    private String membershipId;
+    private boolean valid;
+    private long changedAt;
+}
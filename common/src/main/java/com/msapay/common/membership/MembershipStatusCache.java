@@ -0,0 +1,176 @@
+package com.msapay.common.membership;
+
+import com.msapay.common.cache.CacheEviction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * membershipId 별 유효 여부를 보관하는 read-through 캐시.
+ * TTL 이 지난 항목은 동기로 다시 읽고, refresh-ahead 시점이 지난 항목은 캐시 값을 돌려주면서 백그라운드로 갱신한다.
+ * membership-service 가 발행하는 MembershipChangedEvent 로 무효화되며, 이벤트를 놓쳐도 TTL 이 지나면 반영된다.
+ */
+@Slf4j
+@Component
+public class MembershipStatusCache {
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter invalidationCounter;
+
+    public MembershipStatusCache(@Value("${membership.cache.enabled:true}") boolean enabled,
+                                 @Value("${membership.cache.max-size:10000}") int maxSize,
+                                 @Value("${membership.cache.ttl-ms:30000}") long ttlMillis,
+                                 @Value("${membership.cache.refresh-ahead-ms:20000}") long refreshAheadMillis,
+                                 MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttlNanos = Duration.ofMillis(ttlMillis).toNanos();
+        this.refreshAfterNanos = Duration.ofMillis(Math.min(refreshAheadMillis, ttlMillis)).toNanos();
+        this.refreshExecutor = Executors.newFixedThreadPool(2, r -> {
+            Thread thread = new Thread(r, "membership-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.hitCounter = Counter.builder("membership.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("membership.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.invalidationCounter = Counter.builder("membership.cache.invalidations")
+                .description("멤버십 변경 이벤트로 무효화된 항목 수")
+                .register(meterRegistry);
+        Gauge.builder("membership.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * 캐시된 유효 여부를 돌려준다. 없거나 만료되었으면 loader 로 읽어 채운다.
+     */
+    public boolean isValid(String membershipId, Function<String, Boolean> loader) {
+        if (!enabled) {
+            return loader.apply(membershipId);
+        }
+
+        long now = System.nanoTime();
+        Entry entry = entries.get(membershipId);
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            hitCounter.increment();
+            if (now - entry.loadedAt >= refreshAfterNanos && entry.refreshing.compareAndSet(false, true)) {
+                refreshExecutor.execute(() -> refresh(membershipId, entry, loader));
+            }
+            return entry.valid;
+        }
+
+        missCounter.increment();
+        boolean valid = loader.apply(membershipId);
+        entries.put(membershipId, new Entry(valid, System.nanoTime()));
+        evictIfNeeded();
+        return valid;
+    }
+
+    /**
+     * isValid 의 비동기 버전. 캐시에 있으면 바로 완료된 future 를, 없거나 만료되었으면 loader 가 끝날 때 채우는 future 를 돌려준다.
+     */
+    public CompletableFuture<Boolean> isValidAsync(String membershipId, Function<String, CompletableFuture<Boolean>> loader) {
+        if (!enabled) {
+            return loader.apply(membershipId);
+        }
+
+        long now = System.nanoTime();
+        Entry entry = entries.get(membershipId);
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            hitCounter.increment();
+            if (now - entry.loadedAt >= refreshAfterNanos && entry.refreshing.compareAndSet(false, true)) {
+                loader.apply(membershipId).whenComplete((valid, e) -> {
+                    if (e == null) {
+                        replaceIfCurrent(membershipId, entry, new Entry(valid, System.nanoTime()));
+                    } else {
+                        log.warn("Failed to refresh membership status: {}", membershipId, e);
+                        entry.refreshing.set(false);
+                    }
+                });
+            }
+            return CompletableFuture.completedFuture(entry.valid);
+        }
+
+        missCounter.increment();
+        return loader.apply(membershipId).thenApply(valid -> {
+            entries.put(membershipId, new Entry(valid, System.nanoTime()));
+            evictIfNeeded();
+            return valid;
+        });
+    }
+
+    /**
+     * TTL 과 관계없이 마지막으로 읽은 유효 여부. 한 번도 읽지 않았거나 무효화되었으면 null.
+     * membership-service 가 제때 답하지 못할 때의 대체 값으로 쓴다.
+     */
+    public Boolean getLastKnown(String membershipId) {
+        Entry entry = entries.get(membershipId);
+        return entry == null ? null : entry.valid;
+    }
+
+    public void invalidate(String membershipId) {
+        if (entries.remove(membershipId) != null) {
+            invalidationCounter.increment();
+            log.debug("Membership status cache invalidated: {}", membershipId);
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    private void refresh(String membershipId, Entry staleEntry, Function<String, Boolean> loader) {
+        try {
+            replaceIfCurrent(membershipId, staleEntry, new Entry(loader.apply(membershipId), System.nanoTime()));
+        } catch (Exception e) {
+            log.warn("Failed to refresh membership status: {}", membershipId, e);
+            staleEntry.refreshing.set(false);
+        }
+    }
+
+    // 갱신 중에 무효화되었거나 다른 값으로 바뀌었으면 덮어쓰지 않는다
+    private void replaceIfCurrent(String membershipId, Entry staleEntry, Entry refreshed) {
+        entries.computeIfPresent(membershipId, (key, current) -> current == staleEntry ? refreshed : current);
+    }
+
+    private void evictIfNeeded() {
+        CacheEviction.evictOldest(entries, maxSize, e -> e.loadedAt);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdown();
+    }
+
+    private static final class Entry {
+        private final boolean valid;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(boolean valid, long loadedAt) {
+            this.valid = valid;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.msapay.common.outbox;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+import java.util.UUID;
+
+import static lombok.AccessLevel.PROTECTED;
+
+/**
+ * tailing relay 가 gap 을 건너뛴 뒤에 늦게 커밋된 outbox 행.
+ * 같은 어그리게이트의 뒤 이벤트가 이미 나갔을 수 있어 발행하지 않고 옮겨 둔다. 확인 후 수동으로 처리한다.
+ */
+@Entity
+@Table(name = "outboxevent_late")
+@Getter
+@NoArgsConstructor(access = PROTECTED)
+public class LateOutbox {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "sequence_no")
+    private Long sequence;
+
+    @Column(name = "timestamp")
+    private Instant timestamp;
+
+    @Column(name = "aggregateid")
+    private String aggregateId;
+
+    @Column(name = "aggregatetype")
+    private String aggregateType;
+
+    @Column(name = "type")
+    private String type;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "parked_at")
+    private Instant parkedAt;
+
+    LateOutbox(Outbox outbox, Instant parkedAt) {
+        this.id = outbox.getId();
+        this.sequence = outbox.getSequence();
+        this.timestamp = outbox.getTimestamp();
+        this.aggregateId = outbox.getAggregateId();
+        this.aggregateType = outbox.getAggregateType();
+        this.type = outbox.getType();
+        this.payload = outbox.getPayload();
+        this.parkedAt = parkedAt;
+    }
+}
@@ -0,0 +1,10 @@
+package com.msapay.common.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface LateOutboxRepository extends JpaRepository<LateOutbox, UUID> {
+}
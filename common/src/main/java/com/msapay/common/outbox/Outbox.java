@@ -41,6 +41,10 @@ public class Outbox implements Serializable {
     @Column(columnDefinition = "TEXT")
     private String payload;
 
+    // 삽입 순서대로 증가하는 번호. DB 가 채우며 tailing relay 가 high-water mark 로 사용한다.
+    @Column(name = "sequence_no", columnDefinition = "BIGINT AUTO_INCREMENT UNIQUE", insertable = false, updatable = false)
+    private Long sequence;
+
     Outbox(OutboxEvent<?, ?> event) {
         requireNonNull(event, "event cannot be null");
         this.id = UUID.randomUUID();
@@ -74,4 +78,8 @@ public class Outbox implements Serializable {
     public String getPayload() {
         return payload;
     }
+
+    public Long getSequence() {
+        return sequence;
+    }
 }
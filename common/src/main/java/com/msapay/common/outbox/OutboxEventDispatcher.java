@@ -1,12 +1,14 @@
 package com.msapay.common.outbox;
 
 import javax.persistence.EntityManager;
-import org.hibernate.Session;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import static org.springframework.transaction.annotation.Propagation.REQUIRED;
 
@@ -15,28 +17,43 @@ import static org.springframework.transaction.annotation.Propagation.REQUIRED;
 public class OutboxEventDispatcher {
 
     private final EntityManager entityManager;
-    private final boolean removeAfterInsert = true; 
+    // relay 를 띄운 서비스에만 존재한다. polling 모드면 scheduler, tailing 모드면 tailer.
+    private final ObjectProvider<OutboxScheduler> outboxScheduler;
+    private final ObjectProvider<OutboxTailer> outboxTailer;
 
     @Autowired
-    public OutboxEventDispatcher(EntityManager entityManager) {
+    public OutboxEventDispatcher(EntityManager entityManager,
+                                 ObjectProvider<OutboxScheduler> outboxScheduler,
+                                 ObjectProvider<OutboxTailer> outboxTailer) {
         this.entityManager = entityManager;
+        this.outboxScheduler = outboxScheduler;
+        this.outboxTailer = outboxTailer;
     }
 
     @EventListener
     @Transactional(propagation = REQUIRED)
     public void on(OutboxEvent<?, ?> event) {
-        try (var session = entityManager.unwrap(Session.class)) {
-            log.info("An exported event was found for type {}", event.type());
-
-            // Unwrap to Hibernate session and save
-            var outbox = new Outbox(event);
-            session.persist(outbox);
-
-            // Remove entity if the configuration deems doing so, leaving useful
-            // for debugging
-            if (removeAfterInsert) {
-                session.remove(outbox);
-            }
+        log.info("An exported event was found for type {}", event.type());
+
+        // 호출한 쪽의 트랜잭션에 함께 저장한다. Kafka 발행과 행 삭제는 relay 가 맡는다.
+        Outbox outbox = new Outbox(event);
+        entityManager.persist(outbox);
+
+        OutboxTailer tailer = outboxTailer.getIfAvailable();
+        if (tailer == null && outboxScheduler.getIfAvailable() == null) {
+            // relay 가 없는 서비스(money-service 등)는 행을 지울 곳이 없으므로 예전처럼 같은 트랜잭션에서 바로 지워 테이블이 자라지 않게 한다
+            entityManager.remove(outbox);
+            return;
+        }
+
+        // 커밋 직후 tailer 를 깨워 poll 주기를 기다리지 않고 발행하게 한다
+        if (tailer != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tailer.wakeUp();
+                }
+            });
         }
     }
 }
@@ -0,0 +1,30 @@
+package com.msapay.common.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * tailing relay 가 어디까지 발행했는지(high-water mark) 기록한다.
+ */
+@Entity
+@Table(name = "outbox_relay_offset")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxRelayOffset {
+
+    @Id
+    private String relayName;
+
+    @Column(name = "last_sequence")
+    private long lastSequence;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,19 @@
+package com.msapay.common.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface OutboxRelayOffsetRepository extends JpaRepository<OutboxRelayOffset, String> {
+
+    // 같은 relay 이름으로 여러 인스턴스가 떠도 한 번에 하나만 tail 하도록 offset 행을 잠근다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM OutboxRelayOffset o WHERE o.relayName = :relayName")
+    Optional<OutboxRelayOffset> lockByRelayName(@Param("relayName") String relayName);
+}
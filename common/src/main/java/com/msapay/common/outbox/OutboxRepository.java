@@ -1,11 +1,31 @@
 package com.msapay.common.outbox;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface OutboxRepository extends JpaRepository<Outbox, UUID> {
-    // JpaRepository의 기본 메서드들만 사용
+
+    // 다른 relay 인스턴스가 잡고 있는 행은 건너뛰고 삽입 순서대로 batch 를 가져온다. 트랜잭션 안에서 호출해야 한다.
+    @Query(value = "SELECT * FROM outboxevent ORDER BY sequence_no LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Outbox> claimBatch(@Param("limit") int limit);
+
+    @Query("SELECT o FROM Outbox o WHERE o.sequence > :after ORDER BY o.sequence")
+    List<Outbox> findAfterSequence(@Param("after") long after, Pageable pageable);
+
+    // high-water mark 이하에 남은 행은 gap 을 건너뛴 뒤에 커밋된 행이다
+    @Query("SELECT o FROM Outbox o WHERE o.sequence <= :upTo ORDER BY o.sequence")
+    List<Outbox> findUpToSequence(@Param("upTo") long upTo, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Outbox o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<UUID> ids);
 }
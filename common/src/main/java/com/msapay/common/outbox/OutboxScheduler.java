@@ -1,68 +1,183 @@
 package com.msapay.common.outbox;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.transaction.Transactional;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * outboxevent 테이블을 Kafka 로 옮기는 relay.
+ * 한 트랜잭션 안에서 FOR UPDATE SKIP LOCKED 로 batch 를 잡고, 멱등 producer 로 전부 보낸 뒤 flush 하여
+ * ack 를 받은 행만 id 목록으로 한 번에 삭제한다. 커밋 전에 실패하면 행은 남아 다음 주기에 다시 발행된다.
+ * backlog 가 쌓이면 batch 를 키우고 쉬지 않고 돌며, 비어 있으면 batch 를 줄이고 주기를 늘린다.
+ */
 @Slf4j
 public class OutboxScheduler {
 
     private final OutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
     private final KafkaProducer<String, String> producer;
-    private final ObjectMapper objectMapper;
 
-    public OutboxScheduler(OutboxRepository outboxRepository, @Value("${kafka.clusters.bootstrapservers}") String bootstrapServers) {
+    @Value("${outbox.relay.min-batch-size:50}")
+    private int minBatchSize;
+
+    @Value("${outbox.relay.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${outbox.relay.min-interval-ms:10}")
+    private long minIntervalMillis;
+
+    @Value("${outbox.relay.max-interval-ms:1000}")
+    private long maxIntervalMillis;
+
+    private ScheduledExecutorService relayExecutor;
+    private int batchSize;
+    private long intervalMillis;
+
+    // 마지막 주기에 남아 있던 가장 오래된 이벤트의 대기 시간
+    private final AtomicLong relayLagMillis = new AtomicLong();
+    private Counter publishedCounter;
+    private Counter failedCounter;
+
+    public OutboxScheduler(OutboxRepository outboxRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           String bootstrapServers) {
         this.outboxRepository = outboxRepository;
-        this.objectMapper = new ObjectMapper();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.producer = createProducer(bootstrapServers);
+    }
 
+    static KafkaProducer<String, String> createProducer(String bootstrapServers) {
         Properties props = new Properties();
         props.put("bootstrap.servers", bootstrapServers);
         props.put("key.serializer", "org.apache.kafka.common.serialization.StringSerializer");
         props.put("value.serializer", "org.apache.kafka.common.serialization.StringSerializer");
+        // 재전송되어도 파티션 안에서 중복/순서 뒤바뀜이 없도록 멱등 producer 를 쓴다
+        props.put("enable.idempotence", "true");
+        props.put("acks", "all");
+        props.put("max.in.flight.requests.per.connection", "5");
+        props.put("linger.ms", "5");
 
-        this.producer = new KafkaProducer<>(props);
+        return new KafkaProducer<>(props);
     }
 
-    @Scheduled(fixedDelay = 1000L)
-    @Transactional
-    public void publishEvents() {
+    @PostConstruct
+    public void start() {
+        batchSize = minBatchSize;
+        intervalMillis = maxIntervalMillis;
+
+        publishedCounter = Counter.builder("outbox.relay.published")
+                .description("Kafka 로 발행하고 삭제한 outbox 이벤트 수")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("outbox.relay.failed")
+                .description("발행에 실패해 다음 주기로 넘긴 outbox 이벤트 수")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.lag", relayLagMillis, AtomicLong::get)
+                .description("relay 되지 않은 가장 오래된 outbox 이벤트의 대기 시간(ms)")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
+        relayExecutor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "outbox-relay"));
+        relayExecutor.schedule(this::relayLoop, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Outbox relay started (batch {}-{}, interval {}-{} ms)", minBatchSize, maxBatchSize, minIntervalMillis, maxIntervalMillis);
+    }
+
+    private void relayLoop() {
+        int relayed = 0;
         try {
-            Pageable pageable = PageRequest.of(0, 50, Sort.by("timestamp").ascending());
-            var outboxEvents = outboxRepository.findAll(pageable).getContent();
+            Integer result = transactionTemplate.execute(status -> publishEvents(batchSize));
+            relayed = result == null ? 0 : result;
+        } catch (Exception e) {
+            log.error("OutboxScheduler error: {}", e.getMessage(), e);
+        }
+        adapt(relayed);
+        if (!relayExecutor.isShutdown()) {
+            relayExecutor.schedule(this::relayLoop, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * batch 하나를 발행한다. 잡은 행 수를 돌려준다.
+     */
+    int publishEvents(int limit) {
+        List<Outbox> outboxEvents = outboxRepository.claimBatch(limit);
+        if (outboxEvents.isEmpty()) {
+            relayLagMillis.set(0);
+            return 0;
+        }
+        relayLagMillis.set(Math.max(0, Duration.between(outboxEvents.get(0).getTimestamp(), Instant.now()).toMillis()));
 
-            if (outboxEvents.isEmpty()) {
-                return;
+        List<Future<RecordMetadata>> sends = new ArrayList<>(outboxEvents.size());
+        for (Outbox outbox : outboxEvents) {
+            sends.add(producer.send(new ProducerRecord<>(outbox.getAggregateType(), outbox.getAggregateId(), outbox.getPayload())));
+        }
+        producer.flush();
+
+        List<UUID> publishedIds = new ArrayList<>(outboxEvents.size());
+        for (int i = 0; i < sends.size(); i++) {
+            try {
+                sends.get(i).get();
+                publishedIds.add(outboxEvents.get(i).getId());
+            } catch (Exception e) {
+                log.error("Failed to publish outbox event: {}", outboxEvents.get(i).getId(), e);
             }
+        }
+
+        if (!publishedIds.isEmpty()) {
+            outboxRepository.deleteByIdIn(publishedIds);
+        }
+        publishedCounter.increment(publishedIds.size());
+        failedCounter.increment(outboxEvents.size() - publishedIds.size());
+        return outboxEvents.size();
+    }
 
-            for (Outbox outbox : outboxEvents) {
-                try {
-                    ProducerRecord<String, String> record = new ProducerRecord<>(outbox.getAggregateType(), outbox.getAggregateId().toString(), outbox.getPayload());
-                    producer.send(record, (metadata, exception) -> {
-                        if (exception == null) {
-                            try {
-                                outboxRepository.delete(outbox);
-                            } catch (Exception e) {
-                                // Log error but don't fail the entire transaction
-                                log.error("Failed to remove outbox event: {}", e.getMessage(), e);
-                            }
-                        }
-                    });
-                } catch (Exception e) {
-                    log.error("Failed to process outbox event: {}", e.getMessage(), e);
-                }
+    private void adapt(int relayed) {
+        if (relayed >= batchSize) {
+            // backlog 가 남아 있을 가능성이 높으므로 batch 를 키우고 바로 다음 주기를 돈다
+            batchSize = Math.min(batchSize * 2, maxBatchSize);
+            intervalMillis = 0;
+        } else if (relayed > 0) {
+            intervalMillis = minIntervalMillis;
+        } else {
+            batchSize = Math.max(batchSize / 2, minBatchSize);
+            intervalMillis = Math.min(Math.max(intervalMillis * 2, minIntervalMillis), maxIntervalMillis);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutting down outbox relay");
+        if (relayExecutor != null) {
+            relayExecutor.shutdown();
+            try {
+                relayExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-        } catch (Exception e) {
-            log.error("OutboxScheduler error: {}", e.getMessage(), e);
-            // Don't rethrow to prevent scheduler from stopping
         }
+        producer.close(Duration.ofSeconds(5));
     }
 }
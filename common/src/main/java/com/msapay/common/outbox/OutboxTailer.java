@@ -0,0 +1,280 @@
+package com.msapay.common.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OutboxScheduler 의 polling 대신 outboxevent 를 sequence_no 순서대로 따라가며 발행하는 tailing relay.
+ * 이 노드에서 outbox 를 기록한 트랜잭션이 커밋되면 바로 깨어나고, 다른 노드가 기록한 행은 짧은 주기로 확인한다.
+ * 발행 위치(high-water mark)는 outbox_relay_offset 에 저장하므로 재기동 시 이어서 발행한다.
+ * offset 행을 잠근 트랜잭션 안에서만 발행하므로 같은 relay 이름으로는 한 인스턴스만 tail 한다.
+ *
+ * sequence 는 삽입 시점에 정해지지만 커밋 순서는 다를 수 있다. 그래서 빈 번호를 만나면 그 앞에서 멈추고,
+ * gap-timeout 이 지나도 채워지지 않으면(롤백 등) 건너뛴다. gap 의 나이는 뒤따르는 행의 timestamp 부터 세므로
+ * 밀린 행을 따라잡을 때는 이미 오래된 gap 에서 다시 기다리지 않는다.
+ * 발행한 행은 지우므로 high-water mark 이하에 남은 행은 건너뛴 뒤에 늦게 커밋된 행이다. 같은 어그리게이트의 뒤 이벤트가
+ * 이미 나갔을 수 있으므로 순서를 어겨 발행하지 않고 outboxevent_late 로 옮겨 둔다(outbox.relay.late). 비어 있는 번호는
+ * 커밋 전이라 어느 어그리게이트의 행인지 알 수 없어 그 어그리게이트만 막아 둘 수는 없다.
+ * gap-timeout 은 outbox 를 기록하는 가장 긴 트랜잭션보다 길게 잡아야 한다.
+ * 키는 aggregateId 이므로 같은 어그리게이트의 이벤트는 같은 파티션에 sequence 순서대로 들어간다.
+ */
+@Slf4j
+public class OutboxTailer {
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxRelayOffsetRepository offsetRepository;
+    private final LateOutboxRepository lateOutboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final KafkaProducer<String, String> producer;
+
+    @Value("${outbox.tail.relay-name:default}")
+    private String relayName;
+
+    @Value("${outbox.tail.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.tail.poll-interval-ms:200}")
+    private long pollIntervalMillis;
+
+    @Value("${outbox.tail.gap-timeout-ms:1000}")
+    private long gapTimeoutMillis;
+
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final AtomicLong highWaterMark = new AtomicLong(-1);
+    private final AtomicLong relayLagMillis = new AtomicLong();
+    private volatile boolean running = true;
+    private Thread tailThread;
+    private Counter publishedCounter;
+    private Counter lateCounter;
+
+    // 아직 채워지지 않은 sequence 와 처음 발견한 시각. tail 스레드에서만 접근한다.
+    private long pendingGapSequence = -1;
+    private long pendingGapSince;
+
+    public OutboxTailer(OutboxRepository outboxRepository,
+                        OutboxRelayOffsetRepository offsetRepository,
+                        LateOutboxRepository lateOutboxRepository,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        String bootstrapServers) {
+        this.outboxRepository = outboxRepository;
+        this.offsetRepository = offsetRepository;
+        this.lateOutboxRepository = lateOutboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.producer = OutboxScheduler.createProducer(bootstrapServers);
+    }
+
+    @PostConstruct
+    public void start() {
+        publishedCounter = Counter.builder("outbox.relay.published")
+                .description("Kafka 로 발행하고 삭제한 outbox 이벤트 수")
+                .register(meterRegistry);
+        lateCounter = Counter.builder("outbox.relay.late")
+                .description("gap 을 건너뛴 뒤에 커밋되어 발행하지 않고 outboxevent_late 로 옮긴 outbox 이벤트 수")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.lag", relayLagMillis, AtomicLong::get)
+                .description("relay 되지 않은 가장 오래된 outbox 이벤트의 대기 시간(ms)")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.high-water-mark", highWaterMark, AtomicLong::get)
+                .description("마지막으로 발행한 outbox sequence")
+                .register(meterRegistry);
+
+        tailThread = new Thread(this::tailLoop, "outbox-tailer");
+        tailThread.setDaemon(true);
+        tailThread.start();
+        log.info("Outbox tailer started (relay: {}, batch: {}, poll: {} ms)", relayName, batchSize, pollIntervalMillis);
+    }
+
+    /**
+     * outbox 를 기록한 트랜잭션이 커밋되었음을 알린다.
+     */
+    public void wakeUp() {
+        wakeUp.release();
+    }
+
+    private void tailLoop() {
+        while (running) {
+            int relayed = 0;
+            try {
+                Integer result = transactionTemplate.execute(status -> tail());
+                relayed = result == null ? 0 : result;
+            } catch (Exception e) {
+                log.error("Outbox tailer error: {}", e.getMessage(), e);
+            }
+
+            if (relayed >= batchSize) {
+                continue;
+            }
+            try {
+                // 커밋 알림이 오거나 poll 주기가 지나면 다시 읽는다. 쌓인 알림은 한 번에 비운다.
+                wakeUp.tryAcquire(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                wakeUp.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * high-water mark 이후의 연속된 행을 발행하고 offset 을 옮긴다. 발행한 행 수를 돌려준다.
+     */
+    int tail() {
+        OutboxRelayOffset offset = offsetRepository.lockByRelayName(relayName)
+                .orElseGet(() -> offsetRepository.save(new OutboxRelayOffset(relayName, 0, Instant.now())));
+        long after = offset.getLastSequence();
+        highWaterMark.set(after);
+
+        parkLate(after);
+
+        List<Outbox> rows = outboxRepository.findAfterSequence(after, PageRequest.of(0, batchSize));
+        List<Outbox> contiguous = takeContiguous(after, rows);
+        if (contiguous.isEmpty()) {
+            relayLagMillis.set(rows.isEmpty() ? 0 : lagOf(rows.get(0)));
+            return 0;
+        }
+        relayLagMillis.set(lagOf(contiguous.get(0)));
+
+        // 실패한 행 앞까지만 offset 을 옮겨 순서를 지킨다. 뒤의 행은 다음 주기에 다시 발행된다.
+        List<Outbox> published = publish(contiguous);
+        if (!published.isEmpty()) {
+            long lastPublished = published.get(published.size() - 1).getSequence();
+            delete(published);
+            offset.setLastSequence(lastPublished);
+            offset.setUpdatedAt(Instant.now());
+            offsetRepository.save(offset);
+            highWaterMark.set(lastPublished);
+        }
+        return published.size();
+    }
+
+    /**
+     * high-water mark 이하에 남은 행을 발행하지 않고 outboxevent_late 로 옮긴다.
+     * 이미 뒤의 sequence 가 나갔으므로 발행하면 같은 어그리게이트의 이벤트 순서가 뒤바뀔 수 있다.
+     */
+    private void parkLate(long upTo) {
+        List<Outbox> late = outboxRepository.findUpToSequence(upTo, PageRequest.of(0, batchSize));
+        if (late.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<LateOutbox> parked = new ArrayList<>(late.size());
+        List<UUID> ids = new ArrayList<>(late.size());
+        for (Outbox outbox : late) {
+            log.error("Outbox event committed after its sequence gap was skipped, parked without publishing: {} " +
+                    "(sequence: {}, aggregate: {} {})", outbox.getId(), outbox.getSequence(),
+                    outbox.getAggregateType(), outbox.getAggregateId());
+            parked.add(new LateOutbox(outbox, now));
+            ids.add(outbox.getId());
+        }
+        lateOutboxRepository.saveAll(parked);
+        outboxRepository.deleteByIdIn(ids);
+        lateCounter.increment(parked.size());
+    }
+
+    // 보낸 순서대로 ack 를 확인해 처음 실패한 행 앞까지를 돌려준다
+    private List<Outbox> publish(List<Outbox> rows) {
+        List<Future<RecordMetadata>> sends = new ArrayList<>(rows.size());
+        for (Outbox outbox : rows) {
+            sends.add(producer.send(new ProducerRecord<>(outbox.getAggregateType(), outbox.getAggregateId(), outbox.getPayload())));
+        }
+        producer.flush();
+
+        List<Outbox> published = new ArrayList<>(rows.size());
+        for (int i = 0; i < sends.size(); i++) {
+            try {
+                sends.get(i).get();
+            } catch (Exception e) {
+                log.error("Failed to publish outbox event: {} (sequence: {})", rows.get(i).getId(), rows.get(i).getSequence(), e);
+                break;
+            }
+            published.add(rows.get(i));
+        }
+        return published;
+    }
+
+    private void delete(List<Outbox> published) {
+        if (published.isEmpty()) {
+            return;
+        }
+        List<UUID> publishedIds = new ArrayList<>(published.size());
+        for (Outbox outbox : published) {
+            publishedIds.add(outbox.getId());
+        }
+        outboxRepository.deleteByIdIn(publishedIds);
+        publishedCounter.increment(publishedIds.size());
+    }
+
+    private List<Outbox> takeContiguous(long after, List<Outbox> rows) {
+        List<Outbox> contiguous = new ArrayList<>(rows.size());
+        long expected = after + 1;
+        for (Outbox row : rows) {
+            long sequence = row.getSequence();
+            if (sequence != expected && !gapExpired(expected, row)) {
+                break;
+            }
+            contiguous.add(row);
+            expected = sequence + 1;
+        }
+        return contiguous;
+    }
+
+    // missingSequence 는 뒤따르는 행보다 먼저 할당되었으므로 그 행의 timestamp 부터 비어 있었다고 본다
+    private boolean gapExpired(long missingSequence, Outbox following) {
+        long now = System.currentTimeMillis();
+        if (pendingGapSequence != missingSequence) {
+            pendingGapSequence = missingSequence;
+            pendingGapSince = now;
+        }
+        long openSince = Math.min(pendingGapSince, following.getTimestamp().toEpochMilli());
+        if (now - openSince < gapTimeoutMillis) {
+            return false;
+        }
+        log.warn("Skipping outbox sequence gap at {} after {} ms", missingSequence, now - openSince);
+        pendingGapSequence = -1;
+        return true;
+    }
+
+    private long lagOf(Outbox outbox) {
+        return Math.max(0, Duration.between(outbox.getTimestamp(), Instant.now()).toMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutting down outbox tailer");
+        running = false;
+        if (tailThread != null) {
+            tailThread.interrupt();
+            try {
+                tailThread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        producer.close(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,17 @@
+package com.msapay.common.saga;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * saga 가 참여 서비스에 보내는 단계 요청/보상 명령 (firmbanking-request, money-increase-request, compensate-* 토픽).
+ */
+@Value
+public class SagaCommandMessage implements SagaMessage {
+    UUID sagaId;
+    String taskId;
+    String membershipId;
+    int amount;
+    long timestamp;
+}
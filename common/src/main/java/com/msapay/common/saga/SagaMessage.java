@@ -0,0 +1,13 @@
+package com.msapay.common.saga;
+
+import java.util.UUID;
+
+/**
+ * saga 명령/결과 토픽으로 오가는 메시지. SagaMessageCodec 으로 인코딩한다.
+ */
+public interface SagaMessage {
+
+    UUID getSagaId();
+
+    long getTimestamp();
+}
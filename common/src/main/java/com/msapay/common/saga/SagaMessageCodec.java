@@ -0,0 +1,241 @@
+package com.msapay.common.saga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * SagaMessage 의 wire format.
+ * <pre>
+ * binary v1: magic(0xA5) version(1) kind(1=command, 2=result) sagaId(16) timestamp(8) 이후 kind 별 필드
+ *   command: amount(zigzag varint) taskId(str) membershipId(str)
+ *   result : success(1) reason(str) type(str)
+ *   str    : varint(UTF-8 길이 + 1), 0 은 null
+ * </pre>
+ * 새 필드는 뒤에만 추가하고, 읽는 쪽은 모르는 뒤쪽 바이트를 무시한다. 필드 의미가 바뀌면 version 을 올린다.
+ * 디버깅용으로 JSON 으로도 쓸 수 있으며, decode 는 첫 바이트로 두 형식을 구분하므로 예전 JSON 메시지도 읽는다.
+ */
+public final class SagaMessageCodec {
+
+    public enum Format {
+        BINARY, JSON
+    }
+
+    static final byte MAGIC = (byte) 0xA5;
+    static final byte VERSION = 1;
+    static final byte KIND_COMMAND = 1;
+    static final byte KIND_RESULT = 2;
+
+    private static final int HEADER_SIZE = 3 + 16 + 8;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private SagaMessageCodec() {
+    }
+
+    public static byte[] encode(SagaMessage message, Format format) {
+        return format == Format.JSON ? encodeJson(message) : encodeBinary(message);
+    }
+
+    public static SagaMessage decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (data[0] == MAGIC) {
+            return decodeBinary(data);
+        }
+        return decodeJson(data);
+    }
+
+    public static byte[] encodeBinary(SagaMessage message) {
+        if (message instanceof SagaCommandMessage) {
+            SagaCommandMessage command = (SagaCommandMessage) message;
+            byte[] taskId = utf8(command.getTaskId());
+            byte[] membershipId = utf8(command.getMembershipId());
+            int amount = zigZag(command.getAmount());
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + varIntSize(amount)
+                    + stringSize(taskId) + stringSize(membershipId));
+            putHeader(buffer, KIND_COMMAND, command);
+            putVarInt(buffer, amount);
+            putString(buffer, taskId);
+            putString(buffer, membershipId);
+            return buffer.array();
+        }
+        if (message instanceof SagaResultMessage) {
+            SagaResultMessage result = (SagaResultMessage) message;
+            byte[] reason = utf8(result.getReason());
+            byte[] type = utf8(result.getType());
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 1 + stringSize(reason) + stringSize(type));
+            putHeader(buffer, KIND_RESULT, result);
+            buffer.put((byte) (result.isSuccess() ? 1 : 0));
+            putString(buffer, reason);
+            putString(buffer, type);
+            return buffer.array();
+        }
+        throw new IllegalArgumentException("Unsupported saga message: " + message.getClass().getName());
+    }
+
+    public static SagaMessage decodeBinary(byte[] data) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            if (buffer.get() != MAGIC) {
+                throw new IllegalArgumentException("Not a binary saga message");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported saga message version: " + version);
+            }
+            byte kind = buffer.get();
+            UUID sagaId = new UUID(buffer.getLong(), buffer.getLong());
+            long timestamp = buffer.getLong();
+            switch (kind) {
+                case KIND_COMMAND:
+                    int amount = unZigZag(getVarInt(buffer));
+                    String taskId = getString(buffer);
+                    String membershipId = getString(buffer);
+                    return new SagaCommandMessage(sagaId, taskId, membershipId, amount, timestamp);
+                case KIND_RESULT:
+                    boolean success = buffer.get() != 0;
+                    String reason = getString(buffer);
+                    String type = getString(buffer);
+                    return new SagaResultMessage(sagaId, success, reason, type, timestamp);
+                default:
+                    throw new IllegalArgumentException("Unknown saga message kind: " + kind);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated saga message", e);
+        }
+    }
+
+    public static byte[] encodeJson(SagaMessage message) {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("sagaId", message.getSagaId().toString());
+        if (message instanceof SagaCommandMessage) {
+            SagaCommandMessage command = (SagaCommandMessage) message;
+            node.put("taskId", command.getTaskId());
+            node.put("membershipId", command.getMembershipId());
+            node.put("amount", command.getAmount());
+        } else if (message instanceof SagaResultMessage) {
+            SagaResultMessage result = (SagaResultMessage) message;
+            node.put("success", result.isSuccess());
+            node.put("reason", result.getReason());
+            if (result.getType() != null) {
+                node.put("type", result.getType());
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported saga message: " + message.getClass().getName());
+        }
+        node.put("timestamp", message.getTimestamp());
+        try {
+            return MAPPER.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write saga message", e);
+        }
+    }
+
+    public static SagaMessage decodeJson(byte[] data) {
+        JsonNode node;
+        try {
+            node = MAPPER.readTree(data);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed saga message", e);
+        }
+        if (node == null || !node.hasNonNull("sagaId")) {
+            throw new IllegalArgumentException("Saga message has no sagaId");
+        }
+        UUID sagaId = UUID.fromString(node.get("sagaId").asText());
+        // 예전 메시지는 timestamp 를 문자열로 보냈다
+        long timestamp = node.path("timestamp").asLong();
+        if (node.has("success")) {
+            return new SagaResultMessage(sagaId, node.get("success").asBoolean(),
+                    textOrNull(node, "reason"), textOrNull(node, "type"), timestamp);
+        }
+        return new SagaCommandMessage(sagaId, textOrNull(node, "taskId"), textOrNull(node, "membershipId"),
+                node.path("amount").asInt(), timestamp);
+    }
+
+    private static void putHeader(ByteBuffer buffer, byte kind, SagaMessage message) {
+        buffer.put(MAGIC).put(VERSION).put(kind);
+        buffer.putLong(message.getSagaId().getMostSignificantBits());
+        buffer.putLong(message.getSagaId().getLeastSignificantBits());
+        buffer.putLong(message.getTimestamp());
+    }
+
+    private static String textOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] value) {
+        return value == null ? 1 : varIntSize(value.length + 1) + value.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            putVarInt(buffer, 0);
+            return;
+        }
+        putVarInt(buffer, value.length + 1);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = getVarInt(buffer);
+        if (length == 0) {
+            return null;
+        }
+        length--;
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("Saga message string exceeds message size");
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in saga message");
+    }
+}
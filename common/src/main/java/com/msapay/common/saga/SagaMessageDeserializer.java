@@ -0,0 +1,19 @@
+package com.msapay.common.saga;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * binary/JSON 어느 형식으로 온 메시지든 SagaMessage 로 읽는 Kafka deserializer.
+ */
+public class SagaMessageDeserializer implements Deserializer<SagaMessage> {
+
+    @Override
+    public SagaMessage deserialize(String topic, byte[] data) {
+        try {
+            return SagaMessageCodec.decode(data);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Failed to deserialize saga message from topic " + topic, e);
+        }
+    }
+}
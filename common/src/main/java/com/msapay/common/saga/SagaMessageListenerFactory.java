@@ -0,0 +1,50 @@
+package com.msapay.common.saga;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+
+import java.util.Map;
+
+/**
+ * SagaMessage 를 받는 @KafkaListener 용 container factory.
+ * 읽지 못한 메시지는 ErrorHandlingDeserializer 가 잡아 error handler 로 넘기므로 파티션이 막히지 않는다.
+ */
+public final class SagaMessageListenerFactory {
+
+    public static final String BEAN_NAME = "sagaMessageListenerContainerFactory";
+    public static final String BATCH_BEAN_NAME = "sagaMessageBatchListenerContainerFactory";
+
+    private SagaMessageListenerFactory() {
+    }
+
+    public static ConcurrentKafkaListenerContainerFactory<String, SagaMessage> create(KafkaProperties kafkaProperties) {
+        return create(kafkaProperties.buildConsumerProperties());
+    }
+
+    /**
+     * poll 한 번에 받은 메시지를 List 로 넘기는 batch listener 용.
+     * 읽지 못한 메시지는 List 에 null 로 들어온다.
+     */
+    public static ConcurrentKafkaListenerContainerFactory<String, SagaMessage> createBatch(KafkaProperties kafkaProperties,
+                                                                                          int maxPollRecords) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties();
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        ConcurrentKafkaListenerContainerFactory<String, SagaMessage> factory = create(props);
+        factory.setBatchListener(true);
+        return factory;
+    }
+
+    private static ConcurrentKafkaListenerContainerFactory<String, SagaMessage> create(Map<String, Object> props) {
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, SagaMessageDeserializer.class);
+
+        ConcurrentKafkaListenerContainerFactory<String, SagaMessage> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        return factory;
+    }
+}
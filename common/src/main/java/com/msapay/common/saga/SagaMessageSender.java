@@ -0,0 +1,42 @@
+package com.msapay.common.saga;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+
+/**
+ * saga 명령/결과 토픽에 SagaMessage 를 보낸다. key 는 sagaId 라 같은 saga 의 메시지는 한 파티션에서 순서대로 처리된다.
+ * 서비스의 다른 토픽이 쓰는 KafkaTemplate&lt;String, String&gt; 자동 설정을 건드리지 않도록 KafkaTemplate 빈을 따로 등록하지 않고 안에 둔다.
+ * 서비스 설정에서 빈으로 등록한다.
+ */
+@Slf4j
+public class SagaMessageSender {
+
+    private final DefaultKafkaProducerFactory<String, SagaMessage> producerFactory;
+    private final KafkaTemplate<String, SagaMessage> kafkaTemplate;
+
+    public SagaMessageSender(KafkaProperties kafkaProperties, String format) {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties();
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, SagaMessageSerializer.class);
+        props.put(SagaMessageSerializer.FORMAT_CONFIG, format);
+        this.producerFactory = new DefaultKafkaProducerFactory<>(props);
+        this.kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        log.info("Saga message sender created (format: {})", format);
+    }
+
+    public void send(String topic, SagaMessage message) {
+        kafkaTemplate.send(topic, message.getSagaId().toString(), message);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        producerFactory.destroy();
+    }
+}
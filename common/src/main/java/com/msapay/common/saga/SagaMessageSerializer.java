@@ -0,0 +1,44 @@
+package com.msapay.common.saga;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/**
+ * SagaMessage 를 SagaMessageCodec 으로 쓰는 Kafka serializer.
+ * producer 설정 saga.message.format=json 이면 사람이 읽을 수 있는 JSON 으로 쓴다 (기본 binary).
+ */
+public class SagaMessageSerializer implements Serializer<SagaMessage> {
+
+    public static final String FORMAT_CONFIG = "saga.message.format";
+
+    private SagaMessageCodec.Format format = SagaMessageCodec.Format.BINARY;
+
+    public SagaMessageSerializer() {
+    }
+
+    public SagaMessageSerializer(SagaMessageCodec.Format format) {
+        this.format = format;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object configured = configs.get(FORMAT_CONFIG);
+        if (configured != null) {
+            format = SagaMessageCodec.Format.valueOf(configured.toString().trim().toUpperCase());
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, SagaMessage message) {
+        if (message == null) {
+            return null;
+        }
+        try {
+            return SagaMessageCodec.encode(message, format);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Failed to serialize saga message for topic " + topic, e);
+        }
+    }
+}
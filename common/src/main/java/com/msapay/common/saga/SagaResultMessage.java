@@ -0,0 +1,25 @@
+package com.msapay.common.saga;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * 참여 서비스가 saga 에 돌려주는 단계/보상 결과 (*-result 토픽). 보상 결과는 type 에 보상 이벤트 이름을 담는다.
+ */
+@Value
+public class SagaResultMessage implements SagaMessage {
+    UUID sagaId;
+    boolean success;
+    String reason;
+    String type;
+    long timestamp;
+
+    public static SagaResultMessage of(String sagaId, boolean success, String reason) {
+        return new SagaResultMessage(UUID.fromString(sagaId), success, reason, null, System.currentTimeMillis());
+    }
+
+    public static SagaResultMessage compensation(String sagaId, boolean success, String reason, String type) {
+        return new SagaResultMessage(UUID.fromString(sagaId), success, reason, type, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,60 @@
+package com.msapay.common;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncResultRegistryTest {
+
+    private AsyncResultRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new AsyncResultRegistry(60000, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void complete_ShouldDeliverResultToRegisteredFuture() throws Exception {
+        CompletableFuture<String> future = registry.register("task-1");
+
+        registry.complete("task-1", "success");
+
+        assertEquals("success", future.get(1, TimeUnit.SECONDS));
+        assertEquals(0, registry.pendingCount());
+    }
+
+    @Test
+    void register_ShouldReceiveResultThatArrivedFirst() throws Exception {
+        registry.complete("task-2", "failed");
+
+        CompletableFuture<String> future = registry.register("task-2");
+
+        assertEquals("failed", future.get(1, TimeUnit.SECONDS));
+        assertEquals(0, registry.pendingCount());
+    }
+
+    @Test
+    void register_ShouldExpireAndRemoveEntryOnTimeout() {
+        CompletableFuture<String> future = registry.register("task-3", Duration.ofMillis(200));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(3, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TimeoutException);
+        assertEquals(0, registry.pendingCount());
+    }
+}
@@ -0,0 +1,143 @@
+package com.msapay.common.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotentConsumerTest {
+
+    private final UUID sagaId = UUID.randomUUID();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void appliesCommandOnceAndReturnsStoredResultForDuplicates() {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate();
+        IdempotentConsumer consumer = new IdempotentConsumer(jdbc, meterRegistry, "test", 60_000, 60_000, 10, 60_000);
+
+        assertTrue(consumer.begin(sagaId, "FIRMBANKING").isAcquired());
+        // 처리 중인 명령을 다른 소비자가 받으면 건너뛴다
+        assertEquals(IdempotentConsumer.Claim.Outcome.IN_PROGRESS,
+                new IdempotentConsumer(jdbc, meterRegistry, "other", 60_000, 60_000, 10, 60_000)
+                        .begin(sagaId, "FIRMBANKING").getOutcome());
+
+        consumer.complete(sagaId, "FIRMBANKING", false, "Firmbanking failed");
+
+        // 같은 인스턴스는 메모리에서, 다른 인스턴스는 저장소에서 처음 결과를 돌려받는다
+        IdempotentConsumer.Claim memory = consumer.begin(sagaId, "FIRMBANKING");
+        IdempotentConsumer.Claim store = new IdempotentConsumer(jdbc, meterRegistry, "rebalanced", 60_000, 60_000, 10, 60_000)
+                .begin(sagaId, "FIRMBANKING");
+        for (IdempotentConsumer.Claim claim : List.of(memory, store)) {
+            assertTrue(claim.isDuplicate());
+            assertFalse(claim.isSuccess());
+            assertEquals("Firmbanking failed", claim.getReason());
+        }
+        assertEquals(1.0, meterRegistry.get("idempotency.duplicates").tag("consumer", "test").tag("source", "memory").counter().count());
+        assertEquals(1.0, meterRegistry.get("idempotency.duplicates").tag("consumer", "rebalanced").tag("source", "store").counter().count());
+
+        // 보상 단계는 별도 키다
+        assertTrue(consumer.begin(sagaId, "COMPENSATE_FIRMBANKING").isAcquired());
+    }
+
+    @Test
+    void releasedOrStaleClaimCanBeAcquiredAgain() {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate();
+        IdempotentConsumer consumer = new IdempotentConsumer(jdbc, meterRegistry, "test", 60_000, 0, 10, 60_000);
+
+        assertTrue(consumer.begin(sagaId, "INCREASE_MONEY").isAcquired());
+        consumer.release(sagaId, "INCREASE_MONEY");
+        assertTrue(consumer.begin(sagaId, "INCREASE_MONEY").isAcquired());
+
+        // claim-timeout 0: 처리 중에 죽은 선점은 바로 다시 가져갈 수 있다
+        jdbc.rows.get(sagaId + ":INCREASE_MONEY").put("claimed_at", LocalDateTime.now().minusSeconds(1));
+        assertTrue(consumer.begin(sagaId, "INCREASE_MONEY").isAcquired());
+    }
+
+    @Test
+    void rememberCompletionOnlyAfterCommit() {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate();
+        IdempotentConsumer consumer = new IdempotentConsumer(jdbc, meterRegistry, "test", 60_000, 60_000, 10, 60_000);
+        assertTrue(consumer.begin(sagaId, "INCREASE_MONEY").isAcquired());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            consumer.complete(sagaId, "INCREASE_MONEY", true, "Success");
+            // 롤백될 수 있는 결과는 아직 메모리에 없다
+            assertEquals(0.0, meterRegistry.get("idempotency.cache.size").tag("consumer", "test").gauge().value());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(1.0, meterRegistry.get("idempotency.cache.size").tag("consumer", "test").gauge().value());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * processed_message 에 쓰는 SQL 만 흉내 내는 메모리 저장소.
+     */
+    private static class FakeJdbcTemplate extends JdbcTemplate {
+
+        final Map<String, Map<String, Object>> rows = new HashMap<>();
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (sql.startsWith("INSERT")) {
+                if (rows.containsKey((String) args[0])) {
+                    throw new DuplicateKeyException(sql);
+                }
+                Map<String, Object> row = new HashMap<>();
+                row.put("status", 0);
+                row.put("claimed_at", args[1]);
+                rows.put((String) args[0], row);
+                return 1;
+            }
+            if (sql.startsWith("UPDATE processed_message SET status = 1")) {
+                Map<String, Object> row = rows.get((String) args[3]);
+                row.put("status", 1);
+                row.put("success", args[0]);
+                row.put("reason", args[1]);
+                return 1;
+            }
+            if (sql.startsWith("UPDATE")) {
+                Map<String, Object> row = rows.get((String) args[2]);
+                if (row == null || !row.get("status").equals(0) || !row.get("claimed_at").equals(args[3])) {
+                    return 0;
+                }
+                row.put("claimed_at", args[0]);
+                return 1;
+            }
+            if (sql.startsWith("DELETE FROM processed_message WHERE message_key")) {
+                Map<String, Object> row = rows.get((String) args[0]);
+                if (row != null && row.get("status").equals(0)) {
+                    rows.remove((String) args[0]);
+                    return 1;
+                }
+                return 0;
+            }
+            return 0;
+        }
+
+        @Override
+        public List<Map<String, Object>> queryForList(String sql, Object... args) {
+            List<Map<String, Object>> result = new ArrayList<>();
+            Map<String, Object> row = rows.get((String) args[0]);
+            if (row != null) {
+                result.add(new HashMap<>(row));
+            }
+            return result;
+        }
+    }
+}
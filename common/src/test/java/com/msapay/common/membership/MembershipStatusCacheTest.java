@@ -0,0 +1,76 @@
+package com.msapay.common.membership;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MembershipStatusCacheTest {
+
+    private MembershipStatusCache cache;
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void isValid_ShouldLoadOnceWithinTtl() {
+        cache = new MembershipStatusCache(true, 100, 60000, 60000, new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+
+        assertTrue(cache.isValid("1", id -> { loads.incrementAndGet(); return true; }));
+        assertTrue(cache.isValid("1", id -> { loads.incrementAndGet(); return true; }));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidate_ShouldReloadChangedStatus() {
+        cache = new MembershipStatusCache(true, 100, 60000, 60000, new SimpleMeterRegistry());
+        assertTrue(cache.isValid("1", id -> true));
+
+        cache.invalidate("1");
+
+        assertFalse(cache.isValid("1", id -> false));
+    }
+
+    @Test
+    void isValid_ShouldReloadAfterTtl() throws Exception {
+        cache = new MembershipStatusCache(true, 100, 50, 50, new SimpleMeterRegistry());
+        assertTrue(cache.isValid("1", id -> true));
+
+        Thread.sleep(100);
+
+        assertFalse(cache.isValid("1", id -> false));
+    }
+
+    @Test
+    void isValidAsync_ShouldFillCacheAndKeepLastKnownAfterTtl() throws Exception {
+        cache = new MembershipStatusCache(true, 100, 50, 50, new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<Boolean> pending = new CompletableFuture<>();
+
+        CompletableFuture<Boolean> first = cache.isValidAsync("1", id -> { loads.incrementAndGet(); return pending; });
+        assertNull(cache.getLastKnown("1"));
+        pending.complete(true);
+        assertTrue(first.get());
+
+        assertTrue(cache.isValidAsync("1", id -> { loads.incrementAndGet(); return pending; }).isDone());
+        assertEquals(1, loads.get());
+
+        // 만료된 뒤 다시 읽지 못해도 마지막 값은 남아 있다
+        Thread.sleep(100);
+        CompletableFuture<Boolean> failing = new CompletableFuture<>();
+        failing.completeExceptionally(new RuntimeException("membership-service down"));
+        assertTrue(cache.isValidAsync("1", id -> failing).isCompletedExceptionally());
+        assertTrue(cache.getLastKnown("1"));
+    }
+}
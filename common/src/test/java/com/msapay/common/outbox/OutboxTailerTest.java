@@ -0,0 +1,85 @@
+package com.msapay.common.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxTailerTest {
+
+    private final OutboxRepository outboxRepository = mock(OutboxRepository.class);
+    private final OutboxRelayOffsetRepository offsetRepository = mock(OutboxRelayOffsetRepository.class);
+    private final LateOutboxRepository lateOutboxRepository = mock(LateOutboxRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OutboxTailer tailer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tailer = new OutboxTailer(outboxRepository, offsetRepository, lateOutboxRepository,
+                mock(PlatformTransactionManager.class), meterRegistry, "localhost:9092");
+        setField("relayName", "default");
+        setField("batchSize", 500);
+        setField("gapTimeoutMillis", 1000L);
+        // tail 스레드는 바로 끝나게 하고 메트릭만 등록한다
+        setField("running", false);
+        tailer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tailer.shutdown();
+    }
+
+    @Test
+    void parksRowCommittedAfterItsGapWasSkippedWithoutPublishing() {
+        // 7 까지 발행했고, 건너뛴 5 가 그 뒤에 커밋되었다
+        when(offsetRepository.lockByRelayName("default"))
+                .thenReturn(Optional.of(new OutboxRelayOffset("default", 7, Instant.now())));
+        Outbox late = outbox(5, "saga-1");
+        when(outboxRepository.findUpToSequence(eq(7L), any(Pageable.class))).thenReturn(List.of(late));
+        when(outboxRepository.findAfterSequence(eq(7L), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        assertEquals(0, tailer.tail());
+
+        verify(lateOutboxRepository).saveAll(argThat((List<LateOutbox> parked) ->
+                parked.size() == 1 && parked.get(0).getSequence() == 5 && "saga-1".equals(parked.get(0).getAggregateId())));
+        verify(outboxRepository).deleteByIdIn(List.of(late.getId()));
+        verify(offsetRepository, never()).save(any());
+        assertEquals(1.0, meterRegistry.get("outbox.relay.late").counter().count());
+        assertEquals(0.0, meterRegistry.get("outbox.relay.published").counter().count());
+    }
+
+    private Outbox outbox(long sequence, String aggregateId) {
+        Outbox outbox = mock(Outbox.class);
+        when(outbox.getId()).thenReturn(UUID.randomUUID());
+        when(outbox.getSequence()).thenReturn(sequence);
+        when(outbox.getTimestamp()).thenReturn(Instant.now().minusSeconds(5));
+        when(outbox.getAggregateId()).thenReturn(aggregateId);
+        when(outbox.getAggregateType()).thenReturn("saga");
+        return outbox;
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        Field field = OutboxTailer.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(tailer, value);
+    }
+}
@@ -0,0 +1,39 @@
+package com.msapay.common.saga;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SagaMessageCodecTest {
+
+    private final UUID sagaId = UUID.randomUUID();
+
+    @Test
+    void roundTripsBothFormats() {
+        SagaCommandMessage command = new SagaCommandMessage(sagaId, "task-1", "42", -15000, 1700000000000L);
+        // 따옴표와 한글이 들어간 사유도 그대로 전달된다
+        SagaResultMessage result = new SagaResultMessage(sagaId, false, "Processing error: \"계좌\" 없음", "COMPENSATE_FIRMBANKING", 1L);
+
+        for (SagaMessageCodec.Format format : SagaMessageCodec.Format.values()) {
+            assertEquals(command, SagaMessageCodec.decode(SagaMessageCodec.encode(command, format)));
+            assertEquals(result, SagaMessageCodec.decode(SagaMessageCodec.encode(result, format)));
+        }
+        assertTrue(SagaMessageCodec.encodeBinary(command).length < SagaMessageCodec.encodeJson(command).length);
+    }
+
+    @Test
+    void readsLegacyJsonAndRejectsTruncatedBinary() {
+        String legacy = "{\"sagaId\":\"" + sagaId + "\",\"success\":true,\"reason\":\"Success\",\"timestamp\":\"1700000000000\"}";
+        SagaMessage decoded = SagaMessageCodec.decode(legacy.getBytes(StandardCharsets.UTF_8));
+        assertEquals(new SagaResultMessage(sagaId, true, "Success", null, 1700000000000L), decoded);
+
+        byte[] binary = SagaMessageCodec.encodeBinary(new SagaCommandMessage(sagaId, "task-1", "42", 100, 1L));
+        assertThrows(IllegalArgumentException.class, () -> SagaMessageCodec.decode(Arrays.copyOf(binary, binary.length - 2)));
+    }
+}
@@ -0,0 +1,59 @@
+package com.msapay.membership.outbound.kafka;
+
+import com.msapay.common.codec.JsonCodec;
+import com.msapay.common.membership.MembershipChangedEvent;
+import com.msapay.membership.domain.Membership;
+import com.msapay.membership.service.port.PublishMembershipChangedPort;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Properties;
+
+@Slf4j
+@Component
+public class MembershipChangedEventProducer implements PublishMembershipChangedPort {
+
+    private final KafkaProducer<String, String> producer;
+    private final String topic;
+    private final JsonCodec jsonCodec;
+
+    public MembershipChangedEventProducer(@Value("${kafka.clusters.bootstrapservers}") String bootstrapServers,
+                                          @Value("${kafka.topics.membership-changed:membership-changed}") String topic,
+                                          JsonCodec jsonCodec) {
+        Properties props = new Properties();
+        props.put("bootstrap.servers", bootstrapServers);
+        props.put("key.serializer", "org.apache.kafka.common.serialization.StringSerializer");
+        props.put("value.serializer", "org.apache.kafka.common.serialization.StringSerializer");
+
+        this.producer = new KafkaProducer<>(props);
+        this.topic = topic;
+        this.jsonCodec = jsonCodec;
+    }
+
+    @Override
+    public void publishMembershipChanged(Membership membership) {
+        MembershipChangedEvent event = new MembershipChangedEvent(
+                membership.getMembershipId(), membership.isValid(), System.currentTimeMillis());
+        try {
+            ProducerRecord<String, String> record = new ProducerRecord<>(topic, event.getMembershipId(), jsonCodec.write(event));
+            producer.send(record, (metadata, exception) -> {
+                if (exception == null) {
+                    log.debug("Membership changed event sent: {}", event.getMembershipId());
+                } else {
+                    log.error("Failed to send membership changed event: {}", event.getMembershipId(), exception);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to publish membership changed event: {}", event.getMembershipId(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        producer.close();
+    }
+}
@@ -7,8 +7,11 @@ import com.msapay.membership.persistence.MembershipMapper;
 import com.msapay.membership.controller.command.ModifyMembershipCommand;
 import com.msapay.membership.service.usecase.ModifyMembershipUseCase;
 import com.msapay.membership.service.port.ModifyMembershipPort;
+import com.msapay.membership.service.port.PublishMembershipChangedPort;
 import com.msapay.membership.domain.Membership;
 import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.transaction.Transactional;
 
@@ -19,6 +22,7 @@ public class ModifyMembershipService implements ModifyMembershipUseCase {
 
     private final ModifyMembershipPort modifyMembershipPort;
     private final MembershipMapper membershipMapper;
+    private final PublishMembershipChangedPort publishMembershipChangedPort;
 
     @Override
     public Membership modifyMembership(ModifyMembershipCommand command) {
@@ -33,6 +37,24 @@ public class ModifyMembershipService implements ModifyMembershipUseCase {
         );
 
         // entity -> Membership
-        return membershipMapper.mapToDto(membershipDto);
+        Membership membership = membershipMapper.mapToDto(membershipDto);
+
+        // 다른 서비스의 멤버십 상태 캐시 무효화
+        publishMembershipChangedAfterCommit(membership);
+        return membership;
+    }
+
+    // 커밋 전에 발행하면 무효화된 캐시가 아직 이전 값을 다시 읽어 채우므로 커밋된 뒤에 발행한다
+    private void publishMembershipChangedAfterCommit(Membership membership) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishMembershipChangedPort.publishMembershipChanged(membership);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishMembershipChangedPort.publishMembershipChanged(membership);
+            }
+        });
     }
 }
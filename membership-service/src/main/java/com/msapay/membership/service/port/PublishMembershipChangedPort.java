@@ -0,0 +1,8 @@
+package com.msapay.membership.service.port;
+
+import com.msapay.membership.domain.Membership;
+
+public interface PublishMembershipChangedPort {
+    // 다른 서비스의 멤버십 상태 캐시를 무효화하도록 변경 이벤트를 발행한다.
+    void publishMembershipChanged(Membership membership);
+}
@@ -0,0 +1,115 @@
+package com.msapay.money.inbound.kafka;
+
+import com.msapay.common.idempotency.IdempotentConsumer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 머니 증가 요청 한 poll 을 하나씩 처리할 때와 회원별로 합산해 batch 로 처리할 때의 처리량 비교.
+ * 요청의 80% 가 회원 10 명에게 몰리는 분포로, 소비자와 같은 SQL 을 H2(MySQL 모드)에 실행한다.
+ * 실행: ./gradlew :money-service:jmh
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyIncreaseBatchBenchmark {
+
+    private static final int POLL_SIZE = 500;
+    private static final int MEMBERS = 1000;
+    private static final int HOT_MEMBERS = 10;
+    private static final String STEP = "INCREASE_MONEY";
+    private static final String ADD_BALANCE_SQL =
+            "UPDATE member_money SET balance = balance + ? WHERE membership_id = ? AND balance + ? >= 0";
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private IdempotentConsumer idempotentConsumer;
+    private long[] membershipIds;
+
+    @Setup
+    public void setUp() {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:money;MODE=MySQL;DB_CLOSE_DELAY=-1", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS member_money (member_money_id BIGINT PRIMARY KEY, " +
+                "membership_id BIGINT NOT NULL UNIQUE, balance INT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS processed_message (message_key VARCHAR(80) PRIMARY KEY, " +
+                "status TINYINT NOT NULL, success BOOLEAN, reason VARCHAR(255), " +
+                "claimed_at TIMESTAMP NOT NULL, expires_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("DELETE FROM member_money");
+        for (long id = 1; id <= MEMBERS; id++) {
+            jdbcTemplate.update("INSERT INTO member_money VALUES (?, ?, 0)", id, id);
+        }
+        idempotentConsumer = new IdempotentConsumer(jdbcTemplate, new SimpleMeterRegistry(), "benchmark",
+                60_000, 60_000, 10, 60_000);
+
+        // 요청의 80% 는 회원 10 명에게, 나머지는 전체 회원에게 고르게
+        Random random = new Random(42);
+        membershipIds = new long[POLL_SIZE];
+        for (int i = 0; i < POLL_SIZE; i++) {
+            membershipIds[i] = random.nextInt(10) < 8 ? 1 + random.nextInt(HOT_MEMBERS) : 1 + random.nextInt(MEMBERS);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clearProcessedMessages() {
+        jdbcTemplate.execute("DELETE FROM processed_message");
+    }
+
+    // MoneyIncreaseRequestConsumer: 명령마다 선점 INSERT, 그다음 잔액 UPDATE + 완료 UPDATE 트랜잭션
+    @Benchmark
+    @OperationsPerInvocation(POLL_SIZE)
+    public void singleRequests() {
+        for (long membershipId : membershipIds) {
+            UUID sagaId = UUID.randomUUID();
+            idempotentConsumer.begin(sagaId, STEP);
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(ADD_BALANCE_SQL, 1, membershipId, 1);
+                idempotentConsumer.complete(sagaId, STEP, true, "Success");
+            });
+        }
+    }
+
+    // MoneyIncreaseBatchConsumer: 선점 겸 완료 multi-row INSERT 한 번 + 회원당 UPDATE 한 번을 한 트랜잭션으로
+    @Benchmark
+    @OperationsPerInvocation(POLL_SIZE)
+    public void batchedPoll() {
+        List<UUID> sagaIds = new ArrayList<>(POLL_SIZE);
+        Map<Long, Integer> amounts = new TreeMap<>();
+        for (long membershipId : membershipIds) {
+            sagaIds.add(UUID.randomUUID());
+            amounts.merge(membershipId, 1, Integer::sum);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            idempotentConsumer.completeAllNew(sagaIds, STEP, true, "Success");
+            amounts.forEach((membershipId, amount) -> jdbcTemplate.update(ADD_BALANCE_SQL, amount, membershipId, amount));
+        });
+    }
+}
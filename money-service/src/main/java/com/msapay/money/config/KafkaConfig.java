@@ -1,8 +1,14 @@
 package com.msapay.money.config;
 
+import com.msapay.common.saga.SagaMessage;
+import com.msapay.common.saga.SagaMessageListenerFactory;
+import com.msapay.common.saga.SagaMessageSender;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 
 /**
@@ -32,4 +38,24 @@ public class KafkaConfig {
             .replicas(1)
             .build();
     }
+
+    // saga 명령/결과 토픽 전용 producer/consumer. saga.message.format=json 이면 디버깅용 JSON 으로 보낸다.
+    @Bean
+    SagaMessageSender sagaMessageSender(KafkaProperties kafkaProperties,
+                                        @Value("${saga.message.format:binary}") String format) {
+        return new SagaMessageSender(kafkaProperties, format);
+    }
+
+    @Bean(name = SagaMessageListenerFactory.BEAN_NAME)
+    ConcurrentKafkaListenerContainerFactory<String, SagaMessage> sagaMessageListenerContainerFactory(KafkaProperties kafkaProperties) {
+        return SagaMessageListenerFactory.create(kafkaProperties);
+    }
+
+    // money.increase.batch.enabled=true 일 때 머니 증가 요청을 poll 단위로 받는다
+    @Bean(name = SagaMessageListenerFactory.BATCH_BEAN_NAME)
+    ConcurrentKafkaListenerContainerFactory<String, SagaMessage> sagaMessageBatchListenerContainerFactory(
+            KafkaProperties kafkaProperties,
+            @Value("${money.increase.batch.max-records:500}") int maxRecords) {
+        return SagaMessageListenerFactory.createBatch(kafkaProperties, maxRecords);
+    }
 }
@@ -1,14 +1,30 @@
 package com.msapay.money.config;
 
+import com.msapay.common.idempotency.IdempotentConsumer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 @Configuration
 @ComponentScan({"com.msapay.common", "com.msapay.money"})
-@EntityScan(basePackages = {"com.msapay.money.persistence", "com.msapay.common.outbox"})
+@EntityScan(basePackages = {"com.msapay.money.persistence", "com.msapay.common.outbox", "com.msapay.common.idempotency"})
 @EnableJpaRepositories(basePackages = {"com.msapay.money.persistence", "com.msapay.common.outbox"})
 public class MoneyConfig {
-}
 
+    // 머니 증가/보상 명령을 (sagaId, 단계) 당 한 번만 적용한다
+    @Bean
+    IdempotentConsumer idempotentConsumer(JdbcTemplate jdbcTemplate,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${idempotency.retention-ms:604800000}") long retentionMillis,
+                                          @Value("${idempotency.claim-timeout-ms:60000}") long claimTimeoutMillis,
+                                          @Value("${idempotency.cache-size:100000}") int cacheSize,
+                                          @Value("${idempotency.purge-interval-ms:60000}") long purgeIntervalMillis) {
+        return new IdempotentConsumer(jdbcTemplate, meterRegistry, "money",
+                retentionMillis, claimTimeoutMillis, cacheSize, purgeIntervalMillis);
+    }
+}
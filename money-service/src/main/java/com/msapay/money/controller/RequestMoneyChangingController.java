@@ -7,12 +7,21 @@ import com.msapay.money.controller.command.CreateMemberMoneyCommand;
 import com.msapay.money.controller.command.FindMemberMoneyListByMembershipIdsCommand;
 import com.msapay.money.controller.command.IncreaseMoneyRequestCommand;
 import com.msapay.money.service.usecase.CreateMemberMoneyUseCase;
+import com.msapay.money.service.usecase.GetMoneyChangingRequestUseCase;
 import com.msapay.money.service.usecase.IncreaseMoneyRequestUseCase;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.time.Duration;
 import java.util.List;
 
 
@@ -20,8 +29,13 @@ import java.util.List;
 @RestController
 @RequiredArgsConstructor
 public class RequestMoneyChangingController {
+    // long-poll 최대 대기 시간
+    private static final long MAX_WAIT_MILLIS = 30_000;
+
     private final IncreaseMoneyRequestUseCase increaseMoneyRequestUseCase;
 
+    private final GetMoneyChangingRequestUseCase getMoneyChangingRequestUseCase;
+
     // private final DecreaseMoneyRequestUseCase decreaseMoneyRequestUseCase;
 
     private final CreateMemberMoneyUseCase createMemberMoneyUseCase;
@@ -46,8 +60,10 @@ public class RequestMoneyChangingController {
         return resultDetail;
     }
 
+    // 태스크를 전송한 뒤 결과를 기다리지 않고 바로 taskId 를 돌려준다
     @PostMapping(path = "/money/increase-async")
-    MoneyChangingResultDetail increaseMoneyChangingRequestAsync(@RequestBody IncreaseMoneyChangingRequest request) {
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    MoneyChangingTaskDetail increaseMoneyChangingRequestAsync(@RequestBody IncreaseMoneyChangingRequest request) {
         IncreaseMoneyRequestCommand command = IncreaseMoneyRequestCommand.builder()
                 .targetMembershipId(request.getTargetMembershipId())
                 .amount(request.getAmount())
@@ -57,13 +73,47 @@ public class RequestMoneyChangingController {
         if(null == moneyChangingRequest){
             return null;
         }
-        // MoneyChangingRequest -> MoneyChangingResultDetail
-        MoneyChangingResultDetail resultDetail = new MoneyChangingResultDetail(
+        return toTaskDetail(moneyChangingRequest);
+    }
+
+    // waitMillis 가 0 이면 현재 상태를 바로 돌려주고, 0 보다 크면 상태가 바뀌거나 시간이 지날 때까지 요청 스레드 없이 대기한다
+    @GetMapping(path = "/money/tasks/{taskId}")
+    DeferredResult<ResponseEntity<MoneyChangingTaskDetail>> getMoneyChangingTask(@PathVariable String taskId,
+                                                                                 @RequestParam(defaultValue = "0") long waitMillis) {
+        long wait = Math.min(Math.max(waitMillis, 0), MAX_WAIT_MILLIS);
+        // 서비스의 timeout 이 먼저 동작해 현재 상태로 응답하도록 여유를 둔다
+        DeferredResult<ResponseEntity<MoneyChangingTaskDetail>> deferredResult = new DeferredResult<>(wait + 1_000);
+
+        if (wait == 0) {
+            deferredResult.setResult(toResponse(getMoneyChangingRequestUseCase.getMoneyChangingRequest(taskId)));
+            return deferredResult;
+        }
+
+        getMoneyChangingRequestUseCase.waitForMoneyChangingRequest(taskId, Duration.ofMillis(wait))
+                .whenComplete((moneyChangingRequest, throwable) -> {
+                    if (throwable != null) {
+                        deferredResult.setErrorResult(throwable);
+                    } else {
+                        deferredResult.setResult(toResponse(moneyChangingRequest));
+                    }
+                });
+        return deferredResult;
+    }
+
+    private ResponseEntity<MoneyChangingTaskDetail> toResponse(MoneyChangingRequest moneyChangingRequest) {
+        if (moneyChangingRequest == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(toTaskDetail(moneyChangingRequest));
+    }
+
+    private MoneyChangingTaskDetail toTaskDetail(MoneyChangingRequest moneyChangingRequest) {
+        return new MoneyChangingTaskDetail(
+                moneyChangingRequest.getUuid(),
                 moneyChangingRequest.getMoneyChangingRequestId(),
-                0,
-                0,
+                moneyChangingRequest.getChangingType(),
+                moneyChangingRequest.getChangingMoneyStatus(),
                 moneyChangingRequest.getChangingMoneyAmount());
-        return resultDetail;
     }
 
     @PostMapping(path = "/money/create-member-money")
@@ -0,0 +1,19 @@
+package com.msapay.money.controller.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MoneyChangingTaskDetail {
+    // 비동기 요청의 task 핸들. GET /money/tasks/{taskId} 로 결과를 조회한다.
+    private String taskId;
+
+    private String moneyChangingRequestId;
+
+    private int moneyChangingType; // 0: 증액, 1: 감액
+    private int changingMoneyStatus; // 0: 요청, 1: 성공, 2: 실패
+    private int amount;
+}
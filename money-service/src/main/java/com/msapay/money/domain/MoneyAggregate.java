@@ -4,6 +4,7 @@ import com.msapay.money.domain.event.MoneyDomainEvent;
 import com.msapay.money.domain.event.MoneyIncreaseCompletedEvent;
 import com.msapay.money.domain.event.MoneyIncreaseFailedEvent;
 import com.msapay.money.domain.event.MoneyIncreaseRequestedEvent;
+import com.msapay.money.domain.eventstore.MoneySnapshot;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
@@ -43,6 +44,28 @@ public class MoneyAggregate {
         return aggregate;
     }
     
+    /**
+     * 스냅샷에서 상태를 복원한 뒤 스냅샷 이후의 이벤트들만 재생
+     */
+    public static MoneyAggregate fromSnapshot(MoneySnapshot snapshot, List<MoneyDomainEvent> eventsAfterSnapshot) {
+        MoneyAggregate aggregate = new MoneyAggregate(snapshot.getAggregateId(), snapshot.getMembershipId());
+        aggregate.balance = snapshot.getBalance();
+        aggregate.version = snapshot.getVersion();
+        
+        for (MoneyDomainEvent event : eventsAfterSnapshot) {
+            aggregate.applyEvent(event);
+        }
+        
+        return aggregate;
+    }
+    
+    /**
+     * 현재 상태의 스냅샷 생성
+     */
+    public MoneySnapshot toSnapshot() {
+        return new MoneySnapshot(aggregateId, membershipId, balance, version);
+    }
+    
     /**
      * 멤버 머니 생성 처리
      */
@@ -1,6 +1,7 @@
 package com.msapay.money.domain.event;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
@@ -11,14 +12,15 @@ import java.util.UUID;
  * 머니 도메인 이벤트의 기본 클래스
  */
 @Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS)
 public abstract class MoneyDomainEvent {
     
-    private final String eventId;
-    private final String aggregateId;
-    private final String eventType;
-    private final LocalDateTime timestamp;
-    private final long version;
+    private String eventId;
+    private String aggregateId;
+    private String eventType;
+    private LocalDateTime timestamp;
+    private long version;
     
     protected MoneyDomainEvent(String aggregateId, String eventType, long version) {
         this.eventId = UUID.randomUUID().toString();
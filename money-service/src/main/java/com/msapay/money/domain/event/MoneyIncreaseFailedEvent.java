@@ -1,5 +1,6 @@
 package com.msapay.money.domain.event;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
@@ -7,12 +8,13 @@ import lombok.NoArgsConstructor;
  * 머니 증가 실패 이벤트
  */
 @Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class MoneyIncreaseFailedEvent extends MoneyDomainEvent {
     
-    private final String membershipId;
-    private final int amount;
-    private final String taskId;
-    private final String reason;
+    private String membershipId;
+    private int amount;
+    private String taskId;
+    private String reason;
     
     public MoneyIncreaseFailedEvent(String aggregateId, String membershipId, int amount, String taskId, String reason, long version) {
         super(aggregateId, "MoneyIncreaseFailed", version);
@@ -1,6 +1,7 @@
 package com.msapay.money.domain.event;
 
 import com.msapay.common.outbox.OutboxEvent;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
@@ -8,11 +9,12 @@ import java.time.Instant;
 
 // 머니 증가 요청 이벤트
 @Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class MoneyIncreaseRequestedEvent extends MoneyDomainEvent implements OutboxEvent<String, MoneyIncreaseRequestedEvent> {
     
-    private final String membershipId;
-    private final int amount;
-    private final String taskId;
+    private String membershipId;
+    private int amount;
+    private String taskId;
     
     public MoneyIncreaseRequestedEvent(String aggregateId, String membershipId, int amount, String taskId, long version) {
         super(aggregateId, "MoneyIncreaseRequested", version);
@@ -0,0 +1,23 @@
+package com.msapay.money.domain.eventstore;
+
+import lombok.Getter;
+
+/**
+ * 어그리게이트 버전 충돌 (낙관적 동시성 제어 실패)
+ * 호출 측에서 어그리게이트를 다시 읽어 재시도할 수 있다.
+ */
+@Getter
+public class ConcurrencyConflictException extends RuntimeException {
+
+    private final String aggregateId;
+    private final long expectedVersion;
+    private final long actualVersion;
+
+    public ConcurrencyConflictException(String aggregateId, long expectedVersion, long actualVersion) {
+        super("Optimistic concurrency control failed for aggregate: " + aggregateId
+                + ". Expected version: " + expectedVersion + ", but current version: " + actualVersion);
+        this.aggregateId = aggregateId;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+}
@@ -2,104 +2,213 @@ package com.msapay.money.domain.eventstore;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.msapay.money.domain.event.MoneyDomainEvent;
+import com.msapay.money.persistence.MoneyEventJpaEntity;
+import com.msapay.money.persistence.MoneySnapshotJpaEntity;
+import com.msapay.money.persistence.SpringDataMoneyEventRepository;
+import com.msapay.money.persistence.SpringDataMoneySnapshotRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * DB(money_event, money_snapshot)에 이벤트를 영속화하고 Kafka 로 발행하는 이벤트 스토어
+ * 쓰기는 aggregateId 해시로 고정된 단일 스레드 레인에서만 수행되므로
+ * 같은 어그리게이트에 대한 쓰기는 직렬화되고, 서로 다른 어그리게이트는 레인 수만큼 병렬로 처리된다.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
-public class KafkaEventStore implements EventStore {
-    
+public class KafkaEventStore implements EventStore, SnapshotStore {
+
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
-    
-    private final ConcurrentHashMap<String, List<MoneyDomainEvent>> eventStore = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, AtomicLong> versionStore = new ConcurrentHashMap<>();
-    
+    private final SpringDataMoneyEventRepository eventRepository;
+    private final SpringDataMoneySnapshotRepository snapshotRepository;
+
     private static final String MONEY_EVENTS_TOPIC = "money-domain-events";
-    
+
+    // 0 이하이면 CPU 코어 수만큼 레인을 만든다
+    @Value("${money.eventstore.writer-lanes:0}")
+    private int writerLaneCount;
+
+    // 레인마다 버전을 캐시할 어그리게이트 수. 넘치면 가장 오래 쓰지 않은 것부터 버린다.
+    @Value("${money.eventstore.version-cache-size:10000}")
+    private int versionCacheSize;
+
+    private ExecutorService[] writerLanes;
+    // 레인별 마지막 커밋 버전 캐시(LRU). 각 맵은 해당 레인 스레드에서만 접근한다.
+    private List<Map<String, Long>> laneVersions;
+
+    @PostConstruct
+    public void initWriterLanes() {
+        int laneCount = writerLaneCount > 0 ? writerLaneCount : Runtime.getRuntime().availableProcessors();
+        writerLanes = new ExecutorService[laneCount];
+        laneVersions = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "money-event-writer-" + i;
+            writerLanes[i] = Executors.newSingleThreadExecutor(r -> new Thread(r, threadName));
+            laneVersions.add(newVersionCache());
+        }
+        log.info("KafkaEventStore writer lanes initialized: {}", laneCount);
+    }
+
+    private Map<String, Long> newVersionCache() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > versionCacheSize;
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdownWriterLanes() {
+        for (ExecutorService lane : writerLanes) {
+            lane.shutdown();
+        }
+    }
+
     @Override
     public CompletableFuture<Void> saveEvents(String aggregateId, List<MoneyDomainEvent> events, long expectedVersion) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                // 버전 검증
-                AtomicLong currentVersion = versionStore.computeIfAbsent(aggregateId, k -> new AtomicLong(0));
-                if (currentVersion.get() != expectedVersion) {
-                    throw new RuntimeException("Optimistic concurrency control failed. Expected version: " + expectedVersion + ", but current version: " + currentVersion.get());
-                }
-                
-                // 이벤트들을 Kafka로 전송
-                for (MoneyDomainEvent event : events) {
-                    sendEventToKafka(aggregateId, event);
-                }
-                
-                // 로컬 이벤트 스토어에 저장
-                eventStore.computeIfAbsent(aggregateId, k -> new java.util.ArrayList<>()).addAll(events);
-                
-                // 버전 업데이트
-                currentVersion.addAndGet(events.size());
-                
-                log.info("Events saved successfully for aggregate: {}, version: {}", aggregateId, currentVersion.get());
-                
-            } catch (Exception e) {
-                log.error("Failed to save events for aggregate: {}", aggregateId, e);
-                throw new RuntimeException("Failed to save events", e);
+        int lane = laneOf(aggregateId);
+        return CompletableFuture.runAsync(() -> appendOnLane(lane, aggregateId, events, expectedVersion), writerLanes[lane]);
+    }
+
+    private void appendOnLane(int lane, String aggregateId, List<MoneyDomainEvent> events, long expectedVersion) {
+        Map<String, Long> versions = laneVersions.get(lane);
+
+        // 버전 검증 (compare-and-set). 레인 캐시에 없으면 DB 에서 읽어온다.
+        long currentVersion = versions.computeIfAbsent(aggregateId, eventRepository::findLastVersion);
+        if (currentVersion != expectedVersion) {
+            // 다른 노드가 썼을 수 있으므로 캐시를 믿지 않고 다음 시도에서 DB 를 다시 읽는다
+            versions.remove(aggregateId);
+            throw new ConcurrencyConflictException(aggregateId, expectedVersion, currentVersion);
+        }
+
+        List<MoneyEventJpaEntity> entities = new ArrayList<>();
+        try {
+            for (MoneyDomainEvent event : events) {
+                entities.add(new MoneyEventJpaEntity(
+                        aggregateId,
+                        event.getVersion(),
+                        event.getEventId(),
+                        event.getEventType(),
+                        objectMapper.writeValueAsString(event),
+                        event.getTimestamp()
+                ));
             }
-        });
+            // 다른 노드가 같은 버전을 먼저 썼다면 유니크 인덱스에서 실패
+            eventRepository.saveAll(entities);
+        } catch (DataIntegrityViolationException e) {
+            versions.remove(aggregateId);
+            long actualVersion = eventRepository.findLastVersion(aggregateId);
+            log.warn("Concurrent write detected for aggregate: {}, expected version: {}, actual version: {}", aggregateId, expectedVersion, actualVersion);
+            throw new ConcurrencyConflictException(aggregateId, expectedVersion, actualVersion);
+        } catch (Exception e) {
+            versions.remove(aggregateId);
+            log.error("Failed to save events for aggregate: {}", aggregateId, e);
+            throw new RuntimeException("Failed to save events", e);
+        }
+
+        long newVersion = expectedVersion + events.size();
+        versions.put(aggregateId, newVersion);
+
+        // 저장이 끝난 이벤트들만 Kafka로 전송
+        for (int i = 0; i < events.size(); i++) {
+            sendEventToKafka(aggregateId, events.get(i), entities.get(i).getPayload());
+        }
+
+        log.info("Events saved successfully for aggregate: {}, version: {}", aggregateId, newVersion);
     }
-    
+
+    private int laneOf(String aggregateId) {
+        return Math.floorMod(aggregateId.hashCode(), writerLanes.length);
+    }
+
     @Override
     public CompletableFuture<List<MoneyDomainEvent>> getEvents(String aggregateId) {
-        return CompletableFuture.completedFuture(
-            eventStore.getOrDefault(aggregateId, new java.util.ArrayList<>())
-        );
+        return getEventsAfterVersion(aggregateId, 0);
     }
-    
+
     @Override
     public CompletableFuture<List<MoneyDomainEvent>> getEventsAfterVersion(String aggregateId, long version) {
-        return getEvents(aggregateId).thenApply(events -> 
-            events.stream()
-                .filter(event -> event.getVersion() > version)
-                .collect(java.util.stream.Collectors.toList())
-        );
+        return CompletableFuture.supplyAsync(() -> {
+            List<MoneyDomainEvent> events = new ArrayList<>();
+            for (MoneyEventJpaEntity entity : eventRepository.findEventsAfterVersion(aggregateId, version)) {
+                events.add(deserialize(entity));
+            }
+            return events;
+        });
     }
-    
+
     @Override
     public CompletableFuture<Boolean> exists(String aggregateId) {
-        return CompletableFuture.completedFuture(eventStore.containsKey(aggregateId));
+        return CompletableFuture.supplyAsync(() -> eventRepository.existsByAggregateId(aggregateId));
     }
-    
+
     @Override
     public CompletableFuture<List<String>> getAllAggregateIds() {
-        return CompletableFuture.completedFuture(
-            new java.util.ArrayList<>(eventStore.keySet())
-        );
+        return CompletableFuture.supplyAsync(eventRepository::findAllAggregateIds);
     }
-    
-    private void sendEventToKafka(String aggregateId, MoneyDomainEvent event) {
+
+    @Override
+    public CompletableFuture<Void> saveSnapshot(MoneySnapshot snapshot) {
+        // 이벤트와 같은 레인에서 저장해 오래된 스냅샷이 최신 스냅샷을 덮어쓰지 않도록 한다
+        return CompletableFuture.runAsync(() -> {
+            snapshotRepository.save(new MoneySnapshotJpaEntity(
+                    snapshot.getAggregateId(),
+                    snapshot.getMembershipId(),
+                    snapshot.getBalance(),
+                    snapshot.getVersion(),
+                    LocalDateTime.now()
+            ));
+            log.info("Snapshot saved for aggregate: {}, version: {}", snapshot.getAggregateId(), snapshot.getVersion());
+        }, writerLanes[laneOf(snapshot.getAggregateId())]);
+    }
+
+    @Override
+    public CompletableFuture<Optional<MoneySnapshot>> getLatestSnapshot(String aggregateId) {
+        return CompletableFuture.supplyAsync(() -> snapshotRepository.findById(aggregateId)
+                .map(entity -> new MoneySnapshot(
+                        entity.getAggregateId(),
+                        entity.getMembershipId(),
+                        entity.getBalance(),
+                        entity.getVersion()
+                )));
+    }
+
+    private MoneyDomainEvent deserialize(MoneyEventJpaEntity entity) {
         try {
-            String eventJson = objectMapper.writeValueAsString(event);
-            String key = aggregateId + "-" + event.getVersion();
-            
-            var future = kafkaTemplate.send(MONEY_EVENTS_TOPIC, key, eventJson);
-            
-            future.addCallback(
-                result -> log.debug("Event sent to Kafka successfully: {} -> partition: {}, offset: {}", 
-                    event.getEventId(), result.getRecordMetadata().partition(), result.getRecordMetadata().offset()),
-                throwable -> log.error("Failed to send event to Kafka: {}", event.getEventId(), throwable)
-            );
-            
+            return objectMapper.readValue(entity.getPayload(), MoneyDomainEvent.class);
         } catch (Exception e) {
-            log.error("Failed to serialize event: {}", event.getEventId(), e);
-            throw new RuntimeException("Failed to serialize event", e);
+            log.error("Failed to deserialize event: {} (aggregate: {}, version: {})", entity.getEventId(), entity.getAggregateId(), entity.getVersion(), e);
+            throw new RuntimeException("Failed to deserialize event", e);
         }
     }
+
+    private void sendEventToKafka(String aggregateId, MoneyDomainEvent event, String eventJson) {
+        // aggregateId 를 키로 써야 한 어그리게이트의 이벤트가 같은 파티션에 버전 순서대로 쌓인다
+        var future = kafkaTemplate.send(MONEY_EVENTS_TOPIC, aggregateId, eventJson);
+
+        future.addCallback(
+            result -> log.debug("Event sent to Kafka successfully: {} -> partition: {}, offset: {}",
+                event.getEventId(), result.getRecordMetadata().partition(), result.getRecordMetadata().offset()),
+            throwable -> log.error("Failed to send event to Kafka: {}", event.getEventId(), throwable)
+        );
+    }
 }
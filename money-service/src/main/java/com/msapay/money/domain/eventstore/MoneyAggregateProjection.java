@@ -0,0 +1,79 @@
+package com.msapay.money.domain.eventstore;
+
+import com.msapay.money.domain.MoneyAggregate;
+import com.msapay.money.domain.event.MoneyDomainEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 어그리게이트별 최신 상태를 메모리에 유지하는 프로젝션
+ * findById 에서 스냅샷 대신 기준 상태로 사용되며, 이후 이벤트는 이벤트 스토어에서 이어서 재생한다.
+ * money.projection.max-size 를 넘으면 가장 오래 쓰이지 않은 어그리게이트부터 내보낸다.
+ * 내보낸 어그리게이트는 DB 스냅샷에서 읽히고, 다음 이벤트 때 MoneyEventHydrator 가 다시 채운다.
+ */
+@Component
+public class MoneyAggregateProjection {
+
+    private final Map<String, MoneySnapshot> states;
+
+    public MoneyAggregateProjection(@Value("${money.projection.max-size:100000}") int maxSize) {
+        this.states = Collections.synchronizedMap(new LinkedHashMap<String, MoneySnapshot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MoneySnapshot> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    public Optional<MoneySnapshot> get(String aggregateId) {
+        return Optional.ofNullable(states.get(aggregateId));
+    }
+
+    /**
+     * 더 최신 버전일 때만 상태를 교체
+     */
+    public void update(MoneySnapshot snapshot) {
+        states.merge(snapshot.getAggregateId(), snapshot,
+                (current, candidate) -> candidate.getVersion() > current.getVersion() ? candidate : current);
+    }
+
+    /**
+     * 이벤트 하나를 반영. 이미 반영된 버전이면 무시한다.
+     * 바로 앞 버전의 상태를 모르면(체크포인트 이후부터 재생했거나 사이 이벤트를 놓쳤다) 빈 상태에 덧붙이지 않고
+     * 항목을 비운다. 이때는 isBehind 가 true 이므로 호출한 쪽이 DB 스냅샷과 이벤트에서 상태를 읽어 update 로 채운다.
+     */
+    public boolean apply(MoneyDomainEvent event) {
+        boolean[] applied = {false};
+        states.compute(event.getAggregateId(), (aggregateId, current) -> {
+            long currentVersion = current != null ? current.getVersion() : 0;
+            if (event.getVersion() <= currentVersion) {
+                return current;
+            }
+            if (event.getVersion() != currentVersion + 1) {
+                return null;
+            }
+            MoneySnapshot base = current != null ? current : new MoneySnapshot(aggregateId, "", 0, 0);
+            applied[0] = true;
+            return MoneyAggregate.fromSnapshot(base, List.of(event)).toSnapshot();
+        });
+        return applied[0];
+    }
+
+    /**
+     * 이 이벤트의 바로 앞 버전까지 반영된 상태가 없으면 true
+     */
+    public boolean isBehind(MoneyDomainEvent event) {
+        MoneySnapshot current = states.get(event.getAggregateId());
+        return (current != null ? current.getVersion() : 0) < event.getVersion() - 1;
+    }
+
+    public int size() {
+        return states.size();
+    }
+}
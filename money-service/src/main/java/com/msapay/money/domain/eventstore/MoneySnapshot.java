@@ -0,0 +1,14 @@
+package com.msapay.money.domain.eventstore;
+
+import lombok.Value;
+
+/**
+ * 특정 버전 시점의 머니 어그리게이트 상태
+ */
+@Value
+public class MoneySnapshot {
+    String aggregateId;
+    String membershipId;
+    int balance;
+    long version;
+}
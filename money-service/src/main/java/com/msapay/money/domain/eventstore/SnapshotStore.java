@@ -0,0 +1,14 @@
+package com.msapay.money.domain.eventstore;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 어그리게이트 스냅샷 저장소 인터페이스
+ */
+public interface SnapshotStore {
+
+    CompletableFuture<Void> saveSnapshot(MoneySnapshot snapshot);
+
+    CompletableFuture<Optional<MoneySnapshot>> getLatestSnapshot(String aggregateId);
+}
@@ -3,11 +3,16 @@ package com.msapay.money.domain.repository;
 import com.msapay.money.domain.MoneyAggregate;
 import com.msapay.money.domain.event.MoneyDomainEvent;
 import com.msapay.money.domain.eventstore.EventStore;
+import com.msapay.money.domain.eventstore.MoneyAggregateProjection;
+import com.msapay.money.domain.eventstore.MoneySnapshot;
+import com.msapay.money.domain.eventstore.SnapshotStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -19,43 +24,68 @@ import java.util.concurrent.CompletableFuture;
 public class KafkaMoneyAggregateRepository implements MoneyAggregateRepository {
     
     private final EventStore eventStore;
+    private final SnapshotStore snapshotStore;
+    private final MoneyAggregateProjection projection;
+    
+    // N 개의 이벤트마다 스냅샷을 남긴다
+    @Value("${money.eventstore.snapshot-interval:50}")
+    private int snapshotInterval;
     
     @Override
     public CompletableFuture<Void> save(MoneyAggregate aggregate) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                List<MoneyDomainEvent> uncommittedEvents = aggregate.getUncommittedEvents();
+        List<MoneyDomainEvent> uncommittedEvents = aggregate.getUncommittedEvents();
+        if (uncommittedEvents.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        long previousVersion = aggregate.getCurrentVersion() - uncommittedEvents.size();
+        
+        // 이벤트 스토어에 이벤트들 저장 (버전 충돌 시 ConcurrencyConflictException 으로 완료됨)
+        return eventStore.saveEvents(aggregate.getAggregateId(), uncommittedEvents, previousVersion)
+            .thenCompose(ignored -> {
+                // 커밋 완료 표시
+                aggregate.markEventsAsCommitted();
+                projection.update(aggregate.toSnapshot());
                 
-                if (!uncommittedEvents.isEmpty()) {
-                    // 이벤트 스토어에 이벤트들 저장
-                    eventStore.saveEvents(
-                        aggregate.getAggregateId(), 
-                        uncommittedEvents, 
-                        aggregate.getCurrentVersion() - uncommittedEvents.size()
-                    ).join();
-                    
-                    // 커밋 완료 표시
-                    aggregate.markEventsAsCommitted();
-                    
-                    log.info("MoneyAggregate saved successfully: {}, events: {}", 
-                        aggregate.getAggregateId(), uncommittedEvents.size());
-                }
+                log.info("MoneyAggregate saved successfully: {}, events: {}", 
+                    aggregate.getAggregateId(), uncommittedEvents.size());
                 
-            } catch (Exception e) {
-                log.error("Failed to save MoneyAggregate: {}", aggregate.getAggregateId(), e);
-                throw new RuntimeException("Failed to save aggregate", e);
-            }
-        });
+                // 스냅샷 주기를 지났으면 스냅샷 저장
+                if (aggregate.getCurrentVersion() / snapshotInterval > previousVersion / snapshotInterval) {
+                    return snapshotStore.saveSnapshot(aggregate.toSnapshot());
+                }
+                return CompletableFuture.<Void>completedFuture(null);
+            })
+            .whenComplete((ignored, throwable) -> {
+                if (throwable != null) {
+                    log.error("Failed to save MoneyAggregate: {}", aggregate.getAggregateId(), throwable);
+                }
+            });
     }
     
     @Override
     public CompletableFuture<MoneyAggregate> findById(String aggregateId) {
-        return eventStore.getEvents(aggregateId)
-            .thenApply(events -> {
-                if (events.isEmpty()) {
-                    return null;
+        // 메모리 프로젝션에 상태가 있으면 그 이후의 이벤트만 재생
+        Optional<MoneySnapshot> projected = projection.get(aggregateId);
+        if (projected.isPresent()) {
+            return eventStore.getEventsAfterVersion(aggregateId, projected.get().getVersion())
+                .thenApply(events -> MoneyAggregate.fromSnapshot(projected.get(), events));
+        }
+        
+        // 최신 스냅샷을 불러오고, 스냅샷 이후의 이벤트만 재생
+        return snapshotStore.getLatestSnapshot(aggregateId)
+            .thenCompose(snapshot -> {
+                if (snapshot.isPresent()) {
+                    return eventStore.getEventsAfterVersion(aggregateId, snapshot.get().getVersion())
+                        .thenApply(events -> MoneyAggregate.fromSnapshot(snapshot.get(), events));
                 }
-                return MoneyAggregate.fromEvents(aggregateId, events);
+                return eventStore.getEvents(aggregateId)
+                    .thenApply(events -> {
+                        if (events.isEmpty()) {
+                            return null;
+                        }
+                        return MoneyAggregate.fromEvents(aggregateId, events);
+                    });
             });
     }
 
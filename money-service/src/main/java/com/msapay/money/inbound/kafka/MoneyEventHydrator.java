@@ -0,0 +1,244 @@
+package com.msapay.money.inbound.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msapay.money.domain.MoneyAggregate;
+import com.msapay.money.domain.event.MoneyDomainEvent;
+import com.msapay.money.domain.eventstore.MoneyAggregateProjection;
+import com.msapay.money.domain.repository.MoneyAggregateRepository;
+import com.msapay.money.persistence.MoneyEventCheckpointJpaEntity;
+import com.msapay.money.persistence.SpringDataMoneyEventCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 기동 시 money-domain-events 토픽을 파티션별로 병렬 재생해 MoneyAggregateProjection 을 복원한다.
+ * 파티션마다 저장된 체크포인트 offset 부터 읽으므로 재기동 비용은 체크포인트 이후의 tail 에 비례한다.
+ * 체크포인트 이전 상태를 모르는 어그리게이트는 처음 만난 이벤트에서 DB 스냅샷과 그 이후 이벤트로 채운다.
+ * 이벤트는 DB 에 먼저 기록된 뒤 Kafka 로 나가므로 채운 상태는 그 이벤트까지 포함하고, 이어지는 tail 이벤트가 그 위에 쌓인다.
+ * 기동 시점의 끝 offset 까지 따라잡기 전에는 헬스 상태가 OUT_OF_SERVICE 이며,
+ * readiness 그룹에 포함시키면 트래픽을 받지 않는다. 따라잡은 뒤에는 계속 tail 을 따라가며 프로젝션을 갱신한다.
+ */
+@Slf4j
+@Component
+public class MoneyEventHydrator implements HealthIndicator {
+
+    private static final String MONEY_EVENTS_TOPIC = "money-domain-events";
+
+    private final String bootstrapServers;
+    private final int checkpointInterval;
+    private final boolean enabled;
+    private final ObjectMapper objectMapper;
+    private final MoneyAggregateProjection projection;
+    private final MoneyAggregateRepository moneyAggregateRepository;
+    private final SpringDataMoneyEventCheckpointRepository checkpointRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final AtomicInteger partitionsRemaining = new AtomicInteger(-1);
+    private final AtomicLong replayedEvents = new AtomicLong();
+    private Counter replayedEventCounter;
+    private Counter seededAggregateCounter;
+    private ExecutorService partitionExecutor;
+    private long hydrationStartedAt;
+
+    public MoneyEventHydrator(@Value("${kafka.clusters.bootstrapservers}") String bootstrapServers,
+                              @Value("${money.hydration.checkpoint-interval:1000}") int checkpointInterval,
+                              @Value("${money.hydration.enabled:true}") boolean enabled,
+                              ObjectMapper objectMapper,
+                              MoneyAggregateProjection projection,
+                              MoneyAggregateRepository moneyAggregateRepository,
+                              SpringDataMoneyEventCheckpointRepository checkpointRepository,
+                              MeterRegistry meterRegistry) {
+        this.bootstrapServers = bootstrapServers;
+        this.checkpointInterval = checkpointInterval;
+        this.enabled = enabled;
+        this.objectMapper = objectMapper;
+        this.projection = projection;
+        this.moneyAggregateRepository = moneyAggregateRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startHydration() {
+        if (!enabled) {
+            partitionsRemaining.set(0);
+            log.info("Money event hydration disabled");
+            return;
+        }
+
+        List<PartitionInfo> partitions;
+        try (KafkaConsumer<String, String> metadataConsumer = new KafkaConsumer<>(consumerProperties())) {
+            partitions = metadataConsumer.partitionsFor(MONEY_EVENTS_TOPIC);
+        }
+        if (partitions == null || partitions.isEmpty()) {
+            partitionsRemaining.set(0);
+            log.warn("No partitions found for topic: {}, skipping hydration", MONEY_EVENTS_TOPIC);
+            return;
+        }
+
+        replayedEventCounter = Counter.builder("money.hydration.events")
+                .description("money-domain-events 에서 재생한 이벤트 수")
+                .register(meterRegistry);
+        seededAggregateCounter = Counter.builder("money.hydration.seeded")
+                .description("앞 상태를 몰라 DB 스냅샷과 이벤트에서 채운 어그리게이트 수")
+                .register(meterRegistry);
+        Gauge.builder("money.hydration.partitions.remaining", partitionsRemaining, AtomicInteger::get)
+                .description("아직 따라잡지 못한 파티션 수")
+                .register(meterRegistry);
+        Gauge.builder("money.hydration.aggregates", projection, MoneyAggregateProjection::size)
+                .description("프로젝션에 복원된 어그리게이트 수")
+                .register(meterRegistry);
+
+        hydrationStartedAt = System.currentTimeMillis();
+        partitionsRemaining.set(partitions.size());
+        partitionExecutor = Executors.newFixedThreadPool(partitions.size());
+        for (PartitionInfo partition : partitions) {
+            TopicPartition topicPartition = new TopicPartition(MONEY_EVENTS_TOPIC, partition.partition());
+            partitionExecutor.submit(() -> replayPartition(topicPartition));
+        }
+        log.info("Money event hydration started for {} partitions", partitions.size());
+    }
+
+    private void replayPartition(TopicPartition topicPartition) {
+        Thread.currentThread().setName("MoneyEventHydrator-" + topicPartition.partition());
+        AtomicLong lag = new AtomicLong();
+        Gauge.builder("money.hydration.lag", lag, AtomicLong::get)
+                .description("파티션별 끝 offset 까지 남은 레코드 수")
+                .tag("partition", String.valueOf(topicPartition.partition()))
+                .register(meterRegistry);
+
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(consumerProperties())) {
+            consumer.assign(Collections.singletonList(topicPartition));
+            checkpointRepository.findById(topicPartition.partition())
+                    .ifPresentOrElse(
+                            checkpoint -> consumer.seek(topicPartition, checkpoint.getNextOffset()),
+                            () -> consumer.seekToBeginning(Collections.singletonList(topicPartition)));
+
+            // 기동 시점의 끝 offset 까지 읽으면 따라잡은 것으로 본다
+            long catchUpOffset = consumer.endOffsets(Collections.singletonList(topicPartition)).get(topicPartition);
+            boolean caughtUp = false;
+            long sinceCheckpoint = 0;
+
+            while (running.get()) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(1));
+                for (ConsumerRecord<String, String> record : records) {
+                    applyRecord(record);
+                    sinceCheckpoint++;
+                }
+
+                long position = consumer.position(topicPartition);
+                if (sinceCheckpoint >= checkpointInterval || (!records.isEmpty() && !caughtUp && position >= catchUpOffset)) {
+                    saveCheckpoint(topicPartition.partition(), position);
+                    sinceCheckpoint = 0;
+                }
+
+                if (!caughtUp) {
+                    lag.set(Math.max(0, catchUpOffset - position));
+                    if (position >= catchUpOffset) {
+                        caughtUp = true;
+                        onPartitionCaughtUp(topicPartition);
+                    }
+                } else if (records.isEmpty()) {
+                    lag.set(0);
+                }
+            }
+            saveCheckpoint(topicPartition.partition(), consumer.position(topicPartition));
+        } catch (Exception e) {
+            if (running.get()) {
+                log.error("Money event hydration failed for partition: {}", topicPartition.partition(), e);
+            }
+        }
+    }
+
+    private void applyRecord(ConsumerRecord<String, String> record) {
+        try {
+            MoneyDomainEvent event = objectMapper.readValue(record.value(), MoneyDomainEvent.class);
+            if (!projection.apply(event) && projection.isBehind(event)) {
+                seed(event.getAggregateId());
+            }
+            replayedEvents.incrementAndGet();
+            replayedEventCounter.increment();
+        } catch (Exception e) {
+            log.error("Failed to replay money event at partition: {}, offset: {}", record.partition(), record.offset(), e);
+        }
+    }
+
+    // MoneyAggregateRepository.findById 는 프로젝션에 없는 어그리게이트를 최신 스냅샷과 그 이후 이벤트로 복원한다
+    private void seed(String aggregateId) {
+        MoneyAggregate aggregate = moneyAggregateRepository.findById(aggregateId).join();
+        if (aggregate != null) {
+            projection.update(aggregate.toSnapshot());
+            seededAggregateCounter.increment();
+        }
+    }
+
+    private void saveCheckpoint(int partition, long nextOffset) {
+        checkpointRepository.save(new MoneyEventCheckpointJpaEntity(partition, nextOffset, LocalDateTime.now()));
+    }
+
+    private void onPartitionCaughtUp(TopicPartition topicPartition) {
+        int remaining = partitionsRemaining.decrementAndGet();
+        log.info("Money event hydration caught up on partition: {}, remaining partitions: {}", topicPartition.partition(), remaining);
+        if (remaining == 0) {
+            long elapsedMillis = Math.max(1, System.currentTimeMillis() - hydrationStartedAt);
+            log.info("Money event hydration completed: {} events, {} aggregates in {} ms ({} events/s)",
+                    replayedEvents.get(), projection.size(), elapsedMillis, replayedEvents.get() * 1000 / elapsedMillis);
+        }
+    }
+
+    @Override
+    public Health health() {
+        int remaining = partitionsRemaining.get();
+        Health.Builder builder = remaining == 0 ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("partitionsRemaining", remaining)
+                .withDetail("replayedEvents", replayedEvents.get())
+                .withDetail("aggregates", projection.size())
+                .build();
+    }
+
+    private Properties consumerProperties() {
+        Properties props = new Properties();
+        props.put("bootstrap.servers", bootstrapServers);
+        props.put("key.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
+        props.put("value.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
+        props.put("enable.auto.commit", "false");
+        props.put("max.poll.records", "1000");
+        return props;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutting down MoneyEventHydrator");
+        running.set(false);
+        if (partitionExecutor != null) {
+            partitionExecutor.shutdown();
+        }
+    }
+}
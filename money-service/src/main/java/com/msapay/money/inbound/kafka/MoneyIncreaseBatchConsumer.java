@@ -0,0 +1,136 @@
+package com.msapay.money.inbound.kafka;
+
+import com.msapay.common.idempotency.IdempotentConsumer;
+import com.msapay.common.saga.SagaCommandMessage;
+import com.msapay.common.saga.SagaMessage;
+import com.msapay.common.saga.SagaMessageListenerFactory;
+import com.msapay.money.service.usecase.UpdateMoneyChangingRequestStatusUseCase;
+import com.msapay.money.service.port.IncreaseMoneyPort;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.msapay.money.inbound.kafka.MoneyIncreaseRequestConsumer.INCREASE_MONEY_STEP;
+
+/**
+ * 머니 증가 요청을 poll 단위로 받아 회원별 증가액을 합산해 반영한다.
+ * 회원마다 조회 + 저장을 반복하는 대신, 한 트랜잭션에서 선점 INSERT 한 번과 회원당 UPDATE 한 번으로 끝나므로
+ * 같은 회원에게 요청이 몰릴수록 문장 수가 크게 줄어든다. 벤치마크: ./gradlew :money-service:jmh
+ * 결과는 받은 순서대로 saga 마다 발행한다. batch 반영이 실패하면 요청을 하나씩 기존 경로로 처리한다.
+ * 보상 요청은 건수가 적으므로 MoneyIncreaseRequestConsumer 가 그대로 받는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "money.increase.batch.enabled", havingValue = "true")
+public class MoneyIncreaseBatchConsumer {
+
+    private final IncreaseMoneyPort increaseMoneyPort;
+    private final UpdateMoneyChangingRequestStatusUseCase updateMoneyChangingRequestStatusUseCase;
+    private final IdempotentConsumer idempotentConsumer;
+    private final MoneyIncreaseRequestConsumer moneyIncreaseRequestConsumer;
+    private final TransactionTemplate transactionTemplate;
+
+    private final DistributionSummary batchSize;
+    private final DistributionSummary memberCount;
+
+    public MoneyIncreaseBatchConsumer(IncreaseMoneyPort increaseMoneyPort,
+                                      UpdateMoneyChangingRequestStatusUseCase updateMoneyChangingRequestStatusUseCase,
+                                      IdempotentConsumer idempotentConsumer,
+                                      MoneyIncreaseRequestConsumer moneyIncreaseRequestConsumer,
+                                      TransactionTemplate transactionTemplate,
+                                      MeterRegistry meterRegistry) {
+        this.increaseMoneyPort = increaseMoneyPort;
+        this.updateMoneyChangingRequestStatusUseCase = updateMoneyChangingRequestStatusUseCase;
+        this.idempotentConsumer = idempotentConsumer;
+        this.moneyIncreaseRequestConsumer = moneyIncreaseRequestConsumer;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = DistributionSummary.builder("money.increase.batch.size")
+                .description("batch 한 번에 반영한 머니 증가 요청 수")
+                .register(meterRegistry);
+        this.memberCount = DistributionSummary.builder("money.increase.batch.members")
+                .description("batch 한 번에 UPDATE 한 회원 수")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(topics = "${kafka.topics.money-increase-request}", groupId = "money-service-group",
+            containerFactory = SagaMessageListenerFactory.BATCH_BEAN_NAME)
+    public void consumeMoneyIncreaseRequests(List<SagaMessage> messages) {
+        List<SagaCommandMessage> commands = new ArrayList<>(messages.size());
+        List<IdempotentConsumer.Claim> claims = new ArrayList<>(messages.size());
+        List<SagaCommandMessage> fresh = new ArrayList<>();
+        Map<String, Integer> amounts = new HashMap<>();
+
+        for (SagaMessage message : messages) {
+            if (!(message instanceof SagaCommandMessage)) {
+                // 읽지 못한 메시지는 error handler 가 이미 기록했다
+                log.warn("Skipping unreadable money increase request: {}", message);
+                continue;
+            }
+            SagaCommandMessage command = (SagaCommandMessage) message;
+            // 선점은 반영 트랜잭션 안에서 한꺼번에 하므로 여기서는 메모리에 남은 결과만 본다
+            IdempotentConsumer.Claim claim = idempotentConsumer.findRecent(command.getSagaId(), INCREASE_MONEY_STEP);
+            commands.add(command);
+            claims.add(claim);
+            if (claim == null) {
+                fresh.add(command);
+                amounts.merge(command.getMembershipId(), command.getAmount(), Integer::sum);
+            }
+        }
+
+        boolean applied = fresh.isEmpty() || applyBatch(fresh, amounts);
+
+        // 결과는 반영 트랜잭션이 커밋된 뒤에 받은 순서대로 발행한다
+        for (int i = 0; i < commands.size(); i++) {
+            SagaCommandMessage command = commands.get(i);
+            IdempotentConsumer.Claim claim = claims.get(i);
+            if (claim != null) {
+                moneyIncreaseRequestConsumer.publishMoneyIncreaseResult(
+                        command.getSagaId().toString(), claim.isSuccess(), claim.getReason());
+            } else if (applied) {
+                moneyIncreaseRequestConsumer.publishMoneyIncreaseResult(command.getSagaId().toString(), true, "Success");
+            } else {
+                // batch 트랜잭션이 롤백되어 선점도 남지 않았다. 기존 경로로 하나씩 처리한다.
+                moneyIncreaseRequestConsumer.consumeMoneyIncreaseRequest(command);
+            }
+        }
+    }
+
+    /**
+     * 선점 겸 완료 기록(multi-row INSERT 한 번), 회원별 잔액 UPDATE, 요청 상태 변경을 한 트랜잭션으로 커밋한다.
+     * 이미 처리되었거나 처리 중인 명령이 섞여 INSERT 가 중복 키로 실패하거나 반영이 실패하면 모두 롤백되고 false.
+     */
+    private boolean applyBatch(List<SagaCommandMessage> fresh, Map<String, Integer> amounts) {
+        List<UUID> sagaIds = new ArrayList<>(fresh.size());
+        List<String> taskIds = new ArrayList<>(fresh.size());
+        for (SagaCommandMessage command : fresh) {
+            sagaIds.add(command.getSagaId());
+            taskIds.add(command.getTaskId());
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                idempotentConsumer.completeAllNew(sagaIds, INCREASE_MONEY_STEP, true, "Success");
+                increaseMoneyPort.increaseMoney(amounts);
+                // 상태 조회 long-poll 도 함께 깨운다
+                updateMoneyChangingRequestStatusUseCase.updateMoneyChangingRequestStatus(taskIds, 1); // 1: 성공
+            });
+        } catch (Exception e) {
+            log.error("Failed to apply money increase batch of {} requests for {} members, falling back to single requests",
+                    fresh.size(), amounts.size(), e);
+            return false;
+        }
+        batchSize.record(fresh.size());
+        memberCount.record(amounts.size());
+        log.info("Applied money increase batch - requests: {}, members: {}", fresh.size(), amounts.size());
+        return true;
+    }
+}
@@ -1,18 +1,21 @@
 package com.msapay.money.inbound.kafka;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.msapay.money.domain.MemberMoney;
 import com.msapay.money.domain.MoneyAggregate;
 import com.msapay.money.persistence.MemberMoneyJpaEntity;
-import com.msapay.money.service.IncreaseMoneyRequestService;
+import com.msapay.money.service.usecase.UpdateMoneyChangingRequestStatusUseCase;
 import com.msapay.money.service.port.IncreaseMoneyPort;
+import com.msapay.common.idempotency.IdempotentConsumer;
+import com.msapay.common.saga.SagaCommandMessage;
+import com.msapay.common.saga.SagaMessageListenerFactory;
+import com.msapay.common.saga.SagaMessageSender;
+import com.msapay.common.saga.SagaResultMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.UUID;
 
@@ -21,10 +24,14 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class MoneyIncreaseRequestConsumer {
 
-    private final ObjectMapper objectMapper;
-    private final IncreaseMoneyRequestService increaseMoneyRequestService;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    static final String INCREASE_MONEY_STEP = "INCREASE_MONEY";
+    private static final String COMPENSATE_INCREASE_MONEY_STEP = "COMPENSATE_INCREASE_MONEY";
+
+    private final UpdateMoneyChangingRequestStatusUseCase updateMoneyChangingRequestStatusUseCase;
+    private final IdempotentConsumer idempotentConsumer;
+    private final SagaMessageSender sagaMessageSender;
     private final IncreaseMoneyPort increaseMoneyPort;
+    private final TransactionTemplate transactionTemplate;
     
     @Value("${kafka.topics.money-increase-result}")
     private String resultTopic;
@@ -32,73 +39,120 @@ public class MoneyIncreaseRequestConsumer {
     @Value("${kafka.topics.compensate-increase-money-result}")
     private String compensateResultTopic;
 
-    @KafkaListener(topics = "${kafka.topics.money-increase-request}", groupId = "money-service-group")
-    public void consumeMoneyIncreaseRequest(String message) {
+    // money.increase.batch.enabled=true 이면 MoneyIncreaseBatchConsumer 가 대신 받는다
+    @KafkaListener(topics = "${kafka.topics.money-increase-request}", groupId = "money-service-group",
+            containerFactory = SagaMessageListenerFactory.BEAN_NAME,
+            autoStartup = "#{'${money.increase.batch.enabled:false}' != 'true'}")
+    public void consumeMoneyIncreaseRequest(SagaCommandMessage command) {
+        IdempotentConsumer.Claim claim = idempotentConsumer.begin(command.getSagaId(), INCREASE_MONEY_STEP);
+        if (claim.isDuplicate()) {
+            // 이미 잔액에 반영한 명령이다. 결과가 유실되었을 수 있으므로 저장된 결과만 다시 발행한다.
+            publishMoneyIncreaseResult(command.getSagaId().toString(), claim.isSuccess(), claim.getReason());
+            return;
+        }
+        if (!claim.isAcquired()) {
+            return;
+        }
+
         try {
-            log.info("Received money increase request: {}", message);
+            log.info("Received money increase request: {}", command);
             
-            JsonNode event = objectMapper.readTree(message);
-            String sagaId = event.get("sagaId").asText();
-            String taskId = event.get("taskId").asText();
-            String membershipId = event.get("membershipId").asText();
-            int amount = event.get("amount").asInt();
+            String sagaId = command.getSagaId().toString();
+            String taskId = command.getTaskId();
+            String membershipId = command.getMembershipId();
+            int amount = command.getAmount();
             
             log.info("Processing money increase request - sagaId: {}, taskId: {}, membershipId: {}, amount: {}", 
                 sagaId, taskId, membershipId, amount);
             
-            // 머니 증가 처리
-            boolean success = processMoneyIncrease(membershipId, amount);
-            
-            // 결과 이벤트 발행
-            publishMoneyIncreaseResult(sagaId, success, success ? "Success" : "Money increase failed");
+            // 잔액 반영과 처리 완료 기록을 한 트랜잭션으로 커밋해, 그 사이에 죽어도 재전달 때 다시 증액하지 않게 한다
+            boolean success = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                // 머니 증가 처리
+                boolean increased = processMoneyIncrease(membershipId, amount);
+                idempotentConsumer.complete(command.getSagaId(), INCREASE_MONEY_STEP, increased,
+                        increased ? "Success" : "Money increase failed");
+                if (increased) {
+                    updateMoneyChangingRequestStatusUseCase.updateMoneyChangingRequestStatus(taskId, 1); // 1: 성공
+                }
+                return increased;
+            }));
+            String reason = success ? "Success" : "Money increase failed";
+
+            // 결과 이벤트 발행 (커밋된 뒤에만)
+            publishMoneyIncreaseResult(sagaId, success, reason);
             
         } catch (Exception e) {
-            log.error("Failed to process money increase request: {}", message, e);
+            log.error("Failed to process money increase request: {}", command, e);
+            idempotentConsumer.release(command.getSagaId(), INCREASE_MONEY_STEP);
             
             // 에러 발생 시 실패 결과 발행
-            try {
-                JsonNode event = objectMapper.readTree(message);
-                String sagaId = event.get("sagaId").asText();
-                publishMoneyIncreaseResult(sagaId, false, "Processing error: " + e.getMessage());
-            } catch (Exception ex) {
-                log.error("Failed to publish error result", ex);
-            }
+            publishMoneyIncreaseResult(command.getSagaId().toString(), false, "Processing error: " + e.getMessage());
         }
     }
 
     // 보상 트랜잭션: 머니 증가 취소 처리
-    @KafkaListener(topics = "${kafka.topics.compensate-increase-money}", groupId = "money-service-group")
-    public void consumeCompensateIncreaseMoney(String message) {
+    @KafkaListener(topics = "${kafka.topics.compensate-increase-money}", groupId = "money-service-group",
+            containerFactory = SagaMessageListenerFactory.BEAN_NAME)
+    public void consumeCompensateIncreaseMoney(SagaCommandMessage command) {
+        IdempotentConsumer.Claim claim = idempotentConsumer.begin(command.getSagaId(), COMPENSATE_INCREASE_MONEY_STEP);
+        if (claim.isDuplicate()) {
+            publishCompensateIncreaseMoneyResult(command.getSagaId().toString(), claim.isSuccess(), claim.getReason());
+            return;
+        }
+        if (!claim.isAcquired()) {
+            return;
+        }
+
         try {
-            log.info("Received compensate increase money request: {}", message);
+            log.info("Received compensate increase money request: {}", command);
             
-            JsonNode event = objectMapper.readTree(message);
-            String sagaId = event.get("sagaId").asText();
-            String taskId = event.get("taskId").asText();
-            String membershipId = event.get("membershipId").asText();
-            int amount = event.get("amount").asInt();
+            String sagaId = command.getSagaId().toString();
+            String taskId = command.getTaskId();
+            String membershipId = command.getMembershipId();
+            int amount = command.getAmount();
             
             log.info("Processing compensate increase money - sagaId: {}, taskId: {}, membershipId: {}, amount: {}", 
                 sagaId, taskId, membershipId, amount);
             
-            // 머니 증가 보상 처리 (롤백)
-            boolean success = processMoneyIncreaseCompensation(membershipId, amount);
-            
+            // 머니 증가 보상 처리 (롤백). 증액하지 않은 요청이면(펌뱅킹 실패 등) 잔액은 그대로 두고 요청만 실패로 닫는다.
+            boolean increased = claimIncreaseForCompensation(command.getSagaId());
+            boolean success = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                boolean compensated = !increased || processMoneyIncreaseCompensation(membershipId, amount);
+                idempotentConsumer.complete(command.getSagaId(), COMPENSATE_INCREASE_MONEY_STEP, compensated,
+                        compensated ? "Compensation completed" : "Compensation failed");
+                if (compensated) {
+                    updateMoneyChangingRequestStatusUseCase.updateMoneyChangingRequestStatus(taskId, 2); // 2: 실패 (보상 완료)
+                }
+                return compensated;
+            }));
+            String reason = success ? "Compensation completed" : "Compensation failed";
+
             // 보상 결과 이벤트 발행
-            publishCompensateIncreaseMoneyResult(sagaId, success, success ? "Compensation completed" : "Compensation failed");
+            publishCompensateIncreaseMoneyResult(sagaId, success, reason);
             
         } catch (Exception e) {
-            log.error("Failed to process compensate increase money request: {}", message, e);
+            log.error("Failed to process compensate increase money request: {}", command, e);
+            idempotentConsumer.release(command.getSagaId(), COMPENSATE_INCREASE_MONEY_STEP);
             
             // 에러 발생 시 실패 결과 발행
-            try {
-                JsonNode event = objectMapper.readTree(message);
-                String sagaId = event.get("sagaId").asText();
-                publishCompensateIncreaseMoneyResult(sagaId, false, "Compensation error: " + e.getMessage());
-            } catch (Exception ex) {
-                log.error("Failed to publish compensation error result", ex);
-            }
+            publishCompensateIncreaseMoneyResult(command.getSagaId().toString(), false, "Compensation error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 이 saga 의 머니 증가가 잔액에 반영되었는지 돌려준다.
+     * 아직 반영 전이면 머니 증가를 실패로 기록해, 보상 뒤에 늦게 도착한 증가 요청이 적용되지 않게 한다.
+     */
+    private boolean claimIncreaseForCompensation(UUID sagaId) {
+        IdempotentConsumer.Claim increase = idempotentConsumer.begin(sagaId, INCREASE_MONEY_STEP);
+        if (increase.isAcquired()) {
+            idempotentConsumer.complete(sagaId, INCREASE_MONEY_STEP, false, "Compensated before applied");
+            return false;
+        }
+        if (increase.isDuplicate()) {
+            return increase.isSuccess();
         }
+        throw new IllegalStateException("Money increase is still being processed for saga: " + sagaId);
     }
 
     private boolean processMoneyIncrease(String membershipId, int amount) {
@@ -186,12 +240,9 @@ public class MoneyIncreaseRequestConsumer {
         }
     }
 
-    private void publishMoneyIncreaseResult(String sagaId, boolean success, String reason) {
+    void publishMoneyIncreaseResult(String sagaId, boolean success, String reason) {
         try {
-            String resultMessage = createResultMessage(sagaId, success, reason);
-            String key = sagaId;
-            
-            kafkaTemplate.send(resultTopic, key, resultMessage);
+            sagaMessageSender.send(resultTopic, SagaResultMessage.of(sagaId, success, reason));
             
             log.info("Money increase result published - sagaId: {}, success: {}, reason: {}", 
                 sagaId, success, reason);
@@ -204,10 +255,8 @@ public class MoneyIncreaseRequestConsumer {
     // 보상 결과 이벤트 발행
     private void publishCompensateIncreaseMoneyResult(String sagaId, boolean success, String reason) {
         try {
-            String resultMessage = createCompensateResultMessage(sagaId, success, reason);
-            String key = sagaId;
-            
-            kafkaTemplate.send(compensateResultTopic, key, resultMessage);
+            sagaMessageSender.send(compensateResultTopic,
+                SagaResultMessage.compensation(sagaId, success, reason, "COMPENSATE_INCREASE_MONEY"));
             
             log.info("Compensate increase money result published - sagaId: {}, success: {}, reason: {}", 
                 sagaId, success, reason);
@@ -216,25 +265,4 @@ public class MoneyIncreaseRequestConsumer {
             log.error("Failed to publish compensate increase money result for saga: {}", sagaId, e);
         }
     }
-
-    private String createResultMessage(String sagaId, boolean success, String reason) {
-        return String.format(
-            "{\"sagaId\":\"%s\",\"success\":%s,\"reason\":\"%s\",\"timestamp\":\"%s\"}",
-            sagaId,
-            success,
-            reason,
-            System.currentTimeMillis()
-        );
-    }
-
-    // 보상 결과 메시지 생성
-    private String createCompensateResultMessage(String sagaId, boolean success, String reason) {
-        return String.format(
-            "{\"sagaId\":\"%s\",\"success\":%s,\"reason\":\"%s\",\"type\":\"COMPENSATE_INCREASE_MONEY\",\"timestamp\":\"%s\"}",
-            sagaId,
-            success,
-            reason,
-            System.currentTimeMillis()
-        );
-    }
 }
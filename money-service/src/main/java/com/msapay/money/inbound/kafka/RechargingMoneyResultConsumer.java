@@ -1,11 +1,11 @@
 package com.msapay.money.inbound.kafka;
 
-import com.msapay.common.CountDownLatchManager;
+import com.msapay.common.AsyncResultRegistry;
 import com.msapay.common.LoggingProducer;
 import com.msapay.common.RechargingMoneyTask;
 import com.msapay.common.SubTask;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msapay.common.codec.JsonCodec;
 import com.msapay.money.domain.RegisteredBankAccountAggregateIdentifier;
 import com.msapay.money.service.port.BankingServicePort;
 import com.msapay.money.service.port.GetMembershipPort;
@@ -26,7 +26,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.CountDownLatch;
 
 @Slf4j
 @Component
@@ -35,9 +34,10 @@ public class RechargingMoneyResultConsumer {
     private final KafkaConsumer<String, String> consumer;
     private final LoggingProducer loggingProducer;
     @NotNull
-    private final CountDownLatchManager countDownLatchManager;
+    private final AsyncResultRegistry asyncResultRegistry;
     private final GetMembershipPort membershipPort;
     private final BankingServicePort bankingServicePort;
+    private final JsonCodec jsonCodec;
     
     private final KafkaProducer<String, String> resultProducer;
     private final String resultTopic;
@@ -49,9 +49,11 @@ public class RechargingMoneyResultConsumer {
                                          @Value("${task.topic}")String topic,
                                          @Value("${task.result.topic}")String resultTopic,
                                          LoggingProducer loggingProducer,
-                                         CountDownLatchManager countDownLatchManager, GetMembershipPort membershipPort, BankingServicePort bankingServicePort) {
+                                         AsyncResultRegistry asyncResultRegistry, GetMembershipPort membershipPort, BankingServicePort bankingServicePort,
+                                         JsonCodec jsonCodec) {
+        this.jsonCodec = jsonCodec;
         this.loggingProducer = loggingProducer;
-        this.countDownLatchManager = countDownLatchManager;
+        this.asyncResultRegistry = asyncResultRegistry;
         this.resultTopic = resultTopic; // msa.task.result.topic
         this.membershipPort = membershipPort;
         this.bankingServicePort = bankingServicePort;
@@ -84,7 +86,6 @@ public class RechargingMoneyResultConsumer {
     private void startConsumerThread() {
         consumerThread = new Thread(() -> {
             try {
-                ObjectMapper mapper = new ObjectMapper();
                 log.info("Starting Kafka consumer thread for task processing");
                 
                 while (running.get()) {
@@ -93,7 +94,7 @@ public class RechargingMoneyResultConsumer {
                         
                         for (ConsumerRecord<String, String> record : records) {
                             try {
-                                processRecord(record, mapper);
+                                processRecord(record);
                             } catch (Exception e) {
                                 log.error("Error processing record: {}", record.value(), e);
                             }
@@ -113,10 +114,10 @@ public class RechargingMoneyResultConsumer {
         consumerThread.start();
     }
     
-    private void processRecord(ConsumerRecord<String, String> record, ObjectMapper mapper) throws JsonProcessingException {
+    private void processRecord(ConsumerRecord<String, String> record) throws JsonProcessingException {
         log.info("Received task message: key={}, value={}", record.key(), record.value());
         
-        RechargingMoneyTask task = mapper.readValue(record.value(), RechargingMoneyTask.class);
+        RechargingMoneyTask task = jsonCodec.read(record.value(), RechargingMoneyTask.class);
         List<SubTask> subTaskList = task.getSubTaskList();
 
         // 실제 태스크 검증 수행
@@ -130,27 +131,18 @@ public class RechargingMoneyResultConsumer {
             if (taskResult) {
                 log.info("Task completed successfully: {}", task.getTaskID());
                 this.loggingProducer.sendMessage(task.getTaskID(), "task success");
-                this.countDownLatchManager.setDataForKey(task.getTaskID(), "success");
+                this.asyncResultRegistry.complete(task.getTaskID(), "success");
                 
                 // 결과를 msa.task.result.topic으로 전송
                 sendTaskResult(task.getTaskID(), Map.of("status", "success", "taskId", task.getTaskID()));
             } else {
                 log.warn("Task failed: {}", task.getTaskID());
                 this.loggingProducer.sendMessage(task.getTaskID(), "task failed");
-                this.countDownLatchManager.setDataForKey(task.getTaskID(), "failed");
+                this.asyncResultRegistry.complete(task.getTaskID(), "failed");
                 
                 // 실패 결과를 msa.task.result.topic으로 전송
                 sendTaskResult(task.getTaskID(), Map.of("status", "failed", "taskId", task.getTaskID()));
             }
-
-            // CountDownLatch가 존재하는지 확인 후 countDown 호출
-            CountDownLatch latch = this.countDownLatchManager.getCountDownLatch(task.getTaskID());
-            if (latch != null) {
-                latch.countDown();
-                log.debug("CountDownLatch countDown called for task: {}", task.getTaskID());
-            } else {
-                log.warn("CountDownLatch not found for task: {}, skipping countDown", task.getTaskID());
-            }
             
             // 메시지 처리 성공 후 수동 커밋
             consumer.commitSync();
@@ -248,8 +240,7 @@ public class RechargingMoneyResultConsumer {
     
     private void sendTaskResult(String taskId, Map<String, Object> result) {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            String jsonResult = mapper.writeValueAsString(result);
+            String jsonResult = jsonCodec.write(result);
             
             ProducerRecord<String, String> record = new ProducerRecord<>(resultTopic, taskId, jsonResult);
             resultProducer.send(record, (metadata, exception) -> {
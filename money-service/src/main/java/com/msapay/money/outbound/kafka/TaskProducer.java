@@ -3,7 +3,8 @@ package com.msapay.money.outbound.kafka;
 import com.msapay.common.RechargingMoneyTask;
 import com.msapay.money.service.port.SendRechargingMoneyTaskPort;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.msapay.common.codec.JsonCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
@@ -18,9 +19,12 @@ public class TaskProducer implements SendRechargingMoneyTaskPort {
 
     private final KafkaProducer<String, String> producer;
     private final String topic;
+    private final ObjectWriter taskWriter;
 
     public TaskProducer(@Value("${kafka.clusters.bootstrapservers}") String bootstrapServers,
-                        @Value("${task.topic}") String topic) {
+                        @Value("${task.topic}") String topic,
+                        JsonCodec jsonCodec) {
+        this.taskWriter = jsonCodec.writer(RechargingMoneyTask.class);
         Properties props = new Properties();
         props.put("bootstrap.servers", bootstrapServers);
         props.put("key.serializer", "org.apache.kafka.common.serialization.StringSerializer");
@@ -36,11 +40,10 @@ public class TaskProducer implements SendRechargingMoneyTaskPort {
     }
 
     public void sendMessage(String key, RechargingMoneyTask value) {
-        ObjectMapper mapper = new ObjectMapper();
         String jsonStringToProduce;
         // jsonString
         try {
-            jsonStringToProduce = mapper.writeValueAsString(value);
+            jsonStringToProduce = taskWriter.writeValueAsString(value);
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
@@ -1,9 +1,9 @@
 package com.msapay.money.outbound.service;
 
 import com.msapay.common.CommonHttpClient;
+import com.msapay.common.codec.JsonCodec;
 import com.msapay.money.service.port.BankingServicePort;
 import com.msapay.money.domain.RegisteredBankAccountAggregateIdentifier;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -15,11 +15,15 @@ public class BankingServiceAdapter implements BankingServicePort {
 
     private final CommonHttpClient commonHttpClient;
 
+    private final JsonCodec jsonCodec;
+
     private final String bankingServiceUrl;
 
     public BankingServiceAdapter(CommonHttpClient commonHttpClient,
+                                 JsonCodec jsonCodec,
                                  @Value("${service.banking.url}") String membershipServiceUrl) {
         this.commonHttpClient = commonHttpClient;
+        this.jsonCodec = jsonCodec;
         this.bankingServiceUrl = membershipServiceUrl;
     }
 
@@ -28,8 +32,7 @@ public class BankingServiceAdapter implements BankingServicePort {
         String url = String.join("/", bankingServiceUrl, "banking/account", membershipId);
         try {
             String jsonResponse = commonHttpClient.sendGetRequest(url).body();
-            ObjectMapper mapper = new ObjectMapper();
-            RegisteredBankAccount registeredBankAccount = mapper.readValue(jsonResponse, RegisteredBankAccount.class);
+            RegisteredBankAccount registeredBankAccount = jsonCodec.read(jsonResponse, RegisteredBankAccount.class);
 
             return new RegisteredBankAccountAggregateIdentifier(
                     registeredBankAccount.getRegisteredBankAccountId()
@@ -50,9 +53,8 @@ public class BankingServiceAdapter implements BankingServicePort {
             Map<String, String> requestBody = new HashMap<>();
             requestBody.put("bankName", bankName);
             requestBody.put("bankAccountNumber", bankAccountNumber);
-            ObjectMapper mapper = new ObjectMapper();
 
-            String body = mapper.writeValueAsString(requestBody);
+            String body = jsonCodec.write(requestBody);
 
             String jsonResponse = commonHttpClient.sendPostRequest(url, body).body();
 
@@ -7,10 +7,12 @@ import lombok.NoArgsConstructor;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
 @Entity
-@Table(name = "member_money")
+@Table(name = "member_money",
+        indexes = @Index(name = "ux_member_money_membership_id", columnList = "membershipId", unique = true))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
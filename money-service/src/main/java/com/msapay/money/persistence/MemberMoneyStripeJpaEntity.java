@@ -0,0 +1,39 @@
+package com.msapay.money.persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * 쓰기가 몰리는 회원(법인/가맹점 지갑)의 잔액 조각.
+ * 회원의 잔액은 member_money.balance 와 이 회원 조각들의 합이다.
+ */
+@Entity
+@Table(name = "member_money_stripe",
+        indexes = @Index(name = "ux_member_money_stripe_membership_stripe", columnList = "membershipId, stripe", unique = true))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MemberMoneyStripeJpaEntity {
+    @Id
+    @GeneratedValue
+    private Long memberMoneyStripeId;
+
+    private Long membershipId;
+
+    private int stripe;
+
+    private int balance;
+
+    public MemberMoneyStripeJpaEntity(Long membershipId, int stripe, int balance) {
+        this.membershipId = membershipId;
+        this.stripe = stripe;
+        this.balance = balance;
+    }
+}
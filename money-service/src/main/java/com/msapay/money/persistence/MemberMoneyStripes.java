@@ -0,0 +1,139 @@
+package com.msapay.money.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 쓰기가 몰리는 회원의 잔액을 N 개의 조각(member_money_stripe)으로 나눠 행 락 경합을 없앤다.
+ * 충전은 임의의 조각 하나에 더하고, 차감은 잔액이 충분한 조각 하나에서 빼며, 조회는 member_money 와 조각을 합한다.
+ * 어느 한 조각으로 모자란 차감만 모든 조각을 조각 번호 순서, 그다음 member_money 순서로 잠그고 나눠서 뺀다.
+ * 한 조각 차감은 임의의 조각부터 시도하므로, 읽은 뒤 다른 차감에 잔액을 뺏겨 실패한 조각의 락을 쥔 채 drain 에 들어가면
+ * 다른 drain 과 드물게 교착될 수 있다. 이때는 InnoDB 가 한쪽을 롤백시키고 그 요청은 실패로 처리된다.
+ * money.striping.membership-ids 에 지정한 회원에만 적용되며, 기존 잔액은 member_money 에 그대로 둔다.
+ */
+@Slf4j
+@Component
+public class MemberMoneyStripes {
+
+    private final SpringDataMemberMoneyStripeRepository stripeRepository;
+    private final SpringDataMemberMoneyRepository memberMoneyRepository;
+    private final Set<Long> stripedMembershipIds;
+    private final int stripes;
+
+    public MemberMoneyStripes(SpringDataMemberMoneyStripeRepository stripeRepository,
+                              SpringDataMemberMoneyRepository memberMoneyRepository,
+                              @Value("${money.striping.membership-ids:}") List<Long> stripedMembershipIds,
+                              @Value("${money.striping.stripes:8}") int stripes) {
+        this.stripeRepository = stripeRepository;
+        this.memberMoneyRepository = memberMoneyRepository;
+        this.stripedMembershipIds = Collections.unmodifiableSet(new HashSet<>(stripedMembershipIds));
+        this.stripes = stripes;
+    }
+
+    @PostConstruct
+    public void createStripes() {
+        for (Long membershipId : stripedMembershipIds) {
+            List<Integer> existing = stripeRepository.findStripes(membershipId);
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                if (existing.contains(stripe)) {
+                    continue;
+                }
+                try {
+                    stripeRepository.save(new MemberMoneyStripeJpaEntity(membershipId, stripe, 0));
+                } catch (DataIntegrityViolationException e) {
+                    // 다른 인스턴스가 먼저 만들었다
+                }
+            }
+        }
+        if (!stripedMembershipIds.isEmpty()) {
+            log.info("Member money striping enabled for {} members with {} stripes", stripedMembershipIds.size(), stripes);
+        }
+    }
+
+    public boolean isStriped(Long membershipId) {
+        return stripedMembershipIds.contains(membershipId);
+    }
+
+    /**
+     * 호출한 쪽의 트랜잭션 안에서 잔액을 더하거나 뺀다. 잔액이 모자라면 false.
+     */
+    public boolean addBalance(Long membershipId, int amount) {
+        if (amount >= 0) {
+            // 충전은 한 행만 잠그므로 임의의 조각에 더해 경합을 나눈다
+            int stripe = ThreadLocalRandom.current().nextInt(stripes);
+            if (stripeRepository.addBalance(membershipId, stripe, amount) > 0) {
+                return true;
+            }
+            // 조각이 아직 없다 (설정 변경 후 재시작 전). 기본 행에 더한다.
+            log.warn("No money stripe {} for membership: {}, crediting main balance", stripe, membershipId);
+            return memberMoneyRepository.addBalance(membershipId, amount) > 0;
+        }
+
+        // 잠그지 않고 읽은 조각 잔액으로 차감이 될 만한 조각만, 임의의 조각부터 돌아가며 시도한다.
+        // 모든 차감이 0 번 조각에 몰리지 않고, 잔액이 모자라 실패한 UPDATE 가 남기는 행 락도 경합으로 진 경우로 줄어든다.
+        Map<Integer, Integer> balances = new HashMap<>();
+        for (Object[] row : stripeRepository.findStripeBalances(membershipId)) {
+            balances.put(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+        }
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int stripe = (start + i) % stripes;
+            Integer balance = balances.get(stripe);
+            if (balance != null && balance + amount >= 0
+                    && stripeRepository.addBalance(membershipId, stripe, amount) > 0) {
+                return true;
+            }
+        }
+        if (memberMoneyRepository.addBalance(membershipId, amount) > 0) {
+            return true;
+        }
+        return drain(membershipId, -amount);
+    }
+
+    public long sumBalance(Long membershipId) {
+        return stripeRepository.sumBalance(membershipId);
+    }
+
+    public Map<Long, Long> sumBalances(List<Long> membershipIds) {
+        Map<Long, Long> sums = new HashMap<>();
+        for (Object[] row : stripeRepository.sumBalances(membershipIds)) {
+            sums.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        return sums;
+    }
+
+    // 모든 조각과 기본 행을 순서대로 잠근 뒤 합이 충분하면 조각부터 차례로 뺀다
+    private boolean drain(Long membershipId, int needed) {
+        List<Object[]> locked = stripeRepository.lockStripes(membershipId);
+        List<Number> main = memberMoneyRepository.lockBalance(membershipId);
+
+        long total = main.isEmpty() ? 0 : main.get(0).longValue();
+        for (Object[] row : locked) {
+            total += ((Number) row[1]).longValue();
+        }
+        if (total < needed) {
+            return false;
+        }
+
+        int remaining = needed;
+        for (Object[] row : locked) {
+            int take = Math.min(((Number) row[1]).intValue(), remaining);
+            if (take > 0) {
+                stripeRepository.addBalance(membershipId, ((Number) row[0]).intValue(), -take);
+                remaining -= take;
+            }
+        }
+        return remaining == 0 || memberMoneyRepository.addBalance(membershipId, -remaining) > 0;
+    }
+}
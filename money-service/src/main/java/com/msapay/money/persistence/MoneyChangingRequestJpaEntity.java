@@ -9,7 +9,8 @@ import java.sql.Timestamp;
 import java.util.Date;
 
 @Entity
-@Table(name = "money_changing_request")
+@Table(name = "money_changing_request",
+        indexes = @Index(name = "ix_money_changing_request_uuid", columnList = "uuid"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -4,25 +4,43 @@ import com.msapay.common.PersistenceAdapter;
 import com.msapay.money.service.port.CreateMemberMoneyPort;
 import com.msapay.money.service.port.GetMemberMoneyPort;
 import com.msapay.money.service.port.GetMemberMoneyListPort;
+import com.msapay.money.service.port.GetMoneyChangingRequestPort;
 import com.msapay.money.service.port.IncreaseMoneyPort;
 import com.msapay.money.service.port.UpdateMoneyChangingRequestStatusPort;
 import com.msapay.money.domain.MemberMoney;
 import com.msapay.money.controller.request.MoneyChangingRequest;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.Optional;
 
+@Slf4j
 @PersistenceAdapter
 @RequiredArgsConstructor
-public class MoneyChangingRequestPersistenceAdapter implements IncreaseMoneyPort, CreateMemberMoneyPort, GetMemberMoneyPort, GetMemberMoneyListPort, UpdateMoneyChangingRequestStatusPort {
+public class MoneyChangingRequestPersistenceAdapter implements IncreaseMoneyPort, CreateMemberMoneyPort, GetMemberMoneyPort, GetMemberMoneyListPort, UpdateMoneyChangingRequestStatusPort, GetMoneyChangingRequestPort {
 
     private final SpringDataMoneyChangingRequestRepository moneyChangingRequestRepository;
 
     private final SpringDataMemberMoneyRepository memberMoneyRepository;
+
+    private final MemberMoneyStripes memberMoneyStripes;
+
+    private final PlatformTransactionManager transactionManager;
+
     @Override
     public MoneyChangingRequestJpaEntity createMoneyChangingRequest(MoneyChangingRequest.TargetMembershipId targetMembershipId, MoneyChangingRequest.MoneyChangingType moneyChangingType, MoneyChangingRequest.ChangingMoneyAmount changingMoneyAmount, MoneyChangingRequest.MoneyChangingStatus moneyChangingStatus, MoneyChangingRequest.Uuid uuid) {
         return moneyChangingRequestRepository.save(
@@ -38,28 +56,89 @@ public class MoneyChangingRequestPersistenceAdapter implements IncreaseMoneyPort
     }
 
     @Override
+    @Transactional
     public MemberMoneyJpaEntity increaseMoney(MemberMoney.MembershipId memberId, int increaseMoneyAmount) {
-        MemberMoneyJpaEntity entity;
+        Long membershipId = Long.parseLong(memberId.getMembershipId());
+        List<MemberMoneyJpaEntity> entityList = memberMoneyRepository.findByMembershipId(membershipId);
+        if (entityList.isEmpty() && increaseMoneyAmount > 0) {
+            createMemberMoneyIfAbsent(membershipId);
+        }
+        if (!addBalance(membershipId, increaseMoneyAmount)) {
+            // 잔액 부족
+            return null;
+        }
+
+        // bulk UPDATE 는 영속성 컨텍스트를 거치지 않으므로 잔액은 다시 읽어 사본에 담는다
+        if (entityList.isEmpty()) {
+            entityList = memberMoneyRepository.findByMembershipId(membershipId);
+        }
+        List<Integer> balances = memberMoneyRepository.findBalance(membershipId);
+        long balance = balances.isEmpty() ? 0 : balances.get(0);
+        if (memberMoneyStripes.isStriped(membershipId)) {
+            balance += memberMoneyStripes.sumBalance(membershipId);
+        }
+        MemberMoneyJpaEntity entity = entityList.isEmpty() ? null : entityList.get(0);
+        return new MemberMoneyJpaEntity(entity == null ? null : entity.getMemberMoneyId(), membershipId, (int) balance,
+                entity == null ? "" : entity.getAggregateIdentifier());
+    }
+
+    @Override
+    @Transactional
+    public void increaseMoney(Map<String, Integer> amountsByMembershipId) {
+        // 동시에 도는 batch 끼리 교착되지 않도록 항상 membershipId 순서로 행 락을 잡는다
+        Map<Long, Integer> sorted = new TreeMap<>();
+        amountsByMembershipId.forEach((membershipId, amount) -> sorted.merge(Long.parseLong(membershipId), amount, Integer::sum));
+        Set<Long> existing = new HashSet<>();
+        for (MemberMoneyJpaEntity entity : memberMoneyRepository.fineMemberMoneyListByMembershipIds(new ArrayList<>(sorted.keySet()))) {
+            existing.add(entity.getMembershipId());
+        }
+        sorted.forEach((membershipId, amount) -> {
+            if (amount > 0 && !existing.contains(membershipId)) {
+                createMemberMoneyIfAbsent(membershipId);
+            }
+        });
+        sorted.forEach((membershipId, amount) -> {
+            if (amount != 0 && !addBalance(membershipId, amount)) {
+                throw new IllegalStateException("Insufficient balance for membership: " + membershipId);
+            }
+        });
+    }
+
+    // 잔액을 읽어서 다시 쓰지 않고 DB 에서 더하므로 동시 요청에도 증감이 유실되지 않는다
+    private boolean addBalance(Long membershipId, int amount) {
+        if (memberMoneyStripes.isStriped(membershipId)) {
+            return memberMoneyStripes.addBalance(membershipId, amount);
+        }
+        return memberMoneyRepository.addBalance(membershipId, amount) > 0;
+    }
+
+    /**
+     * 머니 행이 아직 없는 회원의 첫 충전 전에 잔액 0 인 행을 별도 트랜잭션으로 만든다.
+     * 같은 회원의 첫 충전이 동시에 와도 membership_id 유니크 키로 한 행만 남고, 중복 키로 진 쪽은 그 행에 원자적 UPDATE 를 이어간다.
+     * 호출한 트랜잭션 안에서 INSERT 하면 중복 키 예외가 트랜잭션 전체를 롤백시키고,
+     * 없는 키에 먼저 UPDATE 하면 그 트랜잭션이 잡은 갭 락에 이 INSERT 가 막히므로 UPDATE 전에 잠그지 않는 조회로 확인한 뒤 호출한다.
+     */
+    private void createMemberMoneyIfAbsent(Long membershipId) {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
         try {
-            List<MemberMoneyJpaEntity> entityList =  memberMoneyRepository.findByMembershipId(Long.parseLong(memberId.getMembershipId()));
-            entity = entityList.get(0);
-
-            entity.setBalance(entity.getBalance() + increaseMoneyAmount);
-            return  memberMoneyRepository.save(entity);
-        } catch (Exception e){
-            entity = new MemberMoneyJpaEntity(
-                    Long.parseLong(memberId.getMembershipId()),
-                    increaseMoneyAmount, ""
-            );
-            entity = memberMoneyRepository.save(entity);
-            return entity;
+            requiresNew.executeWithoutResult(status ->
+                    memberMoneyRepository.saveAndFlush(new MemberMoneyJpaEntity(membershipId, 0, "")));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Member money already created for membership: {}", membershipId);
         }
     }
 
     @Override
+    @Transactional
     public void createMemberMoney(MemberMoney.MembershipId memberId, MemberMoney.MoneyAggregateIdentifier aggregateIdentifier) {
+        Long membershipId = Long.parseLong(memberId.getMembershipId());
+        // 첫 충전으로 이미 만들어진 행이면 잔액은 두고 식별자만 채운다
+        if (memberMoneyRepository.updateAggregateIdentifier(membershipId, aggregateIdentifier.getAggregateIdentifier()) > 0) {
+            return;
+        }
         MemberMoneyJpaEntity entity = new MemberMoneyJpaEntity(
-                Long.parseLong(memberId.getMembershipId()),
+                membershipId,
                 0, aggregateIdentifier.getAggregateIdentifier()
         );
         memberMoneyRepository.save(entity);
@@ -68,22 +147,45 @@ public class MoneyChangingRequestPersistenceAdapter implements IncreaseMoneyPort
     @Override
     public MemberMoneyJpaEntity getMemberMoney(MemberMoney.MembershipId memberId) {
         MemberMoneyJpaEntity entity;
-        List<MemberMoneyJpaEntity> entityList =  memberMoneyRepository.findByMembershipId(Long.parseLong(memberId.getMembershipId()));
+        Long membershipId = Long.parseLong(memberId.getMembershipId());
+        List<MemberMoneyJpaEntity> entityList =  memberMoneyRepository.findByMembershipId(membershipId);
         if(entityList.size() == 0){
-            entity = new MemberMoneyJpaEntity(
-                    Long.parseLong(memberId.getMembershipId()),
-                    0, ""
-            );
-            entity = memberMoneyRepository.save(entity);
-            return entity;
-        }
-        return  entityList.get(0);
+            createMemberMoneyIfAbsent(membershipId);
+            entityList = memberMoneyRepository.findByMembershipId(membershipId);
+            if (entityList.isEmpty()) {
+                return new MemberMoneyJpaEntity(membershipId, 0, "");
+            }
+        }
+        entity = entityList.get(0);
+        if (memberMoneyStripes.isStriped(entity.getMembershipId())) {
+            return withBalance(entity, entity.getBalance() + memberMoneyStripes.sumBalance(entity.getMembershipId()));
+        }
+        return entity;
     }
 
     @Override
     public List<MemberMoneyJpaEntity> getMemberMoneyPort(List<String> membershipIds) {
         // membershipIds 를 기준으로, 여러개의 MemberMoneyJpaEntity 를 가져온다.
-        return memberMoneyRepository.fineMemberMoneyListByMembershipIds(convertMembershipIds(membershipIds));
+        List<Long> ids = convertMembershipIds(membershipIds);
+        List<MemberMoneyJpaEntity> entities = memberMoneyRepository.fineMemberMoneyListByMembershipIds(ids);
+
+        // 조각으로 나눈 회원은 조각 잔액을 한 번에 합산해 더한다
+        List<Long> striped = new ArrayList<>();
+        for (Long id : ids) {
+            if (memberMoneyStripes.isStriped(id)) {
+                striped.add(id);
+            }
+        }
+        if (striped.isEmpty()) {
+            return entities;
+        }
+        Map<Long, Long> sums = memberMoneyStripes.sumBalances(striped);
+        List<MemberMoneyJpaEntity> result = new ArrayList<>(entities.size());
+        for (MemberMoneyJpaEntity entity : entities) {
+            Long sum = sums.get(entity.getMembershipId());
+            result.add(sum == null ? entity : withBalance(entity, entity.getBalance() + sum));
+        }
+        return result;
     }
 
     @Override
@@ -103,6 +205,26 @@ public class MoneyChangingRequestPersistenceAdapter implements IncreaseMoneyPort
         }
     }
 
+    @Override
+    @Transactional
+    public int updateMoneyChangingRequestStatus(Collection<String> uuids, int status) {
+        if (uuids.isEmpty()) {
+            return 0;
+        }
+        return moneyChangingRequestRepository.updateStatusByUuids(uuids, status);
+    }
+
+    @Override
+    public Optional<MoneyChangingRequestJpaEntity> getMoneyChangingRequestByUuid(String uuid) {
+        return moneyChangingRequestRepository.findByUuid(uuid);
+    }
+
+    // 관리 중인 엔티티의 잔액을 바꾸면 조각 합계가 member_money 에 flush 되므로 사본에 담는다
+    private static MemberMoneyJpaEntity withBalance(MemberMoneyJpaEntity entity, long balance) {
+        return new MemberMoneyJpaEntity(entity.getMemberMoneyId(), entity.getMembershipId(), (int) balance,
+                entity.getAggregateIdentifier());
+    }
+
     private List<Long> convertMembershipIds(List<String> membershipIds) {
         List<Long> longList = new ArrayList<>();
         // membershipIds 를 Long 타입의 List 로 변환한다.
@@ -0,0 +1,27 @@
+package com.msapay.money.persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * money-domain-events 파티션별 재생 위치 (다음에 읽을 offset)
+ */
+@Entity
+@Table(name = "money_event_checkpoint")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MoneyEventCheckpointJpaEntity {
+    @Id
+    private int partitionNumber;
+
+    private long nextOffset;
+
+    private LocalDateTime updatedAt;
+}
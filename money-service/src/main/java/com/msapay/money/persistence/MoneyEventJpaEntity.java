@@ -0,0 +1,47 @@
+package com.msapay.money.persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 머니 도메인 이벤트 저장 테이블 (append-only)
+ * (aggregate_id, version) 유니크 인덱스로 어그리게이트별 이벤트 순서와 중복 저장을 막는다.
+ */
+@Entity
+@Table(name = "money_event",
+        indexes = @Index(name = "ux_money_event_aggregate_version", columnList = "aggregateId, version", unique = true))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MoneyEventJpaEntity {
+    @Id
+    @GeneratedValue
+    private Long eventSequence;
+
+    private String aggregateId;
+
+    private long version;
+
+    private String eventId;
+
+    private String eventType;
+
+    @Lob
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    private LocalDateTime timestamp;
+
+    public MoneyEventJpaEntity(String aggregateId, long version, String eventId, String eventType, String payload, LocalDateTime timestamp) {
+        this.aggregateId = aggregateId;
+        this.version = version;
+        this.eventId = eventId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,32 @@
+package com.msapay.money.persistence;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 머니 어그리게이트 스냅샷 테이블
+ * 어그리게이트당 최신 스냅샷 한 건만 유지한다.
+ */
+@Entity
+@Table(name = "money_snapshot")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MoneySnapshotJpaEntity {
+    @Id
+    private String aggregateId;
+
+    private String membershipId;
+
+    private int balance;
+
+    private long version;
+
+    private LocalDateTime createdAt;
+}
@@ -1,6 +1,7 @@
 package com.msapay.money.persistence;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -13,4 +14,22 @@ public interface SpringDataMemberMoneyRepository extends JpaRepository<MemberMon
 
     @Query("SELECT e  FROM MemberMoneyJpaEntity e WHERE e.membershipId in :membershipIds")
     List<MemberMoneyJpaEntity> fineMemberMoneyListByMembershipIds(@Param("membershipIds") List<Long> membershipIds);
+
+    // 잔액을 읽지 않고 DB 에서 더한다. 차감은 잔액이 음수가 되지 않을 때만 반영된다.
+    @Modifying
+    @Query("UPDATE MemberMoneyJpaEntity e SET e.balance = e.balance + :amount " +
+            "WHERE e.membershipId = :membershipId AND e.balance + :amount >= 0")
+    int addBalance(@Param("membershipId") Long membershipId, @Param("amount") int amount);
+
+    // 잔액은 건드리지 않고 애그리거트 식별자만 채운다
+    @Modifying
+    @Query("UPDATE MemberMoneyJpaEntity e SET e.aggregateIdentifier = :aggregateIdentifier WHERE e.membershipId = :membershipId")
+    int updateAggregateIdentifier(@Param("membershipId") Long membershipId, @Param("aggregateIdentifier") String aggregateIdentifier);
+
+    // 영속성 컨텍스트를 거치지 않고 현재 잔액을 읽는다
+    @Query("SELECT e.balance FROM MemberMoneyJpaEntity e WHERE e.membershipId = :membershipId")
+    List<Integer> findBalance(@Param("membershipId") Long membershipId);
+
+    @Query(value = "SELECT balance FROM member_money WHERE membership_id = :membershipId FOR UPDATE", nativeQuery = true)
+    List<Number> lockBalance(@Param("membershipId") Long membershipId);
 }
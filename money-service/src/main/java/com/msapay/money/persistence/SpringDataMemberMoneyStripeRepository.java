@@ -0,0 +1,35 @@
+package com.msapay.money.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface SpringDataMemberMoneyStripeRepository extends JpaRepository<MemberMoneyStripeJpaEntity, Long> {
+
+    @Query("SELECT e.stripe FROM MemberMoneyStripeJpaEntity e WHERE e.membershipId = :membershipId")
+    List<Integer> findStripes(@Param("membershipId") Long membershipId);
+
+    // 차감은 조각 잔액이 음수가 되지 않을 때만 반영된다
+    @Modifying
+    @Query("UPDATE MemberMoneyStripeJpaEntity e SET e.balance = e.balance + :amount " +
+            "WHERE e.membershipId = :membershipId AND e.stripe = :stripe AND e.balance + :amount >= 0")
+    int addBalance(@Param("membershipId") Long membershipId, @Param("stripe") int stripe, @Param("amount") int amount);
+
+    @Query("SELECT e.stripe, e.balance FROM MemberMoneyStripeJpaEntity e WHERE e.membershipId = :membershipId")
+    List<Object[]> findStripeBalances(@Param("membershipId") Long membershipId);
+
+    @Query("SELECT COALESCE(SUM(e.balance), 0) FROM MemberMoneyStripeJpaEntity e WHERE e.membershipId = :membershipId")
+    long sumBalance(@Param("membershipId") Long membershipId);
+
+    @Query("SELECT e.membershipId, SUM(e.balance) FROM MemberMoneyStripeJpaEntity e " +
+            "WHERE e.membershipId IN :membershipIds GROUP BY e.membershipId")
+    List<Object[]> sumBalances(@Param("membershipIds") List<Long> membershipIds);
+
+    // 여러 조각에 걸친 차감 전에 조각을 stripe 순서로 잠근다
+    @Query(value = "SELECT stripe, balance FROM member_money_stripe WHERE membership_id = :membershipId " +
+            "ORDER BY stripe FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockStripes(@Param("membershipId") Long membershipId);
+}
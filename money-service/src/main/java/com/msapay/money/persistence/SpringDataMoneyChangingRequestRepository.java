@@ -1,7 +1,11 @@
 package com.msapay.money.persistence;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Optional;
 
 public interface SpringDataMoneyChangingRequestRepository extends JpaRepository<MoneyChangingRequestJpaEntity, Long> {
@@ -13,4 +17,13 @@ public interface SpringDataMoneyChangingRequestRepository extends JpaRepository<
      * @return Optional<MoneyChangingRequestJpaEntity>
      */
     Optional<MoneyChangingRequestJpaEntity> findByUuid(String uuid);
+
+    /**
+     * 여러 MoneyChangingRequest의 상태를 한 번에 업데이트합니다.
+     *
+     * @return 업데이트된 행 수
+     */
+    @Modifying
+    @Query("UPDATE MoneyChangingRequestJpaEntity e SET e.changingMoneyStatus = :status WHERE e.uuid IN :uuids")
+    int updateStatusByUuids(@Param("uuids") Collection<String> uuids, @Param("status") int status);
 }
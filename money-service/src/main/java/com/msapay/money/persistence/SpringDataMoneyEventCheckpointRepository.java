@@ -0,0 +1,6 @@
+package com.msapay.money.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SpringDataMoneyEventCheckpointRepository extends JpaRepository<MoneyEventCheckpointJpaEntity, Integer> {
+}
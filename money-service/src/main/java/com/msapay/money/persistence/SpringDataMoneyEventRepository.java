@@ -0,0 +1,21 @@
+package com.msapay.money.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface SpringDataMoneyEventRepository extends JpaRepository<MoneyEventJpaEntity, Long> {
+
+    @Query("SELECT e FROM MoneyEventJpaEntity e WHERE e.aggregateId = :aggregateId AND e.version > :version ORDER BY e.version ASC")
+    List<MoneyEventJpaEntity> findEventsAfterVersion(@Param("aggregateId") String aggregateId, @Param("version") long version);
+
+    @Query("SELECT COALESCE(MAX(e.version), 0) FROM MoneyEventJpaEntity e WHERE e.aggregateId = :aggregateId")
+    long findLastVersion(@Param("aggregateId") String aggregateId);
+
+    boolean existsByAggregateId(String aggregateId);
+
+    @Query("SELECT DISTINCT e.aggregateId FROM MoneyEventJpaEntity e")
+    List<String> findAllAggregateIds();
+}
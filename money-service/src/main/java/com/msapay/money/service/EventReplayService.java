@@ -3,6 +3,7 @@ package com.msapay.money.service;
 import com.msapay.common.outbox.OutboxEvent;
 import com.msapay.common.outbox.OutboxRepository;
 import com.msapay.money.domain.MoneyAggregate;
+import com.msapay.money.domain.eventstore.SnapshotStore;
 import com.msapay.money.domain.repository.MoneyAggregateRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +22,7 @@ public class EventReplayService {
     
     private final OutboxRepository outboxRepository;
     private final MoneyAggregateRepository moneyAggregateRepository;
+    private final SnapshotStore snapshotStore;
     private final ApplicationEventPublisher eventPublisher;
     
     // 5분마다 실행되는 스케줄된 이벤트 발행
@@ -118,20 +120,24 @@ public class EventReplayService {
         });
     }
     
-    // 특정 버전까지의 스냅샷 생성 (outbox 테이블 기반)
+    // 현재 상태의 스냅샷 생성 (money_snapshot 테이블)
     public CompletableFuture<MoneyAggregate> createSnapshot(String aggregateId, long version) {
         log.info("Creating snapshot for aggregate: {} at version: {}", aggregateId, version);
         
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // outbox 테이블에서 특정 버전까지의 이벤트들로 스냅샷 생성
-                // 실제 구현에서는 OutboxRepository와 MoneyAggregateRepository 활용
-                log.info("Snapshot created for aggregate: {} at version: {}", aggregateId, version);
-                return null; // 임시 반환값
-            } catch (Exception e) {
-                log.error("Failed to create snapshot for aggregate: {} at version: {}", aggregateId, version, e);
-                throw new RuntimeException("Snapshot creation failed", e);
-            }
-        });
+        return moneyAggregateRepository.findById(aggregateId)
+            .thenCompose(aggregate -> {
+                if (aggregate == null) {
+                    log.warn("Aggregate not found for snapshot: {}", aggregateId);
+                    return CompletableFuture.completedFuture(null);
+                }
+                if (aggregate.getCurrentVersion() < version) {
+                    log.warn("Aggregate {} is at version {}, requested snapshot version: {}", aggregateId, aggregate.getCurrentVersion(), version);
+                }
+                return snapshotStore.saveSnapshot(aggregate.toSnapshot())
+                    .thenApply(ignored -> {
+                        log.info("Snapshot created for aggregate: {} at version: {}", aggregateId, aggregate.getCurrentVersion());
+                        return aggregate;
+                    });
+            });
     }
 }
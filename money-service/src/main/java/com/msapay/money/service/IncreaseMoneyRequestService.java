@@ -1,6 +1,6 @@
 package com.msapay.money.service;
 
-import com.msapay.common.CountDownLatchManager;
+import com.msapay.common.AsyncResultRegistry;
 import com.msapay.common.RechargingMoneyTask;
 import com.msapay.common.SubTask;
 import com.msapay.common.UseCase;
@@ -15,28 +15,42 @@ import com.msapay.money.controller.command.CreateMemberMoneyCommand;
 import com.msapay.money.controller.command.FindMemberMoneyListByMembershipIdsCommand;
 import com.msapay.money.controller.command.IncreaseMoneyRequestCommand;
 import com.msapay.money.service.usecase.CreateMemberMoneyUseCase;
+import com.msapay.money.service.usecase.GetMoneyChangingRequestUseCase;
 import com.msapay.money.service.usecase.IncreaseMoneyRequestUseCase;
+import com.msapay.money.service.usecase.UpdateMoneyChangingRequestStatusUseCase;
 import com.msapay.money.domain.repository.MoneyAggregateRepository;
 import com.msapay.money.domain.MoneyAggregate;
+import com.msapay.money.domain.eventstore.ConcurrencyConflictException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import com.msapay.money.service.port.UpdateMoneyChangingRequestStatusPort;
 
+import javax.annotation.PreDestroy;
 import javax.transaction.Transactional;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 @Slf4j
 @UseCase
 @RequiredArgsConstructor
 @Transactional
-public class IncreaseMoneyRequestService implements IncreaseMoneyRequestUseCase, CreateMemberMoneyUseCase {
+public class IncreaseMoneyRequestService implements IncreaseMoneyRequestUseCase, CreateMemberMoneyUseCase, GetMoneyChangingRequestUseCase,
+        UpdateMoneyChangingRequestStatusUseCase {
 
-    private final CountDownLatchManager countDownLatchManager;
+    // 어그리게이트 버전 충돌 시 재시도 횟수
+    private static final int MAX_CONFLICT_RETRIES = 3;
+
+    // long-poll 조회용 상태 변경 알림 키. 서브태스크 결과 키(taskId)와 구분한다.
+    private static final String STATUS_KEY_PREFIX = "money-changing-status:";
+
+    private final AsyncResultRegistry asyncResultRegistry;
     private final SendRechargingMoneyTaskPort sendRechargingMoneyTaskPort;
     private final GetMembershipPort membershipPort;
     private final BankingServicePort bankingServicePort;
@@ -47,6 +61,14 @@ public class IncreaseMoneyRequestService implements IncreaseMoneyRequestUseCase,
     private final GetMemberMoneyListPort getMemberMoneyListPort;
     private final MoneyAggregateRepository moneyAggregateRepository;
     private final UpdateMoneyChangingRequestStatusPort updateMoneyChangingRequestStatusPort;
+    private final GetMoneyChangingRequestPort getMoneyChangingRequestPort;
+
+    // long-poll 이 깨어난 뒤 상태를 다시 읽는 JDBC 조회는 알림/timeout 스레드가 아니라 여기서 실행한다
+    private final ExecutorService statusPollExecutor = Executors.newFixedThreadPool(4, r -> {
+        Thread thread = new Thread(r, "money-status-poll");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @Override
     public MoneyChangingRequest increaseMoneyRequest(IncreaseMoneyRequestCommand command) {
@@ -73,15 +95,12 @@ public class IncreaseMoneyRequestService implements IncreaseMoneyRequestUseCase,
             }
 
             // 4. 머니 어그리게이트 생성 또는 조회
-            String aggregateId = "money-" + command.getTargetMembershipId();
-            MoneyAggregate aggregate = getOrCreateMoneyAggregate(aggregateId, command.getTargetMembershipId());
-
             // 5. 머니 증가 요청 이벤트 발생
-            String taskId = "sync-" + UUID.randomUUID();
-            aggregate.requestMoneyIncrease(command.getAmount(), taskId);
-
             // 6. 어그리게이트 저장 (이벤트 저장)
-            moneyAggregateRepository.save(aggregate).join();
+            String aggregateId = "money-" + command.getTargetMembershipId();
+            String taskId = "sync-" + UUID.randomUUID();
+            applyAndSave(aggregateId, command.getTargetMembershipId(),
+                    aggregate -> aggregate.requestMoneyIncrease(command.getAmount(), taskId));
 
             // 7. 증액을 위한 "기록". 요청 상태로 MoneyChangingRequest 를 생성한다. (MoneyChangingRequest)
             MoneyChangingRequest pendingRequest = createMoneyChangingRequest(command, taskId, 0); // 0: 대기 중
@@ -103,8 +122,8 @@ public class IncreaseMoneyRequestService implements IncreaseMoneyRequestUseCase,
                 // 결과가 정상적이라면. 성공으로 MoneyChangingRequest 상태값을 변동 후에 리턴
                 // 성공 시에 멤버의 MemberMoney 값 증액이 필요해요
 
-                aggregate.completeMoneyIncrease(command.getAmount(), taskId);
-                moneyAggregateRepository.save(aggregate).join();
+                applyAndSave(aggregateId, command.getTargetMembershipId(),
+                        aggregate -> aggregate.completeMoneyIncrease(command.getAmount(), taskId));
 
                 // MoneyChangingRequest 생성 및 반환
                 return createMoneyChangingRequest(command, taskId, 1); // 1: 성공
@@ -112,8 +131,8 @@ public class IncreaseMoneyRequestService implements IncreaseMoneyRequestUseCase,
 
             // 머니 증가 실패 이벤트 발생
             // 결과가 실패라면, 실패라고 MoneyChangingRequest 상태값을 변동 후에 리턴
-            aggregate.failMoneyIncrease(command.getAmount(), taskId, "Money increase operation failed");
-            moneyAggregateRepository.save(aggregate).join();
+            applyAndSave(aggregateId, command.getTargetMembershipId(),
+                    aggregate -> aggregate.failMoneyIncrease(command.getAmount(), taskId, "Money increase operation failed"));
 
             return createMoneyChangingRequest(command, taskId, 2); // 2: 실패
 
@@ -130,32 +149,30 @@ public class IncreaseMoneyRequestService implements IncreaseMoneyRequestUseCase,
                 command.getTargetMembershipId(), command.getAmount());
             
             // 1. 머니 어그리게이트 생성 또는 조회
-            String aggregateId = "money-" + command.getTargetMembershipId();
-            MoneyAggregate aggregate = getOrCreateMoneyAggregate(aggregateId, command.getTargetMembershipId());
-            log.info("Money aggregate ready: {}", aggregateId);
-
             // 2. 머니 증가 요청 이벤트 발생
-            String taskId = "async-" + UUID.randomUUID();
-            aggregate.requestMoneyIncrease(command.getAmount(), taskId);
-            log.info("Money increase event created for task: {}", taskId);
-
             // 3. 어그리게이트 저장 (이벤트 저장)
-            moneyAggregateRepository.save(aggregate).join();
+            String aggregateId = "money-" + command.getTargetMembershipId();
+            String taskId = "async-" + UUID.randomUUID();
+            MoneyAggregate aggregate = applyAndSave(aggregateId, command.getTargetMembershipId(),
+                    moneyAggregate -> moneyAggregate.requestMoneyIncrease(command.getAmount(), taskId));
             log.info("Aggregate saved with events for task: {}", taskId);
 
             // 4. 태스크 생성 및 Kafka 전송
             RechargingMoneyTask task = createTask(command, taskId);
             log.info("Task created: {} with {} subTasks", taskId, task.getSubTaskList().size());
             
-            sendRechargingMoneyTaskPort.sendRechargingMoneyTaskPort(task);
-            log.info("Task sent to Kafka topic for task: {}", taskId);
-
-            // 5. 즉시 응답 - 대기 중인 상태
+            // 5. 대기 중 요청을 먼저 기록해 전송 직후부터 taskId 로 상태를 조회할 수 있게 한다
             MoneyChangingRequest pendingRequest = createMoneyChangingRequest(command, taskId, 0); // 0: 대기 중
             log.info("Created pending request for task: {} with status: PENDING", taskId);
 
+            // 결과가 전송 직후 도착해도 놓치지 않도록 전송 전에 등록
+            CompletableFuture<String> taskResult = asyncResultRegistry.register(taskId);
+
+            sendRechargingMoneyTaskPort.sendRechargingMoneyTaskPort(task);
+            log.info("Task sent to Kafka topic for task: {}", taskId);
+
             // 6. 비동기로 결과 처리 시작
-            processTaskResultAsync(aggregate, task, command);
+            processTaskResultAsync(aggregate, task, command, taskResult);
             log.info("Async result processing started for task: {}", taskId);
 
             return pendingRequest;
@@ -177,6 +194,26 @@ public class IncreaseMoneyRequestService implements IncreaseMoneyRequestUseCase,
                 .join();
     }
 
+    /**
+     * 어그리게이트를 읽어 변경을 적용하고 저장한다.
+     * 버전 충돌이 나면 최신 상태를 다시 읽어 최대 MAX_CONFLICT_RETRIES 번까지 재시도한다.
+     */
+    private MoneyAggregate applyAndSave(String aggregateId, String membershipId, Consumer<MoneyAggregate> change) {
+        for (int attempt = 1; ; attempt++) {
+            MoneyAggregate aggregate = getOrCreateMoneyAggregate(aggregateId, membershipId);
+            change.accept(aggregate);
+            try {
+                moneyAggregateRepository.save(aggregate).join();
+                return aggregate;
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof ConcurrencyConflictException) || attempt >= MAX_CONFLICT_RETRIES) {
+                    throw e;
+                }
+                log.warn("Version conflict on aggregate: {}, reloading and retrying ({}/{})", aggregateId, attempt, MAX_CONFLICT_RETRIES);
+            }
+        }
+    }
+
     private MoneyChangingRequest createMoneyChangingRequest(IncreaseMoneyRequestCommand command, String taskId, int status) {
         log.info("Successfully created MoneyChangingRequest for task: {} to status: {}", taskId, status);
         return mapper.mapToDomainEntity(increaseMoneyPort.createMoneyChangingRequest(
@@ -219,85 +256,27 @@ public class IncreaseMoneyRequestService implements IncreaseMoneyRequestUseCase,
                 .build();
     }
 
-    private void processTaskResultAsync(MoneyAggregate aggregate, RechargingMoneyTask task, IncreaseMoneyRequestCommand command) {
-        CompletableFuture.runAsync(() -> {
-            String taskId = task.getTaskID();
+    private void processTaskResultAsync(MoneyAggregate aggregate, RechargingMoneyTask task, IncreaseMoneyRequestCommand command, CompletableFuture<String> taskResult) {
+        String taskId = task.getTaskID();
+        log.info("Task details - Membership: {}, Amount: {}, SubTasks: {}",
+            task.getMembershipID(), task.getMoneyAmount(), task.getSubTaskList().size());
+
+        // 결과(또는 타임아웃)가 도착하면 콜백으로 처리. 대기 중에는 스레드를 점유하지 않는다.
+        taskResult.whenCompleteAsync((result, throwable) -> {
             try {
-                log.info("Starting async task result processing for task: {}", taskId);
-                log.info("Task details - Membership: {}, Amount: {}, SubTasks: {}", 
-                    task.getMembershipID(), task.getMoneyAmount(), task.getSubTaskList().size());
-
-                // CountDownLatch 등록 (이미 존재하는 경우 덮어쓰기)
-                if (countDownLatchManager.hasKey(taskId)) {
-                    log.warn("CountDownLatch already exists for task: {}, removing old one", taskId);
-                    countDownLatchManager.removeData(taskId);
+                if (throwable != null) {
+                    throw throwable instanceof Exception ? (Exception) throwable : new RuntimeException(throwable);
                 }
-                countDownLatchManager.addCountDownLatch(taskId);
-                log.info("CountDownLatch registered for task: {}", taskId);
-
-                // 태스크 결과 대기
-                log.info("Waiting for task result for task: {} (timeout: 30s)", taskId);
-                String result = waitForTaskResult(taskId);
                 log.info("Task result received for task: {} - {}", taskId, result);
-
-                // 결과 처리
-                log.info("Processing task result for task: {}", taskId);
                 processTaskResult(result, aggregate, task, command);
-
-                // 완료 후 정리
-                countDownLatchManager.removeData(taskId);
                 log.info("Async task result processing completed for task: {}", taskId);
-
             } catch (Exception e) {
                 log.error("Failed to process async task result for task: {}", taskId, e);
                 handleTaskProcessingError(aggregate, task, command, e);
-                
-                // 에러 발생 시에도 정리
-                countDownLatchManager.removeData(taskId);
-                log.info("Cleaned up resources for failed task: {}", taskId);
             }
         });
     }
 
-    private String waitForTaskResult(String taskId) {
-        try {
-            // CountDownLatch가 준비될 때까지 잠시 대기 (최대 5초)
-            int maxWaitForLatch = 50; // 5초
-            CountDownLatch latch = null;
-            
-            for (int i = 0; i < maxWaitForLatch; i++) {
-                latch = countDownLatchManager.getCountDownLatch(taskId);
-                if (latch != null) {
-                    break;
-                }
-                Thread.sleep(100); // 100ms 대기
-            }
-            
-            if (latch == null) {
-                log.error("CountDownLatch not found for task: {} after waiting 5 seconds", taskId);
-                throw new RuntimeException("CountDownLatch not found for task: " + taskId);
-            }
-            
-            // 60초 타임아웃 설정 (30초에서 증가)
-            boolean completed = latch.await(60, TimeUnit.SECONDS);
-            if (!completed) {
-                log.error("Task result waiting timed out for task: {} after 60 seconds", taskId);
-                throw new RuntimeException("Task result waiting timed out for task: " + taskId);
-            }
-            
-            String result = countDownLatchManager.getDataForKey(taskId);
-            if (result == null) {
-                log.error("Task result data not found for task: {}", taskId);
-                throw new RuntimeException("Task result data not found for task: " + taskId);
-            }
-            
-            return result;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Task result waiting interrupted for task: " + taskId, e);
-        }
-    }
-
     private void processTaskResult(String result, MoneyAggregate aggregate, RechargingMoneyTask task, IncreaseMoneyRequestCommand command) {
         if (result.equals("success")) {
             // 서브태스크 성공 시 - Saga가 시작되어 실행 중
@@ -313,8 +292,8 @@ public class IncreaseMoneyRequestService implements IncreaseMoneyRequestUseCase,
             log.warn("Sub-tasks failed for task: {}, result: {}", task.getTaskID(), result);
 
             // 머니 증가 실패 이벤트 발생
-            aggregate.failMoneyIncrease(command.getAmount(), task.getTaskID(), "Sub-tasks failed: " + result);
-            moneyAggregateRepository.save(aggregate).join();
+            applyAndSave(aggregate.getAggregateId(), command.getTargetMembershipId(),
+                    moneyAggregate -> moneyAggregate.failMoneyIncrease(command.getAmount(), task.getTaskID(), "Sub-tasks failed: " + result));
 
             updateMoneyChangingRequestStatus(task.getTaskID(), 2); // 2: 실패
         }
@@ -324,18 +303,21 @@ public class IncreaseMoneyRequestService implements IncreaseMoneyRequestUseCase,
         log.error("Task processing error for task: {}", task.getTaskID(), e);
 
         // 머니 증가 실패 이벤트 발생
-        aggregate.failMoneyIncrease(command.getAmount(), task.getTaskID(), "Task processing error: " + e.getMessage());
-        moneyAggregateRepository.save(aggregate).join();
+        applyAndSave(aggregate.getAggregateId(), command.getTargetMembershipId(),
+                moneyAggregate -> moneyAggregate.failMoneyIncrease(command.getAmount(), task.getTaskID(), "Task processing error: " + e.getMessage()));
 
         updateMoneyChangingRequestStatus(task.getTaskID(), 2); // 2: 실패
     }
 
-    private void updateMoneyChangingRequestStatus(String taskId, int status) {
+    @Override
+    public void updateMoneyChangingRequestStatus(String taskId, int status) {
         try {
             // MoneyChangingRequest 상태 업데이트 로직 구현
             boolean updateResult = updateMoneyChangingRequestStatusPort.updateMoneyChangingRequestStatus(taskId, status);
             if (updateResult) {
                 log.info("Successfully updated MoneyChangingRequest status for task: {} to status: {}", taskId, status);
+                // 이 노드에서 long-poll 중인 조회를 깨운다
+                asyncResultRegistry.completeIfPresent(STATUS_KEY_PREFIX + taskId, String.valueOf(status));
             } else {
                 log.warn("Failed to update MoneyChangingRequest status for task: {} to status: {}", taskId, status);
             }
@@ -344,6 +326,51 @@ public class IncreaseMoneyRequestService implements IncreaseMoneyRequestUseCase,
         }
     }
 
+    /**
+     * 여러 요청의 상태를 한 번의 UPDATE 로 바꾸고, 이 노드에서 long-poll 중인 조회를 모두 깨운다.
+     */
+    @Override
+    public void updateMoneyChangingRequestStatus(List<String> taskIds, int status) {
+        try {
+            int updated = updateMoneyChangingRequestStatusPort.updateMoneyChangingRequestStatus(taskIds, status);
+            log.info("Updated MoneyChangingRequest status of {}/{} tasks to status: {}", updated, taskIds.size(), status);
+            for (String taskId : taskIds) {
+                asyncResultRegistry.completeIfPresent(STATUS_KEY_PREFIX + taskId, String.valueOf(status));
+            }
+        } catch (Exception e) {
+            log.error("Failed to update MoneyChangingRequest status for tasks: {}", taskIds, e);
+        }
+    }
+
+    @Override
+    public MoneyChangingRequest getMoneyChangingRequest(String taskId) {
+        return getMoneyChangingRequestPort.getMoneyChangingRequestByUuid(taskId)
+                .map(mapper::mapToDomainEntity)
+                .orElse(null);
+    }
+
+    @Override
+    public CompletableFuture<MoneyChangingRequest> waitForMoneyChangingRequest(String taskId, Duration timeout) {
+        // 상태 변경 알림을 먼저 등록한 뒤 현재 상태를 확인해, 그 사이의 변경을 놓치지 않는다
+        String statusKey = STATUS_KEY_PREFIX + taskId;
+        CompletableFuture<String> statusChanged = asyncResultRegistry.register(statusKey, timeout);
+
+        MoneyChangingRequest current = getMoneyChangingRequest(taskId);
+        if (current == null || current.getChangingMoneyStatus() != 0) {
+            // 같은 키로 대기 중인 다른 조회도 함께 깨운다
+            asyncResultRegistry.completeIfPresent(statusKey, current == null ? "" : String.valueOf(current.getChangingMoneyStatus()));
+            return CompletableFuture.completedFuture(current);
+        }
+
+        // 변경 알림이 다른 노드에서 일어났거나 timeout 이 지나면 그 시점의 상태를 다시 읽어 돌려준다
+        return statusChanged.handleAsync((status, throwable) -> getMoneyChangingRequest(taskId), statusPollExecutor);
+    }
+
+    @PreDestroy
+    public void shutdownStatusPollExecutor() {
+        statusPollExecutor.shutdown();
+    }
+
     @Override
     public void createMemberMoney(CreateMemberMoneyCommand command) {
         try {
@@ -0,0 +1,9 @@
+package com.msapay.money.service.port;
+
+import com.msapay.money.persistence.MoneyChangingRequestJpaEntity;
+
+import java.util.Optional;
+
+public interface GetMoneyChangingRequestPort {
+    Optional<MoneyChangingRequestJpaEntity> getMoneyChangingRequestByUuid(String uuid);
+}
@@ -5,6 +5,8 @@ import com.msapay.money.persistence.MoneyChangingRequestJpaEntity;
 import com.msapay.money.domain.MemberMoney;
 import com.msapay.money.controller.request.MoneyChangingRequest;
 
+import java.util.Map;
+
 public interface IncreaseMoneyPort {
 
     MoneyChangingRequestJpaEntity createMoneyChangingRequest(
@@ -19,4 +21,9 @@ public interface IncreaseMoneyPort {
             MemberMoney.MembershipId memberId,
             int increaseMoneyAmount
     );
+
+    /**
+     * 회원별로 합산한 증감액을 한 트랜잭션에서 회원당 UPDATE 한 번으로 반영한다.
+     */
+    void increaseMoney(Map<String, Integer> amountsByMembershipId);
 }
@@ -1,5 +1,7 @@
 package com.msapay.money.service.port;
 
+import java.util.Collection;
+
 public interface UpdateMoneyChangingRequestStatusPort {
     
     /**
@@ -10,4 +12,13 @@ public interface UpdateMoneyChangingRequestStatusPort {
      * @return 업데이트 성공 여부
      */
     boolean updateMoneyChangingRequestStatus(String uuid, int status);
+
+    /**
+     * 여러 MoneyChangingRequest의 상태를 한 번에 업데이트합니다.
+     *
+     * @param uuids MoneyChangingRequest의 UUID 목록
+     * @param status 새로운 상태 (0: 요청, 1: 성공, 2: 실패)
+     * @return 업데이트된 요청 수
+     */
+    int updateMoneyChangingRequestStatus(Collection<String> uuids, int status);
 }
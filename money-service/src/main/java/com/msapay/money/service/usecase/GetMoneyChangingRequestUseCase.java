@@ -0,0 +1,13 @@
+package com.msapay.money.service.usecase;
+
+import com.msapay.money.controller.request.MoneyChangingRequest;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+public interface GetMoneyChangingRequestUseCase {
+    MoneyChangingRequest getMoneyChangingRequest(String taskId);
+
+    // 요청 상태가 바뀌거나 timeout 이 지나면 그 시점의 MoneyChangingRequest 로 완료된다
+    CompletableFuture<MoneyChangingRequest> waitForMoneyChangingRequest(String taskId, Duration timeout);
+}
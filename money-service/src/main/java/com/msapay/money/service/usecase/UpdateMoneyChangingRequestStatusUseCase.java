@@ -0,0 +1,11 @@
+package com.msapay.money.service.usecase;
+
+import java.util.List;
+
+public interface UpdateMoneyChangingRequestStatusUseCase {
+    // 요청 상태를 바꾸고, 이 노드에서 long-poll 중인 상태 조회를 깨운다
+    void updateMoneyChangingRequestStatus(String taskId, int status);
+
+    // 여러 요청의 상태를 한 번의 UPDATE 로 바꾼다
+    void updateMoneyChangingRequestStatus(List<String> taskIds, int status);
+}
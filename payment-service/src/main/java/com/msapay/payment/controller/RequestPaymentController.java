@@ -1,19 +1,32 @@
 package com.msapay.payment.controller;
 
+import com.msapay.payment.controller.command.FinishSettlementBatchCommand;
 import com.msapay.payment.controller.command.FinishSettlementCommand;
+import com.msapay.payment.controller.command.GetNormalStatusPaymentsCommand;
 import com.msapay.payment.controller.command.RequestPaymentCommand;
+import com.msapay.payment.controller.request.FinishSettlementBatchRequest;
+import com.msapay.payment.controller.request.FinishSettlementBatchResponse;
 import com.msapay.payment.controller.request.FinishSettlementRequest;
 import com.msapay.payment.controller.request.PaymentRequest;
 import com.msapay.payment.service.usecase.RequestPaymentUseCase;
 import com.msapay.payment.domain.Payment;
 import com.msapay.common.WebAdapter;
+import com.msapay.common.codec.JsonCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Date;
 import java.util.List;
 
 @Slf4j
@@ -22,6 +35,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class RequestPaymentController {
     private final RequestPaymentUseCase requestPaymentUseCase;
+    private final JsonCodec jsonCodec;
+
+    @Value("${payment.normal-status.max-limit:5000}")
+    private int maxLimit;
+
     @PostMapping(path = "/payment/request")
     Payment requestPayment(PaymentRequest request) {
         return requestPaymentUseCase.requestPayment(
@@ -33,9 +51,41 @@ public class RequestPaymentController {
                 )
         );
     }
+    // limit 을 주면 after 다음부터 paymentId 순서로 limit 건(최대 max-limit)만 돌려준다.
+    // 다음 page 는 마지막 paymentId 를 after 로 넘겨 받는다. to 를 주면 그 paymentId 까지만 읽는다.
     @GetMapping(path = "/payment/normal-status")
-    List<Payment> getNormalStatusPayments() {
-        return requestPaymentUseCase.getNormalStatusPayments();
+    List<Payment> getNormalStatusPayments(@RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(required = false) Long to) {
+        if (limit == null) {
+            return requestPaymentUseCase.getNormalStatusPayments();
+        }
+        return requestPaymentUseCase.getNormalStatusPayments(
+                new GetNormalStatusPaymentsCommand(after == null ? 0 : after, Math.max(1, Math.min(limit, maxLimit)), to == null ? Long.MAX_VALUE : to)
+        );
+    }
+
+    // 정산 대기 결제를 한 줄에 하나씩 JSON 으로, DB 에서 읽는 대로 내려보낸다 (NDJSON)
+    @GetMapping(path = "/payment/normal-status/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> streamNormalStatusPayments(@RequestParam(defaultValue = "0") long after,
+                                                                     @RequestParam(required = false) Long to) {
+        GetNormalStatusPaymentsCommand command = new GetNormalStatusPaymentsCommand(after, 0, to == null ? Long.MAX_VALUE : to);
+        StreamingResponseBody body = outputStream -> requestPaymentUseCase.streamNormalStatusPayments(command, payment -> {
+            try {
+                outputStream.write(jsonCodec.writeBytes(payment));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // approvedBefore(epoch ms) 이전에 승인된 결제 중 가장 큰 paymentId. 없으면 0.
+    // 정산이 이 값까지를 한 window 로 잡으므로, 아직 commit 되지 않았을 수 있는 최근 결제는 다음 window 로 넘어간다.
+    @GetMapping(path = "/payment/last-payment-id")
+    long getLastPaymentId(@RequestParam long approvedBefore) {
+        return requestPaymentUseCase.getLastPaymentId(new Date(approvedBefore));
     }
 
     @PostMapping(path = "/payment/finish-settlement")
@@ -47,4 +97,26 @@ public class RequestPaymentController {
                 )
         );
     }
+
+    // 여러 결제를 한 번에 정산 완료로 바꾸고, 실제로 바뀐 건수를 돌려준다.
+    // 이미 정산 완료였던 결제는 세지 않으므로 호출한 쪽이 요청 건수와 비교해 중복 정산을 확인할 수 있다.
+    @PostMapping(path = "/payment/finish-settlement:batch")
+    FinishSettlementBatchResponse finishSettlements(@RequestBody FinishSettlementBatchRequest request) {
+        if (request.getPaymentIds() == null && (request.getFromPaymentId() == null || request.getToPaymentId() == null)) {
+            throw new IllegalArgumentException("paymentIds or fromPaymentId/toPaymentId is required");
+        }
+        if (request.getPaymentIds() != null && (request.getFromPaymentId() != null || request.getToPaymentId() != null)) {
+            throw new IllegalArgumentException("paymentIds and fromPaymentId/toPaymentId cannot be used together");
+        }
+        int settled = requestPaymentUseCase.finishPayments(
+                new FinishSettlementBatchCommand(
+                        request.getPaymentIds(),
+                        request.getFromPaymentId(),
+                        request.getToPaymentId()
+                )
+        );
+        int requested = request.getPaymentIds() == null ? -1 : request.getPaymentIds().size();
+        log.info("finish-settlement:batch requested = {}, settled = {}", requested, settled);
+        return new FinishSettlementBatchResponse(requested, settled);
+    }
 }
@@ -0,0 +1,16 @@
+package com.msapay.payment.controller.command;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FinishSettlementBatchCommand {
+    private List<Long> paymentIds;
+    private Long fromPaymentId;
+    private Long toPaymentId;
+}
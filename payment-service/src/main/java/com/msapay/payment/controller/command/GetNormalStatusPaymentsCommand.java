@@ -0,0 +1,16 @@
+package com.msapay.payment.controller.command;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GetNormalStatusPaymentsCommand {
+    // 이 paymentId 다음부터 paymentId 순서로 조회한다
+    private long afterPaymentId;
+    private int limit;
+    // 이 paymentId 까지(포함)만 조회한다 (정산 partition 의 범위 끝)
+    private long toPaymentId;
+}
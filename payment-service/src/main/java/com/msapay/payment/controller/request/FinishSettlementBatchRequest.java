@@ -0,0 +1,17 @@
+package com.msapay.payment.controller.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// paymentIds 또는 [fromPaymentId, toPaymentId] 범위 중 하나를 준다
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FinishSettlementBatchRequest {
+    private List<Long> paymentIds;
+    private Long fromPaymentId;
+    private Long toPaymentId;
+}
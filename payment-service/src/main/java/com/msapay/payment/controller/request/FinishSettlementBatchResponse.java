@@ -0,0 +1,15 @@
+package com.msapay.payment.controller.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FinishSettlementBatchResponse {
+    // 요청한 paymentId 수 (범위 요청이면 -1)
+    private int requested;
+    // 이번 요청으로 실제 정산 완료(0 -> 2)로 바뀐 결제 수
+    private int settled;
+}
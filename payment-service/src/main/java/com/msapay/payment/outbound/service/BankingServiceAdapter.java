@@ -2,44 +2,89 @@ package com.msapay.payment.outbound.service;
 
 
 import com.msapay.common.CommonHttpClient;
+import com.msapay.common.cache.ReadThroughCache;
+import com.msapay.common.codec.JsonCodec;
 import com.msapay.payment.service.port.GetRegisteredBankAccountPort;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.msapay.payment.service.port.RegisteredBankAccountAggregateIdentifier;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 @Component
 public class BankingServiceAdapter implements GetRegisteredBankAccountPort {
 
     private final CommonHttpClient commonHttpClient;
 
+    private final JsonCodec jsonCodec;
+
+    // 결제마다 banking-service 를 부르지 않도록 찾은 계좌만 TTL 동안 보관한다
+    private final ReadThroughCache<RegisteredBankAccountAggregateIdentifier> accountCache;
+
     private final String bankingServiceUrl;
 
     public BankingServiceAdapter(CommonHttpClient commonHttpClient,
+                                 JsonCodec jsonCodec,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${payment.account-cache.enabled:true}") boolean accountCacheEnabled,
+                                 @Value("${payment.account-cache.max-size:10000}") int accountCacheMaxSize,
+                                 @Value("${payment.account-cache.ttl-ms:30000}") long accountCacheTtlMillis,
                                  @Value("${service.banking.url}") String membershipServiceUrl) {
         this.commonHttpClient = commonHttpClient;
+        this.jsonCodec = jsonCodec;
+        this.accountCache = new ReadThroughCache<>("payment.account.cache",
+                accountCacheEnabled, accountCacheMaxSize, accountCacheTtlMillis, meterRegistry);
         this.bankingServiceUrl = membershipServiceUrl;
     }
 
     @Override
     public RegisteredBankAccountAggregateIdentifier getRegisteredBankAccount(String membershipId){
+        return forgetIfMissing(membershipId, accountCache.get(membershipId, id -> Optional.ofNullable(fetchRegisteredBankAccount(id))));
+    }
+
+    @Override
+    public CompletableFuture<RegisteredBankAccountAggregateIdentifier> getRegisteredBankAccountAsync(String membershipId) {
+        return accountCache.getAsync(membershipId, this::fetchRegisteredBankAccountAsync)
+                .thenApply(account -> forgetIfMissing(membershipId, account));
+    }
+
+    // 계좌가 없다는 결과는 보관하지 않는다. 방금 등록한 계좌로 결제할 때 TTL 동안 거절되지 않게 한다.
+    private RegisteredBankAccountAggregateIdentifier forgetIfMissing(String membershipId,
+                                                                   Optional<RegisteredBankAccountAggregateIdentifier> account) {
+        if (!account.isPresent()) {
+            accountCache.invalidate(membershipId);
+        }
+        return account.orElse(null);
+    }
+
+    private RegisteredBankAccountAggregateIdentifier fetchRegisteredBankAccount(String membershipId) {
         String url = String.join("/", bankingServiceUrl, "banking/account", membershipId);
         try {
             String jsonResponse = commonHttpClient.sendGetRequest(url).body();
             // json RegisteredBankAccount
+            RegisteredBankAccount registeredBankAccount = jsonCodec.read(jsonResponse, RegisteredBankAccount.class);
 
-            ObjectMapper mapper = new ObjectMapper();
-            RegisteredBankAccount registeredBankAccount = mapper.readValue(jsonResponse, RegisteredBankAccount.class);
-
-            return new RegisteredBankAccountAggregateIdentifier(
-                    registeredBankAccount.getRegisteredBankAccountId()
-                    , registeredBankAccount.getAggregateIdentifier()
-                    , registeredBankAccount.getBankName()
-                    , registeredBankAccount.getBankName()
-                    , registeredBankAccount.getBankAccountNumber()
-            );
+            return toAggregateIdentifier(registeredBankAccount);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
+
+    private CompletableFuture<Optional<RegisteredBankAccountAggregateIdentifier>> fetchRegisteredBankAccountAsync(String membershipId) {
+        String url = String.join("/", bankingServiceUrl, "banking/account", membershipId);
+        return commonHttpClient.getAsync(url, RegisteredBankAccount.class)
+                .thenApply(registeredBankAccount -> Optional.ofNullable(registeredBankAccount).map(BankingServiceAdapter::toAggregateIdentifier));
+    }
+
+    private static RegisteredBankAccountAggregateIdentifier toAggregateIdentifier(RegisteredBankAccount registeredBankAccount) {
+        return new RegisteredBankAccountAggregateIdentifier(
+                registeredBankAccount.getRegisteredBankAccountId()
+                , registeredBankAccount.getAggregateIdentifier()
+                , registeredBankAccount.getMembershipId()
+                , registeredBankAccount.getBankName()
+                , registeredBankAccount.getBankAccountNumber()
+        );
+    }
 }
@@ -1,41 +1,69 @@
 package com.msapay.payment.outbound.service;
 
 import com.msapay.common.CommonHttpClient;
+import com.msapay.common.codec.JsonCodec;
+import com.msapay.common.membership.MembershipStatusCache;
 import com.msapay.payment.service.port.GetMembershipPort;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.msapay.payment.service.port.MembershipStatus;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 @Component
 public class MembershipServiceAdapter implements GetMembershipPort {
 
     private final CommonHttpClient commonHttpClient;
 
+    private final JsonCodec jsonCodec;
+
+    private final MembershipStatusCache membershipStatusCache;
+
     private final String membershipServiceUrl;
 
     public MembershipServiceAdapter(CommonHttpClient commonHttpClient,
+                                    JsonCodec jsonCodec,
+                                    MembershipStatusCache membershipStatusCache,
                                     @Value("${service.membership.url}") String membershipServiceUrl) {
         this.commonHttpClient = commonHttpClient;
+        this.jsonCodec = jsonCodec;
+        this.membershipStatusCache = membershipStatusCache;
         this.membershipServiceUrl = membershipServiceUrl;
     }
 
     @Override
     public MembershipStatus getMembership(String membershipId) {
+        // 캐시에 없거나 만료되었을 때만 membership-service 를 호출한다
+        boolean valid = membershipStatusCache.isValid(membershipId, this::fetchMembershipValid);
+        return new MembershipStatus(membershipId, valid);
+    }
+
+    @Override
+    public CompletableFuture<MembershipStatus> getMembershipAsync(String membershipId) {
+        return membershipStatusCache.isValidAsync(membershipId, this::fetchMembershipValidAsync)
+                .thenApply(valid -> new MembershipStatus(membershipId, valid));
+    }
 
+    @Override
+    public MembershipStatus getLastKnownMembership(String membershipId) {
+        Boolean valid = membershipStatusCache.getLastKnown(membershipId);
+        return valid == null ? null : new MembershipStatus(membershipId, valid);
+    }
+
+    private CompletableFuture<Boolean> fetchMembershipValidAsync(String membershipId) {
+        String url = String.join("/", membershipServiceUrl, "membership", membershipId);
+        return commonHttpClient.getAsync(url, Membership.class)
+                .thenApply(membership -> membership != null && membership.isValid());
+    }
+
+    private boolean fetchMembershipValid(String membershipId) {
         String url = String.join("/", membershipServiceUrl, "membership", membershipId);
         try {
             String jsonResponse = commonHttpClient.sendGetRequest(url).body();
             // json Membership
+            Membership membership = jsonCodec.read(jsonResponse, Membership.class);
 
-            ObjectMapper mapper = new ObjectMapper();
-            Membership membership = mapper.readValue(jsonResponse, Membership.class);
-
-            if (membership.isValid()){
-                return new MembershipStatus(membership.getMembershipId(), true);
-            } else {
-                return new MembershipStatus(membership.getMembershipId(), false);
-            }
+            return membership.isValid();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -7,12 +7,14 @@ import lombok.NoArgsConstructor;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 import java.util.Date;
 import java.util.UUID;
 
 @Entity
-@Table(name = "payment_request")
+@Table(name = "payment_request",
+        indexes = @Index(name = "ix_payment_request_status_payment_id", columnList = "paymentStatus, paymentId"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
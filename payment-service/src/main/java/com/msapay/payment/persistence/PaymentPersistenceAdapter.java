@@ -4,26 +4,48 @@ import com.msapay.payment.service.port.CreatePaymentPort;
 import com.msapay.payment.domain.Payment;
 import com.msapay.common.PersistenceAdapter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @PersistenceAdapter
 @RequiredArgsConstructor
 public class PaymentPersistenceAdapter implements CreatePaymentPort {
+    // IN 목록이 너무 길어지지 않도록 이 크기씩 나눠 UPDATE 한다
+    private static final int FINISH_SETTLEMENT_CHUNK_SIZE = 1000;
+
+    // (payment_status, payment_id) 인덱스 순서로 읽는다
+    private static final String STREAM_NORMAL_STATUS_SQL =
+            "SELECT payment_id, request_membership_id, request_price, franchise_id, franchise_fee_rate, payment_status, approved_at " +
+            "FROM payment_request WHERE payment_status = 0 AND payment_id > ? AND payment_id <= ? ORDER BY payment_id";
+
     private final SpringDataPaymentRepository paymentRepository;
     private final PaymentMapper mapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    // MySQL 은 useCursorFetch=true 일 때 이 크기만큼씩 서버 커서에서 가져온다
+    @Value("${payment.stream.fetch-size:1000}")
+    private int streamFetchSize;
+
     @Override
-    public Payment createPayment(String requestMembershipId, String requestPrice, String franchiseId, String franchiseFeeRate) {
+    public Payment createPayment(String requestMembershipId, String requestPrice, String franchiseId, String franchiseFeeRate, int paymentStatus) {
         PaymentJpaEntity jpaEntity = paymentRepository.save(
                 new PaymentJpaEntity(
                         requestMembershipId,
                         Integer.parseInt(requestPrice),
                         franchiseId,
                         franchiseFeeRate,
-                        0, // 0: 승인, 1: 실패, 2: 정산 완료.
-                        null
+                        paymentStatus, // 0: 승인, 1: 실패, 2: 정산 완료.
+                        new Date()
                 )
         );
         return mapper.mapToDomainEntity(jpaEntity);
@@ -42,6 +64,42 @@ public class PaymentPersistenceAdapter implements CreatePaymentPort {
         return null;
     }
 
+    @Override
+    public List<Payment> getNormalStatusPayments(long afterPaymentId, long toPaymentId, int limit) {
+        List<Payment> payments = new ArrayList<>();
+        for (PaymentJpaEntity paymentJpaEntity : paymentRepository.findByPaymentStatusBetween(
+                0, afterPaymentId, toPaymentId, PageRequest.of(0, limit))) {
+            payments.add(mapper.mapToDomainEntity(paymentJpaEntity));
+        }
+        return payments;
+    }
+
+    @Override
+    public void streamNormalStatusPayments(long afterPaymentId, long toPaymentId, Consumer<Payment> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    STREAM_NORMAL_STATUS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(streamFetchSize);
+            statement.setLong(1, afterPaymentId);
+            statement.setLong(2, toPaymentId);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(Payment.generatePayment(
+                new Payment.PaymentId(rs.getLong("payment_id")),
+                new Payment.RequestMembershipId(rs.getString("request_membership_id")),
+                new Payment.RequestPrice(rs.getInt("request_price")),
+                new Payment.FranchiseId(rs.getString("franchise_id")),
+                new Payment.FranchiseFeeRate(rs.getString("franchise_fee_rate")),
+                new Payment.PaymentStatus(rs.getInt("payment_status")),
+                new Payment.ApprovedAt(rs.getTimestamp("approved_at"))
+        )));
+    }
+
+    @Override
+    public long getLastPaymentId(Date approvedBefore) {
+        List<Long> paymentIds = paymentRepository.findLastPaymentIds(approvedBefore, PageRequest.of(0, 1));
+        return paymentIds.isEmpty() ? 0 : paymentIds.get(0);
+    }
+
     @Override
     public void changePaymentRequestStatus(String paymentId, int status) {
         Optional<PaymentJpaEntity> paymentJpaEntity = paymentRepository.findById(Long.parseLong(paymentId));
@@ -50,4 +108,19 @@ public class PaymentPersistenceAdapter implements CreatePaymentPort {
             paymentRepository.save(paymentJpaEntity.get());
         }
     }
+
+    @Override
+    public int finishSettlements(List<Long> paymentIds) {
+        int settled = 0;
+        for (int from = 0; from < paymentIds.size(); from += FINISH_SETTLEMENT_CHUNK_SIZE) {
+            List<Long> chunk = paymentIds.subList(from, Math.min(from + FINISH_SETTLEMENT_CHUNK_SIZE, paymentIds.size()));
+            settled += paymentRepository.updatePaymentStatus(chunk, 0, 2);
+        }
+        return settled;
+    }
+
+    @Override
+    public int finishSettlements(long fromPaymentId, long toPaymentId) {
+        return paymentRepository.updatePaymentStatusBetween(fromPaymentId, toPaymentId, 0, 2);
+    }
 }
@@ -1,12 +1,42 @@
 package com.msapay.payment.persistence;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 public interface SpringDataPaymentRepository extends JpaRepository<PaymentJpaEntity, Long> {
     @Query("SELECT e  FROM PaymentJpaEntity e WHERE e.paymentStatus = :paymentStatus")
     List<PaymentJpaEntity> findByPaymentStatus(@Param("paymentStatus") int paymentStatus);
+
+    // (paymentStatus, paymentId) 인덱스의 범위만 읽는다
+    @Query("SELECT e FROM PaymentJpaEntity e WHERE e.paymentStatus = :paymentStatus " +
+            "AND e.paymentId > :after AND e.paymentId <= :to ORDER BY e.paymentId")
+    List<PaymentJpaEntity> findByPaymentStatusBetween(@Param("paymentStatus") int paymentStatus,
+                                                      @Param("after") long after,
+                                                      @Param("to") long to,
+                                                      Pageable pageable);
+
+    // 최근 결제부터 PK 를 거꾸로 훑다가 처음 조건을 만족하는 행에서 멈춘다. approvedAt 이 없는 예전 결제는 이미 commit 된 것으로 본다.
+    @Query("SELECT e.paymentId FROM PaymentJpaEntity e WHERE e.approvedAt IS NULL OR e.approvedAt < :approvedBefore ORDER BY e.paymentId DESC")
+    List<Long> findLastPaymentIds(@Param("approvedBefore") Date approvedBefore, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE PaymentJpaEntity e SET e.paymentStatus = :toStatus WHERE e.paymentId IN :paymentIds AND e.paymentStatus = :fromStatus")
+    int updatePaymentStatus(@Param("paymentIds") Collection<Long> paymentIds,
+                            @Param("fromStatus") int fromStatus,
+                            @Param("toStatus") int toStatus);
+
+    @Modifying
+    @Query("UPDATE PaymentJpaEntity e SET e.paymentStatus = :toStatus " +
+            "WHERE e.paymentId BETWEEN :fromPaymentId AND :toPaymentId AND e.paymentStatus = :fromStatus")
+    int updatePaymentStatusBetween(@Param("fromPaymentId") long fromPaymentId,
+                                   @Param("toPaymentId") long toPaymentId,
+                                   @Param("fromStatus") int fromStatus,
+                                   @Param("toStatus") int toStatus);
 }
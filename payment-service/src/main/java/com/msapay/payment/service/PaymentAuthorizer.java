@@ -0,0 +1,144 @@
+package com.msapay.payment.service;
+
+import com.msapay.payment.service.port.GetMembershipPort;
+import com.msapay.payment.service.port.GetRegisteredBankAccountPort;
+import com.msapay.payment.service.port.MembershipStatus;
+import com.msapay.payment.service.port.RegisteredBankAccountAggregateIdentifier;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * 결제 승인 전에 멤버십 유효 여부와 등록 계좌를 동시에 확인한다.
+ * 두 조회를 함께 보내므로 지연은 느린 쪽 하나만큼이고, 어느 한쪽이 거절하면 다른 쪽을 기다리지 않고 취소한다.
+ * budget-ms 안에 끝나지 않은 확인은 degraded 모드에서 멤버십은 마지막으로 알던 상태로, 계좌는 통과로 보고,
+ * degraded 모드가 아니면 거절한다. 계좌 조회가 오류로 끝나면(banking 5xx, 응답 해석 실패) 기다려도 알 수 없으므로 거절한다.
+ */
+@Slf4j
+@Component
+public class PaymentAuthorizer {
+
+    public enum Decision {
+        APPROVED, REJECTED, DEGRADED;
+
+        public boolean isApproved() {
+            return this != REJECTED;
+        }
+    }
+
+    private enum Check { PASSED, FAILED, UNKNOWN }
+
+    private final GetMembershipPort getMembershipPort;
+    private final GetRegisteredBankAccountPort getRegisteredBankAccountPort;
+    private final Map<Decision, Timer> timers = new EnumMap<>(Decision.class);
+    private final long budgetMillis;
+    private final boolean degradedMode;
+
+    public PaymentAuthorizer(GetMembershipPort getMembershipPort,
+                             GetRegisteredBankAccountPort getRegisteredBankAccountPort,
+                             MeterRegistry meterRegistry,
+                             @Value("${payment.authorization.budget-ms:300}") long budgetMillis,
+                             @Value("${payment.authorization.degraded-mode:true}") boolean degradedMode) {
+        this.getMembershipPort = getMembershipPort;
+        this.getRegisteredBankAccountPort = getRegisteredBankAccountPort;
+        for (Decision decision : Decision.values()) {
+            timers.put(decision, Timer.builder("payment.authorization")
+                    .description("결제 승인 전 확인에 걸린 시간")
+                    .tag("decision", decision.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        this.budgetMillis = budgetMillis;
+        this.degradedMode = degradedMode;
+    }
+
+    public Decision authorize(String membershipId) {
+        long startedAt = System.nanoTime();
+        CompletableFuture<MembershipStatus> membership = getMembershipPort.getMembershipAsync(membershipId);
+        CompletableFuture<RegisteredBankAccountAggregateIdentifier> account =
+                getRegisteredBankAccountPort.getRegisteredBankAccountAsync(membershipId);
+
+        // 어느 한쪽이라도 거절하면 바로 완료된다
+        CompletableFuture<Void> rejected = new CompletableFuture<>();
+        membership.thenAccept(status -> {
+            if (!status.isValid()) {
+                rejected.complete(null);
+            }
+        });
+        account.thenAccept(registeredBankAccount -> {
+            if (registeredBankAccount == null) {
+                rejected.complete(null);
+            }
+        });
+        // 조회가 실패해도 다른 쪽은 budget 안에서 계속 기다린다
+        CompletableFuture<Void> settled = CompletableFuture.allOf(
+                membership.handle((status, e) -> null), account.handle((registeredBankAccount, e) -> null));
+
+        try {
+            CompletableFuture.anyOf(rejected, settled).get(budgetMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // 끝나지 않은 확인은 아래에서 UNKNOWN 으로 다룬다
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 더 기다리지 않으므로 남은 조회는 취소한다
+        membership.cancel(true);
+        account.cancel(true);
+
+        // 멤버십 조회 오류는 마지막으로 알던 상태로 판단할 수 있지만, 계좌 조회 오류는 거절한다
+        Check membershipCheck = check(membership, MembershipStatus::isValid, Check.UNKNOWN);
+        Check accountCheck = check(account, registeredBankAccount -> registeredBankAccount != null, Check.FAILED);
+        Decision decision = decide(membershipId, membershipCheck, accountCheck);
+
+        timers.get(decision).record(Duration.ofNanos(System.nanoTime() - startedAt));
+        if (decision != Decision.APPROVED) {
+            log.info("Payment authorization {} - membershipId: {}, membership: {}, bankAccount: {}",
+                    decision, membershipId, membershipCheck, accountCheck);
+        }
+        return decision;
+    }
+
+    private Decision decide(String membershipId, Check membershipCheck, Check accountCheck) {
+        if (membershipCheck == Check.FAILED || accountCheck == Check.FAILED) {
+            return Decision.REJECTED;
+        }
+        if (membershipCheck == Check.PASSED && accountCheck == Check.PASSED) {
+            return Decision.APPROVED;
+        }
+        if (!degradedMode) {
+            return Decision.REJECTED;
+        }
+        if (membershipCheck == Check.UNKNOWN) {
+            MembershipStatus lastKnown = getMembershipPort.getLastKnownMembership(membershipId);
+            if (lastKnown == null || !lastKnown.isValid()) {
+                return Decision.REJECTED;
+            }
+        }
+        return Decision.DEGRADED;
+    }
+
+    private static <T> Check check(CompletableFuture<T> future, Predicate<T> passed, Check onError) {
+        if (!future.isDone()) {
+            return Check.UNKNOWN;
+        }
+        if (future.isCancelled()) {
+            // budget 안에 끝나지 않아 취소했다
+            return Check.UNKNOWN;
+        }
+        if (future.isCompletedExceptionally()) {
+            return onError;
+        }
+        return passed.test(future.join()) ? Check.PASSED : Check.FAILED;
+    }
+}
@@ -1,17 +1,19 @@
 package com.msapay.payment.service;
 
+import com.msapay.payment.controller.command.FinishSettlementBatchCommand;
 import com.msapay.payment.controller.command.FinishSettlementCommand;
+import com.msapay.payment.controller.command.GetNormalStatusPaymentsCommand;
 import com.msapay.payment.controller.command.RequestPaymentCommand;
 import com.msapay.payment.service.usecase.RequestPaymentUseCase;
 import com.msapay.payment.service.port.CreatePaymentPort;
-import com.msapay.payment.service.port.GetMembershipPort;
-import com.msapay.payment.service.port.GetRegisteredBankAccountPort;
 import com.msapay.payment.domain.Payment;
 import com.msapay.common.UseCase;
 import lombok.RequiredArgsConstructor;
 
 import javax.transaction.Transactional;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 @UseCase
 @RequiredArgsConstructor
@@ -20,27 +22,25 @@ public class PaymentService implements RequestPaymentUseCase {
 
     private final CreatePaymentPort createPaymentPort;
 
-    private final GetMembershipPort getMembershipPort;
-    private final GetRegisteredBankAccountPort getRegisteredBankAccountPort;
+    private final PaymentAuthorizer paymentAuthorizer;
 
     // Todo Money Service -> Member Money 정보를 가져오기 위한 Port
 
+    // 멤버십/계좌 확인을 기다리는 동안 DB 연결을 잡지 않도록 트랜잭션 밖에서 확인하고, 저장은 repository 트랜잭션에 맡긴다
     @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public Payment requestPayment(RequestPaymentCommand command) {
 
-        // 충전도, 멤버십, 머니 유효성 확인.....
-        // getMembershipPort.getMembership(command.getRequestMembershipId());
-
-        //getRegisteredBankAccountPort.getRegisteredBankAccount(command.getRequestMembershipId());
-
-        //....
+        // 멤버십 유효 여부와 등록 계좌를 동시에 확인한다. 거절된 결제는 실패(1) 상태로 남긴다.
+        PaymentAuthorizer.Decision decision = paymentAuthorizer.authorize(command.getRequestMembershipId());
 
         // createPaymentPort
         return createPaymentPort.createPayment(
                 command.getRequestMembershipId(),
                 command.getRequestPrice(),
                 command.getFranchiseId(),
-                command.getFranchiseFeeRate());
+                command.getFranchiseFeeRate(),
+                decision.isApproved() ? 0 : 1);
     }
 
     @Override
@@ -48,8 +48,37 @@ public class PaymentService implements RequestPaymentUseCase {
         return createPaymentPort.getNormalStatusPayments();
     }
 
+    @Override
+    public List<Payment> getNormalStatusPayments(GetNormalStatusPaymentsCommand command) {
+        return createPaymentPort.getNormalStatusPayments(
+                command.getAfterPaymentId(),
+                command.getToPaymentId(),
+                command.getLimit());
+    }
+
+    @Override
+    public void streamNormalStatusPayments(GetNormalStatusPaymentsCommand command, Consumer<Payment> consumer) {
+        createPaymentPort.streamNormalStatusPayments(
+                command.getAfterPaymentId(),
+                command.getToPaymentId(),
+                consumer);
+    }
+
+    @Override
+    public long getLastPaymentId(Date approvedBefore) {
+        return createPaymentPort.getLastPaymentId(approvedBefore);
+    }
+
     @Override
     public void finishPayment(FinishSettlementCommand command) {
         createPaymentPort.changePaymentRequestStatus(command.getPaymentId(), 2);
     }
+
+    @Override
+    public int finishPayments(FinishSettlementBatchCommand command) {
+        if (command.getPaymentIds() != null) {
+            return createPaymentPort.finishSettlements(command.getPaymentIds());
+        }
+        return createPaymentPort.finishSettlements(command.getFromPaymentId(), command.getToPaymentId());
+    }
 }
@@ -2,11 +2,29 @@ package com.msapay.payment.service.port;
 
 import com.msapay.payment.domain.Payment;
 
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface CreatePaymentPort {
-    Payment createPayment(String requestMembershipId, String requestPrice, String franchiseId, String franchiseFeeRate);
+    // paymentStatus 0: 승인, 1: 실패
+    Payment createPayment(String requestMembershipId, String requestPrice, String franchiseId, String franchiseFeeRate, int paymentStatus);
 
     List<Payment> getNormalStatusPayments();
+
+    // (afterPaymentId, toPaymentId] 범위에서 paymentId 순서로 limit 건
+    List<Payment> getNormalStatusPayments(long afterPaymentId, long toPaymentId, int limit);
+
+    // 위와 같은 범위의 결제를 끝까지, DB 에서 가져오는 대로 consumer 에 넘긴다
+    void streamNormalStatusPayments(long afterPaymentId, long toPaymentId, Consumer<Payment> consumer);
+
+    // approvedBefore 이전에 승인된 결제 중 가장 큰 paymentId, 없으면 0
+    long getLastPaymentId(Date approvedBefore);
+
     void changePaymentRequestStatus(String paymentId, int status);
+
+    // 승인(0) 상태인 결제만 정산 완료(2)로 바꾸고 바뀐 건수를 돌려준다
+    int finishSettlements(List<Long> paymentIds);
+
+    int finishSettlements(long fromPaymentId, long toPaymentId);
 }
@@ -1,5 +1,12 @@
 package com.msapay.payment.service.port;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface GetMembershipPort {
     public MembershipStatus getMembership(String membershipId);
+
+    CompletableFuture<MembershipStatus> getMembershipAsync(String membershipId);
+
+    // 만료 여부와 관계없이 마지막으로 알던 상태. 모르면 null.
+    MembershipStatus getLastKnownMembership(String membershipId);
 }
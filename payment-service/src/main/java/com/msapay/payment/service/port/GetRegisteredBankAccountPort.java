@@ -1,5 +1,10 @@
 package com.msapay.payment.service.port;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface GetRegisteredBankAccountPort {
     RegisteredBankAccountAggregateIdentifier getRegisteredBankAccount(String membershipId);
+
+    // 등록 계좌가 없으면 null 로 완료된다
+    CompletableFuture<RegisteredBankAccountAggregateIdentifier> getRegisteredBankAccountAsync(String membershipId);
 }
@@ -1,10 +1,14 @@
 package com.msapay.payment.service.usecase;
 
+import com.msapay.payment.controller.command.FinishSettlementBatchCommand;
 import com.msapay.payment.controller.command.FinishSettlementCommand;
+import com.msapay.payment.controller.command.GetNormalStatusPaymentsCommand;
 import com.msapay.payment.controller.command.RequestPaymentCommand;
 import com.msapay.payment.domain.Payment;
 
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface RequestPaymentUseCase {
     Payment requestPayment(RequestPaymentCommand command);
@@ -12,5 +16,15 @@ public interface RequestPaymentUseCase {
     // 원래대로라면,, command . start date, end date
     List<Payment> getNormalStatusPayments();
 
+    List<Payment> getNormalStatusPayments(GetNormalStatusPaymentsCommand command);
+
+    // command 의 limit 은 무시하고 조건에 맞는 결제를 모두 넘긴다
+    void streamNormalStatusPayments(GetNormalStatusPaymentsCommand command, Consumer<Payment> consumer);
+
+    long getLastPaymentId(Date approvedBefore);
+
     void finishPayment(FinishSettlementCommand command);
+
+    // 정산 완료로 바뀐 결제 수
+    int finishPayments(FinishSettlementBatchCommand command);
 }
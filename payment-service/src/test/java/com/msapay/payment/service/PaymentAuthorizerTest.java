@@ -0,0 +1,118 @@
+package com.msapay.payment.service;
+
+import com.msapay.payment.service.PaymentAuthorizer.Decision;
+import com.msapay.payment.service.port.GetMembershipPort;
+import com.msapay.payment.service.port.GetRegisteredBankAccountPort;
+import com.msapay.payment.service.port.MembershipStatus;
+import com.msapay.payment.service.port.RegisteredBankAccountAggregateIdentifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentAuthorizerTest {
+
+    private static final long BUDGET_MILLIS = 200;
+
+    private final StubPorts ports = new StubPorts();
+
+    @Test
+    void authorize_ShouldApproveWhenBothChecksPass() {
+        ports.membership.complete(new MembershipStatus("1", true));
+        ports.account.complete(account());
+
+        assertEquals(Decision.APPROVED, authorizer(true).authorize("1"));
+    }
+
+    @Test
+    void authorize_ShouldRejectWithoutWaitingAndCancelSibling() {
+        ports.membership.complete(new MembershipStatus("1", false));
+
+        long startedAt = System.nanoTime();
+        Decision decision = authorizer(true).authorize("1");
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        assertEquals(Decision.REJECTED, decision);
+        assertTrue(elapsedMillis < BUDGET_MILLIS, "waited " + elapsedMillis + " ms");
+        assertTrue(ports.account.isCancelled());
+    }
+
+    @Test
+    void authorize_ShouldFallBackToLastKnownMembershipAfterBudgetInDegradedMode() {
+        ports.account.complete(account());
+        ports.lastKnown = new MembershipStatus("1", true);
+
+        long startedAt = System.nanoTime();
+        Decision decision = authorizer(true).authorize("1");
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        assertEquals(Decision.DEGRADED, decision);
+        assertTrue(elapsedMillis >= BUDGET_MILLIS, "waited " + elapsedMillis + " ms");
+        assertTrue(ports.membership.isCancelled());
+    }
+
+    @Test
+    void authorize_ShouldRejectAfterBudgetWhenLastKnownMembershipIsMissing() {
+        ports.account.complete(account());
+
+        assertEquals(Decision.REJECTED, authorizer(true).authorize("1"));
+    }
+
+    @Test
+    void authorize_ShouldRejectAfterBudgetInStrictMode() {
+        ports.account.complete(account());
+        ports.lastKnown = new MembershipStatus("1", true);
+
+        assertEquals(Decision.REJECTED, authorizer(false).authorize("1"));
+    }
+
+    @Test
+    void authorize_ShouldRejectFailedAccountLookupInDegradedMode() {
+        ports.membership.complete(new MembershipStatus("1", true));
+        ports.account.completeExceptionally(new IllegalStateException("banking-service 503"));
+
+        assertEquals(Decision.REJECTED, authorizer(true).authorize("1"));
+    }
+
+    private PaymentAuthorizer authorizer(boolean degradedMode) {
+        return new PaymentAuthorizer(ports, ports, new SimpleMeterRegistry(), BUDGET_MILLIS, degradedMode);
+    }
+
+    private static RegisteredBankAccountAggregateIdentifier account() {
+        return new RegisteredBankAccountAggregateIdentifier("1", "aggregate-1", "1", "bank", "1234");
+    }
+
+    private static class StubPorts implements GetMembershipPort, GetRegisteredBankAccountPort {
+        final CompletableFuture<MembershipStatus> membership = new CompletableFuture<>();
+        final CompletableFuture<RegisteredBankAccountAggregateIdentifier> account = new CompletableFuture<>();
+        MembershipStatus lastKnown;
+
+        @Override
+        public MembershipStatus getMembership(String membershipId) {
+            return membership.join();
+        }
+
+        @Override
+        public CompletableFuture<MembershipStatus> getMembershipAsync(String membershipId) {
+            return membership;
+        }
+
+        @Override
+        public MembershipStatus getLastKnownMembership(String membershipId) {
+            return lastKnown;
+        }
+
+        @Override
+        public RegisteredBankAccountAggregateIdentifier getRegisteredBankAccount(String membershipId) {
+            return account.join();
+        }
+
+        @Override
+        public CompletableFuture<RegisteredBankAccountAggregateIdentifier> getRegisteredBankAccountAsync(String membershipId) {
+            return account;
+        }
+    }
+}
@@ -2,9 +2,10 @@ package com.msapay.remittance.outbound.membership;
 
 import com.msapay.common.CommonHttpClient;
 import com.msapay.common.ExternalSystemAdapter;
+import com.msapay.common.codec.JsonCodec;
+import com.msapay.common.membership.MembershipStatusCache;
 import com.msapay.remittance.service.port.membership.MembershipPort;
 import com.msapay.remittance.service.port.membership.MembershipStatus;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 
@@ -14,24 +15,26 @@ public class MembershipServiceAdapter implements MembershipPort {
 
     private final CommonHttpClient membershipServiceHttpClient;
 
+    private final JsonCodec jsonCodec;
+
+    private final MembershipStatusCache membershipStatusCache;
+
     @Value("${service.membership.url}")
     private String membershipServiceEndpoint;
 
     @Override
     public MembershipStatus getMembershipStatus(String membershipId) {
+        // 캐시에 없거나 만료되었을 때만 membership-service 를 호출한다
+        boolean valid = membershipStatusCache.isValid(membershipId, this::fetchMembershipValid);
+        return new MembershipStatus(membershipId, valid);
+    }
 
+    private boolean fetchMembershipValid(String membershipId) {
         String buildUrl = String.join("/", this.membershipServiceEndpoint, "membership", membershipId);
         try {
             String jsonResponse = membershipServiceHttpClient.sendGetRequest(buildUrl).body();
-            ObjectMapper mapper = new ObjectMapper();
-
-            Membership mem = mapper.readValue(jsonResponse, Membership.class);
-            if (mem.isValid()){
-                return new MembershipStatus(mem.getMembershipId(), true);
-            } else{
-                return new MembershipStatus(mem.getMembershipId(), false);
-            }
-
+            Membership mem = jsonCodec.read(jsonResponse, Membership.class);
+            return mem.isValid();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
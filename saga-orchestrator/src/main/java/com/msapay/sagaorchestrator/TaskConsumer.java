@@ -1,75 +1,367 @@
 package com.msapay.sagaorchestrator;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.msapay.common.RechargingMoneyTask;
+import com.msapay.common.codec.JsonCodec;
+import com.msapay.sagaorchestrator.framework.SagaLaneExecutor;
 import com.msapay.sagaorchestrator.saga.IncreaseMoneySaga;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * task 토픽을 읽어 IncreaseMoneySaga 를 시작하는 consumer.
+ * task.consumer.concurrency 개의 KafkaConsumer 스레드가 같은 group 으로 파티션을 나눠 읽고,
+ * 레코드는 offset 순서대로 sagaId 의 lane 에 넘긴다. 처리가 끝난 연속 구간의 offset 만 커밋하므로
+ * 파티션 안에서 앞선 레코드가 끝나기 전에 뒤 레코드의 offset 이 커밋되지 않는다.
+ * 커밋은 처리 완료 건수(commit-batch-size) 또는 시간(commit-interval-ms) 기준으로 모아 commitAsync 로 보내고,
+ * 리밸런스로 파티션을 뺏길 때는 처리 중인 레코드를 기다렸다가 commitSync 한다.
+ * 파티션별 lag 와 처리 시간을 task.consumer.lag / task.consumer.processing 으로 기록한다.
+ */
 @Component
 @Slf4j
 public class TaskConsumer {
-    
-    private final KafkaConsumer<String, String> consumer;
+
+    private final String bootstrapServers;
+    private final String topic;
     private final IncreaseMoneySaga increaseMoneySaga;
+    private final SagaLaneExecutor sagaLaneExecutor;
+    private final ObjectReader taskReader;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${task.consumer.group-id:my-group}")
+    private String groupId;
+
+    @Value("${task.consumer.concurrency:1}")
+    private int concurrency;
+
+    @Value("${task.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${task.consumer.commit-batch-size:100}")
+    private int commitBatchSize;
+
+    @Value("${task.consumer.commit-interval-ms:1000}")
+    private long commitIntervalMillis;
+
+    @Value("${task.consumer.max-in-flight-per-partition:1000}")
+    private int maxInFlightPerPartition;
+
+    @Value("${task.consumer.revoke-timeout-ms:10000}")
+    private long revokeTimeoutMillis;
+
+    private final List<PartitionConsumer> partitionConsumers = new ArrayList<>();
+    private final Map<TopicPartition, AtomicLong> partitionLags = new ConcurrentHashMap<>();
 
     public TaskConsumer(@Value("${kafka.clusters.bootstrapservers}") String bootstrapServers,
                         @Value("${task.topic}") String topic,
-                        IncreaseMoneySaga increaseMoneySaga) {
+                        IncreaseMoneySaga increaseMoneySaga,
+                        SagaLaneExecutor sagaLaneExecutor,
+                        JsonCodec jsonCodec,
+                        MeterRegistry meterRegistry) {
+        this.bootstrapServers = bootstrapServers;
+        this.topic = topic;
         this.increaseMoneySaga = increaseMoneySaga;
-        Properties props = new Properties();
-        props.put("bootstrap.servers", bootstrapServers);
-        props.put("group.id", "my-group");
-        props.put("key.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
-        props.put("value.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
-        props.put("enable.auto.commit", "false");
-        this.consumer = new KafkaConsumer<>(props);
-        consumer.subscribe(Collections.singletonList(topic));
-
-        Thread consumerThread = new Thread(() -> {
+        this.sagaLaneExecutor = sagaLaneExecutor;
+        this.taskReader = jsonCodec.reader(RechargingMoneyTask.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < concurrency; i++) {
+            PartitionConsumer partitionConsumer = new PartitionConsumer("task-consumer-" + i);
+            partitionConsumers.add(partitionConsumer);
+            partitionConsumer.thread.start();
+        }
+        log.info("Started {} Kafka consumer threads for topic: {} (group: {})", concurrency, topic, groupId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partitionConsumers.forEach(PartitionConsumer::stop);
+        for (PartitionConsumer partitionConsumer : partitionConsumers) {
+            try {
+                partitionConsumer.thread.join(revokeTimeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // lane 을 고르기 위해 saga 시작 전에 sagaId 를 정한다. 올바른 sagaId 가 없으면 새로 발급해 task 에 넣는다.
+    private static UUID assignSagaId(RechargingMoneyTask task) {
+        if (task.getSagaId() != null && !task.getSagaId().trim().isEmpty()) {
+            try {
+                return UUID.fromString(task.getSagaId());
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid sagaId format: {} for task: {}", task.getSagaId(), task.getTaskID());
+            }
+        }
+        UUID sagaId = UUID.randomUUID();
+        task.setSagaId(sagaId.toString());
+        return sagaId;
+    }
+
+    private AtomicLong lagOf(TopicPartition partition) {
+        return partitionLags.computeIfAbsent(partition, key -> {
+            AtomicLong lag = new AtomicLong();
+            Gauge.builder("task.consumer.lag", lag, AtomicLong::get)
+                    .description("파티션 끝 offset 과 처리가 끝난 offset 의 차이")
+                    .tag("topic", key.topic())
+                    .tag("partition", String.valueOf(key.partition()))
+                    .register(meterRegistry);
+            return lag;
+        });
+    }
+
+    /**
+     * KafkaConsumer 하나와 그 consumer 가 맡은 파티션들의 offset 상태. KafkaConsumer 는 이 스레드에서만 쓴다.
+     */
+    private final class PartitionConsumer implements Runnable, ConsumerRebalanceListener {
+
+        private final Thread thread;
+        private final KafkaConsumer<String, String> consumer;
+        private final Map<TopicPartition, TaskPartitionTracker> trackers = new HashMap<>();
+        private final Set<TopicPartition> paused = new HashSet<>();
+        private final AtomicInteger completedSinceCommit = new AtomicInteger();
+        private volatile boolean running = true;
+        private long lastCommitAt = System.currentTimeMillis();
+
+        private PartitionConsumer(String name) {
+            Properties props = new Properties();
+            props.put("bootstrap.servers", bootstrapServers);
+            props.put("group.id", groupId);
+            props.put("client.id", name);
+            props.put("key.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
+            props.put("value.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
+            props.put("enable.auto.commit", "false");
+            props.put("max.poll.records", String.valueOf(maxPollRecords));
+            this.consumer = new KafkaConsumer<>(props);
+            this.thread = new Thread(this, name);
+        }
+
+        @Override
+        public void run() {
             try {
                 log.info("Starting Kafka consumer thread for topic: {}", topic);
-                while (true) {
-                    ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(1));
-                    ObjectMapper mapper = new ObjectMapper();
+                consumer.subscribe(Collections.singletonList(topic), this);
+                while (running) {
+                    ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
                     for (ConsumerRecord<String, String> record : records) {
-                        try {
-                            log.debug("Processing message: {}", record.value());
-                            RechargingMoneyTask task = mapper.readValue(record.value(), RechargingMoneyTask.class);
-                            
-                            // Saga 시작 및 ID 반환
-                            String sagaId = this.increaseMoneySaga.beginIncreaseMoneySaga(task);
-                            
-                            log.info("Successfully processed task: {} with saga tracking, sagaId: {}", 
-                                task.getTaskID(), sagaId);
-                            
-                            // 메시지 처리 성공 후 수동 커밋
-                            consumer.commitSync();
-                            log.debug("Offset committed successfully for record: {}", record.offset());
-                                
-                        } catch (JsonProcessingException e) {
-                            log.error("Failed to deserialize message: {}", record.value(), e);
-                        } catch (Exception e) {
-                            log.error("Failed to process message: {}", record.value(), e);
-                        }
+                        dispatch(record);
                     }
+                    applyBackpressure();
+                    maybeCommit();
+                }
+            } catch (WakeupException e) {
+                if (running) {
+                    log.error("Unexpected wakeup of consumer thread", e);
                 }
             } catch (Exception e) {
                 log.error("Consumer thread error", e);
             } finally {
                 log.info("Closing Kafka consumer");
+                try {
+                    commitSync(new ArrayList<>(trackers.keySet()));
+                } catch (Exception e) {
+                    log.warn("Failed to commit offsets on shutdown", e);
+                }
                 consumer.close();
             }
-        });
-        consumerThread.start();
+        }
+
+        private void dispatch(ConsumerRecord<String, String> record) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            TaskPartitionTracker tracker = trackers.computeIfAbsent(partition, key -> new TaskPartitionTracker());
+            long offset = record.offset();
+            tracker.dispatched(offset);
+
+            RechargingMoneyTask task;
+            try {
+                log.debug("Processing message: {}", record.value());
+                task = taskReader.readValue(record.value());
+            } catch (JsonProcessingException e) {
+                // 읽을 수 없는 메시지는 건너뛴다
+                log.error("Failed to deserialize message: {}", record.value(), e);
+                complete(tracker, offset);
+                return;
+            } catch (Exception e) {
+                log.error("Failed to process message: {}", record.value(), e);
+                complete(tracker, offset);
+                return;
+            }
+
+            Timer.Sample sample = Timer.start(meterRegistry);
+            // Saga 시작은 sagaId 의 lane 에서 실행한다. 서로 다른 saga 는 병렬로 시작된다.
+            UUID sagaId = assignSagaId(task);
+            sagaLaneExecutor.submit(sagaId, () -> increaseMoneySaga.beginIncreaseMoneySaga(task))
+                    .whenComplete((startedSagaId, throwable) -> {
+                        sample.stop(Timer.builder("task.consumer.processing")
+                                .description("task 레코드를 읽은 뒤 saga 시작이 끝날 때까지 걸린 시간")
+                                .tag("topic", partition.topic())
+                                .tag("partition", String.valueOf(partition.partition()))
+                                .tag("outcome", throwable == null ? "success" : "error")
+                                .register(meterRegistry));
+                        if (throwable != null) {
+                            log.error("Failed to process message: {}", record.value(), throwable);
+                        } else {
+                            log.info("Successfully processed task: {} with saga tracking, sagaId: {}",
+                                task.getTaskID(), startedSagaId);
+                        }
+                        complete(tracker, offset);
+                    });
+        }
+
+        private void complete(TaskPartitionTracker tracker, long offset) {
+            tracker.completed(offset);
+            completedSinceCommit.incrementAndGet();
+        }
+
+        // 처리 중인 레코드가 너무 많이 쌓인 파티션은 잠시 멈추고, 절반 아래로 줄면 다시 읽는다
+        private void applyBackpressure() {
+            for (Map.Entry<TopicPartition, TaskPartitionTracker> entry : trackers.entrySet()) {
+                TopicPartition partition = entry.getKey();
+                int inFlight = entry.getValue().inFlightCount();
+                if (inFlight >= maxInFlightPerPartition && paused.add(partition)) {
+                    consumer.pause(Collections.singleton(partition));
+                    log.debug("Paused partition {} with {} records in flight", partition, inFlight);
+                } else if (inFlight < maxInFlightPerPartition / 2 && paused.remove(partition)) {
+                    consumer.resume(Collections.singleton(partition));
+                }
+            }
+        }
+
+        private void maybeCommit() {
+            long now = System.currentTimeMillis();
+            if (completedSinceCommit.get() < commitBatchSize && now - lastCommitAt < commitIntervalMillis) {
+                return;
+            }
+            completedSinceCommit.set(0);
+            lastCommitAt = now;
+
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            trackers.forEach((partition, tracker) -> {
+                long candidate = tracker.commitCandidate();
+                if (candidate >= 0) {
+                    offsets.put(partition, new OffsetAndMetadata(candidate));
+                    tracker.committed(candidate);
+                }
+            });
+            if (!offsets.isEmpty()) {
+                consumer.commitAsync(offsets, (committed, exception) -> {
+                    if (exception != null) {
+                        log.warn("Failed to commit offsets: {}", committed, exception);
+                        committed.keySet().forEach(partition -> {
+                            TaskPartitionTracker tracker = trackers.get(partition);
+                            if (tracker != null) {
+                                tracker.commitFailed();
+                            }
+                        });
+                    }
+                });
+            }
+            updateLags();
+        }
+
+        private void updateLags() {
+            if (trackers.isEmpty()) {
+                return;
+            }
+            try {
+                Map<TopicPartition, Long> endOffsets = consumer.endOffsets(trackers.keySet(), Duration.ofSeconds(1));
+                endOffsets.forEach((partition, endOffset) -> {
+                    long completed = trackers.get(partition).completedOffset();
+                    if (completed >= 0) {
+                        lagOf(partition).set(Math.max(0, endOffset - completed));
+                    }
+                });
+            } catch (Exception e) {
+                log.debug("Failed to read end offsets for lag: {}", e.getMessage());
+            }
+        }
+
+        private void commitSync(Collection<TopicPartition> partitions) {
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                TaskPartitionTracker tracker = trackers.get(partition);
+                long completed = tracker == null ? -1 : tracker.completedOffset();
+                if (completed >= 0) {
+                    offsets.put(partition, new OffsetAndMetadata(completed));
+                }
+            }
+            if (!offsets.isEmpty()) {
+                consumer.commitSync(offsets);
+                log.debug("Offsets committed synchronously: {}", offsets);
+            }
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            // 뺏기는 파티션의 처리 중인 레코드를 기다린 뒤 끝난 데까지 커밋한다
+            long deadline = System.currentTimeMillis() + revokeTimeoutMillis;
+            for (TopicPartition partition : partitions) {
+                TaskPartitionTracker tracker = trackers.get(partition);
+                while (tracker != null && tracker.inFlightCount() > 0 && System.currentTimeMillis() < deadline) {
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            try {
+                commitSync(partitions);
+            } catch (Exception e) {
+                log.warn("Failed to commit offsets for revoked partitions: {}", partitions, e);
+            }
+            partitions.forEach(partition -> {
+                trackers.remove(partition);
+                paused.remove(partition);
+                lagOf(partition).set(0);
+            });
+            log.info("Partitions revoked: {}", partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            log.info("Partitions assigned: {}", partitions);
+        }
+
+        private void stop() {
+            running = false;
+            consumer.wakeup();
+        }
     }
 }
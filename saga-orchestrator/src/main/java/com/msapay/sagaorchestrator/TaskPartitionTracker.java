@@ -0,0 +1,58 @@
+package com.msapay.sagaorchestrator;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 파티션 하나에서 처리 중인 offset 을 추적해 커밋해도 되는 offset 을 계산한다.
+ * 레코드는 offset 순서대로 dispatch 되므로, 아직 끝나지 않은 가장 작은 offset 앞까지는 모두 처리된 것이다.
+ * dispatch/커밋 계산은 consumer 스레드에서, 완료 표시는 saga lane 스레드에서 호출된다.
+ */
+final class TaskPartitionTracker {
+
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    // 마지막으로 dispatch 한 offset + 1. consumer 스레드에서만 쓴다.
+    private long nextOffset = -1;
+    // 마지막으로 커밋을 요청한 offset. consumer 스레드에서만 쓴다.
+    private long committedOffset = -1;
+
+    void dispatched(long offset) {
+        inFlight.add(offset);
+        nextOffset = offset + 1;
+    }
+
+    void completed(long offset) {
+        inFlight.remove(offset);
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * 처리가 끝난 연속 구간의 다음 offset. 마지막 커밋 이후 진전이 없으면 -1.
+     */
+    long commitCandidate() {
+        long candidate = completedOffset();
+        return candidate > committedOffset ? candidate : -1;
+    }
+
+    /**
+     * 처리가 끝난 연속 구간의 다음 offset. 진전 여부와 관계없이 돌려주며, 아직 dispatch 한 레코드가 없으면 -1.
+     */
+    long completedOffset() {
+        if (nextOffset < 0) {
+            return -1;
+        }
+        Long oldestInFlight = inFlight.ceiling(0L);
+        return oldestInFlight == null ? nextOffset : oldestInFlight;
+    }
+
+    void committed(long offset) {
+        committedOffset = offset;
+    }
+
+    // 비동기 커밋이 실패하면 다음 커밋 때 다시 보내도록 한다
+    void commitFailed() {
+        committedOffset = -1;
+    }
+}
@@ -1,7 +1,7 @@
 package com.msapay.sagaorchestrator;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msapay.common.codec.JsonCodec;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,9 +16,12 @@ public class TaskResultProducer {
     
     private final KafkaProducer<String, String> producer;
     private final String topic;
+    private final JsonCodec jsonCodec;
 
     public TaskResultProducer(@Value("${kafka.clusters.bootstrapservers}") String bootstrapServers,
-                              @Value("${task.result.topic}")String topic) {
+                              @Value("${task.result.topic}")String topic,
+                              JsonCodec jsonCodec) {
+        this.jsonCodec = jsonCodec;
 
         Properties props = new Properties();
         props.put("bootstrap.servers", bootstrapServers);
@@ -30,10 +33,9 @@ public class TaskResultProducer {
     }
 
     public void sendTaskResult (String key, Object task) {
-        ObjectMapper objectMapper = new ObjectMapper();
         String jsonStringToProduce;
         try {
-            jsonStringToProduce = objectMapper.writeValueAsString(task);
+            jsonStringToProduce = jsonCodec.write(task);
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
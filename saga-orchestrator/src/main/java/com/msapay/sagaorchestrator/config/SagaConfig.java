@@ -1,14 +1,28 @@
 package com.msapay.sagaorchestrator.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msapay.common.codec.JsonCodec;
+import com.msapay.common.outbox.OutboxEventDispatcher;
+import com.msapay.common.outbox.LateOutboxRepository;
+import com.msapay.common.outbox.OutboxRelayOffsetRepository;
 import com.msapay.common.outbox.OutboxScheduler;
 import com.msapay.common.outbox.OutboxRepository;
+import com.msapay.common.outbox.OutboxTailer;
+import com.msapay.common.saga.SagaMessage;
+import com.msapay.common.saga.SagaMessageListenerFactory;
+import com.msapay.common.saga.SagaMessageSender;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @Configuration
@@ -16,17 +30,45 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @EnableScheduling
 @EntityScan(basePackages = {"com.msapay.sagaorchestrator.framework", "com.msapay.common.outbox"})
 @EnableJpaRepositories(basePackages = {"com.msapay.sagaorchestrator.repository", "com.msapay.common.outbox"})
+// common 패키지는 스캔하지 않으므로 outbox dispatcher 와 JSON 코덱을 직접 등록한다
+@Import({OutboxEventDispatcher.class, JsonCodec.class})
 public class SagaConfig {
     @Bean
-    public ObjectMapper objectMapper() {
-        return new ObjectMapper();
+    public ObjectMapper objectMapper(JsonCodec jsonCodec) {
+        return jsonCodec.mapper();
     }
 
+    // saga 명령/결과 토픽 전용 producer/consumer. saga.message.format=json 이면 디버깅용 JSON 으로 보낸다.
+    @Bean
+    SagaMessageSender sagaMessageSender(KafkaProperties kafkaProperties,
+                                        @Value("${saga.message.format:binary}") String format) {
+        return new SagaMessageSender(kafkaProperties, format);
+    }
+
+    @Bean(name = SagaMessageListenerFactory.BEAN_NAME)
+    ConcurrentKafkaListenerContainerFactory<String, SagaMessage> sagaMessageListenerContainerFactory(KafkaProperties kafkaProperties) {
+        return SagaMessageListenerFactory.create(kafkaProperties);
+    }
 
 
+    // outbox.relay.mode=polling(기본): SKIP LOCKED batch polling, tailing: sequence_no 순서로 따라가며 발행
     @Bean
-    OutboxScheduler outboxScheduler(OutboxRepository outboxRepository, @Value("${kafka.clusters.bootstrapservers}") String bootstrapServers) {
-        return new OutboxScheduler(outboxRepository, bootstrapServers);
+    @ConditionalOnProperty(name = "outbox.relay.mode", havingValue = "polling", matchIfMissing = true)
+    OutboxScheduler outboxScheduler(OutboxRepository outboxRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${kafka.clusters.bootstrapservers}") String bootstrapServers) {
+        return new OutboxScheduler(outboxRepository, transactionManager, meterRegistry, bootstrapServers);
     }
-}
 
+    @Bean
+    @ConditionalOnProperty(name = "outbox.relay.mode", havingValue = "tailing")
+    OutboxTailer outboxTailer(OutboxRepository outboxRepository,
+                              OutboxRelayOffsetRepository offsetRepository,
+                              LateOutboxRepository lateOutboxRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${kafka.clusters.bootstrapservers}") String bootstrapServers) {
+        return new OutboxTailer(outboxRepository, offsetRepository, lateOutboxRepository, transactionManager, meterRegistry, bootstrapServers);
+    }
+}
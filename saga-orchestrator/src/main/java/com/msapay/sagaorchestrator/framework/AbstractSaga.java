@@ -0,0 +1,313 @@
+package com.msapay.sagaorchestrator.framework;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static com.msapay.sagaorchestrator.framework.SagaStepStatus.*;
+
+/**
+ * SagaDefinition 을 따라 단계를 진행하는 saga.
+ * 구현체는 정의와 이벤트 발행 방법만 제공하고, 단계 결과/기한 초과 처리는 여기서 공통으로 한다.
+ * <ul>
+ *     <li>init: 선행 단계가 없는 단계들을 함께 시작한다.</li>
+ *     <li>단계 성공: 선행 단계가 모두 성공한 다음 단계들을 시작하고, 모든 단계가 성공하면 onCompleted 를 호출한다.</li>
+ *     <li>단계 실패: 실패한 단계와 진행 중이거나 성공한 단계를 선언의 역순으로 보상한다.</li>
+ * </ul>
+ * 빈은 상태를 갖지 않으며, 같은 saga 에 대한 호출은 SagaLaneExecutor 의 같은 lane 에서 순서대로 들어온다고 가정한다.
+ * 진행 중인 단계가 있는 동안 saga 에 deadline 을 걸어 두고, 기한이 지나면 SagaTimeoutSweeper 가 onStepTimeout 을 호출한다.
+ */
+@Slf4j
+@Transactional(isolation = org.springframework.transaction.annotation.Isolation.READ_COMMITTED)
+public abstract class AbstractSaga implements Saga {
+
+    protected final SagaDefinition definition;
+    protected final SagaStateStore sagaStateStore;
+
+    protected AbstractSaga(SagaDefinition definition, SagaStateStore sagaStateStore) {
+        this.definition = definition;
+        this.sagaStateStore = sagaStateStore;
+    }
+
+    public SagaDefinition definition() {
+        return definition;
+    }
+
+    /**
+     * 이벤트를 발행한다. 단계 요청/보상 이벤트 타입은 정의에 선언한 값이 넘어온다.
+     */
+    protected abstract void publish(UUID sagaId, String eventType, JsonNode payload);
+
+    /**
+     * 모든 단계가 성공했을 때 호출된다.
+     */
+    protected void onCompleted(SagaState sagaState) {
+        log.info("Saga completed: {}", sagaState.id());
+    }
+
+    /**
+     * 단계가 실패해 saga 가 중단되었을 때, 보상 이벤트를 발행한 뒤 호출된다.
+     */
+    protected void onAborted(SagaState sagaState) {
+        log.info("Saga aborted: {}", sagaState.id());
+    }
+
+    protected Duration timeoutOf(SagaStepDefinition step) {
+        return step.timeout();
+    }
+
+    protected int maxAttemptsOf(SagaStepDefinition step) {
+        return step.maxAttempts();
+    }
+
+    protected SagaState newSagaState(UUID sagaId, JsonNode payload) {
+        return new SagaState(definition, sagaId, payload);
+    }
+
+    /**
+     * 비관적 락으로 조회하고 정의를 연결한다. 없으면 null.
+     */
+    protected SagaState loadSagaState(UUID sagaId) {
+        SagaState sagaState = sagaStateStore.findSagaStateByIdWithLock(sagaId);
+        if (sagaState != null) {
+            sagaState.bind(definition);
+        }
+        return sagaState;
+    }
+
+    @Override
+    public void init(SagaState sagaState) {
+        try {
+            // Saga 초기화 시 이벤트 발행
+            publish(sagaState.id(), "SAGA_INIT", JsonNodeFactory.instance.objectNode());
+
+            sagaState.updateStepStatus(SagaDefinition.INIT_STEP, SUCCEEDED);
+            List<SagaStepDefinition> started = startSteps(sagaState, definition.rootSteps());
+
+            // 전체 Saga 상태 재계산 (저장은 호출한 쪽에서 한 번에 한다)
+            sagaState.advanceSagaStatus();
+
+            log.info("{} saga initialized: {}, starting steps: {}", definition.type(), sagaState.id(), started);
+            requestSteps(sagaState, started);
+
+        } catch (Exception e) {
+            log.error("Failed to initialize {} saga: {}", definition.type(), sagaState.id(), e);
+            sagaState.updateStepStatus(SagaDefinition.INIT_STEP, FAILED);
+        }
+    }
+
+    /**
+     * 단계 결과를 반영한다. 이미 끝난 단계나 saga 에 대한 결과(중복 전달)는 무시한다.
+     */
+    public void onStepResult(UUID sagaId, String stepName, boolean success) {
+        SagaStepDefinition step = definition.step(stepName);
+        SagaState sagaState = null;
+        try {
+            // saga 상태는 이벤트마다 데이터베이스에서 비관적 락으로 조회한다
+            sagaState = loadSagaState(sagaId);
+            if (sagaState == null) {
+                log.error("SagaState not found for saga: {}", sagaId);
+                return;
+            }
+
+            SagaStepStatus currentStatus = sagaState.stepStatus(stepName);
+            if (currentStatus == SUCCEEDED || currentStatus == FAILED
+                    || currentStatus == COMPENSATING || currentStatus == COMPENSATED) {
+                log.info("Step {} already processed for saga: {} with status: {}", stepName, sagaId, currentStatus);
+                return;
+            }
+            if (sagaState.sagaStatus() == SagaStatus.COMPLETED || sagaState.sagaStatus() == SagaStatus.ABORTED) {
+                log.info("Saga already {} for saga: {}, skipping step {}", sagaState.sagaStatus(), sagaId, stepName);
+                return;
+            }
+
+            if (success) {
+                onStepSucceeded(sagaState, step);
+            } else {
+                log.error("Step {} failed for saga: {}", stepName, sagaId);
+                failAndCompensate(sagaState, List.of(step));
+            }
+
+        } catch (Exception e) {
+            log.error("Failed to process step {} result for saga: {}", stepName, sagaId, e);
+            if (sagaState != null) {
+                sagaState.updateStepStatus(stepName, FAILED);
+            }
+        } finally {
+            // 이 이벤트에서 바뀐 상태를 한 번의 UPDATE 로 저장한다
+            if (sagaState != null) {
+                sagaStateStore.saveSagaState(sagaState);
+            }
+        }
+    }
+
+    /**
+     * 진행 중인 단계의 결과 기한이 지났을 때 SagaTimeoutSweeper 가 saga 의 lane 에서 호출한다.
+     * 재시도 횟수가 남았으면 진행 중인 단계의 요청 이벤트를 다시 발행하고, 아니면 단계를 실패 처리하고 보상한다.
+     */
+    public TimeoutAction onStepTimeout(UUID sagaId) {
+        SagaState sagaState = null;
+        try {
+            sagaState = loadSagaState(sagaId);
+            if (sagaState == null || sagaState.sagaStatus() != SagaStatus.STARTED || sagaState.deadline() == null) {
+                // 그 사이 결과가 도착해 끝났거나 다른 노드가 처리 중이다
+                return TimeoutAction.SKIPPED;
+            }
+
+            List<SagaStepDefinition> running = runningSteps(sagaState);
+            if (running.isEmpty()) {
+                sagaState.deadline(null);
+                return TimeoutAction.SKIPPED;
+            }
+
+            int maxAttempts = Integer.MAX_VALUE;
+            for (SagaStepDefinition step : running) {
+                maxAttempts = Math.min(maxAttempts, maxAttemptsOf(step));
+            }
+            if (sagaState.attempts() + 1 < maxAttempts) {
+                sagaState.incrementAttempts();
+                log.warn("Steps {} timed out for saga: {}, retrying (attempt {}/{})",
+                        running, sagaId, sagaState.attempts() + 1, maxAttempts);
+                sagaState.deadline(deadlineAfter(longestTimeout(running)));
+                requestSteps(sagaState, running);
+                return TimeoutAction.RETRIED;
+            }
+
+            log.error("Steps {} timed out for saga: {} after {} attempts, compensating",
+                    running, sagaId, sagaState.attempts() + 1);
+            failAndCompensate(sagaState, running);
+            return TimeoutAction.COMPENSATED;
+        } finally {
+            if (sagaState != null) {
+                sagaStateStore.saveSagaState(sagaState);
+            }
+        }
+    }
+
+    public enum TimeoutAction {
+        SKIPPED, RETRIED, COMPENSATED
+    }
+
+    private void onStepSucceeded(SagaState sagaState, SagaStepDefinition step) {
+        sagaState.updateStepStatus(step.name(), SUCCEEDED);
+
+        // 이 단계를 기다리던 단계 중 선행 단계가 모두 끝난 것만 시작한다
+        List<SagaStepDefinition> ready = new ArrayList<>();
+        for (SagaStepDefinition next : step.dependents()) {
+            if (definition.isReady(next, sagaState.stepBits())) {
+                ready.add(next);
+            }
+        }
+        List<SagaStepDefinition> started = startSteps(sagaState, ready);
+        if (started.isEmpty() && !definition.containsStatus(sagaState.stepBits(), STARTED)) {
+            sagaState.deadline(null);
+        }
+
+        sagaState.advanceSagaStatus();
+        log.info("Step {} completed for saga: {}, status: {}, next steps: {}",
+                step.name(), sagaState.id(), sagaState.sagaStatus(), started);
+
+        requestSteps(sagaState, started);
+
+        if (sagaState.sagaStatus() == SagaStatus.COMPLETED) {
+            onCompleted(sagaState);
+        }
+    }
+
+    private void failAndCompensate(SagaState sagaState, Collection<SagaStepDefinition> failed) {
+        for (SagaStepDefinition step : failed) {
+            sagaState.updateStepStatus(step.name(), FAILED);
+        }
+        sagaState.deadline(null);
+        sagaState.advanceSagaStatus();
+
+        // 실패한 단계와, 이미 효과가 생겼을 수 있는 진행 중/성공한 단계를 역순으로 되돌린다
+        List<SagaStepDefinition> steps = definition.steps();
+        for (int i = steps.size() - 1; i > 0; i--) {
+            SagaStepDefinition step = steps.get(i);
+            if (step.compensationEventType() == null) {
+                continue;
+            }
+            SagaStepStatus status = sagaState.stepStatus(step.name());
+            if (failed.contains(step) || status == STARTED || status == SUCCEEDED) {
+                compensate(sagaState, step);
+            }
+        }
+        sagaState.advanceSagaStatus();
+        if (sagaState.sagaStatus() == SagaStatus.ABORTED) {
+            onAborted(sagaState);
+        }
+    }
+
+    private void compensate(SagaState sagaState, SagaStepDefinition step) {
+        try {
+            publish(sagaState.id(), step.compensationEventType(), sagaState.payload());
+            sagaState.updateStepStatus(step.name(), COMPENSATED);
+            log.info("Compensated step {} for saga: {}", step.name(), sagaState.id());
+        } catch (Exception e) {
+            log.error("Failed to compensate step {} for saga: {}", step.name(), sagaState.id(), e);
+        }
+    }
+
+    // 단계를 STARTED 로 표시하고 기한을 건다. 요청 발행은 상태를 확정한 뒤 requestSteps 로 한다.
+    private List<SagaStepDefinition> startSteps(SagaState sagaState, List<SagaStepDefinition> steps) {
+        if (steps.isEmpty()) {
+            return steps;
+        }
+        for (SagaStepDefinition step : steps) {
+            sagaState.updateStepStatus(step.name(), STARTED);
+            sagaState.currentStep(step.name());
+        }
+        sagaState.resetAttempts();
+        LocalDateTime deadline = deadlineAfter(longestTimeout(steps));
+        if (sagaState.deadline() == null || deadline.isAfter(sagaState.deadline())) {
+            sagaState.deadline(deadline);
+        }
+        return steps;
+    }
+
+    private void requestSteps(SagaState sagaState, List<SagaStepDefinition> steps) {
+        for (SagaStepDefinition step : steps) {
+            try {
+                publish(sagaState.id(), step.requestEventType(), sagaState.payload());
+                log.info("Requested step {} for saga: {}", step.name(), sagaState.id());
+            } catch (Exception e) {
+                log.error("Failed to request step {} for saga: {}", step.name(), sagaState.id(), e);
+                sagaState.updateStepStatus(step.name(), FAILED);
+            }
+        }
+    }
+
+    private List<SagaStepDefinition> runningSteps(SagaState sagaState) {
+        List<SagaStepDefinition> running = new ArrayList<>();
+        for (SagaStepDefinition step : definition.steps()) {
+            if (step.slot() > 0 && sagaState.stepStatus(step.name()) == STARTED) {
+                running.add(step);
+            }
+        }
+        return running;
+    }
+
+    private Duration longestTimeout(List<SagaStepDefinition> steps) {
+        Duration longest = Duration.ZERO;
+        for (SagaStepDefinition step : steps) {
+            Duration timeout = timeoutOf(step);
+            if (timeout.compareTo(longest) > 0) {
+                longest = timeout;
+            }
+        }
+        return longest;
+    }
+
+    private static LocalDateTime deadlineAfter(Duration timeout) {
+        return LocalDateTime.now().plus(timeout);
+    }
+}
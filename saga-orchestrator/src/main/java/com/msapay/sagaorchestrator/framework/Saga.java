@@ -1,9 +1,7 @@
 package com.msapay.sagaorchestrator.framework;
 
-import java.util.UUID;
-
 public interface Saga {
 
-    void init();
+    void init(SagaState sagaState);
 }
 
@@ -0,0 +1,275 @@
+package com.msapay.sagaorchestrator.framework;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * saga 의 단계, 보상, 제한 시간, 선행 단계를 선언한다.
+ * <pre>
+ * SagaDefinition.builder("INCREASE_MONEY")
+ *     .step("FIRMBANKING")
+ *         .request("REQUEST_FIRMBANKING").compensation("COMPENSATE_FIRMBANKING")
+ *     .step("INCREASE_MONEY").dependsOn("FIRMBANKING")
+ *         .request("REQUEST_INCREASE_MONEY").compensation("COMPENSATE_INCREASE_MONEY")
+ *     .build();
+ * </pre>
+ * 선행 단계가 없는 단계끼리는 init 에서 함께 시작되고, 선행 단계가 모두 성공한 단계는 바로 시작된다.
+ * 단계 상태는 SagaState.step_bits 에 단계마다 4비트로 들어가며, slot 0 은 암묵적인 INIT 단계다.
+ * 완료/실패 판정과 다음 단계 판정에 쓰는 마스크는 여기서 미리 계산해 두므로 단계 수와 관계없이 비트 연산 몇 번으로 끝난다.
+ */
+public final class SagaDefinition {
+
+    public static final String INIT_STEP = "INIT";
+
+    static final int BITS_PER_STEP = 4;
+    static final long STEP_MASK = (1L << BITS_PER_STEP) - 1;
+    // 64비트에 들어가는 slot 수 (INIT 포함)
+    private static final int MAX_SLOTS = Long.SIZE / BITS_PER_STEP;
+
+    private final String type;
+    private final List<SagaStepDefinition> steps;
+    private final Map<String, SagaStepDefinition> stepsByName;
+    private final List<SagaStepDefinition> rootSteps;
+
+    // 선언된 slot 전체, INIT 을 뺀 slot, 모두 SUCCEEDED 일 때의 값
+    private final long usedMask;
+    private final long coreMask;
+    private final long coreSucceeded;
+    // slot 마다 0x1 / 0x8. 특정 상태인 단계가 있는지 한 번에 확인하는 데 쓴다.
+    private final long lowBits;
+    private final long highBits;
+
+    private SagaDefinition(String type, List<SagaStepDefinition> steps) {
+        this.type = type;
+        this.steps = Collections.unmodifiableList(steps);
+
+        Map<String, SagaStepDefinition> byName = new HashMap<>();
+        List<SagaStepDefinition> roots = new ArrayList<>();
+        long used = 0, core = 0, succeeded = 0, low = 0, high = 0;
+        for (SagaStepDefinition step : steps) {
+            byName.put(step.name(), step);
+            used |= STEP_MASK << step.shift();
+            low |= 1L << step.shift();
+            high |= 8L << step.shift();
+            if (step.slot() == 0) {
+                continue;
+            }
+            core |= STEP_MASK << step.shift();
+            succeeded |= code(SagaStepStatus.SUCCEEDED) << step.shift();
+
+            if (step.dependsOn().isEmpty()) {
+                roots.add(step);
+            }
+            for (String dependency : step.dependsOn()) {
+                SagaStepDefinition required = byName.get(dependency);
+                step.dependencyMask |= STEP_MASK << required.shift();
+                step.dependencySucceeded |= code(SagaStepStatus.SUCCEEDED) << required.shift();
+                required.dependents.add(step);
+            }
+        }
+        this.stepsByName = Collections.unmodifiableMap(byName);
+        this.rootSteps = Collections.unmodifiableList(roots);
+        this.usedMask = used;
+        this.coreMask = core;
+        this.coreSucceeded = succeeded;
+        this.lowBits = low;
+        this.highBits = high;
+    }
+
+    public static Builder builder(String type) {
+        return new Builder(type);
+    }
+
+    public String type() {
+        return type;
+    }
+
+    /**
+     * INIT 을 포함한 전체 단계 (slot 순서).
+     */
+    public List<SagaStepDefinition> steps() {
+        return steps;
+    }
+
+    /**
+     * 선행 단계가 없어 init 에서 함께 시작하는 단계들.
+     */
+    public List<SagaStepDefinition> rootSteps() {
+        return rootSteps;
+    }
+
+    public SagaStepDefinition step(String name) {
+        SagaStepDefinition step = stepsByName.get(name);
+        if (step == null) {
+            throw new IllegalArgumentException("Unknown saga step: " + name + " (saga type: " + type + ")");
+        }
+        return step;
+    }
+
+    /**
+     * 단계 상태 조합으로 saga 상태를 정한다.
+     * 1. 단계 상태 없음 -> STARTED
+     * 2. INIT 외 모든 단계 SUCCEEDED -> COMPLETED
+     * 3. FAILED 또는 COMPENSATED 포함 -> ABORTED
+     * 4. COMPENSATING 포함, STARTED 없음 -> ABORTING
+     * 5. 그 외 -> STARTED
+     */
+    public SagaStatus statusOf(long stepBits) {
+        long bits = stepBits & usedMask;
+        if (bits == 0) {
+            return SagaStatus.STARTED;
+        }
+        if ((bits & coreMask) == coreSucceeded) {
+            return SagaStatus.COMPLETED;
+        }
+        if (containsStatus(bits, SagaStepStatus.FAILED) || containsStatus(bits, SagaStepStatus.COMPENSATED)) {
+            return SagaStatus.ABORTED;
+        }
+        if (containsStatus(bits, SagaStepStatus.COMPENSATING) && !containsStatus(bits, SagaStepStatus.STARTED)) {
+            return SagaStatus.ABORTING;
+        }
+        return SagaStatus.STARTED;
+    }
+
+    /**
+     * 어떤 단계라도 주어진 상태인지. 상태 코드와 XOR 해 0 이 된 nibble 이 있는지를 한 번에 확인한다.
+     */
+    public boolean containsStatus(long stepBits, SagaStepStatus status) {
+        long x = (stepBits & usedMask) ^ (lowBits * code(status));
+        return ((x - lowBits) & ~x & highBits) != 0;
+    }
+
+    /**
+     * 아직 시작하지 않았고 선행 단계가 모두 성공한 단계인지.
+     */
+    public boolean isReady(SagaStepDefinition step, long stepBits) {
+        return ((stepBits >>> step.shift()) & STEP_MASK) == 0
+                && (stepBits & step.dependencyMask) == step.dependencySucceeded;
+    }
+
+    SagaStepStatus statusOf(SagaStepDefinition step, long stepBits) {
+        int code = (int) ((stepBits >>> step.shift()) & STEP_MASK);
+        return code == 0 ? null : SagaStepStatus.values()[code - 1];
+    }
+
+    static long withStatus(SagaStepDefinition step, long stepBits, SagaStepStatus status) {
+        return (stepBits & ~(STEP_MASK << step.shift())) | (code(status) << step.shift());
+    }
+
+    private static long code(SagaStepStatus status) {
+        return status.ordinal() + 1;
+    }
+
+    public static final class Builder {
+
+        private final String type;
+        private final List<StepBuilder> steps = new ArrayList<>();
+
+        private Builder(String type) {
+            if (type == null || type.trim().isEmpty()) {
+                throw new IllegalArgumentException("Saga type cannot be null or empty");
+            }
+            this.type = type;
+        }
+
+        public StepBuilder step(String name) {
+            if (name == null || name.trim().isEmpty()) {
+                throw new IllegalArgumentException("Step name cannot be null or empty");
+            }
+            if (INIT_STEP.equals(name)) {
+                throw new IllegalArgumentException(INIT_STEP + " is reserved");
+            }
+            for (StepBuilder step : steps) {
+                if (step.name.equals(name)) {
+                    throw new IllegalArgumentException("Duplicate saga step: " + name);
+                }
+            }
+            if (steps.size() + 1 >= MAX_SLOTS) {
+                throw new IllegalArgumentException("A saga can declare at most " + (MAX_SLOTS - 1) + " steps");
+            }
+            StepBuilder step = new StepBuilder(this, name);
+            steps.add(step);
+            return step;
+        }
+
+        public SagaDefinition build() {
+            // slot 순서는 선언 순서이므로 저장된 saga 와 호환되려면 단계를 뒤에만 추가한다
+            List<SagaStepDefinition> definitions = new ArrayList<>(steps.size() + 1);
+            definitions.add(new SagaStepDefinition(INIT_STEP, 0, null, null, null, 1, Collections.emptyList()));
+            List<String> declared = new ArrayList<>();
+            for (StepBuilder step : steps) {
+                if (step.requestEventType == null) {
+                    throw new IllegalArgumentException("Step " + step.name + " has no request event");
+                }
+                for (String dependency : step.dependsOn) {
+                    // 앞에서 선언한 단계만 참조할 수 있으므로 순환이 생기지 않는다
+                    if (!declared.contains(dependency)) {
+                        throw new IllegalArgumentException(
+                                "Step " + step.name + " depends on " + dependency + " which is not declared before it");
+                    }
+                }
+                declared.add(step.name);
+                definitions.add(new SagaStepDefinition(step.name, definitions.size(), step.requestEventType,
+                        step.compensationEventType, step.timeout, step.maxAttempts, step.dependsOn));
+            }
+            return new SagaDefinition(type, definitions);
+        }
+    }
+
+    public static final class StepBuilder {
+
+        private final Builder parent;
+        private final String name;
+        private final List<String> dependsOn = new ArrayList<>();
+        private String requestEventType;
+        private String compensationEventType;
+        private Duration timeout = Duration.ofSeconds(30);
+        private int maxAttempts = 3;
+
+        private StepBuilder(Builder parent, String name) {
+            this.parent = parent;
+            this.name = name;
+        }
+
+        public StepBuilder request(String eventType) {
+            this.requestEventType = eventType;
+            return this;
+        }
+
+        public StepBuilder compensation(String eventType) {
+            this.compensationEventType = eventType;
+            return this;
+        }
+
+        public StepBuilder timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        public StepBuilder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be positive");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public StepBuilder dependsOn(String... steps) {
+            this.dependsOn.addAll(Arrays.asList(steps));
+            return this;
+        }
+
+        public StepBuilder step(String name) {
+            return parent.step(name);
+        }
+
+        public SagaDefinition build() {
+            return parent.build();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.msapay.sagaorchestrator.framework;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * saga 이벤트를 sagaId 해시로 고른 단일 스레드 lane 에서 실행한다.
+ * 같은 saga 의 시작/결과 처리는 항상 같은 lane 에서 도착 순서대로 실행되므로 saga 별 락 없이 순서가 지켜지고,
+ * 서로 다른 saga 는 lane 수만큼 병렬로 진행된다. lane 별 대기 작업 수는 saga.lane.depth 로 기록한다.
+ */
+@Slf4j
+@Component
+public class SagaLaneExecutor {
+
+    private final ThreadPoolExecutor[] lanes;
+
+    public SagaLaneExecutor(@Value("${saga.lanes.count:8}") int laneCount,
+                            MeterRegistry meterRegistry) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("saga.lanes.count must be positive: " + laneCount);
+        }
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String laneName = "saga-lane-" + i;
+            ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), r -> new Thread(r, laneName));
+            lanes[i] = lane;
+            Gauge.builder("saga.lane.depth", lane, executor -> executor.getQueue().size())
+                    .description("lane 에서 실행을 기다리는 saga 이벤트 수")
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        log.info("Saga lane executor started with {} lanes", laneCount);
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * sagaId 의 lane 에서 작업을 실행하고 결과를 돌려준다.
+     */
+    public <T> CompletableFuture<T> submit(UUID sagaId, Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, laneOf(sagaId));
+    }
+
+    /**
+     * sagaId 의 lane 에서 작업을 실행한다. 실패는 로그로만 남긴다.
+     */
+    public void execute(UUID sagaId, Runnable work) {
+        laneOf(sagaId).execute(() -> {
+            try {
+                work.run();
+            } catch (Exception e) {
+                log.error("Saga lane task failed for saga: {}", sagaId, e);
+            }
+        });
+    }
+
+    ThreadPoolExecutor laneOf(UUID sagaId) {
+        int hash = sagaId.hashCode();
+        // UUID.hashCode 의 상위 비트도 lane 선택에 반영한다
+        hash ^= (hash >>> 16);
+        return lanes[Math.floorMod(hash, lanes.length)];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutting down saga lanes");
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            try {
+                if (!lane.awaitTermination(5, TimeUnit.SECONDS)) {
+                    log.warn("Saga lane did not drain in time, {} tasks left", lane.getQueue().size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -12,53 +12,102 @@ import org.hibernate.annotations.TypeDef;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
-import java.util.EnumSet;
-import java.util.Set;
 import java.util.UUID;
 
-import static com.msapay.sagaorchestrator.framework.SagaStepStatus.*;
 import static lombok.AccessLevel.PRIVATE;
 
+/**
+ * saga 진행 상태.
+ * 단계별 상태는 JSON 대신 step_bits 한 컬럼에 단계마다 4비트(0 = 없음, SagaStepStatus.ordinal + 1)로 저장하고,
+ * 단계의 위치와 saga 상태 판정은 type 에 해당하는 SagaDefinition 을 따른다. 조회한 상태는 bind 로 정의를 연결한 뒤 쓴다.
+ * payload 는 생성할 때 한 번만 기록한다. 변경은 SagaStateService 가 version 으로 보호되는 좁은 UPDATE 로 반영하며,
+ * 이벤트 하나를 처리하는 동안의 변경은 dirty 표시만 해 두었다가 한 번에 쓴다.
+ * 진행 중인 단계에는 deadline 을 두어, 결과 메시지가 유실되면 SagaTimeoutSweeper 가 재시도하거나 보상한다.
+ */
 @Entity
-@Table(name = "sagastate")
+@Table(name = "saga_state",
+        indexes = @Index(name = "ix_saga_state_status_deadline", columnList = "saga_status, deadline"))
 @TypeDef(name = "json", typeClass = JsonType.class)
 @NoArgsConstructor(access = PRIVATE, force = true) // JPA compliant
 @Accessors(fluent = true)
 @Slf4j
 public class SagaState {
-    
+
     @Id
+    @Column(columnDefinition = "BINARY(16)")
     private UUID id;
 
-    @Column(name = "type", nullable = false)
+    @Column(name = "type", nullable = false, length = 32)
     private String type;
 
     @Type(type = "json")
-    @Column(columnDefinition = "json", nullable = false)
+    @Column(columnDefinition = "json", nullable = false, updatable = false)
     private JsonNode payload;
 
-    @Column(name = "current_step")
+    @Column(name = "current_step", length = 32)
     private String currentStep;
 
-    @Type(type = "json")
-    @Column(columnDefinition = "json", nullable = false)
-    private ObjectNode stepStatus;
+    @Column(name = "step_bits", nullable = false)
+    private long stepBits;
 
-    @Enumerated(EnumType.STRING)
-    @Column(name = "saga_status", nullable = false)
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "saga_status", nullable = false, columnDefinition = "TINYINT")
     private SagaStatus sagaStatus;
-    
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    // 현재 단계의 결과를 기다리는 기한. 끝난 saga 는 null.
+    @Column(name = "deadline")
+    private LocalDateTime deadline;
+
+    // 현재 단계의 재시도 횟수
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
-    public SagaState(String sagaType, JsonNode payload) {
-        this.id = UUID.randomUUID();
-        this.type = sagaType;
+    // 저장된 행이 있는지, 마지막 저장 이후 바뀌었는지
+    @Transient
+    private boolean persisted;
+
+    @Transient
+    private boolean dirty;
+
+    @Transient
+    private SagaDefinition definition;
+
+    public SagaState(SagaDefinition definition, JsonNode payload) {
+        this(definition, UUID.randomUUID(), payload);
+    }
+
+    public SagaState(SagaDefinition definition, UUID id, JsonNode payload) {
+        this.id = id;
+        this.type = definition.type();
+        this.definition = definition;
         this.payload = payload;
         this.sagaStatus = SagaStatus.STARTED;
-        this.stepStatus = JsonNodeFactory.instance.objectNode();
-        this.currentStep = "INIT"; // 기본값 설정
+        this.currentStep = SagaDefinition.INIT_STEP; // 기본값 설정
         this.createdAt = LocalDateTime.now();
+        this.dirty = true;
+    }
+
+    @PostLoad
+    void markLoaded() {
+        this.persisted = true;
+        this.dirty = false;
+    }
+
+    /**
+     * 조회한 상태에 saga 정의를 연결한다. type 이 다른 정의는 연결할 수 없다.
+     */
+    public SagaState bind(SagaDefinition definition) {
+        if (!definition.type().equals(type)) {
+            throw new IllegalStateException("Saga " + id + " of type " + type + " cannot be bound to " + definition.type());
+        }
+        this.definition = definition;
+        return this;
     }
 
     public UUID id() {
@@ -74,9 +123,12 @@ public class SagaState {
     }
 
     public void currentStep(String currentStep) {
-        this.currentStep = currentStep;
+        if (!currentStep.equals(this.currentStep)) {
+            this.currentStep = currentStep;
+            this.dirty = true;
+        }
     }
-    
+
     public String type() {
         return type;
     }
@@ -88,128 +140,124 @@ public class SagaState {
         if (sagaStepStatus == null) {
             throw new IllegalArgumentException("SagaStepStatus cannot be null");
         }
-        
-        if (this.stepStatus == null) {
-            this.stepStatus = JsonNodeFactory.instance.objectNode();
+
+        long updated = SagaDefinition.withStatus(definition().step(step), stepBits, sagaStepStatus);
+        if (updated != stepBits) {
+            stepBits = updated;
+            dirty = true;
         }
-        
-        this.stepStatus.put(step, sagaStepStatus.name());
     }
 
-    // SagaSteps To SagaStatus:
-    // 1. SUCCEEDED -> COMPLETED
-    // 2. STARTED, SUCCEEDED -> STARTED
-    // 3. FAILED, COMPENSATED -> ABORTED
-    // 4. COMPENSATING, other -> ABORTING
+    /**
+     * 단계 상태. 아직 시작하지 않은 단계는 null.
+     */
+    public SagaStepStatus stepStatus(String step) {
+        SagaDefinition definition = definition();
+        return definition.statusOf(definition.step(step), stepBits);
+    }
+
+    /**
+     * 단계 상태 조합으로 saga 상태를 다시 정한다. 판정 규칙은 SagaDefinition.statusOf 참고.
+     */
     public void advanceSagaStatus() {
-        var stepStatusSet = stepStatusToSet();
-        log.info("advanceSagaStatus called - current stepStatusSet: {}, current sagaStatus: {}", 
-            stepStatusSet, sagaStatus);
-        
-        if (stepStatusSet.isEmpty()) {
-            sagaStatus = SagaStatus.STARTED;
-            log.info("Step status set is empty, setting sagaStatus to STARTED");
-            return;
-        }
-        
-        var bitmask = stepStatusSet.stream()
-                .mapToInt(status -> 1 << status.ordinal())
-                .reduce(0, (a, b) -> a | b);
-        
-        log.info("Calculated bitmask: {} for stepStatusSet: {}", bitmask, stepStatusSet);
-
-        // INIT 단계를 제외한 핵심 단계들만 확인
-        Set<String> coreSteps = Set.of("FIRMBANKING", "INCREASE_MONEY");
-        boolean allCoreStepsSucceeded = true;
-        
-        for (String stepName : coreSteps) {
-            if (stepStatus.has(stepName)) {
-                String stepStatusText = stepStatus.get(stepName).asText();
-                if (!"SUCCEEDED".equals(stepStatusText)) {
-                    allCoreStepsSucceeded = false;
-                    break;
-                }
-            } else {
-                allCoreStepsSucceeded = false;
-                break;
-            }
-        }
-        
-        // STARTED 상태가 있는지 확인
-        boolean hasStarted = stepStatusSet.contains(STARTED);
-        // FAILED나 COMPENSATED 상태가 있는지 확인
-        boolean hasFailedOrCompensated = stepStatusSet.stream().anyMatch(status -> status == FAILED || status == COMPENSATED);
-        // COMPENSATING 상태가 있는지 확인
-        boolean hasCompensating = stepStatusSet.contains(COMPENSATING);
-        
-        log.info("Status analysis - allCoreStepsSucceeded: {}, hasStarted: {}, hasFailedOrCompensated: {}, hasCompensating: {}", 
-            allCoreStepsSucceeded, hasStarted, hasFailedOrCompensated, hasCompensating);
-        
-        if (allCoreStepsSucceeded) {
-            sagaStatus = SagaStatus.COMPLETED;
-            log.info("All core steps succeeded, setting sagaStatus to COMPLETED");
-        } else if (hasStarted && !hasFailedOrCompensated) {
-            sagaStatus = SagaStatus.STARTED;
-            log.info("Some steps still in progress, keeping sagaStatus as STARTED");
-        } else if (hasFailedOrCompensated) {
-            sagaStatus = SagaStatus.ABORTED;
-            log.info("Some steps failed/compensated, setting sagaStatus to ABORTED");
-        } else if (hasCompensating) {
-            sagaStatus = SagaStatus.ABORTING;
-            log.info("Some steps are compensating, setting sagaStatus to ABORTING");
-        } else {
-            sagaStatus = SagaStatus.STARTED;
-            log.info("Default case, setting sagaStatus to STARTED");
+        SagaStatus next = definition().statusOf(stepBits);
+        if (log.isDebugEnabled()) {
+            log.debug("advanceSagaStatus - steps: {}, sagaStatus: {} -> {}", getStepStatus(), sagaStatus, next);
         }
-        
-        log.info("Final sagaStatus set to: {}", sagaStatus);
-    }
-
-    private EnumSet<SagaStepStatus> stepStatusToSet() {
-        EnumSet<SagaStepStatus> allStatus = EnumSet.noneOf(SagaStepStatus.class);
-        
-        log.info("stepStatusToSet called - current stepStatus: {}", stepStatus);
-        
-        if (stepStatus == null || stepStatus.isEmpty()) {
-            log.info("stepStatus is null or empty, returning empty set");
-            return allStatus;
+        setSagaStatus(next);
+    }
+
+    public SagaDefinition definition() {
+        if (definition == null) {
+            throw new IllegalStateException("Saga " + id + " of type " + type + " is not bound to a SagaDefinition");
         }
-        
-        stepStatus.fields()
-                .forEachRemaining(entry -> {
-                    try {
-                        String statusText = entry.getValue().asText();
-                        if (statusText != null && !statusText.trim().isEmpty()) {
-                            SagaStepStatus status = SagaStepStatus.valueOf(statusText);
-                            allStatus.add(status);
-                            log.info("Added step status: {} for step: {}", status, entry.getKey());
-                        }
-                    } catch (IllegalArgumentException e) {
-                        log.warn("Invalid saga step status: {}", entry.getValue().asText());
-                    }
-                });
-
-        log.info("Final stepStatusSet: {}", allStatus);
-        return allStatus;
+        return definition;
     }
 
     public SagaStatus sagaStatus() {
         return sagaStatus;
     }
-    
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
-    
-    public ObjectNode getStepStatus() {
-        return stepStatus;
+
+    public long stepBits() {
+        return stepBits;
     }
-    
-    public void setStepStatus(ObjectNode stepStatus) {
-        this.stepStatus = stepStatus;
+
+    public long version() {
+        return version;
+    }
+
+    public LocalDateTime deadline() {
+        return deadline;
+    }
+
+    /**
+     * 현재 단계의 결과 기한을 정한다. 단계가 끝나거나 saga 가 끝나면 null 로 지운다.
+     */
+    public void deadline(LocalDateTime deadline) {
+        if (deadline == null ? this.deadline != null : !deadline.equals(this.deadline)) {
+            this.deadline = deadline;
+            this.dirty = true;
+        }
+    }
+
+    public int attempts() {
+        return attempts;
+    }
+
+    public void incrementAttempts() {
+        this.attempts++;
+        this.dirty = true;
+    }
+
+    public void resetAttempts() {
+        if (this.attempts != 0) {
+            this.attempts = 0;
+            this.dirty = true;
+        }
+    }
+
+    public boolean isPersisted() {
+        return persisted;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * 로그용 단계 상태. 저장에는 쓰지 않는다.
+     */
+    public ObjectNode getStepStatus() {
+        ObjectNode view = JsonNodeFactory.instance.objectNode();
+        SagaDefinition definition = definition();
+        for (SagaStepDefinition step : definition.steps()) {
+            SagaStepStatus status = definition.statusOf(step, stepBits);
+            if (status != null) {
+                view.put(step.name(), status.name());
+            }
+        }
+        return view;
     }
-    
+
     public void setSagaStatus(SagaStatus sagaStatus) {
-        this.sagaStatus = sagaStatus;
+        if (this.sagaStatus != sagaStatus) {
+            this.sagaStatus = sagaStatus;
+            this.dirty = true;
+        }
+    }
+
+    // SagaStateService 가 INSERT/UPDATE 에 성공한 뒤 호출한다
+    public void markInserted() {
+        this.persisted = true;
+        this.dirty = false;
+    }
+
+    public void markUpdated() {
+        this.version++;
+        this.dirty = false;
     }
-}
\ No newline at end of file
+}
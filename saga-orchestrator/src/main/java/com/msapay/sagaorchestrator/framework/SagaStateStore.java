@@ -0,0 +1,16 @@
+package com.msapay.sagaorchestrator.framework;
+
+import java.util.UUID;
+
+/**
+ * AbstractSaga 가 쓰는 saga 상태 저장소.
+ */
+public interface SagaStateStore {
+
+    /**
+     * 비관적 락으로 조회한다. 없으면 null.
+     */
+    SagaState findSagaStateByIdWithLock(UUID id);
+
+    SagaState saveSagaState(SagaState sagaState);
+}
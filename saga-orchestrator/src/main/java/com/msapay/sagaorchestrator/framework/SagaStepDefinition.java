@@ -0,0 +1,81 @@
+package com.msapay.sagaorchestrator.framework;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SagaDefinition 에 선언된 단계 하나. step_bits 안의 위치와 선행 단계 마스크는 정의를 만들 때 계산해 둔다.
+ */
+public final class SagaStepDefinition {
+
+    private final String name;
+    private final int slot;
+    private final String requestEventType;
+    private final String compensationEventType;
+    private final Duration timeout;
+    private final int maxAttempts;
+    private final List<String> dependsOn;
+
+    // 선행 단계들의 nibble 마스크와, 모두 SUCCEEDED 일 때의 값
+    long dependencyMask;
+    long dependencySucceeded;
+    // 이 단계가 성공했을 때 시작될 수 있는 단계들
+    final List<SagaStepDefinition> dependents = new ArrayList<>();
+
+    SagaStepDefinition(String name, int slot, String requestEventType, String compensationEventType,
+                       Duration timeout, int maxAttempts, List<String> dependsOn) {
+        this.name = name;
+        this.slot = slot;
+        this.requestEventType = requestEventType;
+        this.compensationEventType = compensationEventType;
+        this.timeout = timeout;
+        this.maxAttempts = maxAttempts;
+        this.dependsOn = Collections.unmodifiableList(new ArrayList<>(dependsOn));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int slot() {
+        return slot;
+    }
+
+    int shift() {
+        return slot * SagaDefinition.BITS_PER_STEP;
+    }
+
+    public String requestEventType() {
+        return requestEventType;
+    }
+
+    /**
+     * 보상 이벤트 타입. 보상이 필요 없는 단계는 null.
+     */
+    public String compensationEventType() {
+        return compensationEventType;
+    }
+
+    public Duration timeout() {
+        return timeout;
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    public List<String> dependsOn() {
+        return dependsOn;
+    }
+
+    public List<SagaStepDefinition> dependents() {
+        return Collections.unmodifiableList(dependents);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
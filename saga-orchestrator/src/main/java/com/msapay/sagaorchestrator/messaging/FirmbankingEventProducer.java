@@ -1,10 +1,11 @@
 package com.msapay.sagaorchestrator.messaging;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.msapay.common.saga.SagaCommandMessage;
+import com.msapay.common.saga.SagaMessageSender;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
@@ -14,17 +15,16 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class FirmbankingEventProducer {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final SagaMessageSender sagaMessageSender;
     
     @Value("${kafka.topics.firmbanking-request}")
     private String topic;
 
     public void sendFirmbankingRequestEvent(UUID sagaId, JsonNode payload) {
         try {
-            String message = createFirmbankingRequestMessage(sagaId, payload);
-            String key = sagaId.toString();
+            SagaCommandMessage message = createFirmbankingRequestMessage(sagaId, payload);
             
-            kafkaTemplate.send(topic, key, message);
+            sagaMessageSender.send(topic, message);
             
             log.info("Firmbanking request event sent to topic: {} for saga: {}", topic, sagaId);
             
@@ -34,10 +34,9 @@ public class FirmbankingEventProducer {
         }
     }
 
-    private String createFirmbankingRequestMessage(UUID sagaId, JsonNode payload) {
-        return String.format(
-            "{\"sagaId\":\"%s\",\"taskId\":\"%s\",\"membershipId\":\"%s\",\"amount\":%d,\"timestamp\":\"%s\"}",
-            sagaId.toString(),
+    private SagaCommandMessage createFirmbankingRequestMessage(UUID sagaId, JsonNode payload) {
+        return new SagaCommandMessage(
+            sagaId,
             payload.get("taskId").asText(),
             payload.get("membershipId").asText(),
             payload.get("moneyAmount").asInt(),
@@ -1,10 +1,11 @@
 package com.msapay.sagaorchestrator.messaging;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.msapay.common.saga.SagaCommandMessage;
+import com.msapay.common.saga.SagaMessageSender;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
@@ -14,17 +15,19 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class MoneyIncreaseEventProducer {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final SagaMessageSender sagaMessageSender;
     
     @Value("${kafka.topics.money-increase-request}")
     private String topic;
 
+    @Value("${kafka.topics.compensate-increase-money}")
+    private String compensateTopic;
+
     public void sendMoneyIncreaseRequestEvent(UUID sagaId, JsonNode payload) {
         try {
-            String message = createMoneyIncreaseRequestMessage(sagaId, payload);
-            String key = sagaId.toString();
+            SagaCommandMessage message = createMoneyIncreaseRequestMessage(sagaId, payload);
             
-            kafkaTemplate.send(topic, key, message);
+            sagaMessageSender.send(topic, message);
             
             log.info("Money increase request event sent to topic: {} for saga: {}", topic, sagaId);
             
@@ -34,10 +37,21 @@ public class MoneyIncreaseEventProducer {
         }
     }
 
-    private String createMoneyIncreaseRequestMessage(UUID sagaId, JsonNode payload) {
-        return String.format(
-            "{\"sagaId\":\"%s\",\"taskId\":\"%s\",\"membershipId\":\"%s\",\"amount\":%d,\"timestamp\":\"%s\"}",
-            sagaId.toString(),
+    public void sendCompensateIncreaseMoneyEvent(UUID sagaId, JsonNode payload) {
+        try {
+            sagaMessageSender.send(compensateTopic, createMoneyIncreaseRequestMessage(sagaId, payload));
+
+            log.info("Compensate increase money event sent to topic: {} for saga: {}", compensateTopic, sagaId);
+
+        } catch (Exception e) {
+            log.error("Failed to send compensate increase money event for saga: {}", sagaId, e);
+            throw new RuntimeException("Failed to send compensate increase money event", e);
+        }
+    }
+
+    private SagaCommandMessage createMoneyIncreaseRequestMessage(UUID sagaId, JsonNode payload) {
+        return new SagaCommandMessage(
+            sagaId,
             payload.get("taskId").asText(),
             payload.get("membershipId").asText(),
             payload.get("moneyAmount").asInt(),
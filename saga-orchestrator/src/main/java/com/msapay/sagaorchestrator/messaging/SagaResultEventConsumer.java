@@ -1,7 +1,7 @@
 package com.msapay.sagaorchestrator.messaging;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.msapay.common.saga.SagaMessageListenerFactory;
+import com.msapay.common.saga.SagaResultMessage;
 import com.msapay.sagaorchestrator.saga.SagaEventListener;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,67 +10,69 @@ import org.springframework.stereotype.Component;
 
 import java.util.UUID;
 
+/**
+ * 참여 서비스의 단계/보상 결과를 받는다. SagaMessageDeserializer 가 binary/JSON 어느 형식이든 SagaResultMessage 로 읽어 넘긴다.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class SagaResultEventConsumer {
 
-    private final ObjectMapper objectMapper;
     private final SagaEventListener sagaEventListener;
 
-    @KafkaListener(topics = "${kafka.topics.firmbanking-result}", groupId = "saga-orchestrator-group")
-    public void consumeFirmbankingResult(String message) {
+    @KafkaListener(topics = "${kafka.topics.firmbanking-result}", groupId = "saga-orchestrator-group",
+            containerFactory = SagaMessageListenerFactory.BEAN_NAME)
+    public void consumeFirmbankingResult(SagaResultMessage result) {
         try {
-            log.info("Received firmbanking result: {}", message);
+            log.info("Received firmbanking result: {}", result);
             
-            JsonNode result = objectMapper.readTree(message);
-            String sagaId = result.get("sagaId").asText();
-            boolean success = result.get("success").asBoolean();
-            String reason = result.get("reason").asText();
+            UUID sagaId = result.getSagaId();
+            boolean success = result.isSuccess();
+            String reason = result.getReason();
             
             log.info("Processing firmbanking result - sagaId: {}, success: {}, reason: {}", 
                 sagaId, success, reason);
             
             // SagaEventListener에 결과 전달
-            sagaEventListener.handleFirmbankingResponse(UUID.fromString(sagaId), success, reason);
+            sagaEventListener.handleFirmbankingResponse(sagaId, success, reason);
             
         } catch (Exception e) {
-            log.error("Failed to process firmbanking result: {}", message, e);
+            log.error("Failed to process firmbanking result: {}", result, e);
         }
     }
 
-    @KafkaListener(topics = "${kafka.topics.money-increase-result}", groupId = "saga-orchestrator-group")
-    public void consumeMoneyIncreaseResult(String message) {
+    @KafkaListener(topics = "${kafka.topics.money-increase-result}", groupId = "saga-orchestrator-group",
+            containerFactory = SagaMessageListenerFactory.BEAN_NAME)
+    public void consumeMoneyIncreaseResult(SagaResultMessage result) {
         try {
-            log.info("Received money increase result: {}", message);
+            log.info("Received money increase result: {}", result);
             
-            JsonNode result = objectMapper.readTree(message);
-            String sagaId = result.get("sagaId").asText();
-            boolean success = result.get("success").asBoolean();
-            String reason = result.get("reason").asText();
+            UUID sagaId = result.getSagaId();
+            boolean success = result.isSuccess();
+            String reason = result.getReason();
             
             log.info("Processing money increase result - sagaId: {}, success: {}, reason: {}", 
                 sagaId, success, reason);
             
             // SagaEventListener에 결과 전달
-            sagaEventListener.handleMoneyIncreaseResponse(UUID.fromString(sagaId), success, reason);
+            sagaEventListener.handleMoneyIncreaseResponse(sagaId, success, reason);
             
         } catch (Exception e) {
-            log.error("Failed to process money increase result: {}", message, e);
+            log.error("Failed to process money increase result: {}", result, e);
         }
     }
 
     // 보상 트랜잭션 결과 처리: 머니 증가 보상 결과
-    @KafkaListener(topics = "${kafka.topics.compensate-increase-money-result}", groupId = "saga-orchestrator-group")
-    public void consumeCompensateIncreaseMoneyResult(String message) {
+    @KafkaListener(topics = "${kafka.topics.compensate-increase-money-result}", groupId = "saga-orchestrator-group",
+            containerFactory = SagaMessageListenerFactory.BEAN_NAME)
+    public void consumeCompensateIncreaseMoneyResult(SagaResultMessage result) {
         try {
-            log.info("Received compensate increase money result: {}", message);
+            log.info("Received compensate increase money result: {}", result);
             
-            JsonNode result = objectMapper.readTree(message);
-            String sagaId = result.get("sagaId").asText();
-            boolean success = result.get("success").asBoolean();
-            String reason = result.get("reason").asText();
-            String type = result.has("type") ? result.get("type").asText() : "COMPENSATE_INCREASE_MONEY";
+            UUID sagaId = result.getSagaId();
+            boolean success = result.isSuccess();
+            String reason = result.getReason();
+            String type = result.getType() != null ? result.getType() : "COMPENSATE_INCREASE_MONEY";
             
             log.info("Processing compensate increase money result - sagaId: {}, success: {}, reason: {}, type: {}", 
                 sagaId, success, reason, type);
@@ -84,21 +86,21 @@ public class SagaResultEventConsumer {
             }
             
         } catch (Exception e) {
-            log.error("Failed to process compensate increase money result: {}", message, e);
+            log.error("Failed to process compensate increase money result: {}", result, e);
         }
     }
 
     // 보상 트랜잭션 결과 처리: 펌뱅킹 보상 결과
-    @KafkaListener(topics = "${kafka.topics.compensate-firmbanking-result}", groupId = "saga-orchestrator-group")
-    public void consumeCompensateFirmbankingResult(String message) {
+    @KafkaListener(topics = "${kafka.topics.compensate-firmbanking-result}", groupId = "saga-orchestrator-group",
+            containerFactory = SagaMessageListenerFactory.BEAN_NAME)
+    public void consumeCompensateFirmbankingResult(SagaResultMessage result) {
         try {
-            log.info("Received compensate firmbanking result: {}", message);
+            log.info("Received compensate firmbanking result: {}", result);
             
-            JsonNode result = objectMapper.readTree(message);
-            String sagaId = result.get("sagaId").asText();
-            boolean success = result.get("success").asBoolean();
-            String reason = result.get("reason").asText();
-            String type = result.has("type") ? result.get("type").asText() : "COMPENSATE_FIRMBANKING";
+            UUID sagaId = result.getSagaId();
+            boolean success = result.isSuccess();
+            String reason = result.getReason();
+            String type = result.getType() != null ? result.getType() : "COMPENSATE_FIRMBANKING";
             
             log.info("Processing compensate firmbanking result - sagaId: {}, success: {}, reason: {}, type: {}", 
                 sagaId, success, reason, type);
@@ -112,7 +114,7 @@ public class SagaResultEventConsumer {
             }
             
         } catch (Exception e) {
-            log.error("Failed to process compensate firmbanking result: {}", message, e);
+            log.error("Failed to process compensate firmbanking result: {}", result, e);
         }
     }
 }
@@ -13,6 +13,7 @@ import java.util.UUID;
 public interface SagaStateRepository extends JpaRepository<SagaState, UUID> {
     
     // Native SQL을 사용하여 강력한 비관적 락 설정
-    @Query(value = "SELECT * FROM sagastate WHERE id = :id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    // SKIP LOCKED 를 쓰면 SagaTimeoutSweeper 가 같은 행을 잡고 있을 때 결과가 "없음"으로 버려지므로 락이 풀릴 때까지 기다린다
+    @Query(value = "SELECT * FROM saga_state WHERE id = :id FOR UPDATE", nativeQuery = true)
     Optional<SagaState> findByIdWithLock(@Param("id") UUID id);
 }
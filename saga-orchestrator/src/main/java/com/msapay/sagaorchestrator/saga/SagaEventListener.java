@@ -7,13 +7,20 @@ import com.msapay.sagaorchestrator.messaging.increaseMoneyStatus;
 import com.msapay.sagaorchestrator.messaging.firmbankingStatus;
 import com.msapay.sagaorchestrator.messaging.MoneyIncreaseEventProducer;
 import com.msapay.sagaorchestrator.messaging.FirmbankingEventProducer;
+import com.msapay.sagaorchestrator.framework.SagaLaneExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.UUID;
 
+/**
+ * saga 가 발행한 단계 요청을 각 서비스 토픽으로 보낸다.
+ * saga 상태를 저장한 트랜잭션이 커밋된 뒤에 보내므로, 응답이 먼저 도착해 saga 를 찾지 못하는 일이 없다.
+ * 트랜잭션 밖에서 발행된 이벤트는 바로 보낸다.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -22,8 +29,9 @@ public class SagaEventListener {
     private final IncreaseMoneySaga increaseMoneySaga;
     private final MoneyIncreaseEventProducer moneyIncreaseEventProducer;
     private final FirmbankingEventProducer firmbankingEventProducer;
+    private final SagaLaneExecutor sagaLaneExecutor;
 
-    @EventListener
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
     public void handleIncreaseMoneyRequest(SagaEvent event) {
         if ("REQUEST_INCREASE_MONEY".equals(event.type())) {
             try {
@@ -38,7 +46,7 @@ public class SagaEventListener {
         }
     }
 
-    @EventListener
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
     public void handleFirmbankingRequest(SagaEvent event) {
         if ("REQUEST_FIRMBANKING".equals(event.type())) {
             try {
@@ -53,22 +61,38 @@ public class SagaEventListener {
         }
     }
 
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleCompensateIncreaseMoney(SagaEvent event) {
+        if ("COMPENSATE_INCREASE_MONEY".equals(event.type())) {
+            try {
+                log.info("Processing COMPENSATE_INCREASE_MONEY event for saga: {}", event.aggregateId());
+
+                // money-service 가 머니 증가를 되돌리고 충전 요청을 실패로 닫는다
+                moneyIncreaseEventProducer.sendCompensateIncreaseMoneyEvent(event.aggregateId(), event.payload());
+
+            } catch (Exception e) {
+                log.error("Failed to process COMPENSATE_INCREASE_MONEY event for saga: {}", event.aggregateId(), e);
+            }
+        }
+    }
+
+    // 결과 처리는 saga 의 lane 에서 실행해 같은 saga 의 다른 이벤트와 순서를 맞춘다
     public void handleMoneyIncreaseResponse(UUID sagaId, boolean success, String reason) {
         try {
             UUID eventId = UUID.randomUUID();
             
             if (success) {
                 log.info("Money increase completed successfully for saga: {}", sagaId);
-                increaseMoneySaga.onIncreaseMoneyEvent(
+                sagaLaneExecutor.execute(sagaId, () -> increaseMoneySaga.onIncreaseMoneyEvent(
                     eventId,
                     new increaseMoneyEvent(increaseMoneyStatus.COMPLETED, sagaId, eventId)
-                );
+                ));
             } else {
                 log.error("Money increase failed for saga: {} - reason: {}", sagaId, reason);
-                increaseMoneySaga.onIncreaseMoneyEvent(
+                sagaLaneExecutor.execute(sagaId, () -> increaseMoneySaga.onIncreaseMoneyEvent(
                     eventId,
                     new increaseMoneyEvent(increaseMoneyStatus.FAILED, sagaId, eventId)
-                );
+                ));
             }
             
         } catch (Exception e) {
@@ -82,16 +106,16 @@ public class SagaEventListener {
             
             if (success) {
                 log.info("Firmbanking completed successfully for saga: {}", sagaId);
-                increaseMoneySaga.onFirmbankingEvent(
+                sagaLaneExecutor.execute(sagaId, () -> increaseMoneySaga.onFirmbankingEvent(
                     eventId,
                     new firmbankingEvent(firmbankingStatus.COMPLETED, sagaId, eventId)
-                );
+                ));
             } else {
                 log.error("Firmbanking failed for saga: {} - reason: {}", sagaId, reason);
-                increaseMoneySaga.onFirmbankingEvent(
+                sagaLaneExecutor.execute(sagaId, () -> increaseMoneySaga.onFirmbankingEvent(
                     eventId,
                     new firmbankingEvent(firmbankingStatus.FAILED, sagaId, eventId)
-                );
+                ));
             }
             
         } catch (Exception e) {
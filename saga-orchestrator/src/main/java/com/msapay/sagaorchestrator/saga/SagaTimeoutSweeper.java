@@ -0,0 +1,129 @@
+package com.msapay.sagaorchestrator.saga;
+
+import com.msapay.sagaorchestrator.framework.AbstractSaga;
+import com.msapay.sagaorchestrator.framework.SagaLaneExecutor;
+import com.msapay.sagaorchestrator.service.SagaStateService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 결과 메시지가 유실되어 STARTED 상태로 멈춘 saga 를 찾아 다시 진행시킨다.
+ * (saga_status, deadline) 인덱스로 기한이 지난 saga 만 SKIP LOCKED 로 batch 단위로 잡으므로
+ * saga 가 많아도 전체를 훑지 않고, 여러 노드가 동시에 돌아도 같은 saga 를 두 번 잡지 않는다.
+ * 잡은 saga 는 saga 의 lane 에서 type 에 해당하는 AbstractSaga.onStepTimeout 으로 재시도하거나 보상한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "saga.sweeper.enabled", havingValue = "true", matchIfMissing = true)
+public class SagaTimeoutSweeper {
+
+    private final SagaStateService sagaStateService;
+    private final Map<String, AbstractSaga> sagasByType = new HashMap<>();
+    private final SagaLaneExecutor sagaLaneExecutor;
+
+    @Value("${saga.sweeper.batch-size:200}")
+    private int batchSize;
+
+    @Value("${saga.sweeper.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Value("${saga.sweeper.lease-ms:60000}")
+    private long leaseMillis;
+
+    private final AtomicLong stuckCount = new AtomicLong();
+    private final AtomicLong oldestStuckSeconds = new AtomicLong();
+    private final Counter claimedCounter;
+    private final Counter retriedCounter;
+    private final Counter compensatedCounter;
+
+    public SagaTimeoutSweeper(SagaStateService sagaStateService,
+                              List<AbstractSaga> sagas,
+                              SagaLaneExecutor sagaLaneExecutor,
+                              MeterRegistry meterRegistry) {
+        this.sagaStateService = sagaStateService;
+        for (AbstractSaga saga : sagas) {
+            sagasByType.put(saga.definition().type(), saga);
+        }
+        this.sagaLaneExecutor = sagaLaneExecutor;
+
+        Gauge.builder("saga.stuck.count", stuckCount, AtomicLong::get)
+                .description("deadline 이 지났는데 STARTED 상태인 saga 수")
+                .register(meterRegistry);
+        Gauge.builder("saga.stuck.oldest-age", oldestStuckSeconds, AtomicLong::get)
+                .description("가장 오래 멈춰 있는 saga 의 deadline 경과 시간")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.claimedCounter = Counter.builder("saga.timeout.claimed").register(meterRegistry);
+        this.retriedCounter = Counter.builder("saga.timeout.handled").tag("action", "retried").register(meterRegistry);
+        this.compensatedCounter = Counter.builder("saga.timeout.handled").tag("action", "compensated").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${saga.sweeper.interval-ms:5000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            refreshStuckGauges(now);
+        } catch (Exception e) {
+            log.warn("Failed to read stuck saga stats: {}", e.getMessage());
+        }
+
+        LocalDateTime leaseUntil = now.plus(Duration.ofMillis(leaseMillis));
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<SagaStateService.ClaimedSaga> claimed;
+            try {
+                claimed = sagaStateService.claimExpiredSagas(now, batchSize, leaseUntil);
+            } catch (Exception e) {
+                log.error("Failed to claim expired sagas", e);
+                return;
+            }
+            if (claimed.isEmpty()) {
+                return;
+            }
+            claimedCounter.increment(claimed.size());
+            log.info("Claimed {} expired sagas", claimed.size());
+
+            for (SagaStateService.ClaimedSaga claimedSaga : claimed) {
+                AbstractSaga saga = sagasByType.get(claimedSaga.getType());
+                if (saga == null) {
+                    log.warn("No saga registered for type: {}, saga: {}", claimedSaga.getType(), claimedSaga.getId());
+                    continue;
+                }
+                sagaLaneExecutor.submit(claimedSaga.getId(), () -> saga.onStepTimeout(claimedSaga.getId()))
+                        .whenComplete((action, throwable) -> {
+                            if (throwable != null) {
+                                // lease 가 끝나면 다시 잡힌다
+                                log.error("Failed to recover expired saga: {}", claimedSaga.getId(), throwable);
+                            } else if (action == AbstractSaga.TimeoutAction.RETRIED) {
+                                retriedCounter.increment();
+                            } else if (action == AbstractSaga.TimeoutAction.COMPENSATED) {
+                                compensatedCounter.increment();
+                            }
+                        });
+            }
+            if (claimed.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private void refreshStuckGauges(LocalDateTime now) {
+        SagaStateService.StuckSagas stuckSagas = sagaStateService.findStuckSagas(now);
+        stuckCount.set(stuckSagas.getCount());
+        oldestStuckSeconds.set(stuckSagas.getOldestDeadline() == null
+                ? 0
+                : Duration.between(stuckSagas.getOldestDeadline(), now).getSeconds());
+    }
+}
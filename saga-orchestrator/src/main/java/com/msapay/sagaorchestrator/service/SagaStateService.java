@@ -1,118 +1,169 @@
 package com.msapay.sagaorchestrator.service;
 
 import com.msapay.sagaorchestrator.framework.SagaState;
+import com.msapay.sagaorchestrator.framework.SagaStateStore;
+import com.msapay.sagaorchestrator.framework.SagaStatus;
 import com.msapay.sagaorchestrator.repository.SagaStateRepository;
 import com.msapay.common.UseCase;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * saga 상태 저장소. JdbcTemplate 으로 직접 SQL 을 실행한다 (Hibernate 우회).
+ * 새 saga 는 payload 를 포함해 한 번 INSERT 하고, 이후에는 바뀐 경우에만 진행 상태 컬럼만 UPDATE 한다.
+ * UPDATE 는 version 이 일치할 때만 적용되므로 다른 노드가 먼저 바꾼 상태를 덮어쓰지 않는다.
+ */
 @UseCase
-@RequiredArgsConstructor
 @Transactional(isolation = org.springframework.transaction.annotation.Isolation.READ_COMMITTED)
 @Slf4j
-public class SagaStateService {
+public class SagaStateService implements SagaStateStore {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO saga_state (id, type, payload, current_step, step_bits, saga_status, version, deadline, attempts, created_at) " +
+            "VALUES (UUID_TO_BIN(?), ?, ?, ?, ?, ?, 0, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+            "UPDATE saga_state SET current_step = ?, step_bits = ?, saga_status = ?, deadline = ?, attempts = ?, version = version + 1 " +
+            "WHERE id = UUID_TO_BIN(?) AND version = ?";
+
+    // ix_saga_state_status_deadline 의 (saga_status = ?, deadline < ?) 범위만 읽는다
+    private static final String CLAIM_EXPIRED_SQL =
+            "SELECT BIN_TO_UUID(id), type FROM saga_state WHERE saga_status = ? AND deadline < ? " +
+            "ORDER BY deadline LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    // version 은 올리지 않는다. lane 에서 읽어 둔 상태의 UPDATE 가 lease 때문에 낙관적 락 충돌로 실패하지 않도록,
+    // 아직 기한이 지난 STARTED 일 때만 deadline 만 옮긴다.
+    private static final String LEASE_SQL =
+            "UPDATE saga_state SET deadline = ? WHERE id = UUID_TO_BIN(?) AND saga_status = ? AND deadline < ?";
+
+    private static final String STUCK_STATS_SQL =
+            "SELECT COUNT(*), MIN(deadline) FROM saga_state WHERE saga_status = ? AND deadline < ?";
 
     private final SagaStateRepository sagaStateRepository;
     private final JdbcTemplate jdbcTemplate;
 
-    public SagaState saveSagaState(SagaState sagaState) {
-        try {
-            // INSERT ... ON DUPLICATE KEY UPDATE를 사용하여 자동으로 삽입 또는 업데이트
-            insertNewSagaStateDirectly(sagaState);
-            log.debug("Successfully saved saga state: id={}, type={}, status={}", 
-                sagaState.id(), sagaState.type(), sagaState.sagaStatus());
-            return sagaState;
-            
-        } catch (Exception e) {
-            log.error("Failed to save saga state: id={}", sagaState.id(), e);
-            throw new RuntimeException("Failed to save saga state", e);
-        }
+    private final Counter insertCounter;
+    private final Counter updateCounter;
+    private final Counter skippedCounter;
+
+    public SagaStateService(SagaStateRepository sagaStateRepository,
+                            JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry) {
+        this.sagaStateRepository = sagaStateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertCounter = Counter.builder("saga.state.writes").tag("kind", "insert").register(meterRegistry);
+        this.updateCounter = Counter.builder("saga.state.writes").tag("kind", "update").register(meterRegistry);
+        this.skippedCounter = Counter.builder("saga.state.writes").tag("kind", "skipped").register(meterRegistry);
     }
-    
+
     /**
-     * JdbcTemplate을 사용하여 직접 SQL로 업데이트 (Hibernate 완전 우회)
+     * 새 saga 면 INSERT, 저장 후 바뀐 것이 있으면 UPDATE, 아니면 아무것도 하지 않는다.
      */
-    private void updateExistingSagaStateDirectly(SagaState existing, SagaState newData) {
-        try {
-            // UUID를 문자열로 변환하여 직렬화 
-            String sagaId = existing.id().toString();
-            
-            // JdbcTemplate을 사용하여 직접 SQL 실행
-            String sql = "UPDATE sagastate SET current_step = ?, saga_status = ?, step_status = ? WHERE id = UUID_TO_BIN(?)";
-            
-            int updatedRows = jdbcTemplate.update(sql,
-                newData.currentStep(),
-                newData.sagaStatus().name(),
-                newData.getStepStatus().toString(),
-                sagaId  // UUID를 문자열로 전달
-            );
-            
-            if (updatedRows == 0) {
-                log.warn("No rows updated for saga: {}", sagaId);
-            } else {
-                log.debug("Successfully updated {} rows for saga: {}", updatedRows, sagaId);
-            }
-            
-            // 메모리 객체도 업데이트
-            existing.currentStep(newData.currentStep());
-            existing.setStepStatus(newData.getStepStatus());
-            existing.setSagaStatus(newData.sagaStatus());
-            
-            log.debug("Successfully updated saga state directly via JdbcTemplate: id={}", sagaId);
-            
-        } catch (Exception e) {
-            log.error("Failed to update saga state directly via JdbcTemplate: id={}", existing.id(), e);
-            throw new RuntimeException("Failed to update saga state directly", e);
+    @Override
+    public SagaState saveSagaState(SagaState sagaState) {
+        if (!sagaState.isPersisted()) {
+            insertSagaState(sagaState);
+        } else if (sagaState.isDirty()) {
+            updateSagaState(sagaState);
+        } else {
+            skippedCounter.increment();
         }
+        return sagaState;
     }
 
-    /**
-     * JdbcTemplate을 사용하여 새로운 SagaState 직접 삽입 (Hibernate 완전 우회)
-     */
-    private void insertNewSagaStateDirectly(SagaState sagaState) {
+    private void insertSagaState(SagaState sagaState) {
         try {
-            // UUID를 문자열로 변환하여 직렬화
-            String sagaId = sagaState.id().toString();
-            
-            // INSERT ... ON DUPLICATE KEY UPDATE를 사용하여 중복 키 에러 방지
-            String sql = "INSERT INTO sagastate (id, type, payload, current_step, step_status, saga_status, created_at) " +
-                        "VALUES (UUID_TO_BIN(?), ?, ?, ?, ?, ?, ?) " +
-                        "ON DUPLICATE KEY UPDATE " +
-                        "type = VALUES(type), payload = VALUES(payload), current_step = VALUES(current_step), " +
-                        "step_status = VALUES(step_status), saga_status = VALUES(saga_status), created_at = VALUES(created_at)";
-            
-            int affectedRows = jdbcTemplate.update(sql,
-                sagaId,  // UUID를 문자열로 전달
+            jdbcTemplate.update(INSERT_SQL,
+                sagaState.id().toString(),
                 sagaState.type(),
                 sagaState.payload().toString(),
                 sagaState.currentStep(),
-                sagaState.getStepStatus().toString(),
-                sagaState.sagaStatus().name(),
+                sagaState.stepBits(),
+                sagaState.sagaStatus().ordinal(),
+                sagaState.deadline(),
+                sagaState.attempts(),
                 sagaState.getCreatedAt()
             );
-            
-            if (affectedRows == 1) {
-                log.debug("Successfully inserted new saga state: id={}", sagaId);
-            } else if (affectedRows == 2) {
-                log.debug("Updated existing saga state due to duplicate key: id={}", sagaId);
-            } else {
-                log.warn("Unexpected affected rows: {} for saga: {}", affectedRows, sagaId);
-            }
-            
-            log.debug("Successfully processed saga state via JdbcTemplate: id={}", sagaId);
-            
         } catch (Exception e) {
-            log.error("Failed to insert saga state directly via JdbcTemplate: id={}", sagaState.id(), e);
-            throw new RuntimeException("Failed to insert saga state directly", e);
+            log.error("Failed to insert saga state: id={}", sagaState.id(), e);
+            throw new RuntimeException("Failed to insert saga state", e);
+        }
+        sagaState.markInserted();
+        insertCounter.increment();
+        log.debug("Inserted saga state: id={}, type={}, status={}", sagaState.id(), sagaState.type(), sagaState.sagaStatus());
+    }
+
+    private void updateSagaState(SagaState sagaState) {
+        int updatedRows = jdbcTemplate.update(UPDATE_SQL,
+            sagaState.currentStep(),
+            sagaState.stepBits(),
+            sagaState.sagaStatus().ordinal(),
+            sagaState.deadline(),
+            sagaState.attempts(),
+            sagaState.id().toString(),
+            sagaState.version()
+        );
+        if (updatedRows == 0) {
+            throw new OptimisticLockingFailureException(
+                "Saga state was modified concurrently: id=" + sagaState.id() + ", version=" + sagaState.version());
+        }
+        sagaState.markUpdated();
+        updateCounter.increment();
+        log.debug("Updated saga state: id={}, status={}, version={}", sagaState.id(), sagaState.sagaStatus(), sagaState.version());
+    }
+
+    /**
+     * deadline 이 지난 진행 중 saga 를 limit 개까지 잡는다.
+     * 잡은 saga 의 deadline 은 leaseUntil 로 미뤄 두므로, 처리하던 노드가 죽어도 그 뒤에 다시 잡힌다.
+     * lane 이 저장하는 상태가 lease 를 덮어써도 그 상태의 deadline 이 맞으므로 괜찮다.
+     */
+    public List<ClaimedSaga> claimExpiredSagas(LocalDateTime now, int limit, LocalDateTime leaseUntil) {
+        List<ClaimedSaga> claimed = jdbcTemplate.query(CLAIM_EXPIRED_SQL,
+            (rs, rowNum) -> new ClaimedSaga(UUID.fromString(rs.getString(1)), rs.getString(2)),
+            SagaStatus.STARTED.ordinal(), now, limit);
+        if (!claimed.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(claimed.size());
+            for (ClaimedSaga saga : claimed) {
+                args.add(new Object[]{leaseUntil, saga.getId().toString(), SagaStatus.STARTED.ordinal(), now});
+            }
+            jdbcTemplate.batchUpdate(LEASE_SQL, args);
         }
+        return claimed;
+    }
+
+    @Value
+    public static class ClaimedSaga {
+        UUID id;
+        String type;
+    }
+
+    /**
+     * deadline 이 지난 진행 중 saga 의 수와 가장 오래된 deadline.
+     */
+    public StuckSagas findStuckSagas(LocalDateTime now) {
+        return jdbcTemplate.queryForObject(STUCK_STATS_SQL,
+            (rs, rowNum) -> new StuckSagas(rs.getLong(1), rs.getObject(2, LocalDateTime.class)),
+            SagaStatus.STARTED.ordinal(), now);
+    }
+
+    @Value
+    public static class StuckSagas {
+        long count;
+        LocalDateTime oldestDeadline;
     }
 
+    @Override
     public SagaState findSagaStateByIdWithLock(UUID id) {
         try {
             Optional<SagaState> sagaState = sagaStateRepository.findByIdWithLock(id);
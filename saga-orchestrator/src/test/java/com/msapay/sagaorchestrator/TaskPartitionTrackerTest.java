@@ -0,0 +1,42 @@
+package com.msapay.sagaorchestrator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TaskPartitionTrackerTest {
+
+    @Test
+    void commitCandidate_StopsAtOldestInFlightOffset() {
+        TaskPartitionTracker tracker = new TaskPartitionTracker();
+        tracker.dispatched(10);
+        tracker.dispatched(11);
+        tracker.dispatched(12);
+
+        // 뒤 레코드가 먼저 끝나도 앞 레코드가 끝나기 전에는 커밋하지 않는다
+        tracker.completed(12);
+        assertEquals(10, tracker.commitCandidate());
+
+        tracker.completed(10);
+        assertEquals(11, tracker.commitCandidate());
+
+        tracker.completed(11);
+        assertEquals(13, tracker.commitCandidate());
+    }
+
+    @Test
+    void commitCandidate_ReturnsNothingWithoutProgress() {
+        TaskPartitionTracker tracker = new TaskPartitionTracker();
+        assertEquals(-1, tracker.commitCandidate());
+
+        tracker.dispatched(5);
+        tracker.completed(5);
+        tracker.committed(tracker.commitCandidate());
+        assertEquals(-1, tracker.commitCandidate());
+        assertEquals(6, tracker.completedOffset());
+
+        // 비동기 커밋이 실패하면 같은 offset 을 다시 커밋한다
+        tracker.commitFailed();
+        assertEquals(6, tracker.commitCandidate());
+    }
+}
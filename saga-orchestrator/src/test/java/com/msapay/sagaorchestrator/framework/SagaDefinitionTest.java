@@ -0,0 +1,70 @@
+package com.msapay.sagaorchestrator.framework;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SagaDefinitionTest {
+
+    // 회원 검증과 계좌 확인은 함께 시작하고, 둘 다 성공하면 결제한다
+    private final SagaDefinition definition = SagaDefinition.builder("PAYMENT")
+            .step("VALIDATE_MEMBERSHIP").request("REQUEST_VALIDATE_MEMBERSHIP")
+            .step("CHECK_ACCOUNT").request("REQUEST_CHECK_ACCOUNT")
+            .step("PAY").dependsOn("VALIDATE_MEMBERSHIP", "CHECK_ACCOUNT")
+                .request("REQUEST_PAY").compensation("COMPENSATE_PAY")
+            .build();
+
+    @Test
+    void independentStepsStartTogetherAndDependentStepWaitsForAll() {
+        SagaStepDefinition validate = definition.step("VALIDATE_MEMBERSHIP");
+        SagaStepDefinition check = definition.step("CHECK_ACCOUNT");
+        SagaStepDefinition pay = definition.step("PAY");
+        assertEquals(List.of(validate, check), definition.rootSteps());
+        assertEquals(List.of(pay), validate.dependents());
+
+        long bits = SagaDefinition.withStatus(validate, 0, SagaStepStatus.SUCCEEDED);
+        bits = SagaDefinition.withStatus(check, bits, SagaStepStatus.STARTED);
+        assertFalse(definition.isReady(pay, bits));
+        assertEquals(SagaStatus.STARTED, definition.statusOf(bits));
+
+        bits = SagaDefinition.withStatus(check, bits, SagaStepStatus.SUCCEEDED);
+        assertTrue(definition.isReady(pay, bits));
+
+        bits = SagaDefinition.withStatus(pay, bits, SagaStepStatus.STARTED);
+        assertFalse(definition.isReady(pay, bits));
+        bits = SagaDefinition.withStatus(pay, bits, SagaStepStatus.SUCCEEDED);
+        assertEquals(SagaStatus.COMPLETED, definition.statusOf(bits));
+    }
+
+    @Test
+    void statusOfMatchesStepStatusRules() {
+        SagaStepDefinition validate = definition.step("VALIDATE_MEMBERSHIP");
+        SagaStepDefinition check = definition.step("CHECK_ACCOUNT");
+
+        assertEquals(SagaStatus.STARTED, definition.statusOf(0));
+
+        long failed = SagaDefinition.withStatus(validate, 0, SagaStepStatus.FAILED);
+        assertEquals(SagaStatus.ABORTED, definition.statusOf(failed));
+
+        long compensating = SagaDefinition.withStatus(validate, 0, SagaStepStatus.COMPENSATING);
+        assertEquals(SagaStatus.ABORTING, definition.statusOf(compensating));
+        long stillRunning = SagaDefinition.withStatus(check, compensating, SagaStepStatus.STARTED);
+        assertEquals(SagaStatus.STARTED, definition.statusOf(stillRunning));
+
+        assertTrue(definition.containsStatus(stillRunning, SagaStepStatus.STARTED));
+        assertFalse(definition.containsStatus(stillRunning, SagaStepStatus.SUCCEEDED));
+    }
+
+    @Test
+    void dependencyMustBeDeclaredBefore() {
+        assertThrows(IllegalArgumentException.class, () -> SagaDefinition.builder("BROKEN")
+                .step("A").dependsOn("B").request("REQUEST_A")
+                .step("B").request("REQUEST_B")
+                .build());
+    }
+}
@@ -0,0 +1,105 @@
+package com.msapay.sagaorchestrator.framework;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class SagaLaneExecutorTest {
+
+    private final List<SagaLaneExecutor> executors = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executors.forEach(SagaLaneExecutor::shutdown);
+    }
+
+    @Test
+    void eventsOfSameSaga_RunInSubmissionOrder() throws Exception {
+        SagaLaneExecutor executor = newExecutor(4);
+        UUID sagaId = UUID.randomUUID();
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int sequence = i;
+            futures.add(executor.submit(sagaId, () -> {
+                processed.add(sequence);
+                return sequence;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, processed.get(i));
+        }
+    }
+
+    @Test
+    void laneDepth_IsRegisteredPerLane() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SagaLaneExecutor executor = new SagaLaneExecutor(3, meterRegistry);
+        executors.add(executor);
+
+        for (int lane = 0; lane < 3; lane++) {
+            assertNotNull(meterRegistry.find("saga.lane.depth").tag("lane", String.valueOf(lane)).gauge());
+        }
+    }
+
+    // lane 마다 saga 하나씩 넣으면 모든 lane 이 동시에 실행 중이어야 한다
+    @Test
+    void sagasOnDifferentLanes_RunConcurrently() throws Exception {
+        int laneCount = 8;
+        SagaLaneExecutor executor = newExecutor(laneCount);
+        CountDownLatch allRunning = new CountDownLatch(laneCount);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (UUID sagaId : oneSagaPerLane(executor)) {
+            futures.add(executor.submit(sagaId, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                allRunning.countDown();
+                try {
+                    allRunning.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        assertEquals(laneCount, maxRunning.get());
+    }
+
+    private static List<UUID> oneSagaPerLane(SagaLaneExecutor executor) {
+        Map<ThreadPoolExecutor, UUID> sagaIds = new HashMap<>();
+        while (sagaIds.size() < executor.laneCount()) {
+            UUID sagaId = UUID.randomUUID();
+            sagaIds.putIfAbsent(executor.laneOf(sagaId), sagaId);
+        }
+        return new ArrayList<>(sagaIds.values());
+    }
+
+    private SagaLaneExecutor newExecutor(int lanes) {
+        SagaLaneExecutor executor = new SagaLaneExecutor(lanes, new SimpleMeterRegistry());
+        executors.add(executor);
+        return executor;
+    }
+}
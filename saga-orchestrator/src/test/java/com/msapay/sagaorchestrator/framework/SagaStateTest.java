@@ -0,0 +1,54 @@
+package com.msapay.sagaorchestrator.framework;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SagaStateTest {
+
+    private static final SagaDefinition DEFINITION = SagaDefinition.builder("INCREASE_MONEY")
+            .step("FIRMBANKING").request("REQUEST_FIRMBANKING")
+            .step("INCREASE_MONEY").dependsOn("FIRMBANKING").request("REQUEST_INCREASE_MONEY")
+            .build();
+
+    @Test
+    void stepStatus_IsEncodedPerStepInBitmask() {
+        SagaState sagaState = new SagaState(DEFINITION, JsonNodeFactory.instance.objectNode());
+
+        sagaState.updateStepStatus("INIT", SagaStepStatus.SUCCEEDED);
+        sagaState.updateStepStatus("FIRMBANKING", SagaStepStatus.STARTED);
+
+        assertEquals(SagaStepStatus.SUCCEEDED, sagaState.stepStatus("INIT"));
+        assertEquals(SagaStepStatus.STARTED, sagaState.stepStatus("FIRMBANKING"));
+        assertNull(sagaState.stepStatus("INCREASE_MONEY"));
+
+        sagaState.updateStepStatus("FIRMBANKING", SagaStepStatus.SUCCEEDED);
+        sagaState.updateStepStatus("INCREASE_MONEY", SagaStepStatus.SUCCEEDED);
+        sagaState.advanceSagaStatus();
+        assertEquals(SagaStatus.COMPLETED, sagaState.sagaStatus());
+    }
+
+    @Test
+    void dirty_IsSetOnlyWhenStateChanges() {
+        SagaState sagaState = new SagaState(DEFINITION, JsonNodeFactory.instance.objectNode());
+        sagaState.updateStepStatus("FIRMBANKING", SagaStepStatus.FAILED);
+        sagaState.markInserted();
+        assertFalse(sagaState.isDirty());
+
+        // 같은 값으로 다시 쓰면 저장할 것이 없다
+        sagaState.updateStepStatus("FIRMBANKING", SagaStepStatus.FAILED);
+        sagaState.advanceSagaStatus();
+        sagaState.advanceSagaStatus();
+        assertEquals(SagaStatus.ABORTED, sagaState.sagaStatus());
+        assertTrue(sagaState.isDirty());
+
+        sagaState.markUpdated();
+        sagaState.advanceSagaStatus();
+        assertFalse(sagaState.isDirty());
+        assertEquals(1, sagaState.version());
+    }
+}
@@ -2,6 +2,7 @@ package com.msapay.sagaorchestrator.saga;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.msapay.sagaorchestrator.framework.SagaState;
+import com.msapay.sagaorchestrator.framework.SagaStatus;
 import com.msapay.sagaorchestrator.framework.SagaStepStatus;
 import com.msapay.sagaorchestrator.TaskResultProducer;
 import com.msapay.sagaorchestrator.messaging.increaseMoneyEvent;
@@ -15,13 +16,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,8 +47,7 @@ class IncreaseMoneySagaTest {
     @Mock
     private SagaState sagaState;
 
-    @Mock
-    private ObjectMapper objectMapper;
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Mock
     private SagaStateService sagaStateService;
@@ -53,21 +60,23 @@ class IncreaseMoneySagaTest {
         sagaId = UUID.randomUUID();
         
         // Mock SagaState behavior
-        when(sagaState.id()).thenReturn(sagaId);
-        when(sagaState.payload()).thenReturn(objectMapper.createObjectNode());
-        when(sagaState.currentStep()).thenReturn(null);
+        lenient().when(sagaState.id()).thenReturn(sagaId);
+        lenient().when(sagaState.payload()).thenReturn(objectMapper.createObjectNode());
+        lenient().when(sagaState.currentStep()).thenReturn(null);
+
+        // saga 는 상태를 갖지 않으므로 이벤트마다 sagaId 로 상태를 조회한다
+        lenient().when(sagaStateService.findSagaStateByIdWithLock(sagaId)).thenReturn(sagaState);
         
         saga = new IncreaseMoneySaga(eventPublisher, taskResultProducer, objectMapper, sagaStateService);
-        saga.setSagaState(sagaState);
     }
 
     @Test
     void init_ShouldPublishSagaEvent() {
         // When
-        saga.init();
+        saga.init(sagaState);
         
-        // Then
-        verify(eventPublisher).publishEvent(any(SagaEvent.class));
+        // Then: SAGA_INIT 과 REQUEST_FIRMBANKING 을 발행한다
+        verify(eventPublisher, times(2)).publishEvent(any(SagaEvent.class));
     }
 
     @Test
@@ -95,4 +104,49 @@ class IncreaseMoneySagaTest {
         // Then
         verify(sagaState).updateStepStatus(anyString(), eq(SagaStepStatus.SUCCEEDED));
     }
+
+    @Test
+    void onStepTimeout_ShouldFailAndCompensateStepWhenNoAttemptsLeft() {
+        // Given: 3 번 중 마지막 시도까지 기한을 넘겼다
+        ReflectionTestUtils.setField(saga, "maxAttempts", 3);
+        givenFirmbankingTimedOut(2);
+
+        // When
+        IncreaseMoneySaga.TimeoutAction action = saga.onStepTimeout(sagaId);
+
+        // Then
+        assertEquals(IncreaseMoneySaga.TimeoutAction.COMPENSATED, action);
+        verify(sagaState).updateStepStatus("FIRMBANKING", SagaStepStatus.FAILED);
+        verify(sagaState).deadline(null);
+        verify(sagaState, never()).incrementAttempts();
+        verify(sagaStateService).saveSagaState(sagaState);
+    }
+
+    @Test
+    void onStepTimeout_ShouldRequestStepAgainWhenAttemptsLeft() {
+        // Given: 3 번 중 첫 시도가 기한을 넘겼다
+        ReflectionTestUtils.setField(saga, "maxAttempts", 3);
+        ReflectionTestUtils.setField(saga, "firmbankingTimeoutMillis", 30000L);
+        givenFirmbankingTimedOut(0);
+
+        // When
+        IncreaseMoneySaga.TimeoutAction action = saga.onStepTimeout(sagaId);
+
+        // Then: 시도 횟수를 올리고 새 기한으로 펌뱅킹을 다시 요청한다
+        assertEquals(IncreaseMoneySaga.TimeoutAction.RETRIED, action);
+        verify(sagaState).incrementAttempts();
+        verify(sagaState).deadline(argThat(deadline -> deadline != null && deadline.isAfter(LocalDateTime.now())));
+        verify(sagaState, never()).updateStepStatus(anyString(), eq(SagaStepStatus.FAILED));
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+                event instanceof SagaEvent && "REQUEST_FIRMBANKING".equals(((SagaEvent) event).type())));
+        verify(sagaStateService).saveSagaState(sagaState);
+    }
+
+    private void givenFirmbankingTimedOut(int attempts) {
+        when(sagaState.sagaStatus()).thenReturn(SagaStatus.STARTED);
+        when(sagaState.deadline()).thenReturn(LocalDateTime.now().minusSeconds(1));
+        when(sagaState.attempts()).thenReturn(attempts);
+        when(sagaState.stepStatus(anyString())).thenAnswer(invocation ->
+                "FIRMBANKING".equals(invocation.getArgument(0)) ? SagaStepStatus.STARTED : null);
+    }
 }
@@ -0,0 +1,51 @@
+package com.msapay.settlement.job;
+
+import com.msapay.settlement.tasklet.port.PaymentPort;
+import com.msapay.settlement.tasklet.port.SettlementWindow;
+import com.msapay.settlement.tasklet.port.SettlementWindowPort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import java.util.List;
+
+/**
+ * 펌뱅킹이 끝난 window 의 결제를 pageSize 건씩 정산 완료로 바꾼다.
+ * window 에 합산된 결제만 바꾸므로, 읽은 뒤에 승인된 결제가 정산 없이 완료 처리되는 일은 없다.
+ * 다시 실행해도 이미 정산 완료인 결제는 그대로 두므로 안전하다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class FinishSettlementTasklet implements Tasklet {
+
+    static final String AFTER_KEY = "settlement.finish.after";
+
+    private final PaymentPort paymentPort;
+    private final SettlementWindowPort settlementWindowPort;
+    private final SettlementWindow window;
+    private final int pageSize;
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        ExecutionContext executionContext = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        long after = executionContext.getLong(AFTER_KEY, 0L);
+
+        List<Long> paymentIds = settlementWindowPort.getSettlementPaymentIds(window, after, pageSize);
+        if (paymentIds.isEmpty()) {
+            return RepeatStatus.FINISHED;
+        }
+        int settled = paymentPort.finishSettlements(paymentIds);
+        if (settled != paymentIds.size()) {
+            // 직전 실행이 이 page 를 처리하고 위치를 남기기 전에 죽었거나, 다른 곳에서 정산 완료로 바꿨다
+            log.warn("Settlement exactly-once check - window: {}, requested: {}, settled: {}, paymentIds: {}",
+                    window, paymentIds.size(), settled, paymentIds);
+        }
+        executionContext.putLong(AFTER_KEY, paymentIds.get(paymentIds.size() - 1));
+        contribution.incrementWriteCount(settled);
+        return paymentIds.size() < pageSize ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+    }
+}
@@ -0,0 +1,71 @@
+package com.msapay.settlement.job;
+
+import com.msapay.settlement.tasklet.FirmbankingRequestInfo;
+import com.msapay.settlement.tasklet.port.GetRegisteredBankAccountPort;
+import com.msapay.settlement.tasklet.port.RegisteredBankAccountAggregateIdentifier;
+import com.msapay.settlement.tasklet.port.SettlementAmount;
+import com.msapay.settlement.tasklet.port.SettlementWindow;
+import com.msapay.settlement.tasklet.port.SettlementWindowPort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * window 의 가맹점 금액을 pageSize 건씩 펌뱅킹한다.
+ * 정산 id 를 멱등 키로 넘기므로 펌뱅킹 후 paid 를 남기기 전에 죽어 다시 요청해도 banking-service 가 두 번 이체하지 않는다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class FirmbankingTasklet implements Tasklet {
+
+    private final GetRegisteredBankAccountPort getRegisteredBankAccountPort;
+    private final SettlementWindowPort settlementWindowPort;
+    private final SettlementWindow window;
+    private final int pageSize;
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        List<SettlementAmount> amounts = settlementWindowPort.getUnpaidSettlementAmounts(window, pageSize);
+        if (amounts.isEmpty()) {
+            return RepeatStatus.FINISHED;
+        }
+
+        // 가맹점(membershipId)의 등록 계좌를 한 번에 조회한다
+        List<String> franchiseIds = new ArrayList<>(amounts.size());
+        for (SettlementAmount amount : amounts) {
+            franchiseIds.add(amount.getFranchiseId());
+        }
+        Map<String, RegisteredBankAccountAggregateIdentifier> registeredBankAccounts =
+                getRegisteredBankAccountPort.getRegisteredBankAccounts(franchiseIds);
+
+        for (SettlementAmount amount : amounts) {
+            RegisteredBankAccountAggregateIdentifier entity = registeredBankAccounts.get(amount.getFranchiseId());
+            if (entity == null) {
+                throw new IllegalStateException("No registered bank account for franchiseId: " + amount.getFranchiseId());
+            }
+            FirmbankingRequestInfo firmbankingRequestInfo = new FirmbankingRequestInfo(
+                    entity.getBankName(), entity.getBankAccountNumber(), Math.toIntExact(amount.getAmount()));
+
+            boolean success = getRegisteredBankAccountPort.requestFirmbanking(
+                    firmbankingRequestInfo.getBankName()
+                    , firmbankingRequestInfo.getBankAccountNumber()
+                    , firmbankingRequestInfo.getMoneyAmount()
+                    , amount.getSettlementId());
+            if (!success) {
+                // 같은 정산 id 로 다음 실행에서 다시 요청한다
+                throw new IllegalStateException("Firmbanking failed for settlement: " + amount.getSettlementId());
+            }
+            settlementWindowPort.markPaid(amount.getSettlementId());
+            contribution.incrementWriteCount(1);
+        }
+        log.info("Requested firmbanking for {} franchises in settlement window {}", amounts.size(), window);
+        return amounts.size() < pageSize ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+    }
+}
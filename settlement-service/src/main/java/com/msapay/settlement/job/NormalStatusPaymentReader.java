@@ -0,0 +1,75 @@
+package com.msapay.settlement.job;
+
+import com.msapay.settlement.outbound.Payment;
+import com.msapay.settlement.tasklet.port.PaymentPort;
+import com.msapay.settlement.tasklet.port.SettlementWindow;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * partition 이 맡은 paymentId 구간 안의 정산 대기 결제를 paymentId 순서로 pageSize 건씩 가져온다.
+ * 구간 끝까지만 조회하므로 다른 partition 이나 다음 window 의 결제는 읽지 않는다.
+ * 마지막으로 넘긴 paymentId 를 chunk commit 마다 step 의 ExecutionContext 에 남기므로,
+ * 재시작하면 마지막으로 commit 된 chunk 다음부터 읽는다.
+ * partition 마다 step scope 로 따로 만들어지므로 thread-safe 할 필요는 없다.
+ */
+public class NormalStatusPaymentReader implements ItemStreamReader<Payment> {
+
+    static final String AFTER_KEY = "settlement.reader.after";
+
+    private final PaymentPort paymentPort;
+    // partition 이 맡은 구간. 결제를 정산할 window 가 아니라 그 일부다.
+    private final SettlementWindow range;
+    private final int pageSize;
+
+    // 마지막으로 넘긴 결제, 마지막으로 가져온 page 의 끝
+    private long lastReadPaymentId;
+    private long lastFetchedPaymentId;
+    private boolean exhausted;
+    private Iterator<Payment> page = Collections.emptyIterator();
+
+    public NormalStatusPaymentReader(PaymentPort paymentPort, SettlementWindow range, int pageSize) {
+        this.paymentPort = paymentPort;
+        this.range = range;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        lastReadPaymentId = executionContext.getLong(AFTER_KEY, range.getFrom());
+        lastFetchedPaymentId = lastReadPaymentId;
+    }
+
+    @Override
+    public Payment read() {
+        if (!page.hasNext()) {
+            if (exhausted) {
+                return null;
+            }
+            List<Payment> payments = paymentPort.getNormalStatusPayments(lastFetchedPaymentId, range.getTo(), pageSize);
+            exhausted = payments.size() < pageSize;
+            if (payments.isEmpty()) {
+                return null;
+            }
+            lastFetchedPaymentId = payments.get(payments.size() - 1).getPaymentId();
+            page = payments.iterator();
+        }
+        Payment payment = page.next();
+        lastReadPaymentId = payment.getPaymentId();
+        return payment;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        executionContext.putLong(AFTER_KEY, lastReadPaymentId);
+    }
+
+    @Override
+    public void close() {
+        page = Collections.emptyIterator();
+    }
+}
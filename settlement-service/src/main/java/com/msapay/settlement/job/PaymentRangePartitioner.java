@@ -0,0 +1,38 @@
+package com.msapay.settlement.job;
+
+import com.msapay.settlement.tasklet.port.SettlementWindow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * window (windowFrom, windowTo] 를 paymentId 구간 gridSize 개로 나눈다.
+ * partition 마다 (payment_status, payment_id) 인덱스의 겹치지 않는 구간만 읽으므로 결제를 한 번씩만 읽는다.
+ * 같은 가맹점의 결제가 여러 partition 에 나뉘어도 금액은 window 의 가맹점 금액에 더해지고, 펌뱅킹은 모든 partition 이 끝난 뒤 한 번 한다.
+ */
+@RequiredArgsConstructor
+public class PaymentRangePartitioner implements Partitioner {
+
+    public static final String RANGE_FROM_KEY = "rangeFrom";
+    public static final String RANGE_TO_KEY = "rangeTo";
+
+    private final SettlementWindow window;
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        long size = window.getTo() - window.getFrom();
+        long rangeSize = Math.max(1, (size + gridSize - 1) / gridSize);
+        int index = 0;
+        for (long rangeFrom = window.getFrom(); rangeFrom < window.getTo(); rangeFrom += rangeSize) {
+            ExecutionContext context = new ExecutionContext();
+            context.putLong(RANGE_FROM_KEY, rangeFrom);
+            context.putLong(RANGE_TO_KEY, Math.min(rangeFrom + rangeSize, window.getTo()));
+            partitions.put("payment-range-" + index++, context);
+        }
+        return partitions;
+    }
+}
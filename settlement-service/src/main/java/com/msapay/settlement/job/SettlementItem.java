@@ -0,0 +1,15 @@
+package com.msapay.settlement.job;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 수수료를 차감한 결제 한 건의 정산 금액
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementItem {
+    private Long paymentId;
+    private String franchiseId;
+    private int moneyAmount;
+}
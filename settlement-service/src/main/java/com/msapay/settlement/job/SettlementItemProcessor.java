@@ -0,0 +1,17 @@
+package com.msapay.settlement.job;
+
+import com.msapay.settlement.outbound.Payment;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SettlementItemProcessor implements ItemProcessor<Payment, SettlementItem> {
+
+    @Override
+    public SettlementItem process(Payment payment) {
+        // 수수료 차감
+        double fee = Double.parseDouble(payment.getFranchiseFeeRate());
+        int calculatedPrice = (int) ((100 - fee) * payment.getRequestPrice() * 100);
+        return new SettlementItem(payment.getPaymentId(), payment.getFranchiseId(), calculatedPrice);
+    }
+}
@@ -0,0 +1,38 @@
+package com.msapay.settlement.job;
+
+import com.msapay.settlement.tasklet.port.SettlementWindow;
+import com.msapay.settlement.tasklet.port.SettlementWindowPort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ItemWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * chunk 안의 정산 금액을 가맹점별로 합산해 window 의 가맹점 금액에 더하고, 합산한 결제를 기록한다.
+ * reader 위치와 같은 chunk 트랜잭션에서 commit 되므로 재시작해도 결제 하나는 한 번만 더해진다.
+ * 여러 partition 이 같은 가맹점 행을 동시에 갱신하므로 가맹점 순서로 정렬해 더해 행 락을 같은 순서로 잡는다.
+ * 펌뱅킹과 정산 완료는 모든 partition 이 끝난 뒤 FirmbankingTasklet, FinishSettlementTasklet 이 한다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SettlementItemWriter implements ItemWriter<SettlementItem> {
+
+    private final SettlementWindowPort settlementWindowPort;
+    private final SettlementWindow window;
+
+    @Override
+    public void write(List<? extends SettlementItem> items) {
+        Map<String, Integer> amounts = new TreeMap<>();
+        List<Long> paymentIds = new ArrayList<>(items.size());
+        for (SettlementItem item : items) {
+            amounts.merge(item.getFranchiseId(), item.getMoneyAmount(), Integer::sum);
+            paymentIds.add(item.getPaymentId());
+        }
+        settlementWindowPort.addSettlementAmounts(window, amounts, paymentIds);
+        log.info("Added {} payments for {} franchises to settlement window {}", items.size(), amounts.size(), window);
+    }
+}
@@ -1,30 +1,139 @@
 package com.msapay.settlement.job;
 
-import com.msapay.settlement.tasklet.SettlementTasklet;
+import com.msapay.settlement.outbound.Payment;
+import com.msapay.settlement.tasklet.port.GetRegisteredBankAccountPort;
+import com.msapay.settlement.tasklet.port.PaymentPort;
+import com.msapay.settlement.tasklet.port.SettlementWindow;
+import com.msapay.settlement.tasklet.port.SettlementWindowPort;
 import lombok.RequiredArgsConstructor;
 import org.springframework.batch.core.*;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.JobScope;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
-import org.springframework.stereotype.Component;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-@Component
+/**
+ * 정산 job. job 파라미터 windowFrom, windowTo 로 정한 window (windowFrom, windowTo] 의 결제만 정산한다.
+ * 1. settlementStep 이 PaymentRangePartitioner 로 window 를 paymentId 구간으로 나누고, partition 마다 settlementWorkerStep 을 TaskExecutor 에서 돌린다.
+ *    worker step 은 정산 대기 결제를 page 단위로 읽어 chunk-size 건마다 가맹점별 금액을 window 에 더해 commit 한다.
+ * 2. firmbankingStep 이 가맹점마다 (window, 가맹점) 정산 id 로 한 번 펌뱅킹한다.
+ * 3. finishSettlementStep 이 window 에 합산된 결제를 정산 완료로 바꾼다.
+ * 결제 건수와 관계없이 메모리는 chunk 크기만큼만 쓰고, 실패한 job 을 다시 실행하면 마지막으로 commit 된 위치부터 이어간다.
+ */
+@Configuration
 @RequiredArgsConstructor
 public class SettlementJob {
     private final JobBuilderFactory jobBuilderFactory;
     private final StepBuilderFactory stepBuilderFactory;
-    private final SettlementTasklet settlementTasklet;
+    private final PaymentPort paymentPort;
+    private final GetRegisteredBankAccountPort getRegisteredBankAccountPort;
+    private final SettlementWindowPort settlementWindowPort;
+    private final SettlementItemProcessor settlementItemProcessor;
+
+    @Value("${settlement.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${settlement.partitions:4}")
+    private int partitions;
 
     @Bean
     public Job settlement() {
         return jobBuilderFactory.get("settlement")
                 .start(settlementStep())
+                .next(firmbankingStep())
+                .next(finishSettlementStep())
                 .build();
     }
 
+    @Bean
     public Step settlementStep() {
         return stepBuilderFactory.get("settlementStep")
-                .tasklet(settlementTasklet)
+                .partitioner("settlementWorkerStep", paymentRangePartitioner(null, null))
+                .step(settlementWorkerStep())
+                .gridSize(partitions)
+                .taskExecutor(settlementTaskExecutor())
                 .build();
     }
+
+    @Bean
+    public Step settlementWorkerStep() {
+        return stepBuilderFactory.get("settlementWorkerStep")
+                .<Payment, SettlementItem>chunk(chunkSize)
+                .reader(normalStatusPaymentReader(null, null))
+                .processor(settlementItemProcessor)
+                .writer(settlementItemWriter(null, null))
+                .build();
+    }
+
+    @Bean
+    public Step firmbankingStep() {
+        return stepBuilderFactory.get("firmbankingStep")
+                .tasklet(firmbankingTasklet(null, null))
+                .build();
+    }
+
+    @Bean
+    public Step finishSettlementStep() {
+        return stepBuilderFactory.get("finishSettlementStep")
+                .tasklet(finishSettlementTasklet(null, null))
+                .build();
+    }
+
+    @Bean
+    @JobScope
+    public PaymentRangePartitioner paymentRangePartitioner(
+            @Value("#{jobParameters['" + SettlementWindow.FROM_KEY + "']}") Long windowFrom,
+            @Value("#{jobParameters['" + SettlementWindow.TO_KEY + "']}") Long windowTo) {
+        return new PaymentRangePartitioner(new SettlementWindow(windowFrom, windowTo));
+    }
+
+    @Bean
+    @StepScope
+    public NormalStatusPaymentReader normalStatusPaymentReader(
+            @Value("#{stepExecutionContext['" + PaymentRangePartitioner.RANGE_FROM_KEY + "']}") Long rangeFrom,
+            @Value("#{stepExecutionContext['" + PaymentRangePartitioner.RANGE_TO_KEY + "']}") Long rangeTo) {
+        // page 하나가 chunk 하나가 되도록 맞춘다
+        return new NormalStatusPaymentReader(paymentPort, new SettlementWindow(rangeFrom, rangeTo), chunkSize);
+    }
+
+    @Bean
+    @StepScope
+    public SettlementItemWriter settlementItemWriter(
+            @Value("#{jobParameters['" + SettlementWindow.FROM_KEY + "']}") Long windowFrom,
+            @Value("#{jobParameters['" + SettlementWindow.TO_KEY + "']}") Long windowTo) {
+        return new SettlementItemWriter(settlementWindowPort, new SettlementWindow(windowFrom, windowTo));
+    }
+
+    @Bean
+    @StepScope
+    public FirmbankingTasklet firmbankingTasklet(
+            @Value("#{jobParameters['" + SettlementWindow.FROM_KEY + "']}") Long windowFrom,
+            @Value("#{jobParameters['" + SettlementWindow.TO_KEY + "']}") Long windowTo) {
+        return new FirmbankingTasklet(
+                getRegisteredBankAccountPort, settlementWindowPort, new SettlementWindow(windowFrom, windowTo), chunkSize);
+    }
+
+    @Bean
+    @StepScope
+    public FinishSettlementTasklet finishSettlementTasklet(
+            @Value("#{jobParameters['" + SettlementWindow.FROM_KEY + "']}") Long windowFrom,
+            @Value("#{jobParameters['" + SettlementWindow.TO_KEY + "']}") Long windowTo) {
+        return new FinishSettlementTasklet(
+                paymentPort, settlementWindowPort, new SettlementWindow(windowFrom, windowTo), chunkSize);
+    }
+
+    @Bean
+    public TaskExecutor settlementTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(partitions);
+        executor.setMaxPoolSize(partitions);
+        executor.setThreadNamePrefix("settlement-");
+        executor.initialize();
+        return executor;
+    }
 }
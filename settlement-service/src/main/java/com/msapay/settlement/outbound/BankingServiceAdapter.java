@@ -1,22 +1,35 @@
 package com.msapay.settlement.outbound;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.msapay.common.CommonHttpClient;
+import com.msapay.common.codec.JsonCodec;
 import com.msapay.settlement.tasklet.port.GetRegisteredBankAccountPort;
 import com.msapay.settlement.tasklet.port.RegisteredBankAccountAggregateIdentifier;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class BankingServiceAdapter implements GetRegisteredBankAccountPort {
 
+    private static final int BATCH_GET_SIZE = 1000;
+
     private final CommonHttpClient commonHttpClient;
 
+    private final JsonCodec jsonCodec;
+
     private final String bankingServiceUrl;
 
     public BankingServiceAdapter(CommonHttpClient commonHttpClient,
+                                 JsonCodec jsonCodec,
                                  @Value("${service.banking.url}") String membershipServiceUrl) {
         this.commonHttpClient = commonHttpClient;
+        this.jsonCodec = jsonCodec;
         this.bankingServiceUrl = membershipServiceUrl;
     }
 
@@ -26,37 +39,61 @@ public class BankingServiceAdapter implements GetRegisteredBankAccountPort {
         try {
             String jsonResponse = commonHttpClient.sendGetRequest(url).body();
             // json RegisteredBankAccount
+            RegisteredBankAccount registeredBankAccount = jsonCodec.read(jsonResponse, RegisteredBankAccount.class);
 
-            ObjectMapper mapper = new ObjectMapper();
-            RegisteredBankAccount registeredBankAccount = mapper.readValue(jsonResponse, RegisteredBankAccount.class);
+            return toAggregateIdentifier(registeredBankAccount);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            return new RegisteredBankAccountAggregateIdentifier(
-                    registeredBankAccount.getRegisteredBankAccountId()
-                    , registeredBankAccount.getAggregateIdentifier()
-                    , registeredBankAccount.getBankName()
-                    , registeredBankAccount.getBankName()
-                    , registeredBankAccount.getBankAccountNumber()
-            );
+    @Override
+    public Map<String, RegisteredBankAccountAggregateIdentifier> getRegisteredBankAccounts(Collection<String> membershipIds) {
+        String url = String.join("/", bankingServiceUrl, "banking/accounts:batchGet");
+        List<String> ids = new ArrayList<>(membershipIds);
+        Map<String, RegisteredBankAccountAggregateIdentifier> accounts = new LinkedHashMap<>();
+        try {
+            // banking-service 의 batchGet 한 번에 받을 수 있는 크기로 나눠서 요청한다
+            for (int from = 0; from < ids.size(); from += BATCH_GET_SIZE) {
+                GetRegisteredBankAccountsRequest request =
+                        new GetRegisteredBankAccountsRequest(ids.subList(from, Math.min(from + BATCH_GET_SIZE, ids.size())));
+                String jsonResponse = commonHttpClient.sendPostRequest(url, jsonCodec.write(request)).body();
+                List<RegisteredBankAccount> registeredBankAccounts = jsonCodec.read(jsonResponse, new TypeReference<List<RegisteredBankAccount>>() {});
+                for (RegisteredBankAccount registeredBankAccount : registeredBankAccounts) {
+                    accounts.put(registeredBankAccount.getMembershipId(), toAggregateIdentifier(registeredBankAccount));
+                }
+            }
+            return accounts;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static RegisteredBankAccountAggregateIdentifier toAggregateIdentifier(RegisteredBankAccount registeredBankAccount) {
+        return new RegisteredBankAccountAggregateIdentifier(
+                registeredBankAccount.getRegisteredBankAccountId()
+                , registeredBankAccount.getAggregateIdentifier()
+                , registeredBankAccount.getMembershipId()
+                , registeredBankAccount.getBankName()
+                , registeredBankAccount.getBankAccountNumber()
+        );
+    }
+
     @Override
-    public void requestFirmbanking(String bankName, String bankAccountNumber, int moneyAmount) {
+    public boolean requestFirmbanking(String bankName, String bankAccountNumber, int moneyAmount, String settlementId) {
         String url = String.join("/", bankingServiceUrl, "banking/firmbanking/request");
         try {
-            ObjectMapper mapper = new ObjectMapper();
             RequestFirmbankingRequest request = new RequestFirmbankingRequest(
                     "msapay",
                     "111-222-333",
                     bankName,
                     bankAccountNumber,
-                    moneyAmount);
-
-            commonHttpClient.sendPostRequest(url, mapper.writeValueAsString(request)).body();
-            // FirmbankingRequest response = mapper.readValue(jsonResponse, new TypeReference<>() {});
+                    moneyAmount,
+                    settlementId);
 
+            String jsonResponse = commonHttpClient.sendPostRequest(url, jsonCodec.write(request)).body();
+            FirmbankingResult result = jsonCodec.read(jsonResponse, FirmbankingResult.class);
+            return result.getFirmbankingStatus() == 1;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,14 @@
+package com.msapay.settlement.outbound;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FinishSettlementBatchRequest {
+    private List<Long> paymentIds;
+}
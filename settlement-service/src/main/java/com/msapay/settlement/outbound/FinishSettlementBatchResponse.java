@@ -5,8 +5,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@NoArgsConstructor
 @AllArgsConstructor
-public class FinishSettlementRequest {
-    private String paymentId;
+@NoArgsConstructor
+public class FinishSettlementBatchResponse {
+    private int requested;
+    private int settled;
 }
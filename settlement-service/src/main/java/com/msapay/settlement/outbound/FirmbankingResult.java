@@ -0,0 +1,13 @@
+package com.msapay.settlement.outbound;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FirmbankingResult {
+    private String firmbankingRequestId;
+    private int firmbankingStatus; // 0: 요청, 1: 완료, 2: 실패
+}
@@ -1,9 +1,9 @@
 package com.msapay.settlement.outbound;
 
 import com.msapay.common.CommonHttpClient;
+import com.msapay.common.codec.JsonCodec;
 import com.msapay.settlement.tasklet.port.PaymentPort;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -14,24 +14,27 @@ public class PaymentServiceAdapter implements PaymentPort {
 
     private final CommonHttpClient commonHttpClient;
 
+    private final JsonCodec jsonCodec;
+
     private final String paymentServiceUrl;
 
     public PaymentServiceAdapter(CommonHttpClient commonHttpClient,
+                                 JsonCodec jsonCodec,
                                  @Value("${service.payment.url}") String paymentServiceUrl) {
         this.commonHttpClient = commonHttpClient;
+        this.jsonCodec = jsonCodec;
         this.paymentServiceUrl = paymentServiceUrl;
     }
 
 
     @Override
-    public List<Payment> getNormalStatusPayments() {
-        String url = String.join("/", paymentServiceUrl, "payment/normal-status");
+    public List<Payment> getNormalStatusPayments(long afterPaymentId, long toPaymentId, int limit) {
+        String url = String.join("/", paymentServiceUrl, "payment/normal-status")
+                + "?after=" + afterPaymentId + "&to=" + toPaymentId + "&limit=" + limit;
 
         try {
             String jsonResponse = commonHttpClient.sendGetRequest(url).body();
-
-            ObjectMapper mapper = new ObjectMapper();
-            List<Payment> paymentList = mapper.readValue(jsonResponse, new TypeReference<>() {});
+            List<Payment> paymentList = jsonCodec.read(jsonResponse, new TypeReference<>() {});
 
             return paymentList;
         } catch (Exception e) {
@@ -40,14 +43,25 @@ public class PaymentServiceAdapter implements PaymentPort {
     }
 
     @Override
-    public void finishSettlement(Long paymentId) {
-        String url = String.join("/", paymentServiceUrl, "payment/finish-settlement");
-        ObjectMapper mapper = new ObjectMapper();
+    public long getLastPaymentId(long approvedBeforeMillis) {
+        String url = String.join("/", paymentServiceUrl, "payment/last-payment-id") + "?approvedBefore=" + approvedBeforeMillis;
 
         try {
-            FinishSettlementRequest request = new FinishSettlementRequest(String.valueOf(paymentId));
-            commonHttpClient.sendPostRequest(url, mapper.writeValueAsString(request)).body();
+            String jsonResponse = commonHttpClient.sendGetRequest(url).body();
+            return jsonCodec.read(jsonResponse, Long.class);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
 
+    @Override
+    public int finishSettlements(List<Long> paymentIds) {
+        String url = String.join("/", paymentServiceUrl, "payment/finish-settlement:batch");
+
+        try {
+            FinishSettlementBatchRequest request = new FinishSettlementBatchRequest(paymentIds);
+            String jsonResponse = commonHttpClient.sendPostRequest(url, jsonCodec.write(request)).body();
+            return jsonCodec.read(jsonResponse, FinishSettlementBatchResponse.class).getSettled();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
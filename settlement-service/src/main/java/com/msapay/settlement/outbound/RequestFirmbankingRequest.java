@@ -14,4 +14,5 @@ public class RequestFirmbankingRequest {
     private String toBankName;
     private String toBankAccountNumber;
     private int moneyAmount; // only won
+    private String idempotencyKey;
 }
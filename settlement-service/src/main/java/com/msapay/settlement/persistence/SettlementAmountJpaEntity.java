@@ -0,0 +1,42 @@
+package com.msapay.settlement.persistence;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * window 안에서 가맹점 하나에 줄 정산 금액. settlement_id 는 (window, 가맹점) 으로 정해지며 펌뱅킹 멱등 키로 쓴다.
+ */
+@Entity
+@Table(name = "settlement_window_amount",
+        indexes = @Index(name = "ix_settlement_window_amount_window", columnList = "window_to, window_from, paid"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class SettlementAmountJpaEntity {
+
+    @Id
+    @Column(name = "settlement_id", length = 80)
+    private String settlementId;
+
+    @Column(name = "window_from", nullable = false)
+    private long windowFrom;
+
+    @Column(name = "window_to", nullable = false)
+    private long windowTo;
+
+    @Column(name = "franchise_id", nullable = false)
+    private String franchiseId;
+
+    @Column(name = "amount", nullable = false)
+    private long amount;
+
+    // 펌뱅킹 완료 여부
+    @Column(name = "paid", nullable = false)
+    private boolean paid;
+}
@@ -0,0 +1,60 @@
+package com.msapay.settlement.persistence;
+
+import com.msapay.common.PersistenceAdapter;
+import com.msapay.settlement.tasklet.port.SettlementLockPort;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * settlement_job_lock 행 하나를 lease 로 써서 여러 인스턴스 중 하나만 정산 job 을 돌리게 한다.
+ * lease 가 끝나기 전에 죽은 인스턴스의 lock 은 lease-ms 가 지나면 다른 인스턴스가 가져가므로,
+ * lease-ms 는 정산 job 한 번에 걸리는 시간보다 길게 잡는다.
+ */
+@Slf4j
+@PersistenceAdapter
+public class SettlementJobLockAdapter implements SettlementLockPort {
+
+    private static final String LOCK_NAME = "settlement";
+
+    private static final String ACQUIRE_SQL =
+            "UPDATE settlement_job_lock SET owner = ?, locked_until = ? WHERE name = ? AND (locked_until < ? OR owner = ?)";
+    private static final String INSERT_SQL =
+            "INSERT INTO settlement_job_lock (name, owner, locked_until) VALUES (?, ?, ?)";
+    private static final String RELEASE_SQL =
+            "UPDATE settlement_job_lock SET locked_until = ? WHERE name = ? AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long leaseMillis;
+    private final String owner = UUID.randomUUID().toString();
+
+    public SettlementJobLockAdapter(JdbcTemplate jdbcTemplate,
+                                    @Value("${settlement.lock.lease-ms:600000}") long leaseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaseMillis = leaseMillis;
+    }
+
+    @Override
+    public boolean tryLock() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lockedUntil = now.plusNanos(leaseMillis * 1_000_000);
+        if (jdbcTemplate.update(ACQUIRE_SQL, owner, lockedUntil, LOCK_NAME, now, owner) > 0) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update(INSERT_SQL, LOCK_NAME, owner, lockedUntil) > 0;
+        } catch (DuplicateKeyException e) {
+            // 다른 인스턴스가 lock 을 잡고 있다
+            return false;
+        }
+    }
+
+    @Override
+    public void unlock() {
+        jdbcTemplate.update(RELEASE_SQL, LocalDateTime.now(), LOCK_NAME, owner);
+    }
+}
@@ -0,0 +1,31 @@
+package com.msapay.settlement.persistence;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 정산 job 을 한 번에 한 인스턴스만 돌리기 위한 lease.
+ */
+@Entity
+@Table(name = "settlement_job_lock")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class SettlementJobLockJpaEntity {
+
+    @Id
+    @Column(name = "name", length = 40)
+    private String name;
+
+    @Column(name = "owner", nullable = false, length = 80)
+    private String owner;
+
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+}
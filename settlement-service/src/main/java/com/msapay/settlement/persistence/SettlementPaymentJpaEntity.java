@@ -0,0 +1,32 @@
+package com.msapay.settlement.persistence;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * window 의 정산 금액에 합산된 결제. 펌뱅킹이 끝난 뒤 이 결제들만 정산 완료로 바꾼다.
+ */
+@Entity
+@Table(name = "settlement_window_payment",
+        indexes = @Index(name = "ix_settlement_window_payment_window", columnList = "window_to, window_from, payment_id"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class SettlementPaymentJpaEntity {
+
+    @Id
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(name = "window_from", nullable = false)
+    private long windowFrom;
+
+    @Column(name = "window_to", nullable = false)
+    private long windowTo;
+}
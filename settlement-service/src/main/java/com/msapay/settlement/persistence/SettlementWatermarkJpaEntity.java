@@ -0,0 +1,28 @@
+package com.msapay.settlement.persistence;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * 정산이 끝난 마지막 paymentId (high-water mark). 다음 window 는 이 다음부터 시작한다.
+ * 읽고 쓰는 것은 SettlementWindowPersistenceAdapter 의 SQL 이 하고, 엔티티는 테이블 정의를 위해 둔다.
+ */
+@Entity
+@Table(name = "settlement_watermark")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class SettlementWatermarkJpaEntity {
+
+    @Id
+    @Column(name = "name", length = 40)
+    private String name;
+
+    @Column(name = "last_payment_id", nullable = false)
+    private long lastPaymentId;
+}
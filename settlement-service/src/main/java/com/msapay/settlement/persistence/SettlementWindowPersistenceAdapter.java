@@ -0,0 +1,91 @@
+package com.msapay.settlement.persistence;
+
+import com.msapay.common.PersistenceAdapter;
+import com.msapay.settlement.tasklet.port.SettlementAmount;
+import com.msapay.settlement.tasklet.port.SettlementWindow;
+import com.msapay.settlement.tasklet.port.SettlementWindowPort;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@PersistenceAdapter
+@RequiredArgsConstructor
+public class SettlementWindowPersistenceAdapter implements SettlementWindowPort {
+
+    private static final String WATERMARK_NAME = "settlement";
+
+    private static final String FIND_WATERMARK_SQL =
+            "SELECT last_payment_id FROM settlement_watermark WHERE name = ?";
+    private static final String UPDATE_WATERMARK_SQL =
+            "INSERT INTO settlement_watermark (name, last_payment_id) VALUES (?, ?) " +
+                    "ON DUPLICATE KEY UPDATE last_payment_id = GREATEST(last_payment_id, VALUES(last_payment_id))";
+    private static final String ADD_AMOUNT_SQL =
+            "INSERT INTO settlement_window_amount (settlement_id, window_from, window_to, franchise_id, amount, paid) " +
+                    "VALUES (?, ?, ?, ?, ?, false) ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount)";
+    private static final String ADD_PAYMENT_SQL =
+            "INSERT INTO settlement_window_payment (payment_id, window_from, window_to) VALUES (?, ?, ?)";
+    private static final String FIND_UNPAID_SQL =
+            "SELECT settlement_id, franchise_id, amount FROM settlement_window_amount " +
+                    "WHERE window_to = ? AND window_from = ? AND paid = false ORDER BY settlement_id LIMIT ?";
+    private static final String MARK_PAID_SQL =
+            "UPDATE settlement_window_amount SET paid = true WHERE settlement_id = ?";
+    private static final String FIND_PAYMENT_IDS_SQL =
+            "SELECT payment_id FROM settlement_window_payment " +
+                    "WHERE window_to = ? AND window_from = ? AND payment_id > ? ORDER BY payment_id LIMIT ?";
+    private static final String DELETE_AMOUNTS_SQL =
+            "DELETE FROM settlement_window_amount WHERE window_to <= ?";
+    private static final String DELETE_PAYMENTS_SQL =
+            "DELETE FROM settlement_window_payment WHERE window_to <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public long getWatermark() {
+        List<Long> watermark = jdbcTemplate.queryForList(FIND_WATERMARK_SQL, Long.class, WATERMARK_NAME);
+        return watermark.isEmpty() ? 0 : watermark.get(0);
+    }
+
+    @Override
+    public void addSettlementAmounts(SettlementWindow window, Map<String, Integer> amounts, List<Long> paymentIds) {
+        List<Object[]> amountArgs = new ArrayList<>(amounts.size());
+        for (Map.Entry<String, Integer> amount : amounts.entrySet()) {
+            amountArgs.add(new Object[]{
+                    window.settlementId(amount.getKey()), window.getFrom(), window.getTo(), amount.getKey(), amount.getValue()});
+        }
+        List<Object[]> paymentArgs = new ArrayList<>(paymentIds.size());
+        for (Long paymentId : paymentIds) {
+            paymentArgs.add(new Object[]{paymentId, window.getFrom(), window.getTo()});
+        }
+        jdbcTemplate.batchUpdate(ADD_AMOUNT_SQL, amountArgs);
+        jdbcTemplate.batchUpdate(ADD_PAYMENT_SQL, paymentArgs);
+    }
+
+    @Override
+    public List<SettlementAmount> getUnpaidSettlementAmounts(SettlementWindow window, int limit) {
+        return jdbcTemplate.query(FIND_UNPAID_SQL,
+                (rs, rowNum) -> new SettlementAmount(rs.getString("settlement_id"), rs.getString("franchise_id"), rs.getLong("amount")),
+                window.getTo(), window.getFrom(), limit);
+    }
+
+    @Override
+    public void markPaid(String settlementId) {
+        jdbcTemplate.update(MARK_PAID_SQL, settlementId);
+    }
+
+    @Override
+    public List<Long> getSettlementPaymentIds(SettlementWindow window, long afterPaymentId, int limit) {
+        return jdbcTemplate.queryForList(FIND_PAYMENT_IDS_SQL, Long.class, window.getTo(), window.getFrom(), afterPaymentId, limit);
+    }
+
+    @Override
+    @Transactional
+    public void closeWindow(SettlementWindow window) {
+        jdbcTemplate.update(UPDATE_WATERMARK_SQL, WATERMARK_NAME, window.getTo());
+        jdbcTemplate.update(DELETE_AMOUNTS_SQL, window.getTo());
+        jdbcTemplate.update(DELETE_PAYMENTS_SQL, window.getTo());
+    }
+}
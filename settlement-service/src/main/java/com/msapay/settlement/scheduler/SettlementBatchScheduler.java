@@ -1,31 +1,185 @@
 package com.msapay.settlement.scheduler;
 
-import lombok.RequiredArgsConstructor;
+import com.msapay.settlement.tasklet.port.PaymentPort;
+import com.msapay.settlement.tasklet.port.SettlementLockPort;
+import com.msapay.settlement.tasklet.port.SettlementWindow;
+import com.msapay.settlement.tasklet.port.SettlementWindowPort;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.Date;
 
+/**
+ * 정산 job 을 watermark 다음부터의 window 로 나눠 실행한다.
+ * window 끝은 settle-lag-ms 전까지 승인된 마지막 paymentId 라서, 아직 commit 되지 않았을 수 있는 결제는 다음 window 로 넘어간다.
+ * job 이 끝나야 watermark 를 올리므로 결제는 한 window 에서 한 번만 읽히고, 새 결제가 없으면 job 을 띄우지 않는다.
+ * 직전 window 가 끝나지 않았으면(실패, 중단, 실행 중에 죽음) 새 window 대신 그 window 를 같은 파라미터로 이어서 실행한다.
+ * 여러 인스턴스가 떠 있어도 lock 을 잡은 인스턴스만 실행한다.
+ */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class SettlementBatchScheduler {
     private final JobLauncher jobLauncher;
     private final Job settlementJob;
+    private final JobExplorer jobExplorer;
+    private final JobRepository jobRepository;
+    private final PaymentPort paymentPort;
+    private final SettlementWindowPort settlementWindowPort;
+    private final SettlementLockPort settlementLockPort;
+    private final long settleLagMillis;
+    private final long leaseMillis;
 
-    @Scheduled(fixedRate = 10000) // ms
+    public SettlementBatchScheduler(JobLauncher jobLauncher,
+                                    Job settlementJob,
+                                    JobExplorer jobExplorer,
+                                    JobRepository jobRepository,
+                                    PaymentPort paymentPort,
+                                    SettlementWindowPort settlementWindowPort,
+                                    SettlementLockPort settlementLockPort,
+                                    @Value("${settlement.window.settle-lag-ms:5000}") long settleLagMillis,
+                                    @Value("${settlement.lock.lease-ms:600000}") long leaseMillis) {
+        this.jobLauncher = jobLauncher;
+        this.settlementJob = settlementJob;
+        this.jobExplorer = jobExplorer;
+        this.jobRepository = jobRepository;
+        this.paymentPort = paymentPort;
+        this.settlementWindowPort = settlementWindowPort;
+        this.settlementLockPort = settlementLockPort;
+        this.settleLagMillis = settleLagMillis;
+        this.leaseMillis = leaseMillis;
+    }
+
+    // 직전 실행이 끝난 뒤부터 interval-ms 마다
+    @Scheduled(fixedDelayString = "${settlement.interval-ms:10000}")
     public void runSettlementJob() throws Exception {
+        if (!settlementLockPort.tryLock()) {
+            log.debug("Settlement job is running on another instance");
+            return;
+        }
+        try {
+            runSettlementWindow();
+        } finally {
+            settlementLockPort.unlock();
+        }
+    }
+
+    private void runSettlementWindow() throws Exception {
+        JobInstance lastInstance = jobExplorer.getLastJobInstance(settlementJob.getName());
+        if (lastInstance != null) {
+            JobExecution lastExecution = jobExplorer.getLastJobExecution(lastInstance);
+            SettlementWindow lastWindow = lastExecution == null ? null : toWindow(lastExecution.getJobParameters());
+            if (lastWindow != null && lastExecution.getStatus() != BatchStatus.COMPLETED) {
+                // 끝나지 않은 window 가 있으면 새 window 를 열지 않는다.
+                // 새 window 의 정산 id 가 달라 아직 정산 완료되지 않은 결제를 한 번 더 펌뱅킹하게 된다.
+                resumeWindow(lastExecution, lastWindow);
+                return;
+            }
+            if (lastWindow != null && lastWindow.getTo() > settlementWindowPort.getWatermark()) {
+                // job 은 끝났지만 watermark 를 올리기 전에 멈췄다
+                settlementWindowPort.closeWindow(lastWindow);
+            }
+        }
+
+        long windowFrom = settlementWindowPort.getWatermark();
+        long windowTo = paymentPort.getLastPaymentId(System.currentTimeMillis() - settleLagMillis);
+        if (windowTo <= windowFrom) {
+            // 새 결제가 없다
+            return;
+        }
+
+        SettlementWindow window = new SettlementWindow(windowFrom, windowTo);
         JobParameters jobParameters = new JobParametersBuilder()
-                .addLong("time", System.currentTimeMillis())
+                .addLong(SettlementWindow.FROM_KEY, windowFrom)
+                .addLong(SettlementWindow.TO_KEY, windowTo)
                 .toJobParameters();
 
-        // 1 초마다
-        // settlementJob 을
-        // jobParameters 와 함께 실행한다.
-        jobLauncher.run(settlementJob, jobParameters);
+        closeIfCompleted(jobLauncher.run(settlementJob, jobParameters), window);
+    }
+
+    private void resumeWindow(JobExecution lastExecution, SettlementWindow lastWindow) throws Exception {
+        BatchStatus status = lastExecution.getStatus();
+        if (status == BatchStatus.ABANDONED) {
+            log.error("Settlement job execution {} for window {} was abandoned, settlement is halted until it is resolved",
+                    lastExecution.getId(), lastWindow);
+            return;
+        }
+        if (status.isRunning() || status == BatchStatus.UNKNOWN) {
+            // lock 을 잡았는데도 실행 중으로 남아 있으면 job 도중에 JVM 이 죽은 것이다.
+            // lease 보다 오래 갱신되지 않았을 때만 실패로 바꾸고, 그 전에는 아직 돌고 있을 수 있으므로 기다린다.
+            if (!isStale(lastExecution)) {
+                log.info("Settlement job execution {} ({}) for window {} may still be running", lastExecution.getId(), status, lastWindow);
+                return;
+            }
+            markFailed(lastExecution);
+        }
+        // 같은 window 로 다시 실행해 마지막으로 commit 된 위치부터 이어간다
+        log.info("Restarting settlement job execution {} ({}) for window {}", lastExecution.getId(), status, lastWindow);
+        closeIfCompleted(jobLauncher.run(settlementJob, lastExecution.getJobParameters()), lastWindow);
     }
 
+    private boolean isStale(JobExecution execution) {
+        long lastUpdated = lastUpdatedOf(execution.getLastUpdated(), execution.getStartTime(), execution.getCreateTime());
+        for (StepExecution stepExecution : execution.getStepExecutions()) {
+            lastUpdated = Math.max(lastUpdated, lastUpdatedOf(stepExecution.getLastUpdated(), stepExecution.getStartTime(), null));
+        }
+        return System.currentTimeMillis() - lastUpdated > leaseMillis;
+    }
+
+    private static long lastUpdatedOf(Date... dates) {
+        long lastUpdated = 0;
+        for (Date date : dates) {
+            if (date != null) {
+                lastUpdated = Math.max(lastUpdated, date.getTime());
+            }
+        }
+        return lastUpdated;
+    }
+
+    // 죽은 실행을 FAILED 로 바꿔야 JobLauncher 가 같은 파라미터로 재시작할 수 있다
+    private void markFailed(JobExecution execution) {
+        Date now = new Date();
+        for (StepExecution stepExecution : execution.getStepExecutions()) {
+            if (stepExecution.getStatus().isRunning() || stepExecution.getStatus() == BatchStatus.UNKNOWN) {
+                stepExecution.setStatus(BatchStatus.FAILED);
+                stepExecution.setExitStatus(ExitStatus.FAILED);
+                stepExecution.setEndTime(now);
+                jobRepository.update(stepExecution);
+            }
+        }
+        execution.setStatus(BatchStatus.FAILED);
+        execution.setExitStatus(ExitStatus.FAILED);
+        execution.setEndTime(now);
+        jobRepository.update(execution);
+        log.warn("Marked stale settlement job execution {} as FAILED", execution.getId());
+    }
+
+    private void closeIfCompleted(JobExecution execution, SettlementWindow window) {
+        if (execution.getStatus() == BatchStatus.COMPLETED) {
+            settlementWindowPort.closeWindow(window);
+            log.info("Settlement window {} completed", window);
+        }
+    }
 
+    // window 파라미터 없이 실행된 예전 job 이면 null
+    private static SettlementWindow toWindow(JobParameters jobParameters) {
+        Long windowFrom = jobParameters.getLong(SettlementWindow.FROM_KEY);
+        Long windowTo = jobParameters.getLong(SettlementWindow.TO_KEY);
+        if (windowFrom == null || windowTo == null) {
+            return null;
+        }
+        return new SettlementWindow(windowFrom, windowTo);
+    }
 }
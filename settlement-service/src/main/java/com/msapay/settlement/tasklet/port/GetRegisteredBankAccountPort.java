@@ -1,8 +1,15 @@
 package com.msapay.settlement.tasklet.port;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface GetRegisteredBankAccountPort {
     RegisteredBankAccountAggregateIdentifier getRegisteredBankAccount(String membershipId);
 
-    // 타겟 계좌, 금액
-    void requestFirmbanking(String bankName, String bankAccountNumber, int moneyAmount);
+    // membershipId -> 등록 계좌. 등록 계좌가 없는 membershipId 는 결과에 없다.
+    Map<String, RegisteredBankAccountAggregateIdentifier> getRegisteredBankAccounts(Collection<String> membershipIds);
+
+    // 타겟 계좌, 금액. 같은 settlementId 로 다시 요청하면 banking-service 가 처음 결과를 돌려준다.
+    // 펌뱅킹이 성공했으면 true.
+    boolean requestFirmbanking(String bankName, String bankAccountNumber, int moneyAmount, String settlementId);
 }
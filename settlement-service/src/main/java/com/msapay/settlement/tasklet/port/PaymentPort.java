@@ -5,8 +5,13 @@ import com.msapay.settlement.outbound.Payment;
 import java.util.List;
 
 public interface PaymentPort {
-    List<Payment> getNormalStatusPayments(); // membershipId = franchiseId 간주.
+    // membershipId = franchiseId 간주.
+    // (afterPaymentId, toPaymentId] 범위에서 paymentId 순서로 최대 limit 건
+    List<Payment> getNormalStatusPayments(long afterPaymentId, long toPaymentId, int limit);
 
-    // 타겟 계좌, 금액
-    void finishSettlement(Long paymentId);
+    // approvedBeforeMillis 이전에 승인된 결제 중 가장 큰 paymentId, 없으면 0
+    long getLastPaymentId(long approvedBeforeMillis);
+
+    // 승인 상태였다가 이번 호출로 정산 완료가 된 결제 수를 돌려준다
+    int finishSettlements(List<Long> paymentIds);
 }
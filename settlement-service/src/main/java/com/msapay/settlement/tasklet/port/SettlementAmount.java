@@ -0,0 +1,14 @@
+package com.msapay.settlement.tasklet.port;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementAmount {
+    private String settlementId;
+    private String franchiseId;
+    private long amount;
+}
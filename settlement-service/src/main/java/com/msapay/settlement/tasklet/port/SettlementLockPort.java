@@ -0,0 +1,8 @@
+package com.msapay.settlement.tasklet.port;
+
+public interface SettlementLockPort {
+    // 다른 인스턴스가 정산 중이면 false
+    boolean tryLock();
+
+    void unlock();
+}
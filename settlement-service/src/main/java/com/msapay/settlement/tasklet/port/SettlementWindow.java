@@ -0,0 +1,25 @@
+package com.msapay.settlement.tasklet.port;
+
+import lombok.Value;
+
+/**
+ * 한 번의 정산 job 이 맡는 결제 범위 (windowFrom, windowTo].
+ * window 는 job 파라미터로 고정되므로 재시작해도 같은 window, 같은 정산 id 가 나온다.
+ */
+@Value
+public class SettlementWindow {
+    public static final String FROM_KEY = "windowFrom";
+    public static final String TO_KEY = "windowTo";
+
+    long from;
+    long to;
+
+    public boolean contains(long paymentId) {
+        return paymentId > from && paymentId <= to;
+    }
+
+    // (window, 가맹점) 마다 정해지는 정산 id. banking-service 펌뱅킹의 멱등 키로 쓴다.
+    public String settlementId(String franchiseId) {
+        return "settlement-" + from + "-" + to + "-" + franchiseId;
+    }
+}
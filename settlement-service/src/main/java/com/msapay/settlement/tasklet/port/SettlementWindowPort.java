@@ -0,0 +1,23 @@
+package com.msapay.settlement.tasklet.port;
+
+import java.util.List;
+import java.util.Map;
+
+public interface SettlementWindowPort {
+    // 정산이 끝난 마지막 paymentId. 한 번도 정산하지 않았으면 0.
+    long getWatermark();
+
+    // 가맹점별 금액을 window 에 더하고, 합산한 결제를 기록한다. 호출한 쪽의 트랜잭션(chunk) 안에서 쓴다.
+    void addSettlementAmounts(SettlementWindow window, Map<String, Integer> amounts, List<Long> paymentIds);
+
+    // 아직 펌뱅킹하지 않은 가맹점 금액, 최대 limit 건
+    List<SettlementAmount> getUnpaidSettlementAmounts(SettlementWindow window, int limit);
+
+    void markPaid(String settlementId);
+
+    // afterPaymentId 다음부터 paymentId 순서로 window 에 합산된 결제 최대 limit 건
+    List<Long> getSettlementPaymentIds(SettlementWindow window, long afterPaymentId, int limit);
+
+    // watermark 를 window 끝으로 올리고 window 까지의 기록을 지운다
+    void closeWindow(SettlementWindow window);
+}